@@ -0,0 +1,90 @@
+package com.stxvxn.app.benchmark;
+
+import com.stxvxn.app.model.Notification.NotificationType;
+import com.stxvxn.app.model.PackageStatus;
+import com.stxvxn.app.service.NotificationTemplateServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara la construcción de mensajes con la concatenación en un switch
+ * (como lo hacía NotificationServiceImpl) contra las plantillas compiladas.
+ * Ejecutar con: ./mvnw -Pjmh test-compile exec:exec
+ * (agregar -Djmh.args="-prof gc" para ver bytes asignados por operación)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class NotificationMessageBenchmark {
+
+    @Param({"EN_TRANSITO", "ENTREGADO"})
+    private PackageStatus status;
+
+    private NotificationTemplateServiceImpl templates;
+    private String trackingNumber;
+    private NotificationType type;
+
+    @Setup
+    public void setup() {
+        templates = new NotificationTemplateServiceImpl(new DefaultResourceLoader(), new SimpleMeterRegistry(),
+                "classpath:templates/notifications/", "es", List.of("es", "en"), 0);
+        templates.init();
+        trackingNumber = "PC-20240101-000123";
+        type = status == PackageStatus.ENTREGADO ? NotificationType.DELIVERY_CONFIRMED : NotificationType.STATUS_UPDATE;
+    }
+
+    @Benchmark
+    public String concatenation() {
+        return buildMessageForStatus(trackingNumber, status);
+    }
+
+    @Benchmark
+    public String template() {
+        return templates.render(status, type, trackingNumber);
+    }
+
+    @Benchmark
+    public String templateWithLocale() {
+        return templates.render(status, type, trackingNumber, Locale.ENGLISH);
+    }
+
+    /**
+     * Copia de la implementación anterior, como línea base
+     */
+    private static String buildMessageForStatus(String trackingNumber, PackageStatus status) {
+        String baseMessage = "Su paquete con número de rastreo " + trackingNumber;
+
+        switch (status) {
+            case REGISTRADO:
+                return baseMessage + " ha sido registrado en nuestro sistema.";
+            case EN_ALMACEN:
+                return baseMessage + " está en nuestro almacén de origen.";
+            case EN_TRANSITO:
+                return baseMessage + " está en tránsito hacia su destino.";
+            case EN_DISTRIBUCION:
+                return baseMessage + " está en el centro de distribución local.";
+            case EN_REPARTO:
+                return baseMessage + " está siendo entregado. Por favor esté atento.";
+            case ENTREGADO:
+                return baseMessage + " ha sido entregado exitosamente. ¡Gracias por su preferencia!";
+            case DEVUELTO:
+                return baseMessage + " ha sido devuelto. Por favor contacte con atención al cliente.";
+            case PERDIDO:
+                return baseMessage + " ha sido reportado como perdido. Estamos investigando. Contacte con atención al cliente.";
+            default:
+                return baseMessage + " ha cambiado de estado.";
+        }
+    }
+}
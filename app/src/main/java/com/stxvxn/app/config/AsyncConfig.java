@@ -1,9 +1,12 @@
 package com.stxvxn.app.config;
 
+import com.stxvxn.app.util.VirtualThreads;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.aop.interceptor.AsyncUncaughtExceptionHandler;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.scheduling.annotation.AsyncConfigurer;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
@@ -12,16 +15,30 @@ import java.util.concurrent.Executor;
 
 /**
  * Configuración para procesamiento asíncrono.
- * Define el thread pool para eventos y tareas asíncronas.
+ * Define el thread pool para eventos y tareas asíncronas; en el perfil
+ * virtual-threads (Java 21) cada tarea corre en su propio hilo virtual.
  */
 @Configuration
 @EnableAsync
 @Slf4j
 public class AsyncConfig implements AsyncConfigurer {
     
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+    
+    @Value("${petcare.async.virtual-concurrency-limit:1000}")
+    private int virtualConcurrencyLimit;
+    
     @Override
     @Bean(name = "taskExecutor")
     public Executor getAsyncExecutor() {
+        if (virtualThreads) {
+            if (VirtualThreads.isSupported()) {
+                return virtualThreadExecutor();
+            }
+            log.warn("spring.threads.virtual.enabled requires Java 21, using platform threads");
+        }
+        
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
         executor.setCorePoolSize(2);
         executor.setMaxPoolSize(5);
@@ -33,6 +50,19 @@ public class AsyncConfig implements AsyncConfigurer {
         return executor;
     }
     
+    /**
+     * Un hilo virtual por evento: las esperas a MongoDB no ocupan hilos de
+     * plataforma. Al alcanzar el límite, quien publica espera (no hay cola).
+     */
+    private Executor virtualThreadExecutor() {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("async-event-");
+        executor.setVirtualThreads(true);
+        executor.setConcurrencyLimit(virtualConcurrencyLimit);
+        executor.setTaskTerminationTimeout(60_000);
+        log.info("Async events on virtual threads (concurrency limit: {})", virtualConcurrencyLimit);
+        return executor;
+    }
+    
     @Override
     public AsyncUncaughtExceptionHandler getAsyncUncaughtExceptionHandler() {
         return (ex, method, params) -> {
@@ -0,0 +1,33 @@
+package com.stxvxn.app.config;
+
+import com.stxvxn.app.dto.response.IndexReport;
+import com.stxvxn.app.service.IndexManagementService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * Endpoint de Actuator para consultar el estado de los índices.
+ * GET  /actuator/indexes -> reporte de índices faltantes, sin uso y no declarados
+ * POST /actuator/indexes -> construye los índices faltantes y devuelve el reporte
+ */
+@Component
+@Endpoint(id = "indexes")
+@RequiredArgsConstructor
+public class IndexesEndpoint {
+    
+    private final IndexManagementService indexManagementService;
+    
+    @ReadOperation
+    public IndexReport indexes() {
+        return indexManagementService.verifyIndexes();
+    }
+    
+    @WriteOperation
+    public IndexReport build() {
+        indexManagementService.ensureIndexes();
+        return indexManagementService.verifyIndexes();
+    }
+}
@@ -0,0 +1,141 @@
+package com.stxvxn.app.config;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.PartialIndexFilter;
+import org.springframework.data.mongodb.core.query.Criteria;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Catálogo de índices declarados para las colecciones de la aplicación.
+ * Es la única fuente de verdad de los índices: la creación automática de
+ * Spring Data está deshabilitada y el IndexManagementService verifica o
+ * construye estos índices al arrancar.
+ */
+public final class MongoIndexCatalog {
+
+    private static final List<ManagedIndex> INDEXES = List.of(
+        // packages
+        new ManagedIndex("packages", new Index("trackingNumber", Sort.Direction.ASC)
+            .named("trackingNumber").unique()),
+        new ManagedIndex("packages", new Index("trackingKey", Sort.Direction.ASC)
+            .named("trackingKey_unique_partial").unique()
+            .partial(PartialIndexFilter.of(Criteria.where("trackingKey").exists(true)))),
+        // Los índices de orden incluyen _id para la paginación por cursor (keyset)
+        new ManagedIndex("packages", new Index("status", Sort.Direction.ASC)
+            .on("createdAt", Sort.Direction.DESC)
+            .on("_id", Sort.Direction.DESC)
+            .named("status_1_createdAt_-1__id_-1")),
+        new ManagedIndex("packages", new Index("status", Sort.Direction.ASC)
+            .on("updatedAt", Sort.Direction.DESC)
+            .on("_id", Sort.Direction.DESC)
+            .named("status_1_updatedAt_-1__id_-1")),
+        new ManagedIndex("packages", new Index("createdAt", Sort.Direction.DESC)
+            .on("_id", Sort.Direction.DESC)
+            .named("createdAt_-1__id_-1")),
+        new ManagedIndex("packages", new Index("updatedAt", Sort.Direction.DESC)
+            .on("_id", Sort.Direction.DESC)
+            .named("updatedAt_-1__id_-1")),
+        new ManagedIndex("packages", new Index("recipientPhone", Sort.Direction.ASC)
+            .named("recipientPhone_1")),
+
+        // notifications
+        new ManagedIndex("notifications", new Index("packageId", Sort.Direction.ASC)
+            .named("packageId_1")),
+        new ManagedIndex("notifications", new Index("trackingNumber", Sort.Direction.ASC)
+            .named("trackingNumber_1")),
+        new ManagedIndex("notifications", new Index("recipientPhone", Sort.Direction.ASC)
+            .named("recipientPhone_1")),
+        // Cola paginada por cursor (incluye _id) y dead-letter más reciente
+        new ManagedIndex("notifications", new Index("status", Sort.Direction.ASC)
+            .on("createdAt", Sort.Direction.DESC)
+            .on("_id", Sort.Direction.DESC)
+            .named("status_1_createdAt_-1__id_-1")),
+        // Cubre la agregación del resumen del backlog (tipo y antigüedad)
+        new ManagedIndex("notifications", new Index("status", Sort.Direction.ASC)
+            .on("type", Sort.Direction.ASC)
+            .on("createdAt", Sort.Direction.ASC)
+            .named("status_1_type_1_createdAt_1")),
+        // Reclamo de pendientes por canal en orden de próximo intento
+        new ManagedIndex("notifications", new Index("status", Sort.Direction.ASC)
+            .on("channel", Sort.Direction.ASC)
+            .on("nextAttemptAt", Sort.Direction.ASC)
+            .named("status_1_channel_1_nextAttemptAt_1")),
+        // Un evento del outbox genera como mucho una notificación (reentregas idempotentes)
+        new ManagedIndex("notifications", new Index("outboxIds", Sort.Direction.ASC)
+            .named("outboxIds_unique_partial").unique()
+            .partial(PartialIndexFilter.of(Criteria.where("outboxIds").exists(true)))),
+        // Una sola pendiente fusionable por destinatario y número de rastreo: dos réplicas
+        // que hacen el upsert a la vez no pueden insertar dos (sale del índice al reclamarse)
+        new ManagedIndex("notifications", new Index("trackingNumber", Sort.Direction.ASC)
+            .on("recipientPhone", Sort.Direction.ASC)
+            .named("trackingNumber_1_recipientPhone_1_coalescing").unique()
+            .partial(PartialIndexFilter.of(Criteria.where("status").is("PENDING")
+                .and("attempts").is(0)
+                .and("lastBatchId").exists(true)))),
+        // Expiración de las enviadas; NotificationRetentionService ajusta el TTL a ttl-days
+        new ManagedIndex("notifications", new Index("sentAt", Sort.Direction.ASC)
+            .named("sentAt_ttl")
+            .expire(Duration.ofDays(30))
+            .partial(PartialIndexFilter.of(Criteria.where("sentAt").exists(true)))),
+
+        // notifications_archive (archivo frío comprimido, consultado solo a pedido)
+        new ManagedIndex("notifications_archive", new Index("packageId", Sort.Direction.ASC)
+            .named("packageId_1")),
+        new ManagedIndex("notifications_archive", new Index("trackingNumber", Sort.Direction.ASC)
+            .named("trackingNumber_1")),
+
+        // package_history (el índice único hace idempotentes los reintentos y la migración)
+        new ManagedIndex("package_history", new Index("packageId", Sort.Direction.ASC)
+            .on("timestamp", Sort.Direction.ASC)
+            .on("status", Sort.Direction.ASC)
+            .named("packageId_1_timestamp_1_status_1").unique()),
+
+        // package_outbox (el relay reclama por leaseUntil)
+        new ManagedIndex("package_outbox", new Index("leaseUntil", Sort.Direction.ASC)
+            .named("leaseUntil_1")),
+
+        // employees
+        new ManagedIndex("employees", new Index("employeeId", Sort.Direction.ASC)
+            .named("employeeId").unique()),
+        new ManagedIndex("employees", new Index("email", Sort.Direction.ASC)
+            .named("email_1").unique()),
+        new ManagedIndex("employees", new Index("role", Sort.Direction.ASC)
+            .named("role_1")),
+
+        // pets
+        new ManagedIndex("pets", new Index("species", Sort.Direction.ASC)
+            .named("species_1"))
+    );
+
+    /**
+     * Obtiene todos los índices declarados.
+     *
+     * @return Lista inmutable de índices
+     */
+    public static List<ManagedIndex> indexes() {
+        return INDEXES;
+    }
+
+    /**
+     * Índice declarado junto con la colección a la que pertenece.
+     */
+    @Getter
+    @RequiredArgsConstructor
+    public static class ManagedIndex {
+        private final String collection;
+        private final Index index;
+
+        public String getName() {
+            return index.getIndexOptions().getString("name");
+        }
+    }
+
+    private MongoIndexCatalog() {
+        // Prevenir instanciación
+    }
+}
@@ -0,0 +1,28 @@
+package com.stxvxn.app.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.MongoTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Transacciones multi-documento de MongoDB (requiere replica set).
+ * Permite escribir el cambio de un paquete y su entrada del outbox de
+ * forma atómica (PackageOutboxService.inTransaction). Solo se usa donde
+ * hace falta atomicidad entre documentos: cada transacción agrega un
+ * round-trip de commit.
+ */
+@Configuration
+public class MongoTransactionConfig {
+    
+    @Bean
+    public MongoTransactionManager transactionManager(MongoDatabaseFactory databaseFactory) {
+        return new MongoTransactionManager(databaseFactory);
+    }
+    
+    @Bean
+    public TransactionTemplate transactionTemplate(MongoTransactionManager transactionManager) {
+        return new TransactionTemplate(transactionManager);
+    }
+}
@@ -0,0 +1,43 @@
+package com.stxvxn.app.config;
+
+import com.stxvxn.app.model.Notification.NotificationChannel;
+import com.stxvxn.app.service.channel.NotificationSender;
+import com.stxvxn.app.service.channel.StubNotificationSender;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Proveedores de los canales de notificación.
+ * Con provider=stub (por defecto) cada canal usa un proveedor local
+ * simulado; para un proveedor real se cambia el valor y se registra un
+ * bean NotificationSender para ese canal.
+ */
+@Configuration
+public class NotificationChannelConfig {
+    
+    @Bean
+    @ConditionalOnProperty(name = "petcare.notifications.channels.sms.provider", havingValue = "stub", matchIfMissing = true)
+    public NotificationSender smsStubSender(
+            @Value("${petcare.notifications.channels.sms.stub.latency-ms:20}") long latencyMs,
+            @Value("${petcare.notifications.channels.sms.stub.failure-rate:0}") double failureRate) {
+        return new StubNotificationSender(NotificationChannel.SMS, latencyMs, failureRate);
+    }
+    
+    @Bean
+    @ConditionalOnProperty(name = "petcare.notifications.channels.email.provider", havingValue = "stub", matchIfMissing = true)
+    public NotificationSender emailStubSender(
+            @Value("${petcare.notifications.channels.email.stub.latency-ms:50}") long latencyMs,
+            @Value("${petcare.notifications.channels.email.stub.failure-rate:0}") double failureRate) {
+        return new StubNotificationSender(NotificationChannel.EMAIL, latencyMs, failureRate);
+    }
+    
+    @Bean
+    @ConditionalOnProperty(name = "petcare.notifications.channels.push.provider", havingValue = "stub", matchIfMissing = true)
+    public NotificationSender pushStubSender(
+            @Value("${petcare.notifications.channels.push.stub.latency-ms:10}") long latencyMs,
+            @Value("${petcare.notifications.channels.push.stub.failure-rate:0}") double failureRate) {
+        return new StubNotificationSender(NotificationChannel.PUSH, latencyMs, failureRate);
+    }
+}
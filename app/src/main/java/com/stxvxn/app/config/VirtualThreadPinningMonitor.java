@@ -0,0 +1,104 @@
+package com.stxvxn.app.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Diagnóstico de pinning en el perfil virtual-threads.
+ * Un hilo virtual queda fijado a su carrier si se bloquea dentro de un
+ * bloque synchronized o de código nativo (por ejemplo una carga de MongoDB
+ * dentro de un compute de ConcurrentHashMap); mientras tanto ese carrier no
+ * atiende a otros hilos. Escucha el evento JFR jdk.VirtualThreadPinned,
+ * lo mide en petcare.vthreads.pinned y registra cada ubicación una vez.
+ */
+@Component
+@ConditionalOnThreading(Threading.VIRTUAL)
+@ConditionalOnProperty(name = "petcare.threads.pinning-monitor.enabled", havingValue = "true")
+@Slf4j
+public class VirtualThreadPinningMonitor {
+    
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final String APP_PACKAGE = "com.stxvxn.app";
+    private static final int MAX_LOGGED_LOCATIONS = 100;
+    private static final int LOGGED_FRAMES = 8;
+    
+    private final Timer pinned;
+    private final long thresholdMs;
+    private final Set<String> loggedLocations = ConcurrentHashMap.newKeySet();
+    private RecordingStream stream;
+    
+    public VirtualThreadPinningMonitor(
+            MeterRegistry meterRegistry,
+            @Value("${petcare.threads.pinning-monitor.threshold-ms:20}") long thresholdMs) {
+        this.thresholdMs = thresholdMs;
+        this.pinned = Timer.builder("petcare.vthreads.pinned")
+                .description("Tiempo que un hilo virtual estuvo fijado a su carrier")
+                .register(meterRegistry);
+    }
+    
+    @PostConstruct
+    public void start() {
+        stream = new RecordingStream();
+        stream.enable(PINNED_EVENT)
+                .withThreshold(Duration.ofMillis(thresholdMs))
+                .withStackTrace();
+        stream.onEvent(PINNED_EVENT, this::onPinned);
+        stream.startAsync();
+        log.info("Virtual thread pinning monitor started (threshold: {} ms)", thresholdMs);
+    }
+    
+    @PreDestroy
+    public void stop() {
+        if (stream != null) {
+            stream.close();
+        }
+    }
+    
+    private void onPinned(RecordedEvent event) {
+        pinned.record(event.getDuration());
+        if (event.getStackTrace() == null) {
+            return;
+        }
+        
+        List<RecordedFrame> frames = event.getStackTrace().getFrames();
+        String location = frames.stream()
+                .filter(frame -> frame.getMethod().getType().getName().startsWith(APP_PACKAGE))
+                .findFirst()
+                .or(() -> frames.stream().findFirst())
+                .map(VirtualThreadPinningMonitor::describe)
+                .orElse("unknown");
+        
+        // Cada ubicación se registra una vez; el total queda en la métrica
+        if (loggedLocations.size() < MAX_LOGGED_LOCATIONS && loggedLocations.add(location)) {
+            log.warn("Virtual thread pinned for {} ms at {}:\n    {}",
+                     event.getDuration().toMillis(),
+                     location,
+                     frames.stream()
+                             .limit(LOGGED_FRAMES)
+                             .map(VirtualThreadPinningMonitor::describe)
+                             .collect(Collectors.joining("\n    ")));
+        }
+    }
+    
+    private static String describe(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName() 
+                + ":" + frame.getLineNumber();
+    }
+}
@@ -0,0 +1,25 @@
+package com.stxvxn.app.config;
+
+import com.stxvxn.app.controller.DispatchWebSocketHandler;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+
+/**
+ * Configuración de los endpoints WebSocket.
+ */
+@Configuration
+@EnableWebSocket
+@RequiredArgsConstructor
+public class WebSocketConfig implements WebSocketConfigurer {
+    
+    private final DispatchWebSocketHandler dispatchWebSocketHandler;
+    
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        registry.addHandler(dispatchWebSocketHandler, "/ws/dispatch")
+                .setAllowedOrigins("*");
+    }
+}
@@ -0,0 +1,85 @@
+package com.stxvxn.app.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stxvxn.app.dto.request.DispatchSubscriptionRequest;
+import com.stxvxn.app.exception.TooManyConnectionsException;
+import com.stxvxn.app.model.PackageStatus;
+import com.stxvxn.app.service.DispatchStreamService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+import java.util.List;
+
+/**
+ * Endpoint WebSocket del canal de despacho (/ws/dispatch).
+ * Recibe los mensajes de suscripción; los cambios se envían desde
+ * DispatchStreamService.
+ */
+@Component
+@Slf4j
+public class DispatchWebSocketHandler extends TextWebSocketHandler {
+    
+    private final DispatchStreamService dispatchStreamService;
+    private final ObjectMapper objectMapper;
+    private final int maxMessageSize;
+    
+    public DispatchWebSocketHandler(
+            DispatchStreamService dispatchStreamService,
+            ObjectMapper objectMapper,
+            @Value("${petcare.dispatch.max-message-size:65536}") int maxMessageSize) {
+        this.dispatchStreamService = dispatchStreamService;
+        this.objectMapper = objectMapper;
+        this.maxMessageSize = maxMessageSize;
+    }
+    
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+        session.setTextMessageSizeLimit(maxMessageSize);
+        try {
+            dispatchStreamService.open(session);
+        } catch (TooManyConnectionsException e) {
+            log.warn("Rejecting dispatch session {}: {}", session.getId(), e.getMessage());
+            session.close(CloseStatus.SERVICE_OVERLOAD);
+        }
+    }
+    
+    @Override
+    protected void handleTextMessage(WebSocketSession session, TextMessage message) {
+        DispatchSubscriptionRequest request;
+        try {
+            request = objectMapper.readValue(message.getPayload(), DispatchSubscriptionRequest.class);
+        } catch (JsonProcessingException e) {
+            dispatchStreamService.sendError(session.getId(), "Mensaje inválido: " + e.getOriginalMessage());
+            return;
+        }
+        
+        List<String> trackingNumbers = request.getTrackingNumbers() != null ? request.getTrackingNumbers() : List.of();
+        List<PackageStatus> statuses = request.getStatuses() != null ? request.getStatuses() : List.of();
+        
+        if (DispatchSubscriptionRequest.SUBSCRIBE.equals(request.getAction())) {
+            dispatchStreamService.subscribe(session.getId(), trackingNumbers, statuses);
+        } else if (DispatchSubscriptionRequest.UNSUBSCRIBE.equals(request.getAction())) {
+            dispatchStreamService.unsubscribe(session.getId(), trackingNumbers, statuses);
+        } else {
+            dispatchStreamService.sendError(session.getId(),
+                "Acción no soportada: " + request.getAction() + " (subscribe | unsubscribe)");
+        }
+    }
+    
+    @Override
+    public void handleTransportError(WebSocketSession session, Throwable exception) {
+        log.debug("Dispatch transport error for {}: {}", session.getId(), exception.getMessage());
+        dispatchStreamService.close(session.getId());
+    }
+    
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        dispatchStreamService.close(session.getId());
+    }
+}
@@ -2,6 +2,8 @@ package com.stxvxn.app.controller;
 
 import com.stxvxn.app.dto.UpdateStatusRequest;
 import com.stxvxn.app.dto.request.EmployeeRequest;
+import com.stxvxn.app.dto.request.StatusScanBatchRequest;
+import com.stxvxn.app.dto.response.BatchResponse;
 import com.stxvxn.app.dto.response.EmployeeResponse;
 import com.stxvxn.app.exception.EmployeeNotFoundException;
 import com.stxvxn.app.exception.PackageNotFoundException;
@@ -148,4 +150,31 @@ public class EmployeeController {
         
         return ResponseEntity.ok(response);
     }
+    
+    /**
+     * Registrar en bloque los escaneos de un empleado (terminales de bodega).
+     * El empleado se valida una sola vez para todo el lote.
+     * Responde 200 si todos los escaneos se aplicaron y 207 si hubo fallos parciales.
+     * 
+     * @param request Empleado y lista de escaneos
+     * @return Respuesta con el resultado por escaneo
+     */
+    @PostMapping("/packages/status/batch")
+    public ResponseEntity<Map<String, Object>> applyStatusScans(
+            @Valid @RequestBody StatusScanBatchRequest request) {
+        log.info("POST /api/employees/packages/status/batch - {} scans by employee: {}", 
+                 request.getScans().size(), request.getEmployeeId());
+        
+        employeeService.validateEmployee(request.getEmployeeId());
+        
+        BatchResponse response = packageService.applyStatusScans(
+            request.getEmployeeId(), 
+            request.getScans()
+        );
+        HttpStatus status = response.getFailed() == 0 ? HttpStatus.OK : HttpStatus.MULTI_STATUS;
+        
+        return ResponseEntity
+                .status(status)
+                .body(ResponseBuilder.success(response, instanceName));
+    }
 }
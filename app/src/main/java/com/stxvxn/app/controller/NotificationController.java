@@ -1,14 +1,24 @@
 package com.stxvxn.app.controller;
 
+import com.stxvxn.app.dto.request.CursorPageRequest;
+import com.stxvxn.app.dto.request.NotificationReplayRequest;
+import com.stxvxn.app.dto.response.CursorPageResponse;
+import com.stxvxn.app.exception.ValidationException;
 import com.stxvxn.app.model.Notification;
+import com.stxvxn.app.service.NotificationDispatchService;
 import com.stxvxn.app.service.NotificationService;
+import com.stxvxn.app.service.NotificationTemplateService;
+import com.stxvxn.app.util.Constants;
+import com.stxvxn.app.util.ResponseBuilder;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
 /**
@@ -21,16 +31,24 @@ public class NotificationController {
     @Autowired
     private NotificationService notificationService;
     
+    @Autowired
+    private NotificationDispatchService notificationDispatchService;
+    
+    @Autowired
+    private NotificationTemplateService notificationTemplateService;
+    
     @Value("${instance.name:app}")
     private String instanceName;
     
     /**
-     * Obtener notificaciones de un paquete
+     * Obtener notificaciones de un paquete (con includeArchived=true también las archivadas)
      */
     @GetMapping("/package/{packageId}")
-    public ResponseEntity<?> getNotificationsByPackageId(@PathVariable String packageId) {
+    public ResponseEntity<?> getNotificationsByPackageId(
+            @PathVariable String packageId,
+            @RequestParam(defaultValue = "false") boolean includeArchived) {
         try {
-            List<Notification> notifications = notificationService.getNotificationsByPackageId(packageId);
+            List<Notification> notifications = notificationService.getNotificationsByPackageId(packageId, includeArchived);
             Map<String, Object> result = new HashMap<>();
             result.put("success", true);
             result.put("data", notifications);
@@ -48,12 +66,14 @@ public class NotificationController {
     }
     
     /**
-     * Obtener notificaciones por número de rastreo
+     * Obtener notificaciones por número de rastreo (con includeArchived=true también las archivadas)
      */
     @GetMapping("/tracking/{trackingNumber}")
-    public ResponseEntity<?> getNotificationsByTrackingNumber(@PathVariable String trackingNumber) {
+    public ResponseEntity<?> getNotificationsByTrackingNumber(
+            @PathVariable String trackingNumber,
+            @RequestParam(defaultValue = "false") boolean includeArchived) {
         try {
-            List<Notification> notifications = notificationService.getNotificationsByTrackingNumber(trackingNumber);
+            List<Notification> notifications = notificationService.getNotificationsByTrackingNumber(trackingNumber, includeArchived);
             Map<String, Object> result = new HashMap<>();
             result.put("success", true);
             result.put("data", notifications);
@@ -72,26 +92,77 @@ public class NotificationController {
     }
     
     /**
-     * Obtener notificaciones pendientes
+     * Obtener la cola de notificaciones pendientes, paginada por cursor
+     * 
+     * @param cursor Token de la página anterior (opcional; sin él, primera página)
+     * @param size Tamaño de página (opcional, default: 20, max: 100)
+     * @param direction Orden por createdAt (opcional, default: ASC, las más antiguas primero)
+     * @param count Conteo: none, estimated o exact (opcional, default: none)
      */
     @GetMapping("/pending")
-    public ResponseEntity<?> getPendingNotifications() {
-        try {
-            List<Notification> notifications = notificationService.getPendingNotifications();
-            Map<String, Object> result = new HashMap<>();
-            result.put("success", true);
-            result.put("data", notifications);
-            result.put("count", notifications.size());
-            result.put("instance", instanceName);
-            return ResponseEntity.ok(result);
-        } catch (Exception e) {
-            Map<String, Object> error = new HashMap<>();
-            error.put("success", false);
-            error.put("error", "Error al obtener notificaciones pendientes");
-            error.put("message", e.getMessage());
-            error.put("instance", instanceName);
-            return ResponseEntity.status(500).body(error);
+    public ResponseEntity<Map<String, Object>> getPendingNotifications(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false, defaultValue = "ASC") String direction,
+            @RequestParam(required = false, defaultValue = "none") String count) {
+        CursorPageRequest request = CursorPageRequest.builder()
+                .cursor(cursor)
+                .size(size != null ? size : Constants.DEFAULT_PAGE_SIZE)
+                .direction("DESC".equalsIgnoreCase(direction) ? Sort.Direction.DESC : Sort.Direction.ASC)
+                .countMode(CursorPageRequest.CountMode.from(count))
+                .build();
+        CursorPageResponse<Notification> page = notificationService.getPendingNotifications(request);
+        return ResponseEntity.ok(ResponseBuilder.successWithCursor(page, instanceName));
+    }
+    
+    /**
+     * Resumen de la cola de pendientes por tipo y antigüedad (para monitoreo)
+     */
+    @GetMapping("/pending/summary")
+    public ResponseEntity<Map<String, Object>> getPendingSummary() {
+        return ResponseEntity.ok(ResponseBuilder.success(notificationService.getBacklogSummary(), instanceName));
+    }
+    
+    /**
+     * Obtener notificaciones en dead-letter (agotaron sus reintentos)
+     */
+    @GetMapping("/failed")
+    public ResponseEntity<Map<String, Object>> getFailedNotifications(
+            @RequestParam(defaultValue = "100") int limit) {
+        List<Notification> notifications = notificationDispatchService.getFailed(limit);
+        Map<String, Object> response = ResponseBuilder.success(notifications, instanceName);
+        response.put("count", notifications.size());
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * Reprogramar notificaciones en dead-letter por ID, o todas con all=true
+     */
+    @PostMapping("/failed/replay")
+    public ResponseEntity<Map<String, Object>> replayFailedNotifications(
+            @RequestBody(required = false) NotificationReplayRequest request) {
+        List<String> ids = request != null && request.getIds() != null ? request.getIds() : List.of();
+        boolean all = request != null && request.isAll();
+        // Reprogramar todo el dead-letter tiene que pedirse explícitamente
+        if (all == !ids.isEmpty()) {
+            throw new ValidationException("Indique los ids a reprogramar o all=true, pero no ambos");
         }
+        long replayed = all
+                ? notificationDispatchService.replayAllFailed()
+                : notificationDispatchService.replayFailed(ids);
+        return ResponseEntity.ok(ResponseBuilder.success(Map.of("replayed", replayed), instanceName));
+    }
+    
+    /**
+     * Recargar las plantillas de notificación sin reiniciar la aplicación
+     */
+    @PostMapping("/templates/reload")
+    public ResponseEntity<Map<String, Object>> reloadTemplates() {
+        int templates = notificationTemplateService.reload();
+        List<String> locales = notificationTemplateService.getLocales().stream()
+                .map(Locale::toLanguageTag)
+                .toList();
+        return ResponseEntity.ok(ResponseBuilder.success(
+            Map.of("templates", templates, "locales", locales), instanceName));
     }
 }
-
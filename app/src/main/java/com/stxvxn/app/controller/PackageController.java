@@ -2,11 +2,20 @@ package com.stxvxn.app.controller;
 
 import com.stxvxn.app.dto.CreatePackageRequest;
 import com.stxvxn.app.dto.PackageResponse;
+import com.stxvxn.app.dto.request.CreatePackageBatchRequest;
+import com.stxvxn.app.dto.request.CursorPageRequest;
+import com.stxvxn.app.dto.request.PackageView;
+import com.stxvxn.app.dto.response.BatchResponse;
+import com.stxvxn.app.dto.response.CursorPageResponse;
+import com.stxvxn.app.dto.response.PackageJson;
+import com.stxvxn.app.dto.response.PackageVersion;
 import com.stxvxn.app.dto.response.PageResponse;
 import com.stxvxn.app.exception.PackageNotFoundException;
 import com.stxvxn.app.model.PackageStatus;
+import com.stxvxn.app.service.PackageHistoryService;
 import com.stxvxn.app.service.PackageService;
 import com.stxvxn.app.util.Constants;
+import com.stxvxn.app.util.NdjsonResponseWriter;
 import com.stxvxn.app.util.ResponseBuilder;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -15,12 +24,17 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Controlador REST para gestión de paquetes.
@@ -33,10 +47,15 @@ import java.util.Map;
 public class PackageController {
     
     private final PackageService packageService;
+    private final PackageHistoryService packageHistoryService;
+    private final NdjsonResponseWriter ndjsonResponseWriter;
     
     @Value("${instance.name:app}")
     private String instanceName;
     
+    @Value("${petcare.tracking.cache-max-age-seconds:5}")
+    private long cacheMaxAgeSeconds;
+    
     /**
      * Crear un nuevo paquete.
      * 
@@ -55,6 +74,27 @@ public class PackageController {
                 .body(ResponseBuilder.success(response, instanceName));
     }
     
+    /**
+     * Registrar un lote de paquetes.
+     * Responde 201 si todos se crearon y 207 si hubo fallos parciales;
+     * el detalle de cada elemento va en data.results.
+     * 
+     * @param request Lote de paquetes a crear
+     * @return Respuesta con el resultado por elemento
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<Map<String, Object>> createPackages(
+            @Valid @RequestBody CreatePackageBatchRequest request) {
+        log.info("POST /api/packages/batch - Creating {} packages", request.getPackages().size());
+        
+        BatchResponse response = packageService.createPackages(request.getPackages());
+        HttpStatus status = response.getFailed() == 0 ? HttpStatus.CREATED : HttpStatus.MULTI_STATUS;
+        
+        return ResponseEntity
+                .status(status)
+                .body(ResponseBuilder.success(response, instanceName));
+    }
+    
     /**
      * Obtener un paquete por ID.
      * 
@@ -73,29 +113,88 @@ public class PackageController {
     
     /**
      * Obtener un paquete por número de rastreo.
+     * Admite peticiones condicionales (If-None-Match / If-Modified-Since):
+     * si el paquete no cambió responde 304. El ETag y el cuerpo salen de la
+     * misma entrada de la caché de paquetes, así que siempre coinciden.
      * 
      * @param trackingNumber Número de rastreo del paquete
-     * @return Respuesta con el paquete encontrado
+     * @param webRequest Petición (cabeceras condicionales)
+     * @return Respuesta con el paquete encontrado, o 304 si no cambió
      */
     @GetMapping("/tracking/{trackingNumber}")
     public ResponseEntity<Map<String, Object>> getPackageByTrackingNumber(
-            @PathVariable String trackingNumber) {
+            @PathVariable String trackingNumber,
+            WebRequest webRequest) {
         log.debug("GET /api/packages/tracking/{} - Finding package by tracking number", trackingNumber);
         
-        PackageResponse response = packageService.findByTrackingNumber(trackingNumber)
+        // JSON pre-serializado desde la caché de paquetes, con la versión de la que salió
+        PackageJson response = packageService.findJsonByTrackingNumber(trackingNumber)
                 .orElseThrow(() -> new PackageNotFoundException(trackingNumber));
+        PackageVersion version = response.getVersion();
+        CacheControl cacheControl = CacheControl.maxAge(cacheMaxAgeSeconds, TimeUnit.SECONDS).cachePublic();
         
-        return ResponseEntity.ok(ResponseBuilder.success(response, instanceName));
+        if (webRequest.checkNotModified(version.toETag(), version.lastModifiedMillis())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(cacheControl).build();
+        }
+        
+        // checkNotModified ya agregó ETag y Last-Modified
+        return ResponseEntity.ok()
+                .cacheControl(cacheControl)
+                .body(ResponseBuilder.success(response.getJson(), instanceName));
+    }
+    
+    /**
+     * Obtener el historial completo de estados de un paquete.
+     * El paquete solo incluye sus últimos cambios; el historial completo se pagina aquí.
+     * 
+     * @param trackingNumber Número de rastreo del paquete
+     * @param page Número de página (opcional, default: 0)
+     * @param size Tamaño de página (opcional, default: 20, max: 100)
+     * @param direction Orden por fecha (opcional, default: ASC)
+     * @return Respuesta paginada con el historial
+     */
+    @GetMapping("/tracking/{trackingNumber}/history")
+    public ResponseEntity<Map<String, Object>> getPackageHistory(
+            @PathVariable String trackingNumber,
+            @RequestParam(required = false, defaultValue = "0") int page,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false, defaultValue = "ASC") String direction) {
+        log.debug("GET /api/packages/tracking/{}/history - page={}, size={}", trackingNumber, page, size);
+        
+        int pageSize = size != null ? Math.min(size, Constants.MAX_PAGE_SIZE) : Constants.DEFAULT_PAGE_SIZE;
+        Sort.Direction sortDirection = "DESC".equalsIgnoreCase(direction) 
+                ? Sort.Direction.DESC 
+                : Sort.Direction.ASC;
+        Pageable pageable = PageRequest.of(page, pageSize, Sort.by(sortDirection, "timestamp"));
+        
+        PageResponse<PackageResponse.StatusHistoryResponse> pageResponse = 
+                packageHistoryService.findHistory(trackingNumber, pageable);
+        Map<String, Object> response = ResponseBuilder.success(pageResponse.getContent(), instanceName);
+        response.put("pagination", Map.of(
+            "page", pageResponse.getPage(),
+            "size", pageResponse.getSize(),
+            "totalElements", pageResponse.getTotalElements(),
+            "totalPages", pageResponse.getTotalPages(),
+            "hasNext", pageResponse.isHasNext(),
+            "hasPrevious", pageResponse.isHasPrevious()
+        ));
+        response.put("trackingNumber", trackingNumber);
+        
+        return ResponseEntity.ok(response);
     }
     
     /**
      * Obtener todos los paquetes.
-     * Soporta paginación opcional mediante parámetros de query.
+     * Soporta paginación opcional mediante parámetros de query: por offset (page/size)
+     * o por cursor (cursor, vacío para la primera página).
      * 
      * @param page Número de página (opcional, default: 0)
      * @param size Tamaño de página (opcional, default: 20, max: 100)
      * @param sort Campo para ordenar (opcional, default: createdAt)
      * @param direction Dirección de ordenamiento (opcional, default: DESC)
+     * @param cursor Token de paginación por cursor (opcional)
+     * @param count Conteo en modo cursor: none, estimated o exact (opcional, default: none)
+     * @param view Vista: summary (sin historial) o full (opcional, default: full)
      * @return Respuesta con la lista de paquetes o respuesta paginada
      */
     @GetMapping
@@ -103,7 +202,24 @@ public class PackageController {
             @RequestParam(required = false) Integer page,
             @RequestParam(required = false) Integer size,
             @RequestParam(required = false, defaultValue = "createdAt") String sort,
-            @RequestParam(required = false, defaultValue = "DESC") String direction) {
+            @RequestParam(required = false, defaultValue = "DESC") String direction,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false, defaultValue = "none") String count,
+            @RequestParam(required = false, defaultValue = "full") String view) {
+        
+        boolean summary = PackageView.from(view) == PackageView.SUMMARY;
+        
+        // Paginación por cursor (keyset), sin skip() ni conteo obligatorio
+        if (cursor != null) {
+            log.info("GET /api/packages - Getting all packages with cursor pagination: size={}, view={}", 
+                     size, view);
+            
+            CursorPageRequest request = cursorPageRequest(cursor, size, sort, direction, count);
+            CursorPageResponse<?> cursorPage = summary 
+                    ? packageService.findSummaries(request) 
+                    : packageService.findAll(request);
+            return ResponseEntity.ok(ResponseBuilder.successWithCursor(cursorPage, instanceName));
+        }
         
         // Si se proporcionan parámetros de paginación, usar paginación
         if (page != null || size != null) {
@@ -118,7 +234,9 @@ public class PackageController {
                     : Sort.Direction.DESC;
             Pageable pageable = PageRequest.of(pageNumber, pageSize, Sort.by(sortDirection, sort));
             
-            PageResponse<PackageResponse> pageResponse = packageService.findAll(pageable);
+            PageResponse<?> pageResponse = summary 
+                    ? packageService.findSummaries(pageable) 
+                    : packageService.findAll(pageable);
             Map<String, Object> response = ResponseBuilder.success(pageResponse.getContent(), instanceName);
             response.put("pagination", Map.of(
                 "page", pageResponse.getPage(),
@@ -133,23 +251,45 @@ public class PackageController {
         }
         
         // Sin paginación (comportamiento original)
-        log.info("GET /api/packages - Getting all packages");
-        List<PackageResponse> packages = packageService.findAll();
+        log.info("GET /api/packages - Getting all packages: view={}", view);
+        List<?> packages = summary ? packageService.findSummaries() : packageService.findAll();
         Map<String, Object> response = ResponseBuilder.success(packages, instanceName);
         response.put("count", packages.size());
         
         return ResponseEntity.ok(response);
     }
     
+    /**
+     * Obtener todos los paquetes en streaming (Accept: application/x-ndjson).
+     * Cada paquete se escribe como una línea JSON a medida que se lee del cursor.
+     * 
+     * @param view Vista: summary (sin historial) o full (opcional, default: full)
+     * @return Respuesta NDJSON con todos los paquetes
+     */
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllPackages(
+            @RequestParam(required = false, defaultValue = "full") String view) {
+        log.info("GET /api/packages - Streaming all packages as NDJSON: view={}", view);
+        
+        if (PackageView.from(view) == PackageView.SUMMARY) {
+            return ndjsonResponseWriter.stream(packageService::streamSummaries);
+        }
+        return ndjsonResponseWriter.stream(packageService::streamAll);
+    }
+    
     /**
      * Obtener paquetes por estado.
-     * Soporta paginación opcional mediante parámetros de query.
+     * Soporta paginación opcional mediante parámetros de query: por offset (page/size)
+     * o por cursor (cursor, vacío para la primera página).
      * 
      * @param status Estado del paquete
      * @param page Número de página (opcional, default: 0)
      * @param size Tamaño de página (opcional, default: 20, max: 100)
      * @param sort Campo para ordenar (opcional, default: createdAt)
      * @param direction Dirección de ordenamiento (opcional, default: DESC)
+     * @param cursor Token de paginación por cursor (opcional)
+     * @param count Conteo en modo cursor: none, estimated o exact (opcional, default: none)
+     * @param view Vista: summary (sin historial) o full (opcional, default: full)
      * @return Respuesta con la lista de paquetes filtrados por estado o respuesta paginada
      */
     @GetMapping("/status/{status}")
@@ -158,9 +298,28 @@ public class PackageController {
             @RequestParam(required = false) Integer page,
             @RequestParam(required = false) Integer size,
             @RequestParam(required = false, defaultValue = "createdAt") String sort,
-            @RequestParam(required = false, defaultValue = "DESC") String direction) {
+            @RequestParam(required = false, defaultValue = "DESC") String direction,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false, defaultValue = "none") String count,
+            @RequestParam(required = false, defaultValue = "full") String view) {
         
         PackageStatus packageStatus = PackageStatus.valueOf(status.toUpperCase());
+        boolean summary = PackageView.from(view) == PackageView.SUMMARY;
+        
+        // Paginación por cursor (keyset), sin skip() ni conteo obligatorio
+        if (cursor != null) {
+            log.info("GET /api/packages/status/{} - Getting packages by status with cursor pagination: size={}, view={}", 
+                     status, size, view);
+            
+            CursorPageRequest request = cursorPageRequest(cursor, size, sort, direction, count);
+            CursorPageResponse<?> cursorPage = summary 
+                    ? packageService.findSummariesByStatus(packageStatus, request) 
+                    : packageService.findByStatus(packageStatus, request);
+            Map<String, Object> response = ResponseBuilder.successWithCursor(cursorPage, instanceName);
+            response.put("status", status);
+            
+            return ResponseEntity.ok(response);
+        }
         
         // Si se proporcionan parámetros de paginación, usar paginación
         if (page != null || size != null) {
@@ -175,7 +334,9 @@ public class PackageController {
                     : Sort.Direction.DESC;
             Pageable pageable = PageRequest.of(pageNumber, pageSize, Sort.by(sortDirection, sort));
             
-            PageResponse<PackageResponse> pageResponse = packageService.findByStatus(packageStatus, pageable);
+            PageResponse<?> pageResponse = summary 
+                    ? packageService.findSummariesByStatus(packageStatus, pageable) 
+                    : packageService.findByStatus(packageStatus, pageable);
             Map<String, Object> response = ResponseBuilder.success(pageResponse.getContent(), instanceName);
             response.put("pagination", Map.of(
                 "page", pageResponse.getPage(),
@@ -191,8 +352,10 @@ public class PackageController {
         }
         
         // Sin paginación (comportamiento original)
-        log.info("GET /api/packages/status/{} - Getting packages by status", status);
-        List<PackageResponse> packages = packageService.findByStatus(packageStatus);
+        log.info("GET /api/packages/status/{} - Getting packages by status: view={}", status, view);
+        List<?> packages = summary 
+                ? packageService.findSummariesByStatus(packageStatus) 
+                : packageService.findByStatus(packageStatus);
         
         Map<String, Object> response = ResponseBuilder.success(packages, instanceName);
         response.put("count", packages.size());
@@ -201,23 +364,78 @@ public class PackageController {
         return ResponseEntity.ok(response);
     }
     
+    /**
+     * Obtener paquetes por estado en streaming (Accept: application/x-ndjson).
+     * 
+     * @param status Estado del paquete
+     * @param view Vista: summary (sin historial) o full (opcional, default: full)
+     * @return Respuesta NDJSON con los paquetes del estado
+     */
+    @GetMapping(value = "/status/{status}", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamPackagesByStatus(
+            @PathVariable String status,
+            @RequestParam(required = false, defaultValue = "full") String view) {
+        log.info("GET /api/packages/status/{} - Streaming packages by status as NDJSON: view={}", status, view);
+        
+        PackageStatus packageStatus = PackageStatus.valueOf(status.toUpperCase());
+        if (PackageView.from(view) == PackageView.SUMMARY) {
+            return ndjsonResponseWriter.stream(() -> packageService.streamSummariesByStatus(packageStatus));
+        }
+        return ndjsonResponseWriter.stream(() -> packageService.streamByStatus(packageStatus));
+    }
+    
     /**
      * Obtener paquetes por teléfono del destinatario.
      * 
      * @param phone Teléfono del destinatario
+     * @param view Vista: summary (sin historial) o full (opcional, default: full)
      * @return Respuesta con la lista de paquetes del destinatario
      */
     @GetMapping("/recipient/{phone}")
     public ResponseEntity<Map<String, Object>> getPackagesByRecipientPhone(
-            @PathVariable String phone) {
-        log.info("GET /api/packages/recipient/{} - Getting packages by recipient phone", phone);
+            @PathVariable String phone,
+            @RequestParam(required = false, defaultValue = "full") String view) {
+        log.info("GET /api/packages/recipient/{} - Getting packages by recipient phone: view={}", phone, view);
         
-        List<PackageResponse> packages = packageService.findByRecipientPhone(phone);
+        List<?> packages = PackageView.from(view) == PackageView.SUMMARY 
+                ? packageService.findSummariesByRecipientPhone(phone) 
+                : packageService.findByRecipientPhone(phone);
         Map<String, Object> response = ResponseBuilder.success(packages, instanceName);
         response.put("count", packages.size());
         response.put("phone", phone);
         
         return ResponseEntity.ok(response);
     }
+    
+    private CursorPageRequest cursorPageRequest(
+            String cursor, Integer size, String sort, String direction, String count) {
+        return CursorPageRequest.builder()
+                .cursor(cursor)
+                .size(size != null ? size : Constants.DEFAULT_PAGE_SIZE)
+                .sort(sort)
+                .direction("ASC".equalsIgnoreCase(direction) ? Sort.Direction.ASC : Sort.Direction.DESC)
+                .countMode(CursorPageRequest.CountMode.from(count))
+                .build();
+    }
+    
+    /**
+     * Obtener paquetes por teléfono del destinatario en streaming (Accept: application/x-ndjson).
+     * 
+     * @param phone Teléfono del destinatario
+     * @param view Vista: summary (sin historial) o full (opcional, default: full)
+     * @return Respuesta NDJSON con los paquetes del destinatario
+     */
+    @GetMapping(value = "/recipient/{phone}", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamPackagesByRecipientPhone(
+            @PathVariable String phone,
+            @RequestParam(required = false, defaultValue = "full") String view) {
+        log.info("GET /api/packages/recipient/{} - Streaming packages by recipient phone as NDJSON: view={}", 
+                 phone, view);
+        
+        if (PackageView.from(view) == PackageView.SUMMARY) {
+            return ndjsonResponseWriter.stream(() -> packageService.streamSummariesByRecipientPhone(phone));
+        }
+        return ndjsonResponseWriter.stream(() -> packageService.streamByRecipientPhone(phone));
+    }
 }
 
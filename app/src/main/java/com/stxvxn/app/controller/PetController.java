@@ -3,11 +3,14 @@ package com.stxvxn.app.controller;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import com.stxvxn.app.model.Pet;
 import com.stxvxn.app.repository.PetRepository;
+import com.stxvxn.app.util.NdjsonResponseWriter;
 
 import java.time.LocalDateTime;
 import java.util.HashMap;
@@ -22,6 +25,9 @@ public class PetController {
     @Autowired
     private PetRepository petRepository;
 
+    @Autowired
+    private NdjsonResponseWriter ndjsonResponseWriter;
+
     @Value("${instance.name}")
     private String instanceName;
 
@@ -158,14 +164,7 @@ public class PetController {
 
             // Convertir a un formato serializable
             List<Map<String, Object>> petsResponse = pets.stream()
-                    .map(pet -> {
-                        Map<String, Object> petMap = new HashMap<>();
-                        petMap.put("id", pet.getId());
-                        petMap.put("name", pet.getName());
-                        petMap.put("species", pet.getSpecies());
-                        petMap.put("createdAt", pet.getCreatedAt() != null ? pet.getCreatedAt().toString() : null);
-                        return petMap;
-                    })
+                    .map(this::toPetMap)
                     .collect(java.util.stream.Collectors.toList());
 
             Map<String, Object> response = new HashMap<>();
@@ -185,6 +184,14 @@ public class PetController {
         }
     }
 
+    /**
+     * Endpoint para obtener todas las mascotas en streaming (Accept: application/x-ndjson)
+     */
+    @GetMapping(value = "/pets", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllPets() {
+        return ndjsonResponseWriter.stream(() -> petRepository.streamAllBy().map(this::toPetMap));
+    }
+
     /**
      * Endpoint para identificar la instancia
      */
@@ -197,4 +204,13 @@ public class PetController {
         response.put("database", dbHost);
         return ResponseEntity.ok(response);
     }
+
+    private Map<String, Object> toPetMap(Pet pet) {
+        Map<String, Object> petMap = new HashMap<>();
+        petMap.put("id", pet.getId());
+        petMap.put("name", pet.getName());
+        petMap.put("species", pet.getSpecies());
+        petMap.put("createdAt", pet.getCreatedAt() != null ? pet.getCreatedAt().toString() : null);
+        return petMap;
+    }
 }
\ No newline at end of file
@@ -1,18 +1,32 @@
 package com.stxvxn.app.controller;
 
-import com.stxvxn.app.dto.PackageResponse;
+import com.stxvxn.app.dto.request.PackageView;
+import com.stxvxn.app.dto.response.PackageJson;
+import com.stxvxn.app.dto.response.PackageVersion;
+import com.stxvxn.app.dto.response.TrackingUpdate;
+import com.stxvxn.app.exception.TooManyConnectionsException;
+import com.stxvxn.app.service.ProgressSimulatorService;
 import com.stxvxn.app.service.TrackingService;
+import com.stxvxn.app.service.TrackingStreamService;
+import com.stxvxn.app.util.NdjsonResponseWriter;
+import com.stxvxn.app.util.ResponseBuilder;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Controlador REST para rastreo de paquetes en tiempo real
@@ -24,15 +38,30 @@ public class TrackingController {
     @Autowired
     private TrackingService trackingService;
     
+    @Autowired
+    private NdjsonResponseWriter ndjsonResponseWriter;
+    
+    @Autowired
+    private TrackingStreamService trackingStreamService;
+    
+    @Autowired
+    private ProgressSimulatorService progressSimulatorService;
+    
     @Value("${instance.name:app}")
     private String instanceName;
     
+    @Value("${petcare.tracking.cache-max-age-seconds:5}")
+    private long cacheMaxAgeSeconds;
+    
     /**
-     * Obtener información de rastreo de un paquete
+     * Obtener información de rastreo de un paquete.
+     * Admite peticiones condicionales (If-None-Match / If-Modified-Since):
+     * si el paquete no cambió responde 304. El ETag y el cuerpo salen de la
+     * misma entrada de la caché de paquetes, así que siempre coinciden.
      */
     @GetMapping("/{trackingNumber}")
-    public ResponseEntity<?> getTrackingInfo(@PathVariable String trackingNumber) {
-        Optional<PackageResponse> pkgOpt = trackingService.getTrackingInfo(trackingNumber);
+    public ResponseEntity<?> getTrackingInfo(@PathVariable String trackingNumber, WebRequest webRequest) {
+        Optional<PackageJson> pkgOpt = trackingService.getTrackingJson(trackingNumber);
         
         if (pkgOpt.isEmpty()) {
             Map<String, Object> error = new HashMap<>();
@@ -43,24 +72,34 @@ public class TrackingController {
             return ResponseEntity.status(404).body(error);
         }
         
+        PackageVersion version = pkgOpt.get().getVersion();
+        if (webRequest.checkNotModified(version.toETag(), version.lastModifiedMillis())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(trackingCacheControl()).build();
+        }
+        
         Map<String, Object> result = new HashMap<>();
         result.put("success", true);
-        result.put("data", pkgOpt.get());
+        result.put("data", pkgOpt.get().getJson());
         result.put("instance", instanceName);
-        return ResponseEntity.ok(result);
+        // checkNotModified ya agregó ETag y Last-Modified
+        return ResponseEntity.ok().cacheControl(trackingCacheControl()).body(result);
     }
     
     /**
-     * Iniciar simulación de progreso automático de un paquete
+     * Iniciar simulación de progreso automático de un paquete.
+     * Si el paquete ya se está simulando no se agrega de nuevo.
      */
     @PostMapping("/{trackingNumber}/simulate")
     public ResponseEntity<?> simulateProgress(@PathVariable String trackingNumber) {
         try {
-            CompletableFuture<Void> future = trackingService.simulatePackageProgress(trackingNumber);
+            boolean scheduled = trackingService.simulatePackageProgress(trackingNumber);
             
             Map<String, Object> result = new HashMap<>();
             result.put("success", true);
-            result.put("message", "Simulación de progreso iniciada");
+            result.put("message", scheduled 
+                    ? "Simulación de progreso iniciada" 
+                    : "El paquete ya está en simulación, no existe o está en un estado final");
+            result.put("scheduled", scheduled);
             result.put("trackingNumber", trackingNumber);
             result.put("instance", instanceName);
             
@@ -77,12 +116,64 @@ public class TrackingController {
     }
     
     /**
-     * Obtener todos los paquetes en tránsito
+     * Estado del simulador de progreso de esta instancia
+     */
+    @GetMapping("/simulation")
+    public ResponseEntity<?> getSimulationStatus() {
+        return ResponseEntity.ok(ResponseBuilder.success(progressSimulatorService.getStatus(), instanceName));
+    }
+    
+    /**
+     * Agrega a la simulación los paquetes que aún no llegaron a un estado final
+     * (pruebas de carga)
+     */
+    @PostMapping("/simulation/packages")
+    public ResponseEntity<?> simulateActivePackages(
+            @RequestParam(defaultValue = "1000") int limit) {
+        int added = progressSimulatorService.simulateActive(limit);
+        Map<String, Object> result = ResponseBuilder.success(progressSimulatorService.getStatus(), instanceName);
+        result.put("added", added);
+        return ResponseEntity.ok(result);
+    }
+    
+    /**
+     * Reanuda el simulador
+     */
+    @PostMapping("/simulation/start")
+    public ResponseEntity<?> startSimulation() {
+        progressSimulatorService.start();
+        return ResponseEntity.ok(ResponseBuilder.success(progressSimulatorService.getStatus(), instanceName));
+    }
+    
+    /**
+     * Detiene el simulador y descarta los paquetes programados
+     */
+    @PostMapping("/simulation/stop")
+    public ResponseEntity<?> stopSimulation() {
+        progressSimulatorService.stop();
+        return ResponseEntity.ok(ResponseBuilder.success(progressSimulatorService.getStatus(), instanceName));
+    }
+    
+    /**
+     * Cambia el máximo de cambios de estado por segundo (0 = sin límite)
+     */
+    @PutMapping("/simulation/rate")
+    public ResponseEntity<?> setSimulationRate(@RequestParam int transitionsPerSecond) {
+        progressSimulatorService.setRate(transitionsPerSecond);
+        return ResponseEntity.ok(ResponseBuilder.success(progressSimulatorService.getStatus(), instanceName));
+    }
+    
+    /**
+     * Obtener todos los paquetes en tránsito (view=summary omite el historial)
      */
     @GetMapping("/in-transit")
-    public ResponseEntity<?> getPackagesInTransit() {
+    public ResponseEntity<?> getPackagesInTransit(
+            @RequestParam(required = false, defaultValue = "full") String view) {
+        boolean summary = PackageView.from(view) == PackageView.SUMMARY;
         try {
-            List<PackageResponse> packages = trackingService.getPackagesInTransit();
+            List<?> packages = summary 
+                    ? trackingService.getPackageSummariesInTransit() 
+                    : trackingService.getPackagesInTransit();
             Map<String, Object> result = new HashMap<>();
             result.put("success", true);
             result.put("data", packages);
@@ -100,53 +191,48 @@ public class TrackingController {
     }
     
     /**
-     * Endpoint SSE (Server-Sent Events) para rastreo en tiempo real
-     * Permite al cliente recibir actualizaciones automáticas
+     * Obtener todos los paquetes en tránsito en streaming (Accept: application/x-ndjson)
+     */
+    @GetMapping(value = "/in-transit", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamPackagesInTransit(
+            @RequestParam(required = false, defaultValue = "full") String view) {
+        if (PackageView.from(view) == PackageView.SUMMARY) {
+            return ndjsonResponseWriter.stream(trackingService::streamPackageSummariesInTransit);
+        }
+        return ndjsonResponseWriter.stream(trackingService::streamPackagesInTransit);
+    }
+    
+    /**
+     * Endpoint SSE (Server-Sent Events) para rastreo en tiempo real.
+     * Envía el estado actual y después una actualización por cada cambio
+     * del paquete; el stream se cierra al llegar a un estado final.
+     * Los errores se responden sin cuerpo (el cliente solo acepta text/event-stream):
+     * 404 si el paquete no existe y 503 si la instancia está al máximo de conexiones.
      */
     @GetMapping(value = "/{trackingNumber}/stream", produces = "text/event-stream")
-    public SseEmitter streamTracking(@PathVariable String trackingNumber) {
-        SseEmitter emitter = new SseEmitter(300000L); // Timeout de 5 minutos
-        
-        // Iniciar simulación en segundo plano
-        trackingService.simulatePackageProgress(trackingNumber);
-        
-        // Enviar actualizaciones periódicas
-        CompletableFuture.runAsync(() -> {
-            try {
-                for (int i = 0; i < 20; i++) { // Máximo 20 actualizaciones
-                    Thread.sleep(3000); // Cada 3 segundos
-                    
-                    Optional<PackageResponse> pkgOpt = trackingService.getTrackingInfo(trackingNumber);
-                    if (pkgOpt.isPresent()) {
-                        Map<String, Object> data = new HashMap<>();
-                        data.put("trackingNumber", trackingNumber);
-                        data.put("status", pkgOpt.get().getStatus());
-                        data.put("currentLocation", pkgOpt.get().getCurrentLocation());
-                        data.put("updatedAt", pkgOpt.get().getUpdatedAt());
-                        
-                        emitter.send(SseEmitter.event()
-                                .name("update")
-                                .data(data));
-                        
-                        // Si el paquete está en estado final, terminar
-                        if (pkgOpt.get().getStatus() == com.stxvxn.app.model.PackageStatus.ENTREGADO ||
-                            pkgOpt.get().getStatus() == com.stxvxn.app.model.PackageStatus.DEVUELTO ||
-                            pkgOpt.get().getStatus() == com.stxvxn.app.model.PackageStatus.PERDIDO) {
-                            emitter.complete();
-                            return;
-                        }
-                    } else {
-                        emitter.completeWithError(new RuntimeException("Paquete no encontrado"));
-                        return;
-                    }
-                }
-                emitter.complete();
-            } catch (Exception e) {
-                emitter.completeWithError(e);
-            }
-        });
+    public ResponseEntity<SseEmitter> streamTracking(@PathVariable String trackingNumber) {
+        // El estado actual se lee después de registrar al cliente (ver subscribe)
+        Optional<SseEmitter> emitter;
+        try {
+            emitter = trackingStreamService.subscribe(trackingNumber,
+                () -> trackingService.getTrackingInfo(trackingNumber).map(TrackingUpdate::from));
+        } catch (TooManyConnectionsException e) {
+            // nginx o el cliente pueden reintentar en otra réplica
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "5")
+                    .build();
+        }
         
-        return emitter;
+        // Solo lectura: la simulación se inicia con POST /{trackingNumber}/simulate
+        return emitter.map(ResponseEntity::ok).orElseGet(() -> ResponseEntity.notFound().build());
+    }
+    
+    /**
+     * Respuesta pública cacheable por poco tiempo (micro-caché de nginx);
+     * después se revalida con ETag
+     */
+    private CacheControl trackingCacheControl() {
+        return CacheControl.maxAge(cacheMaxAgeSeconds, TimeUnit.SECONDS).cachePublic();
     }
 }
 
@@ -23,5 +23,8 @@ public class UpdateStatusRequest {
     
     @Size(max = 200, message = "La ubicación no puede exceder 200 caracteres")
     private String location;
+    
+    // Estado que el cliente espera encontrar (opcional, control de concurrencia optimista)
+    private PackageStatus expectedStatus;
 }
 
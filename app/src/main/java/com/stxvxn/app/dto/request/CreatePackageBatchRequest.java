@@ -0,0 +1,18 @@
+package com.stxvxn.app.dto.request;
+
+import com.stxvxn.app.dto.CreatePackageRequest;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * DTO para registrar paquetes de forma masiva.
+ * Cada paquete se valida individualmente para poder reportar fallos parciales.
+ */
+@Data
+public class CreatePackageBatchRequest {
+    
+    @NotEmpty(message = "La lista de paquetes es requerida")
+    private List<CreatePackageRequest> packages;
+}
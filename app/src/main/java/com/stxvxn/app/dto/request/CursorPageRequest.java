@@ -0,0 +1,48 @@
+package com.stxvxn.app.dto.request;
+
+import com.stxvxn.app.exception.ValidationException;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Sort;
+
+/**
+ * Parámetros de una consulta paginada por cursor (keyset).
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPageRequest {
+    private String cursor; // Token de la página anterior; vacío para la primera página
+    private int size;
+    private String sort;
+    private Sort.Direction direction;
+    private CountMode countMode;
+    
+    /**
+     * Cómo calcular el total de elementos.
+     */
+    public enum CountMode {
+        NONE,       // No se cuenta (sin consulta adicional)
+        ESTIMATED,  // Metadatos de la colección; con filtro, conteo acotado a ESTIMATED_COUNT_LIMIT
+        EXACT;      // countDocuments sobre el filtro
+        
+        /**
+         * Convierte el parámetro de query en un modo de conteo.
+         * 
+         * @param value Valor recibido (none, estimated o exact, sin distinguir mayúsculas)
+         * @return Modo correspondiente
+         * @throws ValidationException Si el valor no es válido
+         */
+        public static CountMode from(String value) {
+            for (CountMode mode : values()) {
+                if (mode.name().equalsIgnoreCase(value)) {
+                    return mode;
+                }
+            }
+            throw new ValidationException("Conteo inválido: " + value + ". Valores permitidos: none, estimated, exact");
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.stxvxn.app.dto.request;
+
+import com.stxvxn.app.model.PackageStatus;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Mensaje del cliente en el canal de despacho (/ws/dispatch).
+ * Ejemplo: {"action":"subscribe","trackingNumbers":["PET-..."],"statuses":["EN_REPARTO"]}
+ */
+@Data
+public class DispatchSubscriptionRequest {
+    
+    public static final String SUBSCRIBE = "subscribe";
+    public static final String UNSUBSCRIBE = "unsubscribe";
+    
+    private String action; // subscribe | unsubscribe
+    private List<String> trackingNumbers = new ArrayList<>();
+    private List<PackageStatus> statuses = new ArrayList<>();
+}
@@ -0,0 +1,21 @@
+package com.stxvxn.app.dto.request;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO para reprogramar notificaciones en dead-letter (FAILED).
+ * Se indican los IDs o, para reprogramar todas, all=true (no ambos).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationReplayRequest {
+    
+    private List<String> ids;
+    
+    private boolean all;
+}
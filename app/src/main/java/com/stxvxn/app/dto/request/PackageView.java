@@ -0,0 +1,27 @@
+package com.stxvxn.app.dto.request;
+
+import com.stxvxn.app.exception.ValidationException;
+
+/**
+ * Vista solicitada en los listados de paquetes (parámetro view).
+ */
+public enum PackageView {
+    SUMMARY, // Campos de listado, leídos con proyección (sin historial)
+    FULL;    // Paquete completo con historial de estados
+    
+    /**
+     * Convierte el parámetro de query en una vista.
+     * 
+     * @param value Valor recibido (summary o full, sin distinguir mayúsculas)
+     * @return Vista correspondiente
+     * @throws ValidationException Si el valor no es válido
+     */
+    public static PackageView from(String value) {
+        for (PackageView view : values()) {
+            if (view.name().equalsIgnoreCase(value)) {
+                return view;
+            }
+        }
+        throw new ValidationException("Vista inválida: " + value + ". Valores permitidos: summary, full");
+    }
+}
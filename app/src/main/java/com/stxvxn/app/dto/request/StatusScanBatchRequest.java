@@ -0,0 +1,35 @@
+package com.stxvxn.app.dto.request;
+
+import com.stxvxn.app.model.PackageStatus;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * DTO para registrar en bloque los escaneos de un empleado.
+ * Cada escaneo se valida individualmente para poder reportar fallos parciales.
+ */
+@Data
+public class StatusScanBatchRequest {
+    
+    @NotBlank(message = "El ID del empleado es requerido")
+    private String employeeId;
+    
+    @NotEmpty(message = "La lista de escaneos es requerida")
+    private List<StatusScan> scans;
+    
+    /**
+     * Escaneo individual de un paquete.
+     */
+    @Data
+    public static class StatusScan {
+        private String trackingNumber;
+        private PackageStatus status;
+        private String location;
+        private LocalDateTime timestamp; // Momento del escaneo (opcional, por defecto ahora)
+        private String notes;
+    }
+}
@@ -0,0 +1,23 @@
+package com.stxvxn.app.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO con el resultado de un elemento dentro de una operación masiva.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchItemResult {
+    private int index; // Posición del elemento en la petición
+    private boolean success;
+    private String id;
+    private String trackingNumber;
+    private String status; // Estado resultante (operaciones de estado)
+    private String error;
+    private String code;
+}
@@ -0,0 +1,24 @@
+package com.stxvxn.app.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO de respuesta para operaciones masivas con resultados por elemento.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchResponse {
+    private int requested;
+    private int succeeded;
+    private int failed;
+    private long elapsedMs;
+    private double itemsPerSecond;
+    private List<BatchItemResult> results;
+}
@@ -0,0 +1,29 @@
+package com.stxvxn.app.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO genérico para respuestas paginadas por cursor.
+ * 
+ * @param <T> Tipo de contenido de la página
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPageResponse<T> {
+    private List<T> content;
+    private int size;
+    private String sort;
+    private String direction;
+    private boolean hasNext;
+    private String nextCursor;    // null si no hay más páginas
+    private Long totalElements;   // null si no se pidió conteo
+    private boolean totalElementsAtLeast; // true si el conteo llegó al tope: hay al menos totalElements
+    private String countMode;
+}
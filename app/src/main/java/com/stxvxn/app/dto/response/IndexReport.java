@@ -0,0 +1,39 @@
+package com.stxvxn.app.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * DTO con el estado de los índices de MongoDB frente al catálogo declarado.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class IndexReport {
+    private String mode;
+    private List<IndexEntry> missing;
+    private List<IndexEntry> unused;
+    private List<IndexEntry> undeclared;
+    private List<IndexEntry> present;
+    private LocalDateTime checkedAt;
+
+    /**
+     * Estado de un índice individual.
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class IndexEntry {
+        private String collection;
+        private String name;
+        private String keys;
+        private Long accesses; // Usos desde el arranque del nodo consultado
+    }
+}
@@ -0,0 +1,26 @@
+package com.stxvxn.app.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Resumen de las notificaciones pendientes de envío, para monitoreo
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationBacklogSummary {
+    private long total;
+    private LocalDateTime oldestCreatedAt; // null si no hay pendientes
+    private Long oldestAgeSeconds;
+    private Map<String, Long> byType;
+    private Map<String, Long> byAge; // rangos de antigüedad, de más reciente a más antiguo
+    private Map<String, Map<String, Long>> byTypeAndAge;
+    private LocalDateTime generatedAt; // puede tener hasta summary-cache-ms de antigüedad
+}
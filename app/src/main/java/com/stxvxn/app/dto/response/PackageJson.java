@@ -0,0 +1,17 @@
+package com.stxvxn.app.dto.response;
+
+import com.fasterxml.jackson.databind.util.RawValue;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * JSON pre-serializado de un paquete junto con la versión de la que salió.
+ * Se cachean juntos para que el ETag y el cuerpo de una respuesta vengan
+ * siempre de la misma lectura.
+ */
+@Data
+@AllArgsConstructor
+public class PackageJson {
+    private RawValue json;
+    private PackageVersion version;
+}
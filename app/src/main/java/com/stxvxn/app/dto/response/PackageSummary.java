@@ -0,0 +1,30 @@
+package com.stxvxn.app.dto.response;
+
+import com.stxvxn.app.model.PackageStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Vista resumida de un paquete para listados (view=summary).
+ * Se usa como proyección DTO de Spring Data: MongoDB solo devuelve estos
+ * campos, por lo que el historial de estados nunca se lee ni se deserializa.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PackageSummary {
+    private String id;
+    private String trackingNumber;
+    private String recipientName;
+    private String recipientPhone;
+    private PackageStatus status;
+    private String currentLocation;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+    private LocalDateTime estimatedDelivery;
+}
@@ -0,0 +1,36 @@
+package com.stxvxn.app.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Versión de un paquete para peticiones condicionales (ETag / Last-Modified).
+ * Se toma del mismo PackageResponse que se serializa en la caché.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PackageVersion {
+    private String id;
+    private LocalDateTime updatedAt;
+    
+    /**
+     * ETag débil: cambia exactamente cuando cambia updatedAt, pero el cuerpo
+     * incluye campos volátiles (timestamp, instance de ResponseBuilder), así
+     * que dos respuestas con el mismo ETag no son idénticas byte a byte
+     */
+    public String toETag() {
+        return "W/\"" + id + "-" + Long.toHexString(lastModifiedMillis()) + "\"";
+    }
+    
+    /**
+     * updatedAt en milisegundos (MongoDB guarda LocalDateTime en la zona del sistema)
+     */
+    public long lastModifiedMillis() {
+        return updatedAt != null ? updatedAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : 0;
+    }
+}
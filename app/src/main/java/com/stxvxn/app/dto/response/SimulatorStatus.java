@@ -0,0 +1,23 @@
+package com.stxvxn.app.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Estado del simulador de progreso de esta instancia
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SimulatorStatus {
+    private boolean running;
+    private int activePackages; // paquetes programados para avanzar
+    private int transitionsPerSecond; // 0 = sin límite
+    private long minDelayMs;
+    private long maxDelayMs;
+    private long transitions; // cambios de estado aplicados desde el arranque
+    private long failures;
+}
@@ -0,0 +1,35 @@
+package com.stxvxn.app.dto.response;
+
+import com.stxvxn.app.dto.PackageResponse;
+import com.stxvxn.app.model.PackageStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Actualización de rastreo enviada a los clientes suscritos (SSE y WebSocket).
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TrackingUpdate {
+    private String trackingNumber;
+    private PackageStatus status;
+    private PackageStatus previousStatus; // null si no se conoce
+    private String currentLocation;
+    private LocalDateTime updatedAt;
+    
+    public static TrackingUpdate from(PackageResponse response) {
+        return new TrackingUpdate(
+            response.getTrackingNumber(),
+            response.getStatus(),
+            null,
+            response.getCurrentLocation(),
+            response.getUpdatedAt()
+        );
+    }
+}
@@ -0,0 +1,47 @@
+package com.stxvxn.app.event;
+
+import com.stxvxn.app.model.PackageStatus;
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+
+/**
+ * Evento publicado por el change stream de la colección packages.
+ * Llega para cualquier escritura, hecha por esta réplica o por otra,
+ * y sirve para invalidar o actualizar las vistas locales.
+ */
+@Getter
+public class PackageChangedEvent extends ApplicationEvent {
+    private final String operationType; // insert, update, replace o delete
+    private final String packageId;
+    private final String trackingNumber; // null en borrados
+    private final PackageStatus status; // null en borrados
+    private final String currentLocation;
+    private final LocalDateTime updatedAt;
+    private final Instant wallTime; // Momento de la escritura en el servidor
+    
+    public PackageChangedEvent(
+            Object source,
+            String operationType,
+            String packageId,
+            String trackingNumber,
+            PackageStatus status,
+            String currentLocation,
+            LocalDateTime updatedAt,
+            Instant wallTime) {
+        super(source);
+        this.operationType = operationType;
+        this.packageId = packageId;
+        this.trackingNumber = trackingNumber;
+        this.status = status;
+        this.currentLocation = currentLocation;
+        this.updatedAt = updatedAt;
+        this.wallTime = wallTime;
+    }
+    
+    public boolean isDelete() {
+        return "delete".equals(operationType);
+    }
+}
@@ -0,0 +1,75 @@
+package com.stxvxn.app.event;
+
+import com.stxvxn.app.model.Package;
+import com.stxvxn.app.model.PackageStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Evento de paquete que viaja por el pipeline de eventos.
+ * Lleva todos los datos que necesitan los handlers (por ejemplo el
+ * teléfono del destinatario para la notificación), de modo que no
+ * hace falta volver a leer el paquete de MongoDB.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PackageEvent {
+    
+    public enum Type {
+        CREATED,
+        STATUS_CHANGED
+    }
+    
+    private String id; // Solo si el evento pasó por el spill de MongoDB
+    private String outboxId; // Entrada del outbox que se confirma al procesar el evento
+    private Type type;
+    private String packageId;
+    private String trackingNumber;
+    private String recipientPhone;
+    private PackageStatus oldStatus; // null en CREATED
+    private PackageStatus newStatus;
+    private String employeeId;
+    private Instant publishedAt;
+    
+    /**
+     * Evento de paquete registrado
+     */
+    public static PackageEvent created(Package pkg) {
+        return PackageEvent.builder()
+                .type(Type.CREATED)
+                .packageId(pkg.getId())
+                .trackingNumber(pkg.getTrackingNumber())
+                .recipientPhone(pkg.getRecipientPhone())
+                .newStatus(pkg.getStatus())
+                .publishedAt(Instant.now())
+                .build();
+    }
+    
+    /**
+     * Evento de cambio de estado
+     */
+    public static PackageEvent statusChanged(
+            String packageId,
+            String trackingNumber,
+            String recipientPhone,
+            PackageStatus oldStatus,
+            PackageStatus newStatus,
+            String employeeId) {
+        return PackageEvent.builder()
+                .type(Type.STATUS_CHANGED)
+                .packageId(packageId)
+                .trackingNumber(trackingNumber)
+                .recipientPhone(recipientPhone)
+                .oldStatus(oldStatus)
+                .newStatus(newStatus)
+                .employeeId(employeeId)
+                .publishedAt(Instant.now())
+                .build();
+    }
+}
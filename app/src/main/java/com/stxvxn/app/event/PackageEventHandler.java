@@ -0,0 +1,18 @@
+package com.stxvxn.app.event;
+
+import java.util.List;
+
+/**
+ * Consumidor del pipeline de eventos de paquetes.
+ * Recibe los eventos en lotes, en orden para un mismo paquete; un
+ * error no se reintenta, solo se registra.
+ */
+public interface PackageEventHandler {
+    
+    /**
+     * Procesa un lote de eventos
+     * 
+     * @param events Eventos en el orden en que se publicaron
+     */
+    void handle(List<PackageEvent> events);
+}
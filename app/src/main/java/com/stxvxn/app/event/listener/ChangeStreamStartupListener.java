@@ -0,0 +1,38 @@
+package com.stxvxn.app.event.listener;
+
+import com.stxvxn.app.service.PackageChangeStreamService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Inicia el change stream de packages al arrancar la aplicación.
+ * Requiere que MongoDB sea un replica set.
+ * 
+ * Se desactiva con petcare.changestream.enabled=false.
+ */
+@Component
+@Slf4j
+public class ChangeStreamStartupListener {
+    
+    private final PackageChangeStreamService packageChangeStreamService;
+    private final boolean enabled;
+    
+    public ChangeStreamStartupListener(
+            PackageChangeStreamService packageChangeStreamService,
+            @Value("${petcare.changestream.enabled:true}") boolean enabled) {
+        this.packageChangeStreamService = packageChangeStreamService;
+        this.enabled = enabled;
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void handleApplicationReady() {
+        if (!enabled) {
+            log.info("Package change stream disabled (petcare.changestream.enabled=false)");
+            return;
+        }
+        packageChangeStreamService.start();
+    }
+}
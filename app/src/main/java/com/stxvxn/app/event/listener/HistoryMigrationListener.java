@@ -0,0 +1,48 @@
+package com.stxvxn.app.event.listener;
+
+import com.stxvxn.app.service.PackageHistoryService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+
+/**
+ * Migra al arrancar el historial embebido de los paquetes existentes a
+ * package_history y recorta sus arreglos. Se ejecuta en segundo plano y
+ * es idempotente, por lo que varias réplicas pueden ejecutarla a la vez.
+ * Una vez completada queda marcada y los siguientes arranques la omiten.
+ * 
+ * Se desactiva con petcare.history.migrate-on-startup=false.
+ */
+@Component
+@Slf4j
+public class HistoryMigrationListener {
+    
+    private final PackageHistoryService packageHistoryService;
+    private final boolean enabled;
+    
+    public HistoryMigrationListener(
+            PackageHistoryService packageHistoryService,
+            @Value("${petcare.history.migrate-on-startup:true}") boolean enabled) {
+        this.packageHistoryService = packageHistoryService;
+        this.enabled = enabled;
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    @Async
+    public void handleApplicationReady() {
+        if (!enabled) {
+            log.info("History migration disabled (petcare.history.migrate-on-startup=false)");
+            return;
+        }
+        
+        try {
+            int migrated = packageHistoryService.migrateEmbeddedHistory();
+            log.info("History migration finished, {} packages migrated", migrated);
+        } catch (Exception e) {
+            log.error("History migration failed: {}", e.getMessage());
+        }
+    }
+}
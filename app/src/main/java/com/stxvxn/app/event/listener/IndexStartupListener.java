@@ -0,0 +1,61 @@
+package com.stxvxn.app.event.listener;
+
+import com.stxvxn.app.dto.response.IndexReport;
+import com.stxvxn.app.service.IndexManagementService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+
+import java.util.stream.Collectors;
+
+/**
+ * Verifica (y según el modo construye) los índices al arrancar.
+ * Se ejecuta en segundo plano para no retrasar el arranque de la réplica.
+ * 
+ * Modos (propiedad petcare.indexes.mode):
+ * - create: construye los índices faltantes y luego verifica
+ * - verify: solo verifica y reporta los índices faltantes
+ * - none: no hace nada al arrancar
+ */
+@Component
+@Slf4j
+public class IndexStartupListener {
+    
+    private final IndexManagementService indexManagementService;
+    private final String mode;
+    
+    public IndexStartupListener(
+            IndexManagementService indexManagementService,
+            @Value("${petcare.indexes.mode:create}") String mode) {
+        this.indexManagementService = indexManagementService;
+        this.mode = mode;
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    @Async
+    public void handleApplicationReady() {
+        if ("none".equalsIgnoreCase(mode)) {
+            log.info("Index management disabled (petcare.indexes.mode=none)");
+            return;
+        }
+        
+        try {
+            if ("create".equalsIgnoreCase(mode)) {
+                int built = indexManagementService.ensureIndexes();
+                log.info("Index check finished, {} indexes built", built);
+            }
+            
+            IndexReport report = indexManagementService.verifyIndexes();
+            if (!report.getMissing().isEmpty()) {
+                log.warn("Missing indexes: {}", report.getMissing().stream()
+                        .map(entry -> entry.getCollection() + "." + entry.getName())
+                        .collect(Collectors.joining(", ")));
+            }
+        } catch (Exception e) {
+            log.error("Index verification failed: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.stxvxn.app.event.listener;
+
+import com.stxvxn.app.event.PackageChangedEvent;
+import com.stxvxn.app.service.PackageCacheService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Invalida la caché local de paquetes con los cambios que llegan por el
+ * change stream, incluidos los hechos por otras réplicas.
+ * Se procesa de forma síncrona en el hilo del change stream para respetar
+ * el orden de los cambios.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PackageCacheInvalidationListener {
+    
+    private final PackageCacheService packageCacheService;
+    
+    @EventListener
+    public void handlePackageChanged(PackageChangedEvent event) {
+        if (event.getTrackingNumber() != null) {
+            packageCacheService.evict(event.getTrackingNumber());
+        } else if (event.getPackageId() != null) {
+            // Los borrados solo traen el _id del documento
+            packageCacheService.evictById(event.getPackageId());
+        }
+        log.debug("Package cache invalidated by change stream: {} {}", 
+                  event.getOperationType(), event.getTrackingNumber());
+    }
+}
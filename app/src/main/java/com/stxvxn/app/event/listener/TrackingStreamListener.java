@@ -0,0 +1,86 @@
+package com.stxvxn.app.event.listener;
+
+import com.stxvxn.app.dto.PackageResponse;
+import com.stxvxn.app.dto.response.TrackingUpdate;
+import com.stxvxn.app.event.PackageChangedEvent;
+import com.stxvxn.app.event.PackageStatusChangedEvent;
+import com.stxvxn.app.service.DispatchStreamService;
+import com.stxvxn.app.service.PackageService;
+import com.stxvxn.app.service.TrackingStreamService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Alimenta los hubs de rastreo: SSE por paquete y canal de despacho.
+ * Con el change stream activo se usan sus eventos, que incluyen los cambios
+ * hechos por otras réplicas; si está desactivado, los cambios de estado
+ * publicados por esta instancia.
+ */
+@Component
+@Slf4j
+public class TrackingStreamListener {
+
+    private final TrackingStreamService trackingStreamService;
+    private final DispatchStreamService dispatchStreamService;
+    private final PackageService packageService;
+    private final boolean changeStreamEnabled;
+
+    public TrackingStreamListener(
+            TrackingStreamService trackingStreamService,
+            DispatchStreamService dispatchStreamService,
+            PackageService packageService,
+            @Value("${petcare.changestream.enabled:true}") boolean changeStreamEnabled) {
+        this.trackingStreamService = trackingStreamService;
+        this.dispatchStreamService = dispatchStreamService;
+        this.packageService = packageService;
+        this.changeStreamEnabled = changeStreamEnabled;
+    }
+
+    @EventListener
+    public void handlePackageChanged(PackageChangedEvent event) {
+        if (event.getTrackingNumber() == null || event.getStatus() == null) {
+            return;
+        }
+        TrackingUpdate update = TrackingUpdate.builder()
+                .trackingNumber(event.getTrackingNumber())
+                .status(event.getStatus())
+                .currentLocation(event.getCurrentLocation())
+                .updatedAt(event.getUpdatedAt())
+                .build();
+        trackingStreamService.publish(update);
+        // El estado anterior lo deduce el canal de despacho
+        dispatchStreamService.publish(update);
+    }
+
+    @EventListener
+    public void handleStatusChanged(PackageStatusChangedEvent event) {
+        if (changeStreamEnabled) {
+            return;
+        }
+        boolean sse = trackingStreamService.hasSubscribers(event.getTrackingNumber());
+        boolean dispatch = dispatchStreamService.isWatched(
+            event.getTrackingNumber(), event.getOldStatus(), event.getNewStatus());
+        if (!sse && !dispatch) {
+            return;
+        }
+        try {
+            // La caché se invalidó antes de publicar el evento: se lee el estado nuevo
+            PackageResponse current = packageService.findByTrackingNumber(event.getTrackingNumber()).orElse(null);
+            if (current == null) {
+                return;
+            }
+            if (sse) {
+                trackingStreamService.publish(TrackingUpdate.from(current));
+            }
+            if (dispatch) {
+                TrackingUpdate update = TrackingUpdate.from(current);
+                update.setPreviousStatus(event.getOldStatus());
+                dispatchStreamService.publish(update);
+            }
+        } catch (Exception e) {
+            log.error("Error publishing tracking update for: {}", event.getTrackingNumber(), e);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.stxvxn.app.exception;
+
+/**
+ * Excepción lanzada cuando la instancia alcanzó el máximo de conexiones
+ * de streaming abiertas.
+ */
+public class TooManyConnectionsException extends BusinessException {
+    
+    public TooManyConnectionsException(int maxConnections) {
+        super(
+            "Se alcanzó el máximo de " + maxConnections + " conexiones de rastreo en esta instancia. " +
+            "Por favor, intente nuevamente.",
+            "TOO_MANY_CONNECTIONS"
+        );
+    }
+}
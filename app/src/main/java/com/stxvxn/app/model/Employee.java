@@ -2,7 +2,6 @@ package com.stxvxn.app.model;
 
 import lombok.Data;
 import org.springframework.data.annotation.Id;
-import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
@@ -17,8 +16,7 @@ public class Employee {
     @Id
     private String id;
     
-    @Indexed(unique = true)
-    private String employeeId; // ID único legible (ej: EMP001)
+    private String employeeId; // ID único legible (ej: EMP001), índice único en MongoIndexCatalog
     
     private String name;
     private String email;
@@ -4,6 +4,7 @@ import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 /**
  * Entidad que representa una notificación enviada a un cliente
@@ -21,15 +22,30 @@ public class Notification {
     
     private String message; // Mensaje de la notificación
     private NotificationType type; // Tipo de notificación
+    private PackageStatus packageStatus; // Estado del paquete que se notifica
+    private LocalDateTime statusChangedAt; // Momento del cambio de estado notificado (ordena las fusiones)
+    private List<String> outboxIds; // Entradas del outbox que la originaron (varias si se fusionaron)
     private NotificationStatus status; // Estado de la notificación
+    private NotificationChannel channel; // Canal por el que se envía
     
     private LocalDateTime createdAt; // Fecha de creación
     private LocalDateTime sentAt; // Fecha de envío (si se envió)
     
+    // Despacho: intentos, próximo intento (o fin del lease vigente) y último error
+    private int attempts;
+    private LocalDateTime nextAttemptAt;
+    private String leaseToken;
+    private String lastError;
+    private LocalDateTime failedAt; // Fecha en que pasó a FAILED
+    private String lastBatchId; // Último lote de saveCoalescing que la escribió
+    
     // Constructor vacío (requerido por MongoDB)
     public Notification() {
         this.status = NotificationStatus.PENDING;
+        this.channel = NotificationChannel.SMS;
         this.createdAt = LocalDateTime.now();
+        this.nextAttemptAt = this.createdAt;
+        this.statusChangedAt = this.createdAt;
     }
     
     public Notification(String packageId, String trackingNumber, String recipientPhone, 
@@ -82,6 +98,25 @@ public class Notification {
         }
     }
     
+    /**
+     * Enum para canales de envío
+     */
+    public enum NotificationChannel {
+        SMS("SMS"),
+        EMAIL("Email"),
+        PUSH("Push");
+        
+        private final String displayName;
+        
+        NotificationChannel(String displayName) {
+            this.displayName = displayName;
+        }
+        
+        public String getDisplayName() {
+            return displayName;
+        }
+    }
+    
     // Getters y Setters
     public String getId() {
         return id;
@@ -162,5 +197,84 @@ public class Notification {
     public void setSentAt(LocalDateTime sentAt) {
         this.sentAt = sentAt;
     }
+    
+    public NotificationChannel getChannel() {
+        return channel;
+    }
+    
+    public void setChannel(NotificationChannel channel) {
+        this.channel = channel;
+    }
+    
+    public int getAttempts() {
+        return attempts;
+    }
+    
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+    
+    public LocalDateTime getNextAttemptAt() {
+        return nextAttemptAt;
+    }
+    
+    public void setNextAttemptAt(LocalDateTime nextAttemptAt) {
+        this.nextAttemptAt = nextAttemptAt;
+    }
+    
+    public String getLeaseToken() {
+        return leaseToken;
+    }
+    
+    public void setLeaseToken(String leaseToken) {
+        this.leaseToken = leaseToken;
+    }
+    
+    public String getLastError() {
+        return lastError;
+    }
+    
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+    
+    public LocalDateTime getFailedAt() {
+        return failedAt;
+    }
+    
+    public void setFailedAt(LocalDateTime failedAt) {
+        this.failedAt = failedAt;
+    }
+    
+    public PackageStatus getPackageStatus() {
+        return packageStatus;
+    }
+    
+    public void setPackageStatus(PackageStatus packageStatus) {
+        this.packageStatus = packageStatus;
+    }
+    
+    public List<String> getOutboxIds() {
+        return outboxIds;
+    }
+    
+    public void setOutboxIds(List<String> outboxIds) {
+        this.outboxIds = outboxIds;
+    }
+    
+    public LocalDateTime getStatusChangedAt() {
+        return statusChangedAt;
+    }
+    
+    public void setStatusChangedAt(LocalDateTime statusChangedAt) {
+        this.statusChangedAt = statusChangedAt;
+    }
+    
+    public String getLastBatchId() {
+        return lastBatchId;
+    }
+    
+    public void setLastBatchId(String lastBatchId) {
+        this.lastBatchId = lastBatchId;
+    }
 }
-
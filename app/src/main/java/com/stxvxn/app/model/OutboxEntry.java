@@ -0,0 +1,37 @@
+package com.stxvxn.app.model;
+
+import com.stxvxn.app.event.PackageEvent;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * Entrada del outbox de eventos de paquetes.
+ * Se escribe en la misma transacción que el cambio del paquete y la
+ * elimina el relay cuando los handlers procesaron el evento. Mientras
+ * leaseUntil esté en el futuro la entrada pertenece a la réplica que la
+ * reclamó; al vencer, cualquier réplica puede volver a reclamarla.
+ */
+@Data
+@NoArgsConstructor
+@Document(collection = "package_outbox")
+public class OutboxEntry {
+    
+    @Id
+    private String id;
+    
+    private PackageEvent event;
+    private Instant createdAt;
+    private Instant leaseUntil; // Disponible para reclamar desde este momento
+    private String leaseToken; // Reclamo vigente (réplica y lote)
+    private int attempts; // Veces que fue reclamada
+    
+    public OutboxEntry(PackageEvent event, Instant now) {
+        this.event = event;
+        this.createdAt = now;
+        this.leaseUntil = now;
+    }
+}
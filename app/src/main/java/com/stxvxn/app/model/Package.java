@@ -17,6 +17,7 @@ public class Package {
     private String id;
     
     private String trackingNumber; // Número de rastreo único
+    private Long trackingKey; // Número de rastreo codificado en base 36
     private String recipientName; // Nombre del destinatario
     private String recipientAddress; // Dirección de entrega
     private String recipientPhone; // Teléfono del destinatario
@@ -26,12 +27,14 @@ public class Package {
     private PackageStatus status; // Estado actual del paquete
     private String currentLocation; // Ubicación actual (simulada)
     
-    private List<StatusHistory> statusHistory; // Historial de cambios de estado
+    private List<StatusHistory> statusHistory; // Últimos cambios de estado (el historial completo está en package_history)
+    private Boolean historyArchived; // true si el historial completo está en package_history
     private List<String> notes; // Notas adicionales
     
     private LocalDateTime createdAt; // Fecha de creación
     private LocalDateTime updatedAt; // Última actualización
     private LocalDateTime estimatedDelivery; // Fecha estimada de entrega
+    private String lastBatchId; // Lote de cambios masivos que aplicó el último cambio de estado
     
     // Constructor vacío (requerido por MongoDB)
     public Package() {
@@ -125,6 +128,14 @@ public class Package {
         this.trackingNumber = trackingNumber;
     }
     
+    public Long getTrackingKey() {
+        return trackingKey;
+    }
+    
+    public void setTrackingKey(Long trackingKey) {
+        this.trackingKey = trackingKey;
+    }
+    
     public String getRecipientName() {
         return recipientName;
     }
@@ -189,6 +200,14 @@ public class Package {
         this.statusHistory = statusHistory;
     }
     
+    public Boolean getHistoryArchived() {
+        return historyArchived;
+    }
+    
+    public void setHistoryArchived(Boolean historyArchived) {
+        this.historyArchived = historyArchived;
+    }
+    
     public List<String> getNotes() {
         return notes;
     }
@@ -221,6 +240,14 @@ public class Package {
         this.estimatedDelivery = estimatedDelivery;
     }
     
+    public String getLastBatchId() {
+        return lastBatchId;
+    }
+    
+    public void setLastBatchId(String lastBatchId) {
+        this.lastBatchId = lastBatchId;
+    }
+    
     /**
      * Agrega un nuevo estado al historial
      */
@@ -230,5 +257,21 @@ public class Package {
         this.status = newStatus;
         this.updatedAt = LocalDateTime.now();
     }
+    
+    /**
+     * Aplica en memoria un cambio de estado que ya fue persistido de forma atómica,
+     * para obtener la misma imagen del documento que quedó almacenada
+     * (incluido el recorte del historial embebido a las últimas entradas)
+     */
+    public void applyStatusHistory(StatusHistory history, String location, int embeddedLimit) {
+        this.statusHistory.add(history);
+        if (this.statusHistory.size() > embeddedLimit) {
+            this.statusHistory = new ArrayList<>(
+                this.statusHistory.subList(this.statusHistory.size() - embeddedLimit, this.statusHistory.size())
+            );
+        }
+        this.status = history.getStatus();
+        this.currentLocation = location;
+        this.updatedAt = history.getTimestamp();
+    }
 }
-
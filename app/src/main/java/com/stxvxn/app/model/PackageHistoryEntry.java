@@ -0,0 +1,105 @@
+package com.stxvxn.app.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * Entrada del historial completo de estados de un paquete.
+ * La colección es de solo inserción; el paquete conserva embebidas
+ * únicamente las últimas entradas.
+ */
+@Document(collection = "package_history")
+public class PackageHistoryEntry {
+    
+    @Id
+    private String id;
+    
+    private String packageId; // ID del paquete
+    private String trackingNumber; // Número de rastreo del paquete
+    
+    private PackageStatus status; // Estado registrado
+    private LocalDateTime timestamp; // Momento del cambio
+    private String updatedBy; // Empleado que actualizó
+    private String notes;
+    
+    // Constructor vacío (requerido por MongoDB)
+    public PackageHistoryEntry() {
+    }
+    
+    public PackageHistoryEntry(String packageId, String trackingNumber, Package.StatusHistory history) {
+        this.packageId = packageId;
+        this.trackingNumber = trackingNumber;
+        this.status = history.getStatus();
+        this.timestamp = history.getTimestamp();
+        this.updatedBy = history.getUpdatedBy();
+        this.notes = history.getNotes();
+    }
+    
+    /**
+     * Convierte la entrada al formato embebido en el paquete
+     */
+    public Package.StatusHistory toStatusHistory() {
+        Package.StatusHistory history = new Package.StatusHistory(status, updatedBy, notes);
+        history.setTimestamp(timestamp);
+        return history;
+    }
+    
+    // Getters y Setters
+    public String getId() {
+        return id;
+    }
+    
+    public void setId(String id) {
+        this.id = id;
+    }
+    
+    public String getPackageId() {
+        return packageId;
+    }
+    
+    public void setPackageId(String packageId) {
+        this.packageId = packageId;
+    }
+    
+    public String getTrackingNumber() {
+        return trackingNumber;
+    }
+    
+    public void setTrackingNumber(String trackingNumber) {
+        this.trackingNumber = trackingNumber;
+    }
+    
+    public PackageStatus getStatus() {
+        return status;
+    }
+    
+    public void setStatus(PackageStatus status) {
+        this.status = status;
+    }
+    
+    public LocalDateTime getTimestamp() {
+        return timestamp;
+    }
+    
+    public void setTimestamp(LocalDateTime timestamp) {
+        this.timestamp = timestamp;
+    }
+    
+    public String getUpdatedBy() {
+        return updatedBy;
+    }
+    
+    public void setUpdatedBy(String updatedBy) {
+        this.updatedBy = updatedBy;
+    }
+    
+    public String getNotes() {
+        return notes;
+    }
+    
+    public void setNotes(String notes) {
+        this.notes = notes;
+    }
+}
@@ -1,5 +1,8 @@
 package com.stxvxn.app.model;
 
+import java.util.EnumSet;
+import java.util.Set;
+
 /**
  * Enum que representa los estados posibles de un paquete
  */
@@ -55,5 +58,17 @@ public enum PackageStatus {
                 return false;
         }
     }
+    
+    /**
+     * Obtiene los estados desde los cuales se puede llegar a este estado
+     */
+    public Set<PackageStatus> getAllowedPredecessors() {
+        Set<PackageStatus> predecessors = EnumSet.noneOf(PackageStatus.class);
+        for (PackageStatus candidate : values()) {
+            if (candidate.canTransitionTo(this)) {
+                predecessors.add(candidate);
+            }
+        }
+        return predecessors;
+    }
 }
-
@@ -3,6 +3,7 @@ package com.stxvxn.app.repository;
 import com.stxvxn.app.model.Employee;
 import com.stxvxn.app.model.EmployeeRole;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -45,5 +46,14 @@ public interface EmployeeRepository extends MongoRepository<Employee, String> {
      * @return true si existe
      */
     boolean existsByEmail(String email);
+    
+    /**
+     * Obtiene solo el employeeId de los empleados con prefijo EMP.
+     * Se usa una única vez para sembrar la secuencia de IDs sobre datos existentes.
+     * 
+     * @return Empleados con solo el campo employeeId cargado
+     */
+    @Query(value = "{ 'employeeId': { $regex: '^EMP' } }", fields = "{ 'employeeId': 1 }")
+    List<Employee> findAllEmployeeIds();
 }
 
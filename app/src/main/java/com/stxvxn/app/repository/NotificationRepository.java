@@ -2,6 +2,7 @@ package com.stxvxn.app.repository;
 
 import com.stxvxn.app.model.Notification;
 import com.stxvxn.app.model.Notification.NotificationStatus;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
@@ -11,7 +12,8 @@ import java.util.List;
  * Repositorio para la entidad Notification
  */
 @Repository
-public interface NotificationRepository extends MongoRepository<Notification, String> {
+public interface NotificationRepository 
+        extends MongoRepository<Notification, String>, NotificationRepositoryCustom {
     
     /**
      * Busca notificaciones por ID de paquete
@@ -29,13 +31,13 @@ public interface NotificationRepository extends MongoRepository<Notification, St
     List<Notification> findByRecipientPhone(String recipientPhone);
     
     /**
-     * Busca notificaciones por estado
+     * Cuenta notificaciones por estado (sobre el índice de estado)
      */
-    List<Notification> findByStatus(NotificationStatus status);
+    long countByStatus(NotificationStatus status);
     
     /**
-     * Busca notificaciones pendientes
+     * Busca las notificaciones más recientes con un estado, acotadas por página
      */
-    List<Notification> findByStatusOrderByCreatedAtDesc(NotificationStatus status);
+    List<Notification> findByStatusOrderByCreatedAtDesc(NotificationStatus status, Pageable pageable);
 }
 
@@ -0,0 +1,177 @@
+package com.stxvxn.app.repository;
+
+import com.stxvxn.app.model.Notification;
+import com.stxvxn.app.model.Notification.NotificationChannel;
+import com.stxvxn.app.model.Notification.NotificationStatus;
+import com.stxvxn.app.model.Notification.NotificationType;
+import com.stxvxn.app.util.PageCursor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Operaciones de Notification que requieren MongoTemplate (actualizaciones masivas,
+ * reclamo de lotes para el despacho y consultas de la cola).
+ */
+public interface NotificationRepositoryCustom {
+    
+    /**
+     * Inserta notificaciones con un insertMany no ordenado. Una notificación con
+     * un outboxId ya guardado (reentrega del outbox) cuenta como guardada y toma
+     * el id de la existente; cualquier otro error afecta solo a su notificación.
+     * 
+     * @param notifications Notificaciones a insertar
+     * @return Fallos por posición en la lista (merged siempre es 0)
+     */
+    SaveResult insertIdempotent(List<Notification> notifications);
+    
+    /**
+     * Guarda notificaciones fusionándolas con la pendiente del mismo destinatario
+     * y número de rastreo que aún no se intentó enviar, con un único bulkWrite no
+     * ordenado de upserts. La fusionada toma el mensaje y estado del cambio más
+     * reciente según statusChangedAt (un evento reentregado o atrasado no pisa uno
+     * más nuevo), acumula los outboxIds y se envía en el menor nextAttemptAt de
+     * ambas; si no hay pendiente se inserta. Los outboxIds ya guardados cuentan
+     * como guardados, igual que en insertIdempotent. Todas las guardadas quedan
+     * con el id de su documento, también las fusionadas. Un índice único parcial
+     * impide que dos réplicas inserten la misma pendiente a la vez; la que pierde
+     * recibe una clave duplicada y su upsert se reintenta una vez, ya fusionando.
+     * 
+     * @param notifications Notificaciones (a lo sumo una por destinatario y número de rastreo)
+     * @return Fusionadas con una pendiente existente y fallos por posición en la lista
+     */
+    SaveResult saveCoalescing(List<Notification> notifications);
+    
+    /**
+     * Cuenta notificaciones con un estado, deteniéndose en limit (countDocuments
+     * con limit sobre el índice de estado)
+     * 
+     * @return Conteo exacto, o limit si hay al menos esa cantidad
+     */
+    long countByStatusUpTo(NotificationStatus status, long limit);
+    
+    /**
+     * Reclama hasta max notificaciones pendientes de un canal cuyo próximo
+     * intento ya venció. El lease se toma con un único updateMany que mueve
+     * nextAttemptAt a leaseUntil y suma un intento, así ninguna otra réplica
+     * las reclama mientras se envían; si la réplica cae, vuelven a estar
+     * disponibles al vencer el lease.
+     * 
+     * @param channel Canal
+     * @param max Cantidad máxima
+     * @param now Momento del reclamo
+     * @param leaseUntil Fin del lease
+     * @param leaseToken Identificador único del reclamo
+     * @return Notificaciones reclamadas (con el intento ya sumado)
+     */
+    List<Notification> claimPending(
+        NotificationChannel channel, 
+        int max, 
+        LocalDateTime now, 
+        LocalDateTime leaseUntil, 
+        String leaseToken
+    );
+    
+    /**
+     * Marca como enviadas varias notificaciones reclamadas con un único updateMany.
+     * Solo actualiza las que siguen bajo el mismo lease.
+     * 
+     * @param notificationIds IDs de las notificaciones
+     * @param leaseToken Reclamo con el que se enviaron
+     * @param sentAt Fecha de envío
+     * @return Cantidad de notificaciones actualizadas
+     */
+    long markSent(Collection<String> notificationIds, String leaseToken, LocalDateTime sentAt);
+    
+    /**
+     * Registra los envíos fallidos de un lote con un único bulkWrite:
+     * reprogramados (PENDING) o en dead-letter (FAILED).
+     * 
+     * @param failures Resultado de cada notificación fallida
+     * @param leaseToken Reclamo con el que se enviaron
+     */
+    void recordFailures(List<FailedDelivery> failures, String leaseToken);
+    
+    /**
+     * Devuelve notificaciones FAILED a PENDING para un nuevo ciclo de
+     * intentos, con un único updateMany.
+     * 
+     * @param notificationIds IDs a reintentar (vacío no reprograma ninguna)
+     * @param now Momento desde el que quedan disponibles
+     * @return Cantidad de notificaciones reprogramadas
+     */
+    long replayFailed(Collection<String> notificationIds, LocalDateTime now);
+    
+    /**
+     * Devuelve todas las notificaciones FAILED a PENDING con un único updateMany.
+     * 
+     * @param now Momento desde el que quedan disponibles
+     * @return Cantidad de notificaciones reprogramadas
+     */
+    long replayAllFailed(LocalDateTime now);
+    
+    /**
+     * Busca una página de notificaciones de un estado ordenadas por
+     * (createdAt, _id), continuando después del cursor con un predicado de
+     * rango sobre el índice status_1_createdAt_-1__id_-1, sin skip().
+     * 
+     * @param status Estado a filtrar
+     * @param direction Dirección del orden
+     * @param after Último elemento de la página anterior, o null para la primera
+     * @param limit Máximo de documentos a devolver
+     * @return Notificaciones de la página
+     */
+    List<Notification> findPageByStatus(NotificationStatus status, Sort.Direction direction, PageCursor after, int limit);
+    
+    /**
+     * Cuenta las notificaciones de un estado por tipo y rango de antigüedad con
+     * una agregación cubierta por el índice status_1_type_1_createdAt_1 (no lee
+     * los documentos).
+     * 
+     * @param status Estado a contar
+     * @param boundaries Límites de antigüedad de más reciente a más antiguo;
+     *                   el rango i contiene createdAt >= boundaries[i] y los
+     *                   anteriores al último límite van al rango boundaries.size()
+     * @return Un conteo por cada tipo y rango con notificaciones
+     */
+    List<BacklogCount> countByTypeAndAge(NotificationStatus status, List<LocalDateTime> boundaries);
+    
+    /**
+     * Conteo de notificaciones de un tipo en un rango de antigüedad
+     */
+    @Getter
+    @RequiredArgsConstructor
+    class BacklogCount {
+        private final NotificationType type;
+        private final int ageBucket; // índice del rango de antigüedad
+        private final long count;
+        private final LocalDateTime oldestCreatedAt;
+    }
+    
+    /**
+     * Resultado de guardar un lote de notificaciones
+     */
+    @Getter
+    @RequiredArgsConstructor
+    class SaveResult {
+        private final long merged; // fusionadas con una pendiente existente
+        private final Map<Integer, String> failures; // error de cada notificación no guardada, por posición
+    }
+    
+    /**
+     * Resultado de un envío fallido
+     */
+    @Getter
+    @RequiredArgsConstructor
+    class FailedDelivery {
+        private final String notificationId;
+        private final NotificationStatus status; // PENDING (reintento) o FAILED
+        private final LocalDateTime nextAttemptAt;
+        private final String error;
+    }
+}
@@ -0,0 +1,435 @@
+package com.stxvxn.app.repository;
+
+import com.mongodb.ErrorCategory;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.bulk.BulkWriteUpsert;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
+import com.stxvxn.app.model.Notification;
+import com.stxvxn.app.model.Notification.NotificationChannel;
+import com.stxvxn.app.model.Notification.NotificationStatus;
+import com.stxvxn.app.model.Notification.NotificationType;
+import com.stxvxn.app.util.PageCursor;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Implementación de las operaciones personalizadas de Notification.
+ */
+@RequiredArgsConstructor
+public class NotificationRepositoryCustomImpl implements NotificationRepositoryCustom {
+    
+    private final MongoTemplate mongoTemplate;
+    
+    @Override
+    public SaveResult insertIdempotent(List<Notification> notifications) {
+        if (notifications.isEmpty()) {
+            return new SaveResult(0, Map.of());
+        }
+        
+        // El id se asigna antes: el insertMany no lo devuelve por documento
+        for (Notification notification : notifications) {
+            if (notification.getId() == null) {
+                notification.setId(new ObjectId().toHexString());
+            }
+        }
+        
+        try {
+            mongoTemplate.bulkOps(BulkMode.UNORDERED, Notification.class)
+                    .insert(notifications)
+                    .execute();
+            return new SaveResult(0, Map.of());
+        } catch (BulkOperationException e) {
+            Map<Integer, BulkWriteError> errors = new HashMap<>();
+            e.getErrors().forEach(error -> errors.put(error.getIndex(), error));
+            return new SaveResult(0, failures(errors, notifications));
+        }
+    }
+    
+    @Override
+    public SaveResult saveCoalescing(List<Notification> notifications) {
+        if (notifications.isEmpty()) {
+            return new SaveResult(0, Map.of());
+        }
+        
+        String batchId = UUID.randomUUID().toString();
+        List<UpdateOneModel<Document>> operations = new ArrayList<>(notifications.size());
+        List<Integer> positions = new ArrayList<>(notifications.size());
+        for (Notification notification : notifications) {
+            // Pendiente fusionable (la que cubre el índice único parcial); en un upsert
+            // las igualdades se copian al documento nuevo
+            Document pending = new Document("trackingNumber", notification.getTrackingNumber())
+                    .append("recipientPhone", notification.getRecipientPhone())
+                    .append("status", NotificationStatus.PENDING.name())
+                    .append("attempts", 0)
+                    .append("leaseToken", null)
+                    .append("lastBatchId", new Document("$exists", true));
+            operations.add(new UpdateOneModel<>(pending,
+                    List.of(new Document("$set", coalescingFields(notification, batchId))),
+                    new UpdateOptions().upsert(true)));
+            positions.add(positions.size());
+        }
+        
+        Map<Integer, BulkWriteError> errors = new HashMap<>();
+        long merged = upsert(operations, positions, notifications, errors);
+        
+        // Clave duplicada: otra réplica insertó la misma pendiente a la vez, o el outboxId
+        // ya está guardado. Se reintenta una vez: en el primer caso ahora coincide y se fusiona
+        List<Integer> duplicates = errors.entrySet().stream()
+                .filter(entry -> ErrorCategory.fromErrorCode(entry.getValue().getCode()) == ErrorCategory.DUPLICATE_KEY)
+                .map(Map.Entry::getKey)
+                .sorted()
+                .toList();
+        if (!duplicates.isEmpty()) {
+            duplicates.forEach(errors::remove);
+            merged += upsert(duplicates.stream().map(operations::get).toList(), duplicates, notifications, errors);
+        }
+        
+        if (merged > 0) {
+            assignMergedIds(notifications, batchId);
+        }
+        return new SaveResult(merged, failures(errors, notifications));
+    }
+    
+    /**
+     * Ejecuta upserts de saveCoalescing en un bulkWrite no ordenado. Asigna el id
+     * de las insertadas y deja los errores indexados por posición en notifications
+     * 
+     * @param positions Posición en notifications de cada operación
+     * @return Cantidad de pendientes existentes con las que se fusionó
+     */
+    private long upsert(List<UpdateOneModel<Document>> operations, List<Integer> positions,
+                        List<Notification> notifications, Map<Integer, BulkWriteError> errors) {
+        MongoCollection<Document> collection = mongoTemplate.getCollection(mongoTemplate.getCollectionName(Notification.class));
+        BulkWriteResult result;
+        try {
+            result = collection.bulkWrite(operations, new BulkWriteOptions().ordered(false));
+        } catch (MongoBulkWriteException e) {
+            // No ordenado: las demás operaciones se aplicaron igualmente
+            result = e.getWriteResult();
+            e.getWriteErrors().forEach(error -> errors.put(positions.get(error.getIndex()), error));
+        }
+        for (BulkWriteUpsert upsert : result.getUpserts()) {
+            notifications.get(positions.get(upsert.getIndex()))
+                    .setId(upsert.getId().asObjectId().getValue().toHexString());
+        }
+        return result.getMatchedCount();
+    }
+    
+    /**
+     * Campos de un upsert de saveCoalescing, evaluados sobre el documento previo.
+     * Mensaje, tipo y estado se toman solo si el cambio notificado no es más
+     * antiguo que el ya guardado: un evento reentregado o atrasado no pisa uno
+     * más nuevo, pero igual suma sus outboxIds y adelanta nextAttemptAt
+     */
+    private static Document coalescingFields(Notification notification, String batchId) {
+        // Una fecha es mayor que un campo ausente: en un insert siempre se toman
+        Date statusChangedAt = toDate(notification.getStatusChangedAt());
+        Document newer = new Document("$gte", List.of(statusChangedAt, "$statusChangedAt"));
+        
+        Map<String, Object> latest = new LinkedHashMap<>();
+        latest.put("packageId", notification.getPackageId());
+        latest.put("message", notification.getMessage());
+        latest.put("type", notification.getType() != null ? notification.getType().name() : null);
+        latest.put("packageStatus", notification.getPackageStatus() != null ? notification.getPackageStatus().name() : null);
+        latest.put("statusChangedAt", statusChangedAt);
+        if (notification.getRecipientEmail() != null) {
+            latest.put("recipientEmail", notification.getRecipientEmail());
+        }
+        
+        Document fields = new Document();
+        latest.forEach((field, value) -> fields.append(field,
+            new Document("$cond", List.of(newer, new Document("$literal", value), "$" + field))));
+        Date nextAttemptAt = toDate(notification.getNextAttemptAt());
+        fields.append("nextAttemptAt", new Document("$min", List.of("$nextAttemptAt", nextAttemptAt)))
+                .append("channel", new Document("$ifNull", List.of("$channel", notification.getChannel().name())))
+                .append("createdAt", new Document("$ifNull", List.of("$createdAt", toDate(notification.getCreatedAt()))))
+                .append("lastBatchId", batchId);
+        if (notification.getOutboxIds() != null && !notification.getOutboxIds().isEmpty()) {
+            fields.append("outboxIds", new Document("$setUnion", List.of(
+                new Document("$ifNull", List.of("$outboxIds", List.of())),
+                new Document("$literal", notification.getOutboxIds())
+            )));
+        }
+        return fields;
+    }
+    
+    /**
+     * Asigna el id de las notificaciones fusionadas con una pendiente existente:
+     * el bulkWrite solo devuelve el de las insertadas. Se buscan por el lote que
+     * las escribió, que distingue la pendiente aunque otra réplica cree otra después
+     */
+    private void assignMergedIds(List<Notification> notifications, String batchId) {
+        List<String> trackingNumbers = notifications.stream()
+                .filter(notification -> notification.getId() == null)
+                .map(Notification::getTrackingNumber)
+                .distinct()
+                .toList();
+        if (trackingNumbers.isEmpty()) {
+            return;
+        }
+        
+        Query query = Query.query(Criteria.where("trackingNumber").in(trackingNumbers).and("lastBatchId").is(batchId));
+        query.fields().include("_id", "trackingNumber", "recipientPhone");
+        Map<String, String> idByKey = new HashMap<>();
+        for (Notification merged : mongoTemplate.find(query, Notification.class)) {
+            idByKey.put(merged.getTrackingNumber() + "|" + merged.getRecipientPhone(), merged.getId());
+        }
+        for (Notification notification : notifications) {
+            if (notification.getId() == null) {
+                notification.setId(idByKey.get(notification.getTrackingNumber() + "|" + notification.getRecipientPhone()));
+            }
+        }
+    }
+    
+    /**
+     * Errores por posición de un bulkWrite. Una clave duplicada de un outboxId ya
+     * guardado cuenta como guardada y toma el id de la existente; si no se
+     * encuentra esa existente (por ejemplo una colisión de pendientes que
+     * persistió tras el reintento) es un fallo de esa notificación
+     */
+    private Map<Integer, String> failures(Map<Integer, BulkWriteError> errors, List<Notification> notifications) {
+        Map<Integer, String> failures = new HashMap<>();
+        Map<Integer, Notification> duplicates = new HashMap<>();
+        errors.forEach((index, error) -> {
+            if (ErrorCategory.fromErrorCode(error.getCode()) == ErrorCategory.DUPLICATE_KEY) {
+                duplicates.put(index, notifications.get(index));
+            } else {
+                failures.put(index, error.getMessage());
+            }
+        });
+        
+        List<String> outboxIds = duplicates.values().stream()
+                .filter(notification -> notification.getOutboxIds() != null)
+                .flatMap(notification -> notification.getOutboxIds().stream())
+                .toList();
+        Map<String, String> idByOutboxId = new HashMap<>();
+        if (!outboxIds.isEmpty()) {
+            Query query = Query.query(Criteria.where("outboxIds").in(outboxIds));
+            query.fields().include("_id", "outboxIds");
+            for (Notification existing : mongoTemplate.find(query, Notification.class)) {
+                existing.getOutboxIds().forEach(outboxId -> idByOutboxId.put(outboxId, existing.getId()));
+            }
+        }
+        duplicates.forEach((index, duplicate) -> {
+            String existingId = duplicate.getOutboxIds() == null ? null : duplicate.getOutboxIds().stream()
+                    .map(idByOutboxId::get)
+                    .filter(Objects::nonNull)
+                    .findFirst()
+                    .orElse(null);
+            if (existingId != null) {
+                duplicate.setId(existingId);
+            } else {
+                failures.put(index, errors.get(index).getMessage());
+            }
+        });
+        return failures;
+    }
+    
+    @Override
+    public long countByStatusUpTo(NotificationStatus status, long limit) {
+        return mongoTemplate.count(Query.query(Criteria.where("status").is(status)).limit((int) limit), Notification.class);
+    }
+    
+    @Override
+    public List<Notification> claimPending(
+            NotificationChannel channel, 
+            int max, 
+            LocalDateTime now, 
+            LocalDateTime leaseUntil, 
+            String leaseToken) {
+        if (max <= 0) {
+            return List.of();
+        }
+        
+        Query candidates = Query.query(Criteria.where("status").is(NotificationStatus.PENDING)
+                .and("channel").is(channel)
+                .and("nextAttemptAt").lte(now))
+                .with(Sort.by("nextAttemptAt"))
+                .limit(max);
+        candidates.fields().include("_id");
+        List<String> ids = mongoTemplate.find(candidates, Notification.class).stream()
+                .map(Notification::getId)
+                .toList();
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        
+        // Solo se toman las que siguen disponibles: otra réplica pudo reclamar alguna
+        Query claimable = Query.query(Criteria.where("_id").in(ids)
+                .and("status").is(NotificationStatus.PENDING)
+                .and("nextAttemptAt").lte(now));
+        Update lease = new Update()
+                .set("leaseToken", leaseToken)
+                .set("nextAttemptAt", leaseUntil)
+                .inc("attempts", 1);
+        if (mongoTemplate.updateMulti(claimable, lease, Notification.class).getModifiedCount() == 0) {
+            return List.of();
+        }
+        
+        return mongoTemplate.find(
+            Query.query(Criteria.where("_id").in(ids).and("leaseToken").is(leaseToken)),
+            Notification.class
+        );
+    }
+    
+    @Override
+    public long markSent(Collection<String> notificationIds, String leaseToken, LocalDateTime sentAt) {
+        if (notificationIds.isEmpty()) {
+            return 0;
+        }
+        
+        return mongoTemplate.updateMulti(
+            Query.query(Criteria.where("_id").in(notificationIds)
+                .and("leaseToken").is(leaseToken)
+                .and("status").is(NotificationStatus.PENDING)),
+            new Update()
+                .set("status", NotificationStatus.SENT)
+                .set("sentAt", sentAt)
+                .unset("leaseToken")
+                .unset("nextAttemptAt"),
+            Notification.class
+        ).getModifiedCount();
+    }
+    
+    @Override
+    public void recordFailures(List<FailedDelivery> failures, String leaseToken) {
+        if (failures.isEmpty()) {
+            return;
+        }
+        
+        BulkOperations operations = mongoTemplate.bulkOps(BulkMode.UNORDERED, Notification.class);
+        for (FailedDelivery failure : failures) {
+            Update update = new Update()
+                    .set("status", failure.getStatus())
+                    .set("lastError", failure.getError())
+                    .unset("leaseToken");
+            if (failure.getStatus() == NotificationStatus.FAILED) {
+                update.set("failedAt", LocalDateTime.now()).unset("nextAttemptAt");
+            } else {
+                update.set("nextAttemptAt", failure.getNextAttemptAt());
+            }
+            operations.updateOne(
+                Query.query(Criteria.where("_id").is(failure.getNotificationId())
+                    .and("leaseToken").is(leaseToken)),
+                update
+            );
+        }
+        operations.execute();
+    }
+    
+    @Override
+    public long replayFailed(Collection<String> notificationIds, LocalDateTime now) {
+        if (notificationIds.isEmpty()) {
+            return 0;
+        }
+        return replay(Criteria.where("status").is(NotificationStatus.FAILED).and("_id").in(notificationIds), now);
+    }
+    
+    @Override
+    public long replayAllFailed(LocalDateTime now) {
+        return replay(Criteria.where("status").is(NotificationStatus.FAILED), now);
+    }
+    
+    private long replay(Criteria criteria, LocalDateTime now) {
+        return mongoTemplate.updateMulti(
+            Query.query(criteria),
+            new Update()
+                .set("status", NotificationStatus.PENDING)
+                .set("attempts", 0)
+                .set("nextAttemptAt", now)
+                .unset("failedAt")
+                .unset("lastBatchId"),
+            Notification.class
+        ).getModifiedCount();
+    }
+    
+    @Override
+    public List<Notification> findPageByStatus(
+            NotificationStatus status, Sort.Direction direction, PageCursor after, int limit) {
+        Criteria criteria = Criteria.where("status").is(status);
+        
+        if (after != null) {
+            // (createdAt, _id) estrictamente después del cursor en el orden pedido
+            ObjectId lastId = new ObjectId(after.getId());
+            Criteria keyset = direction.isAscending()
+                ? new Criteria().orOperator(
+                    Criteria.where("createdAt").gt(after.getValue()),
+                    Criteria.where("createdAt").is(after.getValue()).and("_id").gt(lastId))
+                : new Criteria().orOperator(
+                    Criteria.where("createdAt").lt(after.getValue()),
+                    Criteria.where("createdAt").is(after.getValue()).and("_id").lt(lastId));
+            criteria = criteria.andOperator(keyset);
+        }
+        
+        Query query = Query.query(criteria)
+                .with(Sort.by(direction, "createdAt", "_id"))
+                .limit(limit);
+        return mongoTemplate.find(query, Notification.class);
+    }
+    
+    @Override
+    public List<BacklogCount> countByTypeAndAge(NotificationStatus status, List<LocalDateTime> boundaries) {
+        // Rango de antigüedad: el primer límite que createdAt alcanza
+        List<Document> branches = new ArrayList<>();
+        for (int i = 0; i < boundaries.size(); i++) {
+            branches.add(new Document("case", new Document("$gte", List.of("$createdAt", toDate(boundaries.get(i)))))
+                    .append("then", i));
+        }
+        Document ageBucket = new Document("$switch", new Document("branches", branches)
+                .append("default", boundaries.size()));
+        
+        // Solo campos del índice (sin _id) para que la agregación quede cubierta
+        List<Document> pipeline = List.of(
+            new Document("$match", new Document("status", status.name())),
+            new Document("$project", new Document("_id", 0).append("type", 1).append("createdAt", 1)),
+            new Document("$group", new Document("_id", new Document("type", "$type").append("age", ageBucket))
+                    .append("count", new Document("$sum", 1))
+                    .append("oldest", new Document("$min", "$createdAt")))
+        );
+        
+        List<BacklogCount> counts = new ArrayList<>();
+        for (Document group : mongoTemplate.getCollection(mongoTemplate.getCollectionName(Notification.class))
+                .aggregate(pipeline)) {
+            Document key = group.get("_id", Document.class);
+            String type = key.getString("type");
+            Date oldest = group.getDate("oldest");
+            counts.add(new BacklogCount(
+                type != null ? NotificationType.valueOf(type) : null,
+                key.getInteger("age"),
+                group.get("count", Number.class).longValue(),
+                oldest != null ? LocalDateTime.ofInstant(oldest.toInstant(), ZoneId.systemDefault()) : null
+            ));
+        }
+        return counts;
+    }
+    
+    private static Date toDate(LocalDateTime value) {
+        return Date.from(value.atZone(ZoneId.systemDefault()).toInstant());
+    }
+}
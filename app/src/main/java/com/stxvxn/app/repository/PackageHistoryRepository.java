@@ -0,0 +1,24 @@
+package com.stxvxn.app.repository;
+
+import com.stxvxn.app.model.PackageHistoryEntry;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repositorio para el historial completo de estados de los paquetes.
+ */
+@Repository
+public interface PackageHistoryRepository 
+        extends MongoRepository<PackageHistoryEntry, String>, PackageHistoryRepositoryCustom {
+    
+    /**
+     * Obtiene el historial de un paquete con paginación
+     * 
+     * @param packageId ID del paquete
+     * @param pageable Parámetros de paginación (orden por timestamp)
+     * @return Página de entradas del historial
+     */
+    Page<PackageHistoryEntry> findByPackageId(String packageId, Pageable pageable);
+}
@@ -0,0 +1,21 @@
+package com.stxvxn.app.repository;
+
+import com.stxvxn.app.model.PackageHistoryEntry;
+
+import java.util.List;
+
+/**
+ * Operaciones del historial de paquetes que requieren MongoTemplate.
+ */
+public interface PackageHistoryRepositoryCustom {
+    
+    /**
+     * Inserta entradas con un insertMany no ordenado, ignorando las que ya
+     * existen (índice único packageId + timestamp + status). Esto hace que
+     * reintentos y la migración del historial embebido sean idempotentes.
+     * 
+     * @param entries Entradas a insertar
+     * @return Cantidad de entradas nuevas insertadas
+     */
+    int appendAll(List<PackageHistoryEntry> entries);
+}
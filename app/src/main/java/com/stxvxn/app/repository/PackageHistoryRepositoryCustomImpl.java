@@ -0,0 +1,41 @@
+package com.stxvxn.app.repository;
+
+import com.mongodb.ErrorCategory;
+import com.stxvxn.app.model.PackageHistoryEntry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.List;
+
+/**
+ * Implementación de las operaciones personalizadas del historial de paquetes.
+ */
+@RequiredArgsConstructor
+public class PackageHistoryRepositoryCustomImpl implements PackageHistoryRepositoryCustom {
+    
+    private final MongoTemplate mongoTemplate;
+    
+    @Override
+    public int appendAll(List<PackageHistoryEntry> entries) {
+        if (entries.isEmpty()) {
+            return 0;
+        }
+        
+        try {
+            return mongoTemplate.bulkOps(BulkMode.UNORDERED, PackageHistoryEntry.class)
+                    .insert(entries)
+                    .execute()
+                    .getInsertedCount();
+        } catch (BulkOperationException e) {
+            // Las entradas duplicadas ya estaban registradas; cualquier otro error se propaga
+            boolean onlyDuplicates = e.getErrors().stream()
+                    .allMatch(error -> ErrorCategory.fromErrorCode(error.getCode()) == ErrorCategory.DUPLICATE_KEY);
+            if (!onlyDuplicates) {
+                throw e;
+            }
+            return e.getResult().getInsertedCount();
+        }
+    }
+}
@@ -3,23 +3,33 @@ package com.stxvxn.app.repository;
 import com.stxvxn.app.model.PackageStatus;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.Meta;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import com.stxvxn.app.util.Constants;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Repositorio para la entidad Package
  */
 @Repository
-public interface PackageRepository extends MongoRepository<com.stxvxn.app.model.Package, String> {
+public interface PackageRepository 
+        extends MongoRepository<com.stxvxn.app.model.Package, String>, PackageRepositoryCustom {
     
     /**
      * Busca un paquete por su número de rastreo
      */
     Optional<com.stxvxn.app.model.Package> findByTrackingNumber(String trackingNumber);
     
+    /**
+     * Busca un paquete por su número de rastreo con proyección (solo los campos del tipo indicado)
+     */
+    <T> Optional<T> findByTrackingNumber(String trackingNumber, Class<T> type);
+    
     /**
      * Busca todos los paquetes con un estado específico
      */
@@ -39,5 +49,69 @@ public interface PackageRepository extends MongoRepository<com.stxvxn.app.model.
      * Busca paquetes por nombre del destinatario
      */
     List<com.stxvxn.app.model.Package> findByRecipientNameContainingIgnoreCase(String recipientName);
+    
+    /**
+     * Cuenta los paquetes con un estado específico
+     */
+    long countByStatus(PackageStatus status);
+    
+    /*
+     * Consultas con proyección dinámica: el tipo indica la vista a leer
+     * (Package completo o una proyección DTO como PackageSummary, en cuyo
+     * caso MongoDB solo devuelve los campos de la proyección).
+     */
+    
+    /**
+     * Obtiene todos los paquetes en la vista indicada
+     */
+    <T> List<T> findAllBy(Class<T> type);
+    
+    /**
+     * Obtiene todos los paquetes en la vista indicada con paginación
+     */
+    <T> Page<T> findAllBy(Pageable pageable, Class<T> type);
+    
+    /**
+     * Busca paquetes por estado en la vista indicada
+     */
+    <T> List<T> findByStatus(PackageStatus status, Class<T> type);
+    
+    /**
+     * Busca paquetes por estado en la vista indicada con paginación
+     */
+    <T> Page<T> findByStatus(PackageStatus status, Pageable pageable, Class<T> type);
+    
+    /**
+     * Busca paquetes con alguno de los estados dados en la vista indicada
+     */
+    <T> List<T> findByStatusIn(Collection<PackageStatus> statuses, Class<T> type);
+    
+    /**
+     * Busca paquetes por teléfono del destinatario en la vista indicada
+     */
+    <T> List<T> findByRecipientPhone(String recipientPhone, Class<T> type);
+    
+    /**
+     * Busca varios paquetes por número de rastreo en la vista indicada
+     */
+    <T> List<T> findByTrackingNumberIn(Collection<String> trackingNumbers, Class<T> type);
+    
+    /**
+     * Recorre todos los paquetes con un cursor (el Stream debe cerrarse)
+     */
+    @Meta(cursorBatchSize = Constants.STREAM_CURSOR_BATCH_SIZE)
+    <T> Stream<T> streamAllBy(Class<T> type);
+    
+    /**
+     * Recorre los paquetes con alguno de los estados dados con un cursor
+     */
+    @Meta(cursorBatchSize = Constants.STREAM_CURSOR_BATCH_SIZE)
+    <T> Stream<T> streamByStatusIn(Collection<PackageStatus> statuses, Class<T> type);
+    
+    /**
+     * Recorre los paquetes de un destinatario con un cursor
+     */
+    @Meta(cursorBatchSize = Constants.STREAM_CURSOR_BATCH_SIZE)
+    <T> Stream<T> streamByRecipientPhone(String recipientPhone, Class<T> type);
 }
 
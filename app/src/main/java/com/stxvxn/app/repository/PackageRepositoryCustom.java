@@ -0,0 +1,147 @@
+package com.stxvxn.app.repository;
+
+import com.stxvxn.app.model.Package;
+import com.stxvxn.app.model.PackageStatus;
+import com.stxvxn.app.util.PageCursor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Operaciones de Package que requieren MongoTemplate (actualizaciones atómicas).
+ */
+public interface PackageRepositoryCustom {
+    
+    /**
+     * Aplica un cambio de estado con findAndModify: $set del estado,
+     * ubicación y fecha de actualización y $push de la entrada de historial.
+     * Solo se aplica si el estado almacenado sigue siendo uno de los esperados.
+     * El arreglo embebido solo se recorta si el paquete ya está migrado
+     * (historyArchived); si no, se hace un segundo intento sin recorte.
+     * 
+     * @param trackingNumber Número de rastreo
+     * @param expectedStatuses Estados actuales aceptados
+     * @param history Entrada de historial con el nuevo estado
+     * @param location Nueva ubicación
+     * @return Imagen previa del documento, vacía si no existe o el estado no coincide
+     */
+    Optional<Package> updateStatusIfCurrent(
+        String trackingNumber,
+        Collection<PackageStatus> expectedStatuses,
+        Package.StatusHistory history,
+        String location
+    );
+    
+    /**
+     * Inserta paquetes con un insertMany no ordenado. Dentro de una transacción
+     * el primer error aborta el insertMany y la transacción completa (MongoDB no
+     * confirma inserciones parciales), así que el error se propaga.
+     * 
+     * @param packages Paquetes a insertar (con id y número de rastreo asignados)
+     * @throws org.springframework.data.mongodb.BulkOperationException con el error y su posición
+     */
+    void insertUnordered(List<Package> packages);
+    
+    /**
+     * Obtiene id, número de rastreo, estado y teléfono del destinatario de varios
+     * paquetes en una sola consulta.
+     * 
+     * @param trackingNumbers Números de rastreo
+     * @return Paquetes encontrados (solo con los campos proyectados)
+     */
+    List<Package> findStatusesByTrackingNumbers(Collection<String> trackingNumbers);
+    
+    /**
+     * Aplica varios cambios de estado con un único bulkWrite no ordenado.
+     * Cada cambio es condicional al estado esperado, igual que updateStatusIfCurrent.
+     * 
+     * @param changes Cambios a aplicar (uno por paquete)
+     * @param updatedAt Fecha de actualización común a todo el lote
+     * @return Números de rastreo a los que se aplicó el cambio
+     */
+    Set<String> bulkUpdateStatus(List<StatusChange> changes, LocalDateTime updatedAt);
+    
+    /**
+     * Obtiene una página por keyset: ordena por (sortField, _id) y continúa
+     * después del cursor con un predicado de rango, sin skip().
+     * 
+     * @param <T> Vista a leer (Package o una proyección DTO)
+     * @param status Estado a filtrar, o null para todos
+     * @param sortField Campo de orden (debe tener índice compuesto con _id)
+     * @param direction Dirección del orden
+     * @param after Último elemento de la página anterior, o null para la primera
+     * @param limit Máximo de documentos a devolver
+     * @param type Clase de la vista
+     * @return Paquetes de la página
+     */
+    <T> List<T> findPage(
+        PackageStatus status,
+        String sortField,
+        Sort.Direction direction,
+        PageCursor after,
+        int limit,
+        Class<T> type
+    );
+    
+    /**
+     * Total de paquetes según los metadatos de la colección (sin recorrer documentos).
+     * 
+     * @return Conteo estimado
+     */
+    long estimatedCount();
+    
+    /**
+     * Cuenta paquetes con un estado, deteniéndose en limit (countDocuments con
+     * limit sobre el índice de estado): el costo queda acotado aunque haya
+     * millones.
+     * 
+     * @return Conteo exacto, o limit si hay al menos esa cantidad
+     */
+    long countByStatusUpTo(PackageStatus status, long limit);
+    
+    /**
+     * Obtiene paquetes cuyo historial embebido aún no se copió a package_history
+     * (documentos anteriores al historial acotado).
+     * 
+     * @param limit Máximo de paquetes a devolver
+     * @return Paquetes con id, número de rastreo e historial embebido
+     */
+    List<Package> findWithUnarchivedHistory(int limit);
+    
+    /**
+     * Marca el historial de un paquete como archivado y recorta el arreglo
+     * embebido a las últimas entradas.
+     * 
+     * @param packageId ID del paquete
+     * @return true si el paquete no estaba marcado
+     */
+    boolean markHistoryArchived(String packageId);
+    
+    /**
+     * Cantidad de entradas de historial que se conservan embebidas en el paquete.
+     * 
+     * @return Tamaño máximo del historial embebido
+     */
+    int getEmbeddedHistorySize();
+    
+    /**
+     * Cambio de estado de un paquete dentro de una actualización masiva.
+     * Puede incluir varias entradas de historial si el paquete se escaneó
+     * más de una vez en el mismo lote.
+     */
+    @Getter
+    @RequiredArgsConstructor
+    class StatusChange {
+        private final String trackingNumber;
+        private final PackageStatus expectedStatus;
+        private final PackageStatus newStatus;
+        private final String location;
+        private final List<Package.StatusHistory> entries;
+    }
+}
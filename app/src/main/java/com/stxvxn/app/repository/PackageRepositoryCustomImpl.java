@@ -0,0 +1,229 @@
+package com.stxvxn.app.repository;
+
+import com.mongodb.bulk.BulkWriteResult;
+import com.stxvxn.app.model.Package;
+import com.stxvxn.app.model.PackageStatus;
+import com.stxvxn.app.util.PageCursor;
+import lombok.RequiredArgsConstructor;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Implementación de las operaciones personalizadas de Package.
+ */
+@RequiredArgsConstructor
+public class PackageRepositoryCustomImpl implements PackageRepositoryCustom {
+    
+    private final MongoTemplate mongoTemplate;
+    
+    @Value("${petcare.history.embedded-size:20}")
+    private int embeddedHistorySize;
+    
+    @Override
+    public <T> List<T> findPage(
+            PackageStatus status,
+            String sortField,
+            Sort.Direction direction,
+            PageCursor after,
+            int limit,
+            Class<T> type) {
+        Criteria criteria = status != null ? Criteria.where("status").is(status) : new Criteria();
+        
+        if (after != null) {
+            // (campo, _id) estrictamente después del cursor en el orden pedido
+            ObjectId lastId = new ObjectId(after.getId());
+            Criteria keyset = direction.isAscending()
+                ? new Criteria().orOperator(
+                    Criteria.where(sortField).gt(after.getValue()),
+                    Criteria.where(sortField).is(after.getValue()).and("_id").gt(lastId))
+                : new Criteria().orOperator(
+                    Criteria.where(sortField).lt(after.getValue()),
+                    Criteria.where(sortField).is(after.getValue()).and("_id").lt(lastId));
+            criteria = criteria.andOperator(keyset);
+        }
+        
+        Query query = Query.query(criteria)
+                .with(Sort.by(direction, sortField, "_id"))
+                .limit(limit);
+        // Con una proyección DTO solo se piden sus campos
+        return mongoTemplate.query(Package.class)
+                .as(type)
+                .matching(query)
+                .all();
+    }
+    
+    @Override
+    public List<Package> findWithUnarchivedHistory(int limit) {
+        Query query = Query.query(Criteria.where("historyArchived").ne(true)).limit(limit);
+        query.fields().include("trackingNumber", "statusHistory");
+        return mongoTemplate.find(query, Package.class);
+    }
+    
+    @Override
+    public boolean markHistoryArchived(String packageId) {
+        Query query = Query.query(Criteria.where("_id").is(packageId).and("historyArchived").ne(true));
+        Update update = new Update().set("historyArchived", true);
+        // $push vacío con $slice recorta el arreglo de forma atómica
+        update.push("statusHistory").slice(-embeddedHistorySize).each();
+        return mongoTemplate.updateFirst(query, update, Package.class).getModifiedCount() > 0;
+    }
+    
+    @Override
+    public int getEmbeddedHistorySize() {
+        return embeddedHistorySize;
+    }
+    
+    @Override
+    public long estimatedCount() {
+        return mongoTemplate.estimatedCount(Package.class);
+    }
+    
+    @Override
+    public long countByStatusUpTo(PackageStatus status, long limit) {
+        return mongoTemplate.count(Query.query(Criteria.where("status").is(status)).limit((int) limit), Package.class);
+    }
+    
+    @Override
+    public Optional<Package> updateStatusIfCurrent(
+            String trackingNumber,
+            Collection<PackageStatus> expectedStatuses,
+            Package.StatusHistory history,
+            String location) {
+        if (expectedStatuses.isEmpty()) {
+            return Optional.empty();
+        }
+        
+        // Se pide la imagen previa para conocer el estado anterior; la imagen
+        // posterior se obtiene aplicando los mismos cambios (Package.applyStatusHistory).
+        // Primero se intenta como paquete migrado (el caso habitual) y, si no
+        // coincide, como paquete con el historial todavía sin migrar
+        for (boolean archived : new boolean[] {true, false}) {
+            Query query = Query.query(historyCriteria(archived)
+                    .and("trackingNumber").is(trackingNumber)
+                    .and("status").in(expectedStatuses));
+            Update update = statusUpdate(history.getStatus(), location, history.getTimestamp(), archived, history);
+            
+            Package previous = mongoTemplate.findAndModify(
+                query,
+                update,
+                FindAndModifyOptions.options().returnNew(false),
+                Package.class
+            );
+            if (previous != null) {
+                return Optional.of(previous);
+            }
+        }
+        return Optional.empty();
+    }
+    
+    @Override
+    public void insertUnordered(List<Package> packages) {
+        if (packages.isEmpty()) {
+            return;
+        }
+        
+        mongoTemplate.bulkOps(BulkMode.UNORDERED, Package.class)
+                .insert(packages)
+                .execute();
+    }
+    
+    @Override
+    public List<Package> findStatusesByTrackingNumbers(Collection<String> trackingNumbers) {
+        Query query = Query.query(Criteria.where("trackingNumber").in(trackingNumbers));
+        query.fields().include("trackingNumber", "status", "recipientPhone");
+        return mongoTemplate.find(query, Package.class);
+    }
+    
+    @Override
+    public Set<String> bulkUpdateStatus(List<StatusChange> changes, LocalDateTime updatedAt) {
+        if (changes.isEmpty()) {
+            return Set.of();
+        }
+        
+        // Identificador único del lote: marca los paquetes que este bulkWrite modificó
+        String batchId = UUID.randomUUID().toString();
+        BulkOperations operations = mongoTemplate.bulkOps(BulkMode.UNORDERED, Package.class);
+        for (StatusChange change : changes) {
+            // Dos operaciones excluyentes por historyArchived: como mucho una coincide
+            for (boolean archived : new boolean[] {true, false}) {
+                Query query = Query.query(historyCriteria(archived)
+                        .and("trackingNumber").is(change.getTrackingNumber())
+                        .and("status").is(change.getExpectedStatus()));
+                Update update = statusUpdate(change.getNewStatus(), change.getLocation(), updatedAt, archived,
+                        change.getEntries().toArray())
+                        .set("lastBatchId", batchId);
+                operations.updateOne(query, update);
+            }
+        }
+        
+        Set<String> trackingNumbers = changes.stream()
+                .map(StatusChange::getTrackingNumber)
+                .collect(Collectors.toSet());
+        
+        try {
+            BulkWriteResult result = operations.execute();
+            if (result.getMatchedCount() == changes.size()) {
+                return trackingNumbers;
+            }
+        } catch (BulkOperationException e) {
+            // Dentro de una transacción el error la aborta: no se aplicó ninguna operación
+            if (TransactionSynchronizationManager.isActualTransactionActive()) {
+                throw e;
+            }
+            // Con bulkWrite no ordenado las demás operaciones se aplicaron igualmente
+        }
+        
+        // El resultado del bulkWrite no indica qué operación coincidió: se identifican
+        // los paquetes aplicados por el identificador del lote (la fecha puede
+        // coincidir con la de otro escritor concurrente)
+        Query applied = Query.query(Criteria.where("trackingNumber").in(trackingNumbers)
+                .and("lastBatchId").is(batchId));
+        applied.fields().include("trackingNumber");
+        return mongoTemplate.find(applied, Package.class).stream()
+                .map(Package::getTrackingNumber)
+                .collect(Collectors.toSet());
+    }
+    
+    private Criteria historyCriteria(boolean archived) {
+        return archived
+                ? Criteria.where("historyArchived").is(true)
+                : Criteria.where("historyArchived").ne(true);
+    }
+    
+    /**
+     * Cambio de estado con las nuevas entradas de historial. Solo se recorta el
+     * arreglo embebido de los paquetes migrados: en los demás es todavía la única
+     * copia de las entradas anteriores, hasta que HistoryMigrationListener las copie
+     */
+    private Update statusUpdate(PackageStatus status, String location, LocalDateTime updatedAt,
+                                boolean archived, Object... entries) {
+        Update update = new Update()
+                .set("status", status)
+                .set("currentLocation", location)
+                .set("updatedAt", updatedAt);
+        if (archived) {
+            update.push("statusHistory").slice(-embeddedHistorySize).each(entries);
+        } else {
+            update.push("statusHistory").each(entries);
+        }
+        return update;
+    }
+}
@@ -1,15 +1,21 @@
 package com.stxvxn.app.repository;
 
 import java.util.List;
+import java.util.stream.Stream;
 
+import org.springframework.data.mongodb.repository.Meta;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
 import com.stxvxn.app.model.Pet;
+import com.stxvxn.app.util.Constants;
 
 @Repository
 public interface PetRepository extends MongoRepository<Pet, String>  {
     
     List<Pet> findBySpecies(String species);
     List<Pet> findByName(String name);
+    
+    @Meta(cursorBatchSize = Constants.STREAM_CURSOR_BATCH_SIZE)
+    Stream<Pet> streamAllBy();
 }
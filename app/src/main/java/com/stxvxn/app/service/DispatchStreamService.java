@@ -0,0 +1,64 @@
+package com.stxvxn.app.service;
+
+import com.stxvxn.app.dto.response.TrackingUpdate;
+import com.stxvxn.app.model.PackageStatus;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.Collection;
+
+/**
+ * Canal multiplexado para consolas de despacho.
+ * Sobre una única conexión WebSocket el cliente se suscribe a muchos
+ * números de rastreo o a estados completos (por ejemplo EN_REPARTO);
+ * los cambios se agrupan y se envían en un frame cada intervalo.
+ */
+public interface DispatchStreamService {
+    
+    /**
+     * Registra una conexión nueva.
+     * 
+     * @throws com.stxvxn.app.exception.TooManyConnectionsException si la instancia está al máximo
+     */
+    void open(WebSocketSession session);
+    
+    /**
+     * Elimina la conexión y todas sus suscripciones
+     */
+    void close(String sessionId);
+    
+    /**
+     * Agrega suscripciones y envía la confirmación con el estado actual de
+     * los paquetes (en el siguiente frame de actualizaciones).
+     * 
+     * @param sessionId Conexión
+     * @param trackingNumbers Números de rastreo a seguir
+     * @param statuses Estados a seguir
+     */
+    void subscribe(String sessionId, Collection<String> trackingNumbers, Collection<PackageStatus> statuses);
+    
+    /**
+     * Quita suscripciones y envía la confirmación
+     */
+    void unsubscribe(String sessionId, Collection<String> trackingNumbers, Collection<PackageStatus> statuses);
+    
+    /**
+     * Envía un frame de error a la conexión
+     */
+    void sendError(String sessionId, String message);
+    
+    /**
+     * Encola un cambio para las conexiones suscritas al paquete, a su estado
+     * nuevo o a su estado anterior. No bloquea.
+     */
+    void publish(TrackingUpdate update);
+    
+    /**
+     * Indica si alguna conexión sigue el paquete o alguno de los estados
+     */
+    boolean isWatched(String trackingNumber, PackageStatus... statuses);
+    
+    /**
+     * Cantidad de conexiones abiertas en esta instancia
+     */
+    int getOpenSessions();
+}
@@ -0,0 +1,464 @@
+package com.stxvxn.app.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.stxvxn.app.dto.response.PackageSummary;
+import com.stxvxn.app.dto.response.TrackingUpdate;
+import com.stxvxn.app.exception.TooManyConnectionsException;
+import com.stxvxn.app.model.PackageStatus;
+import com.stxvxn.app.repository.PackageRepository;
+import com.stxvxn.app.util.VirtualThreads;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.handler.SessionLimitExceededException;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Implementación del canal de despacho.
+ * Cada conexión acumula los cambios pendientes por número de rastreo (solo
+ * el último de cada paquete); un hilo los agrupa en un frame por intervalo.
+ * Si una conexión no alcanza a recibir, sus cambios se siguen combinando y,
+ * al superar el máximo de pendientes, se cierra.
+ */
+@Service
+@Slf4j
+public class DispatchStreamServiceImpl implements DispatchStreamService {
+
+    private final PackageRepository packageRepository;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, Connection> connections = new ConcurrentHashMap<>();
+    private final Map<String, Set<Connection>> byTrackingNumber = new ConcurrentHashMap<>();
+    private final Map<PackageStatus, Set<Connection>> byStatus = new ConcurrentHashMap<>();
+
+    // Último estado conocido de cada paquete, para avisar a quien sigue un
+    // estado que el paquete lo dejó
+    private final Cache<String, PackageStatus> lastStatus;
+
+    private final ScheduledExecutorService flusher;
+    private final Executor senders;
+    private final int maxSessions;
+    private final int maxSubscriptions;
+    private final int maxPending;
+    private final int snapshotLimit;
+    private final int sendTimeLimitMs;
+    private final int bufferSizeLimit;
+
+    public DispatchStreamServiceImpl(
+            PackageRepository packageRepository,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${petcare.dispatch.max-sessions:500}") int maxSessions,
+            @Value("${petcare.dispatch.max-subscriptions:2000}") int maxSubscriptions,
+            @Value("${petcare.dispatch.max-pending:5000}") int maxPending,
+            @Value("${petcare.dispatch.snapshot-limit:500}") int snapshotLimit,
+            @Value("${petcare.dispatch.flush-interval-ms:500}") long flushIntervalMs,
+            @Value("${petcare.dispatch.send-time-limit-ms:10000}") int sendTimeLimitMs,
+            @Value("${petcare.dispatch.buffer-size-limit:524288}") int bufferSizeLimit,
+            @Value("${petcare.dispatch.sender-threads:4}") int senderThreads,
+            @Value("${petcare.dispatch.known-packages:100000}") long knownPackages,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.packageRepository = packageRepository;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.maxSessions = maxSessions;
+        this.maxSubscriptions = maxSubscriptions;
+        this.maxPending = maxPending;
+        this.snapshotLimit = snapshotLimit;
+        this.sendTimeLimitMs = sendTimeLimitMs;
+        this.bufferSizeLimit = bufferSizeLimit;
+        this.lastStatus = Caffeine.newBuilder().maximumSize(knownPackages).build();
+
+        this.senders = VirtualThreads.newExecutor(virtualThreads, senderThreads, "dispatch-sender-");
+        this.flusher = Executors.newSingleThreadScheduledExecutor(daemonThreads("dispatch-flush-"));
+        flusher.scheduleAtFixedRate(this::flush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+
+        Gauge.builder("petcare.dispatch.sessions", connections, Map::size)
+                .description("Conexiones WebSocket de despacho abiertas en esta instancia")
+                .register(meterRegistry);
+        Gauge.builder("petcare.dispatch.subscriptions", byTrackingNumber, Map::size)
+                .description("Paquetes seguidos por número de rastreo")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void open(WebSocketSession session) {
+        if (connections.size() >= maxSessions) {
+            meterRegistry.counter("petcare.dispatch.rejected").increment();
+            throw new TooManyConnectionsException(maxSessions);
+        }
+        // El decorador serializa los envíos y cierra la sesión si no recibe a tiempo
+        WebSocketSession decorated = new ConcurrentWebSocketSessionDecorator(session, sendTimeLimitMs, bufferSizeLimit);
+        connections.put(session.getId(), new Connection(decorated));
+        log.debug("Dispatch session opened: {} ({} open)", session.getId(), connections.size());
+    }
+
+    @Override
+    public void close(String sessionId) {
+        Connection connection = connections.remove(sessionId);
+        if (connection == null) {
+            return;
+        }
+        connection.trackingNumbers.forEach(trackingNumber -> removeFrom(byTrackingNumber, trackingNumber, connection));
+        connection.statuses.forEach(status -> removeFrom(byStatus, status, connection));
+        connection.pending.clear();
+        log.debug("Dispatch session closed: {} ({} open)", sessionId, connections.size());
+    }
+
+    @Override
+    public void subscribe(String sessionId, Collection<String> trackingNumbers, Collection<PackageStatus> statuses) {
+        Connection connection = connections.get(sessionId);
+        if (connection == null) {
+            return;
+        }
+
+        Set<String> requested = trackingNumbers.stream()
+                .filter(trackingNumber -> trackingNumber != null && !trackingNumber.isBlank())
+                .filter(trackingNumber -> !connection.trackingNumbers.contains(trackingNumber))
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        if (connection.trackingNumbers.size() + requested.size() > maxSubscriptions) {
+            sendError(sessionId, "Una conexión puede seguir como máximo " + maxSubscriptions + " paquetes");
+            return;
+        }
+
+        // Se registra en los índices antes de leer el estado actual: un cambio
+        // publicado durante la consulta llega por publish y la lectura más vieja
+        // que ese cambio se descarta (ver enqueueSnapshot)
+        connection.publishedDuringSnapshot = new ConcurrentHashMap<>();
+        List<String> subscribed = new ArrayList<>();
+        Set<String> notFound = new LinkedHashSet<>(requested);
+        List<PackageStatus> subscribedStatuses = new ArrayList<>();
+        try {
+            for (String trackingNumber : requested) {
+                connection.trackingNumbers.add(trackingNumber);
+                addTo(byTrackingNumber, trackingNumber, connection);
+            }
+            
+            // Estado actual de todos los paquetes pedidos en una sola consulta
+            if (!requested.isEmpty()) {
+                for (PackageSummary summary : packageRepository.findByTrackingNumberIn(requested, PackageSummary.class)) {
+                    enqueueSnapshot(connection, summary);
+                    subscribed.add(summary.getTrackingNumber());
+                    notFound.remove(summary.getTrackingNumber());
+                }
+            }
+            for (String trackingNumber : notFound) {
+                connection.trackingNumbers.remove(trackingNumber);
+                removeFrom(byTrackingNumber, trackingNumber, connection);
+            }
+
+            // Los estados se inician con sus paquetes más recientes
+            for (PackageStatus status : statuses) {
+                if (status == null || !connection.statuses.add(status)) {
+                    continue;
+                }
+                addTo(byStatus, status, connection);
+                subscribedStatuses.add(status);
+                packageRepository.findByStatus(
+                        status,
+                        PageRequest.of(0, snapshotLimit, Sort.by(Sort.Direction.DESC, "updatedAt")),
+                        PackageSummary.class)
+                    .forEach(summary -> enqueueSnapshot(connection, summary));
+            }
+        } finally {
+            connection.publishedDuringSnapshot = null;
+        }
+
+        Map<String, Object> ack = frame("subscribed");
+        ack.put("trackingNumbers", subscribed);
+        ack.put("statuses", subscribedStatuses);
+        ack.put("notFound", notFound);
+        send(connection, ack);
+    }
+
+    @Override
+    public void unsubscribe(String sessionId, Collection<String> trackingNumbers, Collection<PackageStatus> statuses) {
+        Connection connection = connections.get(sessionId);
+        if (connection == null) {
+            return;
+        }
+
+        List<String> removed = new ArrayList<>();
+        for (String trackingNumber : trackingNumbers) {
+            if (trackingNumber != null && connection.trackingNumbers.remove(trackingNumber)) {
+                removeFrom(byTrackingNumber, trackingNumber, connection);
+                removed.add(trackingNumber);
+            }
+        }
+        List<PackageStatus> removedStatuses = new ArrayList<>();
+        for (PackageStatus status : statuses) {
+            if (status != null && connection.statuses.remove(status)) {
+                removeFrom(byStatus, status, connection);
+                removedStatuses.add(status);
+            }
+        }
+
+        Map<String, Object> ack = frame("unsubscribed");
+        ack.put("trackingNumbers", removed);
+        ack.put("statuses", removedStatuses);
+        send(connection, ack);
+    }
+
+    @Override
+    public void sendError(String sessionId, String message) {
+        Connection connection = connections.get(sessionId);
+        if (connection != null) {
+            Map<String, Object> error = frame("error");
+            error.put("message", message);
+            send(connection, error);
+        }
+    }
+
+    @Override
+    public void publish(TrackingUpdate update) {
+        String trackingNumber = update.getTrackingNumber();
+        PackageStatus previous = update.getPreviousStatus() != null
+                ? update.getPreviousStatus()
+                : lastStatus.getIfPresent(trackingNumber);
+        lastStatus.put(trackingNumber, update.getStatus());
+
+        Set<Connection> targets = new HashSet<>();
+        addAll(targets, byTrackingNumber.get(trackingNumber));
+        addAll(targets, byStatus.get(update.getStatus()));
+        if (previous != null && previous != update.getStatus()) {
+            addAll(targets, byStatus.get(previous));
+        }
+        if (targets.isEmpty()) {
+            return;
+        }
+
+        TrackingUpdate outgoing = TrackingUpdate.builder()
+                .trackingNumber(trackingNumber)
+                .status(update.getStatus())
+                .previousStatus(previous)
+                .currentLocation(update.getCurrentLocation())
+                .updatedAt(update.getUpdatedAt())
+                .build();
+        targets.forEach(connection -> enqueuePublished(connection, outgoing));
+    }
+
+    @Override
+    public boolean isWatched(String trackingNumber, PackageStatus... statuses) {
+        if (byTrackingNumber.containsKey(trackingNumber)) {
+            return true;
+        }
+        for (PackageStatus status : statuses) {
+            if (status != null && byStatus.containsKey(status)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int getOpenSessions() {
+        return connections.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flusher.shutdownNow();
+        VirtualThreads.shutdown(senders);
+        connections.values().forEach(connection -> closeQuietly(connection, CloseStatus.GOING_AWAY));
+    }
+
+    private void enqueuePublished(Connection connection, TrackingUpdate update) {
+        Map<String, LocalDateTime> published = connection.publishedDuringSnapshot;
+        if (published == null) {
+            enqueue(connection, update);
+            return;
+        }
+        // Hay una lectura del estado actual en curso: se anota el cambio
+        synchronized (connection) {
+            if (update.getUpdatedAt() != null) {
+                published.merge(update.getTrackingNumber(), update.getUpdatedAt(),
+                    (current, next) -> next.isAfter(current) ? next : current);
+            }
+            enqueue(connection, update);
+        }
+    }
+
+    /**
+     * Encola el estado leído de MongoDB, salvo que durante la lectura ya se haya
+     * encolado (y quizá enviado) un cambio igual o más nuevo del paquete
+     */
+    private void enqueueSnapshot(Connection connection, PackageSummary summary) {
+        synchronized (connection) {
+            LocalDateTime published = connection.publishedDuringSnapshot.get(summary.getTrackingNumber());
+            if (published != null && (summary.getUpdatedAt() == null || !summary.getUpdatedAt().isAfter(published))) {
+                return;
+            }
+            lastStatus.put(summary.getTrackingNumber(), summary.getStatus());
+            enqueue(connection, TrackingUpdate.builder()
+                    .trackingNumber(summary.getTrackingNumber())
+                    .status(summary.getStatus())
+                    .currentLocation(summary.getCurrentLocation())
+                    .updatedAt(summary.getUpdatedAt())
+                    .build());
+        }
+    }
+
+    private void enqueue(Connection connection, TrackingUpdate update) {
+        // Solo se conserva el cambio más reciente de cada paquete
+        connection.pending.merge(update.getTrackingNumber(), update,
+            (current, next) -> isOlder(next, current) ? current : next);
+
+        if (connection.pending.size() > maxPending) {
+            meterRegistry.counter("petcare.dispatch.evicted", "reason", "slow").increment();
+            log.debug("Closing slow dispatch session {}", connection.session.getId());
+            closeQuietly(connection, CloseStatus.SESSION_NOT_RELIABLE);
+            close(connection.session.getId());
+        }
+    }
+
+    private boolean isOlder(TrackingUpdate update, TrackingUpdate other) {
+        return update.getUpdatedAt() != null && other.getUpdatedAt() != null
+                && update.getUpdatedAt().isBefore(other.getUpdatedAt());
+    }
+
+    /**
+     * Agrupa los cambios pendientes de cada conexión en un único frame.
+     * Una conexión con un envío en curso se salta: sus cambios se siguen
+     * combinando hasta el siguiente intervalo.
+     */
+    private void flush() {
+        try {
+            for (Connection connection : connections.values()) {
+                if (connection.pending.isEmpty() || !connection.sending.compareAndSet(false, true)) {
+                    continue;
+                }
+
+                List<TrackingUpdate> batch = new ArrayList<>(connection.pending.size());
+                for (String trackingNumber : connection.pending.keySet()) {
+                    TrackingUpdate update = connection.pending.remove(trackingNumber);
+                    if (update != null) {
+                        batch.add(update);
+                    }
+                }
+
+                try {
+                    senders.execute(() -> {
+                        try {
+                            Map<String, Object> updates = frame("updates");
+                            updates.put("updates", batch);
+                            send(connection, updates);
+                            meterRegistry.counter("petcare.dispatch.frames").increment();
+                            meterRegistry.counter("petcare.dispatch.updates").increment(batch.size());
+                        } finally {
+                            connection.sending.set(false);
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    connection.sending.set(false);
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Dispatch flush failed: {}", e.getMessage());
+        }
+    }
+
+    private void send(Connection connection, Map<String, Object> payload) {
+        try {
+            connection.session.sendMessage(new TextMessage(objectMapper.writeValueAsString(payload)));
+        } catch (SessionLimitExceededException e) {
+            // No recibió a tiempo o superó el buffer del decorador
+            meterRegistry.counter("petcare.dispatch.evicted", "reason", "slow").increment();
+            closeQuietly(connection, e.getStatus());
+            close(connection.session.getId());
+        } catch (IOException | IllegalStateException e) {
+            meterRegistry.counter("petcare.dispatch.evicted", "reason", "error").increment();
+            log.debug("Dispatch send failed for {}: {}", connection.session.getId(), e.getMessage());
+            closeQuietly(connection, CloseStatus.SERVER_ERROR);
+            close(connection.session.getId());
+        }
+    }
+
+    private void closeQuietly(Connection connection, CloseStatus status) {
+        try {
+            connection.session.close(status);
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Could not close dispatch session {}: {}", connection.session.getId(), e.getMessage());
+        }
+    }
+
+    private static Map<String, Object> frame(String type) {
+        Map<String, Object> frame = new LinkedHashMap<>();
+        frame.put("type", type);
+        return frame;
+    }
+
+    private static <K> void addTo(Map<K, Set<Connection>> index, K key, Connection connection) {
+        index.compute(key, (k, set) -> {
+            Set<Connection> target = set != null ? set : ConcurrentHashMap.newKeySet();
+            target.add(connection);
+            return target;
+        });
+    }
+
+    private static <K> void removeFrom(Map<K, Set<Connection>> index, K key, Connection connection) {
+        index.computeIfPresent(key, (k, set) -> {
+            set.remove(connection);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    private static void addAll(Set<Connection> targets, Set<Connection> source) {
+        if (source != null) {
+            targets.addAll(source);
+        }
+    }
+
+    private static CustomizableThreadFactory daemonThreads(String prefix) {
+        CustomizableThreadFactory factory = new CustomizableThreadFactory(prefix);
+        factory.setDaemon(true);
+        return factory;
+    }
+
+    /**
+     * Conexión de despacho con sus suscripciones y cambios pendientes
+     */
+    private static class Connection {
+        private final WebSocketSession session;
+        private final Set<String> trackingNumbers = ConcurrentHashMap.newKeySet();
+        private final Set<PackageStatus> statuses = ConcurrentHashMap.newKeySet();
+        private final Map<String, TrackingUpdate> pending = new ConcurrentHashMap<>();
+        private final AtomicBoolean sending = new AtomicBoolean();
+        // Cambios publicados mientras subscribe lee el estado actual (null fuera de subscribe)
+        private volatile Map<String, LocalDateTime> publishedDuringSnapshot;
+
+        private Connection(WebSocketSession session) {
+            this.session = session;
+        }
+    }
+}
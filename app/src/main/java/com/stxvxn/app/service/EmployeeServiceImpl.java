@@ -10,8 +10,8 @@ import com.stxvxn.app.repository.EmployeeRepository;
 import com.stxvxn.app.util.Constants;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -26,10 +26,17 @@ import java.util.stream.Collectors;
 @Slf4j
 public class EmployeeServiceImpl implements EmployeeService {
     
+    private static final String EMPLOYEE_SEQUENCE = "employeeId";
+    
     private final EmployeeRepository employeeRepository;
+    private final SequenceService sequenceService;
+    
+    @Value("${petcare.sequences.employee-id.block-size:1}")
+    private int employeeIdBlockSize;
+    
+    private volatile boolean sequenceSeeded;
     
     @Override
-    @Transactional
     public EmployeeResponse createEmployee(EmployeeRequest request) {
         log.info("Creating employee: {}", request.getEmail());
         
@@ -112,36 +119,40 @@ public class EmployeeServiceImpl implements EmployeeService {
     
     /**
      * Genera un ID único de empleado en formato EMP001, EMP002, etc.
+     * El número proviene de una secuencia atómica compartida entre réplicas.
      * 
      * @return ID único de empleado
      */
     private String generateUniqueEmployeeId() {
-        // Buscar el último número usado
-        List<Employee> allEmployees = employeeRepository.findAll();
-        
-        // Si no hay empleados, empezar con EMP001
-        if (allEmployees.isEmpty()) {
-            return String.format("%s%03d", Constants.EMPLOYEE_PREFIX, 1);
-        }
-        
-        // Encontrar el número más alto usado
-        int maxNumber = allEmployees.stream()
-                .map(Employee::getEmployeeId)
-                .filter(id -> id != null && id.startsWith(Constants.EMPLOYEE_PREFIX))
-                .mapToInt(id -> {
-                    try {
-                        String numberPart = id.substring(Constants.EMPLOYEE_PREFIX.length());
-                        return Integer.parseInt(numberPart);
-                    } catch (NumberFormatException | StringIndexOutOfBoundsException e) {
-                        return 0;
-                    }
-                })
-                .max()
-                .orElse(0);
-        
-        // Generar el siguiente número
-        int nextNumber = maxNumber + 1;
+        seedEmployeeSequence();
+        long nextNumber = sequenceService.next(EMPLOYEE_SEQUENCE, employeeIdBlockSize);
         return String.format("%s%03d", Constants.EMPLOYEE_PREFIX, nextNumber);
     }
+    
+    /**
+     * Siembra la secuencia con el número más alto ya usado la primera vez que
+     * se ejecuta sobre una base existente. Es seguro si varias réplicas lo
+     * hacen a la vez porque ensureAtLeast es idempotente.
+     */
+    private void seedEmployeeSequence() {
+        if (sequenceSeeded) {
+            return;
+        }
+        if (!sequenceService.exists(EMPLOYEE_SEQUENCE)) {
+            int maxNumber = employeeRepository.findAllEmployeeIds().stream()
+                    .map(Employee::getEmployeeId)
+                    .mapToInt(id -> {
+                        try {
+                            String numberPart = id.substring(Constants.EMPLOYEE_PREFIX.length());
+                            return Integer.parseInt(numberPart);
+                        } catch (NumberFormatException | StringIndexOutOfBoundsException e) {
+                            return 0;
+                        }
+                    })
+                    .max()
+                    .orElse(0);
+            sequenceService.ensureAtLeast(EMPLOYEE_SEQUENCE, maxNumber);
+        }
+        sequenceSeeded = true;
+    }
 }
-
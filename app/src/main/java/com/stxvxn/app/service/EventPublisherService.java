@@ -1,28 +1,49 @@
 package com.stxvxn.app.service;
 
+import com.stxvxn.app.event.PackageChangedEvent;
 import com.stxvxn.app.model.Package;
 import com.stxvxn.app.model.PackageStatus;
 
 /**
  * Servicio para publicar eventos de dominio.
- * Centraliza la publicación de eventos en la aplicación.
+ * Centraliza la publicación de eventos de Spring para los listeners
+ * síncronos (hubs de rastreo). El procesamiento asíncrono (notificaciones)
+ * no pasa por aquí: sus eventos se escriben en el outbox junto con el
+ * cambio del paquete (PackageOutboxService).
  */
 public interface EventPublisherService {
     
     /**
-     * Publica un evento cuando se crea un paquete.
+     * Publica un evento cuando cambia el estado de un paquete.
      * 
-     * @param packageEntity Paquete creado
+     * @param packageEntity Paquete actualizado
+     * @param oldStatus Estado anterior
+     * @param employeeId ID del empleado que realizó el cambio
      */
-    void publishPackageCreatedEvent(Package packageEntity);
+    void publishStatusChangedEvent(Package packageEntity, PackageStatus oldStatus, String employeeId);
     
     /**
-     * Publica un evento cuando cambia el estado de un paquete.
+     * Publica un evento de cambio de estado sin necesidad de la entidad completa.
      * 
-     * @param packageEntity Paquete actualizado
+     * @param packageId ID del paquete
+     * @param trackingNumber Número de rastreo
      * @param oldStatus Estado anterior
+     * @param newStatus Estado nuevo
      * @param employeeId ID del empleado que realizó el cambio
      */
-    void publishStatusChangedEvent(Package packageEntity, PackageStatus oldStatus, String employeeId);
+    void publishStatusChangedEvent(
+        String packageId, 
+        String trackingNumber, 
+        PackageStatus oldStatus, 
+        PackageStatus newStatus, 
+        String employeeId
+    );
+    
+    /**
+     * Publica un cambio recibido por el change stream de packages.
+     * 
+     * @param event Cambio en la colección packages
+     */
+    void publishPackageChangedEvent(PackageChangedEvent event);
 }
 
@@ -1,6 +1,6 @@
 package com.stxvxn.app.service;
 
-import com.stxvxn.app.event.PackageCreatedEvent;
+import com.stxvxn.app.event.PackageChangedEvent;
 import com.stxvxn.app.event.PackageStatusChangedEvent;
 import com.stxvxn.app.model.Package;
 import com.stxvxn.app.model.PackageStatus;
@@ -20,35 +20,49 @@ public class EventPublisherServiceImpl implements EventPublisherService {
     private final ApplicationEventPublisher eventPublisher;
     
     @Override
-    public void publishPackageCreatedEvent(Package packageEntity) {
-        log.info("Publishing PackageCreatedEvent for tracking: {}", 
-                packageEntity.getTrackingNumber());
-        
-        PackageCreatedEvent event = new PackageCreatedEvent(this, packageEntity);
-        eventPublisher.publishEvent(event);
-        
-        log.debug("PackageCreatedEvent published successfully");
+    public void publishStatusChangedEvent(
+            Package packageEntity, 
+            PackageStatus oldStatus, 
+            String employeeId) {
+        publishStatusChangedEvent(
+            packageEntity.getId(),
+            packageEntity.getTrackingNumber(),
+            oldStatus,
+            packageEntity.getStatus(),
+            employeeId
+        );
     }
     
     @Override
     public void publishStatusChangedEvent(
-            Package packageEntity, 
+            String packageId, 
+            String trackingNumber, 
             PackageStatus oldStatus, 
+            PackageStatus newStatus, 
             String employeeId) {
         log.info("Publishing StatusChangedEvent for tracking: {} ({} -> {})", 
-                packageEntity.getTrackingNumber(), oldStatus, packageEntity.getStatus());
+                trackingNumber, oldStatus, newStatus);
         
+        // Listeners síncronos (hubs de rastreo); las notificaciones salen del outbox
         PackageStatusChangedEvent event = new PackageStatusChangedEvent(
             this,
-            packageEntity.getId(),
-            packageEntity.getTrackingNumber(),
+            packageId,
+            trackingNumber,
             oldStatus,
-            packageEntity.getStatus(),
+            newStatus,
             employeeId
         );
         eventPublisher.publishEvent(event);
         
         log.debug("StatusChangedEvent published successfully");
     }
+    
+    @Override
+    public void publishPackageChangedEvent(PackageChangedEvent event) {
+        log.debug("Publishing PackageChangedEvent for tracking: {} ({})", 
+                event.getTrackingNumber(), event.getOperationType());
+        
+        eventPublisher.publishEvent(event);
+    }
 }
 
@@ -0,0 +1,26 @@
+package com.stxvxn.app.service;
+
+import com.stxvxn.app.dto.response.IndexReport;
+
+/**
+ * Servicio para la gestión controlada de índices de MongoDB.
+ * Reemplaza la creación automática de índices de Spring Data para que
+ * las réplicas no compitan construyendo índices al arrancar.
+ */
+public interface IndexManagementService {
+    
+    /**
+     * Construye los índices declarados que no existen.
+     * Solo una instancia a la vez puede construir índices (lock en la colección "locks").
+     * 
+     * @return Cantidad de índices construidos, 0 si otra instancia tiene el lock
+     */
+    int ensureIndexes();
+    
+    /**
+     * Compara los índices existentes con el catálogo declarado.
+     * 
+     * @return Reporte con índices faltantes, sin uso y no declarados
+     */
+    IndexReport verifyIndexes();
+}
@@ -0,0 +1,231 @@
+package com.stxvxn.app.service;
+
+import com.stxvxn.app.config.MongoIndexCatalog;
+import com.stxvxn.app.config.MongoIndexCatalog.ManagedIndex;
+import com.stxvxn.app.dto.response.IndexReport;
+import com.stxvxn.app.dto.response.IndexReport.IndexEntry;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Implementación de la gestión de índices.
+ */
+@Service
+@Slf4j
+public class IndexManagementServiceImpl implements IndexManagementService {
+    
+    private static final String LOCKS_COLLECTION = "locks";
+    private static final String BUILD_LOCK_ID = "index-build";
+    private static final String ID_INDEX = "_id_";
+    
+    private final MongoTemplate mongoTemplate;
+    private final String mode;
+    private final Duration lockTtl;
+    private final String owner;
+    
+    public IndexManagementServiceImpl(
+            MongoTemplate mongoTemplate,
+            @Value("${petcare.indexes.mode:create}") String mode,
+            @Value("${petcare.indexes.lock-ttl-seconds:600}") long lockTtlSeconds,
+            @Value("${instance.name:app}") String instanceName) {
+        this.mongoTemplate = mongoTemplate;
+        this.mode = mode;
+        this.lockTtl = Duration.ofSeconds(lockTtlSeconds);
+        this.owner = instanceName + "-" + UUID.randomUUID();
+    }
+    
+    @Override
+    public int ensureIndexes() {
+        if (!acquireBuildLock()) {
+            log.info("Index build lock held by another instance, skipping build");
+            return 0;
+        }
+        
+        try {
+            int built = 0;
+            Map<String, Map<String, Document>> existingByCollection = new HashMap<>();
+            
+            for (ManagedIndex managed : MongoIndexCatalog.indexes()) {
+                Map<String, Document> existing = existingByCollection.computeIfAbsent(
+                    managed.getCollection(), this::listIndexes);
+                
+                if (existing.containsKey(signature(managed.getIndex().getIndexKeys()))) {
+                    continue;
+                }
+                
+                try {
+                    log.info("Building index {} on {}", managed.getName(), managed.getCollection());
+                    mongoTemplate.indexOps(managed.getCollection()).createIndex(managed.getIndex());
+                    built++;
+                } catch (Exception e) {
+                    log.error("Failed to build index {} on {}: {}", 
+                             managed.getName(), managed.getCollection(), e.getMessage());
+                }
+            }
+            
+            return built;
+        } finally {
+            releaseBuildLock();
+        }
+    }
+    
+    @Override
+    public IndexReport verifyIndexes() {
+        List<IndexEntry> missing = new ArrayList<>();
+        List<IndexEntry> unused = new ArrayList<>();
+        List<IndexEntry> undeclared = new ArrayList<>();
+        List<IndexEntry> present = new ArrayList<>();
+        
+        Set<String> collections = MongoIndexCatalog.indexes().stream()
+                .map(ManagedIndex::getCollection)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        
+        for (String collection : collections) {
+            Map<String, Document> existing = listIndexes(collection);
+            Map<String, Long> accesses = indexAccesses(collection);
+            Set<String> declared = new LinkedHashSet<>();
+            
+            for (ManagedIndex managed : MongoIndexCatalog.indexes()) {
+                if (!managed.getCollection().equals(collection)) {
+                    continue;
+                }
+                
+                String keys = signature(managed.getIndex().getIndexKeys());
+                declared.add(keys);
+                Document info = existing.get(keys);
+                
+                if (info == null) {
+                    missing.add(entry(collection, managed.getName(), keys, null));
+                } else {
+                    present.add(entry(collection, info.getString("name"), keys, 
+                                      accesses.get(info.getString("name"))));
+                }
+            }
+            
+            existing.forEach((keys, info) -> {
+                String name = info.getString("name");
+                if (ID_INDEX.equals(name)) {
+                    return;
+                }
+                
+                IndexEntry indexEntry = entry(collection, name, keys, accesses.get(name));
+                if (!declared.contains(keys)) {
+                    undeclared.add(indexEntry);
+                }
+                if (Long.valueOf(0L).equals(indexEntry.getAccesses())) {
+                    unused.add(indexEntry);
+                }
+            });
+        }
+        
+        return IndexReport.builder()
+                .mode(mode)
+                .missing(missing)
+                .unused(unused)
+                .undeclared(undeclared)
+                .present(present)
+                .checkedAt(LocalDateTime.now())
+                .build();
+    }
+    
+    /**
+     * Lista los índices existentes de una colección indexados por su firma de claves.
+     */
+    private Map<String, Document> listIndexes(String collection) {
+        Map<String, Document> indexes = new LinkedHashMap<>();
+        for (Document index : mongoTemplate.getCollection(collection).listIndexes()) {
+            indexes.put(signature(index.get("key", Document.class)), index);
+        }
+        return indexes;
+    }
+    
+    /**
+     * Obtiene los accesos por índice mediante $indexStats.
+     * Los contadores son del nodo consultado y se reinician con él.
+     */
+    private Map<String, Long> indexAccesses(String collection) {
+        Map<String, Long> accesses = new HashMap<>();
+        try {
+            for (Document stats : mongoTemplate.getCollection(collection)
+                    .aggregate(List.of(new Document("$indexStats", new Document())))) {
+                Document access = stats.get("accesses", Document.class);
+                accesses.put(stats.getString("name"), access.get("ops", Number.class).longValue());
+            }
+        } catch (Exception e) {
+            log.debug("Could not read $indexStats for {}: {}", collection, e.getMessage());
+        }
+        return accesses;
+    }
+    
+    /**
+     * Firma de un índice a partir de sus claves, en el formato de nombres de MongoDB
+     * (p. ej. status_1_createdAt_-1). Respeta el orden de las claves.
+     */
+    private String signature(Document keys) {
+        return keys.entrySet().stream()
+                .map(key -> key.getKey() + "_" + (key.getValue() instanceof Number number 
+                        ? String.valueOf(number.intValue()) 
+                        : String.valueOf(key.getValue())))
+                .collect(Collectors.joining("_"));
+    }
+    
+    private IndexEntry entry(String collection, String name, String keys, Long accesses) {
+        return IndexEntry.builder()
+                .collection(collection)
+                .name(name)
+                .keys(keys)
+                .accesses(accesses)
+                .build();
+    }
+    
+    /**
+     * Adquiere el lock de construcción de índices. El lock expira tras lockTtl
+     * para que una instancia caída no lo retenga indefinidamente.
+     */
+    private boolean acquireBuildLock() {
+        Date now = new Date();
+        Query query = Query.query(Criteria.where("_id").is(BUILD_LOCK_ID)
+                .orOperator(
+                    Criteria.where("expiresAt").lt(now),
+                    Criteria.where("owner").is(owner)
+                ));
+        Update update = new Update()
+                .set("owner", owner)
+                .set("expiresAt", Date.from(Instant.now().plus(lockTtl)));
+        
+        try {
+            mongoTemplate.upsert(query, update, LOCKS_COLLECTION);
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+    
+    private void releaseBuildLock() {
+        mongoTemplate.remove(
+            Query.query(Criteria.where("_id").is(BUILD_LOCK_ID).and("owner").is(owner)),
+            LOCKS_COLLECTION
+        );
+    }
+}
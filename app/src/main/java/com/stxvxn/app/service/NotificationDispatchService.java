@@ -0,0 +1,39 @@
+package com.stxvxn.app.service;
+
+import com.stxvxn.app.model.Notification;
+
+import java.util.List;
+
+/**
+ * Despacho de notificaciones pendientes por sus canales.
+ * Cada réplica reclama lotes de notificaciones PENDING con un lease
+ * atómico, las envía por el NotificationSender de su canal respetando el
+ * límite de tasa del canal y registra el resultado del lote con una sola
+ * escritura. Los fallos se reintentan con backoff exponencial; al agotar
+ * los intentos la notificación queda en FAILED (dead-letter) hasta que se
+ * reprograma con {@link #replayFailed(List)}.
+ */
+public interface NotificationDispatchService {
+    
+    /**
+     * Devuelve notificaciones FAILED a la cola con los intentos reiniciados
+     * 
+     * @param notificationIds IDs a reprogramar (vacío no reprograma ninguna)
+     * @return Cantidad de notificaciones reprogramadas
+     */
+    long replayFailed(List<String> notificationIds);
+    
+    /**
+     * Devuelve todas las notificaciones FAILED a la cola
+     * 
+     * @return Cantidad de notificaciones reprogramadas
+     */
+    long replayAllFailed();
+    
+    /**
+     * Obtiene las notificaciones en dead-letter más recientes
+     * 
+     * @param limit Cantidad máxima
+     */
+    List<Notification> getFailed(int limit);
+}
@@ -0,0 +1,274 @@
+package com.stxvxn.app.service;
+
+import com.stxvxn.app.exception.ValidationException;
+import com.stxvxn.app.model.Notification;
+import com.stxvxn.app.model.Notification.NotificationChannel;
+import com.stxvxn.app.model.Notification.NotificationStatus;
+import com.stxvxn.app.repository.NotificationRepository;
+import com.stxvxn.app.repository.NotificationRepositoryCustom.FailedDelivery;
+import com.stxvxn.app.service.channel.DeliveryFailure;
+import com.stxvxn.app.service.channel.NotificationSender;
+import com.stxvxn.app.util.TokenBucket;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Implementación del despacho de notificaciones.
+ * Hay un worker por canal con proveedor registrado; en cada ciclo pide al
+ * token bucket del canal hasta batch-size envíos, reclama ese número de
+ * notificaciones y las entrega al proveedor en un solo lote. Reclamar son
+ * tres operaciones y registrar el resultado dos (updateMany de enviadas y
+ * bulkWrite de fallidas), sin importar el tamaño del lote.
+ */
+@Service
+@Slf4j
+public class NotificationDispatchServiceImpl implements NotificationDispatchService {
+    
+    private static final int MAX_FAILED_LIMIT = 1000;
+    
+    private final NotificationRepository notificationRepository;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final long pollIntervalMs;
+    private final long leaseMs;
+    private final int maxAttempts;
+    private final long backoffInitialMs;
+    private final long backoffMaxMs;
+    private final Map<NotificationChannel, ChannelWorker> workers = new EnumMap<>(NotificationChannel.class);
+    
+    private ScheduledExecutorService scheduler;
+    private volatile boolean running;
+    
+    public NotificationDispatchServiceImpl(
+            NotificationRepository notificationRepository,
+            List<NotificationSender> senders,
+            MeterRegistry meterRegistry,
+            Environment environment,
+            @Value("${petcare.notifications.dispatch.enabled:true}") boolean enabled,
+            @Value("${petcare.notifications.dispatch.poll-interval-ms:500}") long pollIntervalMs,
+            @Value("${petcare.notifications.dispatch.lease-ms:60000}") long leaseMs,
+            @Value("${petcare.notifications.dispatch.max-attempts:5}") int maxAttempts,
+            @Value("${petcare.notifications.dispatch.backoff-initial-ms:1000}") long backoffInitialMs,
+            @Value("${petcare.notifications.dispatch.backoff-max-ms:300000}") long backoffMaxMs) {
+        this.notificationRepository = notificationRepository;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.pollIntervalMs = pollIntervalMs;
+        this.leaseMs = leaseMs;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.backoffInitialMs = Math.max(1, backoffInitialMs);
+        this.backoffMaxMs = Math.max(this.backoffInitialMs, backoffMaxMs);
+        
+        for (NotificationSender sender : senders) {
+            String prefix = "petcare.notifications.channels." + sender.getChannel().name().toLowerCase(Locale.ROOT);
+            int batchSize = environment.getProperty(prefix + ".batch-size", Integer.class, 100);
+            double ratePerSecond = environment.getProperty(prefix + ".rate-per-second", Double.class, 0.0);
+            if (workers.put(sender.getChannel(), new ChannelWorker(sender, batchSize, ratePerSecond)) != null) {
+                throw new IllegalStateException("Hay más de un proveedor para el canal " + sender.getChannel());
+            }
+        }
+    }
+    
+    @PostConstruct
+    public void start() {
+        if (!enabled || workers.isEmpty()) {
+            log.info("Notification dispatch disabled on this instance");
+            return;
+        }
+        CustomizableThreadFactory factory = new CustomizableThreadFactory("notification-dispatch-");
+        factory.setDaemon(true);
+        scheduler = Executors.newScheduledThreadPool(workers.size(), factory);
+        running = true;
+        workers.values().forEach(worker -> 
+            scheduler.scheduleWithFixedDelay(worker::run, pollIntervalMs, pollIntervalMs, TimeUnit.MILLISECONDS));
+        log.info("Notification dispatch started for channels {} (rate limits are per instance)", workers.keySet());
+    }
+    
+    /**
+     * Deja terminar los lotes en curso sin reclamar nuevos; los no registrados
+     * se reenvían al vencer su lease
+     */
+    @PreDestroy
+    public void stop() {
+        if (scheduler == null) {
+            return;
+        }
+        running = false;
+        scheduler.shutdown();
+        try {
+            if (!scheduler.awaitTermination(5, TimeUnit.SECONDS)) {
+                log.warn("Notification dispatch did not stop within 5 s; in-flight batches will be redelivered when their lease expires");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    @Override
+    public long replayFailed(List<String> notificationIds) {
+        long replayed = notificationRepository.replayFailed(notificationIds, LocalDateTime.now());
+        meterRegistry.counter("petcare.notifications.dispatch.replayed").increment(replayed);
+        log.info("Replayed {} failed notifications", replayed);
+        return replayed;
+    }
+    
+    @Override
+    public long replayAllFailed() {
+        long replayed = notificationRepository.replayAllFailed(LocalDateTime.now());
+        meterRegistry.counter("petcare.notifications.dispatch.replayed").increment(replayed);
+        log.info("Replayed all {} failed notifications", replayed);
+        return replayed;
+    }
+    
+    @Override
+    public List<Notification> getFailed(int limit) {
+        if (limit <= 0 || limit > MAX_FAILED_LIMIT) {
+            throw new ValidationException("El límite debe estar entre 1 y " + MAX_FAILED_LIMIT);
+        }
+        return notificationRepository.findByStatusOrderByCreatedAtDesc(
+            NotificationStatus.FAILED, PageRequest.of(0, limit));
+    }
+    
+    /**
+     * Backoff exponencial con jitter de hasta 20% para no sincronizar los reintentos
+     */
+    private long backoffMillis(int attempts) {
+        int exponent = Math.min(Math.max(0, attempts - 1), 30);
+        long delay = Math.min(backoffMaxMs, backoffInitialMs << exponent);
+        return delay + ThreadLocalRandom.current().nextLong(delay / 5 + 1);
+    }
+    
+    /**
+     * Worker de un canal; cada uno corre en un único hilo del scheduler
+     */
+    private class ChannelWorker {
+        
+        private final NotificationSender sender;
+        private final NotificationChannel channel;
+        private final int batchSize;
+        private final TokenBucket rateLimit; // null = sin límite
+        private final Counter sent;
+        private final Counter retried;
+        private final Counter failed;
+        private final Timer sendLatency;
+        private final Timer deliveryLag;
+        
+        ChannelWorker(NotificationSender sender, int batchSize, double ratePerSecond) {
+            this.sender = sender;
+            this.channel = sender.getChannel();
+            this.batchSize = Math.max(1, batchSize);
+            // Límite por instancia: con N réplicas despachando, el proveedor recibe hasta
+            // N veces la tasa. Ráfaga de como máximo un lote
+            this.rateLimit = ratePerSecond > 0 ? new TokenBucket(ratePerSecond, Math.max(1, batchSize)) : null;
+            
+            String tag = channel.name();
+            this.sent = meterRegistry.counter("petcare.notifications.dispatch.sent", "channel", tag);
+            this.retried = meterRegistry.counter("petcare.notifications.dispatch.retried", "channel", tag);
+            this.failed = meterRegistry.counter("petcare.notifications.dispatch.failed", "channel", tag);
+            this.sendLatency = Timer.builder("petcare.notifications.dispatch.send")
+                    .description("Duración de cada envío de un lote al proveedor")
+                    .tag("channel", tag)
+                    .register(meterRegistry);
+            this.deliveryLag = Timer.builder("petcare.notifications.dispatch.lag")
+                    .description("Tiempo entre la creación de una notificación y su envío")
+                    .tag("channel", tag)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+        }
+        
+        void run() {
+            try {
+                while (running && !Thread.currentThread().isInterrupted()) {
+                    int permits = rateLimit != null ? rateLimit.acquireUpTo(batchSize) : batchSize;
+                    if (permits == 0) {
+                        return;
+                    }
+                    LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+                    String leaseToken = UUID.randomUUID().toString();
+                    List<Notification> batch = notificationRepository.claimPending(
+                        channel, permits, now, now.plus(leaseMs, ChronoUnit.MILLIS), leaseToken);
+                    if (rateLimit != null && batch.size() < permits) {
+                        rateLimit.release(permits - batch.size());
+                    }
+                    if (batch.isEmpty()) {
+                        return;
+                    }
+                    deliver(batch, leaseToken);
+                    if (batch.size() < permits) {
+                        return;
+                    }
+                }
+            } catch (RuntimeException e) {
+                log.warn("Notification dispatch cycle for {} failed: {}", channel, e.getMessage());
+            }
+        }
+        
+        private void deliver(List<Notification> batch, String leaseToken) {
+            List<DeliveryFailure> failures;
+            long start = System.nanoTime();
+            try {
+                failures = sender.send(batch);
+            } catch (RuntimeException e) {
+                log.warn("{} provider failed for a batch of {}: {}", channel, batch.size(), e.getMessage());
+                failures = batch.stream()
+                        .map(notification -> DeliveryFailure.retryable(notification.getId(), e.getMessage()))
+                        .toList();
+            }
+            sendLatency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            
+            Map<String, DeliveryFailure> failuresById = failures.stream()
+                    .collect(Collectors.toMap(DeliveryFailure::getNotificationId, Function.identity(), (a, b) -> a));
+            LocalDateTime sentAt = LocalDateTime.now();
+            
+            List<String> sentIds = new ArrayList<>();
+            List<FailedDelivery> failedDeliveries = new ArrayList<>();
+            for (Notification notification : batch) {
+                DeliveryFailure failure = failuresById.get(notification.getId());
+                if (failure == null) {
+                    sentIds.add(notification.getId());
+                    deliveryLag.record(Duration.between(notification.getCreatedAt(), sentAt));
+                } else if (failure.isRetryable() && notification.getAttempts() < maxAttempts) {
+                    failedDeliveries.add(new FailedDelivery(notification.getId(), NotificationStatus.PENDING,
+                        sentAt.plus(backoffMillis(notification.getAttempts()), ChronoUnit.MILLIS), failure.getError()));
+                    retried.increment();
+                } else {
+                    failedDeliveries.add(new FailedDelivery(notification.getId(), NotificationStatus.FAILED,
+                        null, failure.getError()));
+                    failed.increment();
+                }
+            }
+            
+            notificationRepository.markSent(sentIds, leaseToken, sentAt);
+            notificationRepository.recordFailures(failedDeliveries, leaseToken);
+            sent.increment(sentIds.size());
+            if (!failedDeliveries.isEmpty()) {
+                log.debug("{} batch: {} sent, {} failed", channel, sentIds.size(), failedDeliveries.size());
+            }
+        }
+    }
+}
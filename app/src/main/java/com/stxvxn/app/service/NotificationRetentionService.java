@@ -0,0 +1,38 @@
+package com.stxvxn.app.service;
+
+import com.stxvxn.app.model.Notification;
+
+import java.util.List;
+
+/**
+ * Retención de notificaciones enviadas.
+ * Las enviadas expiran por un índice TTL sobre sentAt. Opcionalmente,
+ * antes de expirar se mueven a un archivo frío: una colección comprimida
+ * (notifications_archive) o archivos NDJSON comprimidos en disco. Las
+ * consultas pueden incluir lo archivado solo en la colección; los archivos
+ * en disco son una exportación local de cada réplica y no se consultan.
+ */
+public interface NotificationRetentionService {
+
+    /**
+     * Archiva las notificaciones enviadas que superaron archive.after-days
+     *
+     * @return Cantidad de notificaciones archivadas
+     */
+    int archiveSent();
+
+    /**
+     * Busca notificaciones archivadas de un paquete (vacío si el archivo no es consultable)
+     */
+    List<Notification> findArchivedByPackageId(String packageId);
+
+    /**
+     * Busca notificaciones archivadas por número de rastreo (vacío si el archivo no es consultable)
+     */
+    List<Notification> findArchivedByTrackingNumber(String trackingNumber);
+
+    /**
+     * Indica si lo archivado se puede consultar (modo collection)
+     */
+    boolean isArchiveQueryable();
+}
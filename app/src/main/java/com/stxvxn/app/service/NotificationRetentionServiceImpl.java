@@ -0,0 +1,328 @@
+package com.stxvxn.app.service;
+
+import com.mongodb.MongoCommandException;
+import com.mongodb.client.model.CreateCollectionOptions;
+import com.stxvxn.app.model.Notification;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Implementación de la retención de notificaciones.
+ * El índice TTL se declara en MongoIndexCatalog; aquí se ajusta su
+ * expireAfterSeconds a ttl-days con collMod, porque la gestión de índices
+ * solo compara claves. El archivado corre en un hilo propio cada
+ * interval-ms y mueve lotes de enviadas (de la más antigua a la más nueva)
+ * al archivo frío y luego las borra de notifications. Un lock con lease en
+ * la colección locks evita que dos réplicas archiven a la vez. Si una
+ * réplica cae entre copiar y borrar, el lote se vuelve a copiar: en la
+ * colección se ignoran los duplicados y en disco pueden quedar repetidos.
+ * Solo la colección se consulta: los archivos quedan en el disco de la
+ * réplica que tenía el lock, así que son una exportación para sacar del
+ * servidor, no un archivo que la API pueda leer.
+ */
+@Service
+@Slf4j
+public class NotificationRetentionServiceImpl implements NotificationRetentionService {
+
+    static final String ARCHIVE_COLLECTION = "notifications_archive";
+    private static final String NOTIFICATIONS_COLLECTION = "notifications";
+    private static final String LOCKS_COLLECTION = "locks";
+    private static final String LOCK_ID = "notification-retention";
+    private static final String FILE_PREFIX = "notifications-";
+    private static final String FILE_SUFFIX = ".ndjson.gz";
+    private static final int DUPLICATE_KEY = 11000;
+    private static final int NAMESPACE_EXISTS = 48;
+
+    private enum ArchiveMode { NONE, COLLECTION, FILE }
+
+    private final MongoTemplate mongoTemplate;
+    private final ArchiveMode mode;
+    private final Duration ttl;
+    private final Duration archiveAfter;
+    private final int batchSize;
+    private final Path directory;
+    private final String compressor;
+    private final long intervalMs;
+    private final Duration lease;
+    private final String owner;
+    private final Counter archived;
+
+    private ScheduledExecutorService scheduler;
+    private volatile boolean ttlSynced;
+
+    public NotificationRetentionServiceImpl(
+            MongoTemplate mongoTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${petcare.notifications.retention.ttl-days:30}") long ttlDays,
+            @Value("${petcare.notifications.retention.archive.mode:none}") String mode,
+            @Value("${petcare.notifications.retention.archive.after-days:7}") long archiveAfterDays,
+            @Value("${petcare.notifications.retention.archive.batch-size:1000}") int batchSize,
+            @Value("${petcare.notifications.retention.archive.directory:./archive/notifications}") String directory,
+            @Value("${petcare.notifications.retention.archive.compressor:zstd}") String compressor,
+            @Value("${petcare.notifications.retention.interval-ms:3600000}") long intervalMs,
+            @Value("${instance.name:app}") String instanceName) {
+        this.mongoTemplate = mongoTemplate;
+        this.mode = ArchiveMode.valueOf(mode.toUpperCase(Locale.ROOT));
+        this.ttl = Duration.ofDays(ttlDays);
+        this.archiveAfter = Duration.ofDays(archiveAfterDays);
+        this.batchSize = batchSize;
+        this.directory = Paths.get(directory);
+        this.compressor = compressor;
+        this.intervalMs = intervalMs;
+        this.lease = Duration.ofMillis(Math.max(intervalMs, TimeUnit.MINUTES.toMillis(5)));
+        this.owner = instanceName + "-" + UUID.randomUUID();
+        this.archived = Counter.builder("petcare.notifications.archived")
+                .description("Notificaciones enviadas movidas al archivo frío")
+                .tag("mode", this.mode.name().toLowerCase(Locale.ROOT))
+                .register(meterRegistry);
+
+        if (ttlDays <= 0) {
+            throw new IllegalStateException("petcare.notifications.retention.ttl-days debe ser mayor que 0");
+        }
+        // Lo que no se archive a tiempo lo borra el TTL
+        if (this.mode != ArchiveMode.NONE && !this.archiveAfter.minus(this.ttl).isNegative()) {
+            throw new IllegalStateException("petcare.notifications.retention.archive.after-days debe ser menor que ttl-days");
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        // Se crea antes de la construcción de índices para que no quede sin compresión
+        if (mode == ArchiveMode.COLLECTION) {
+            ensureArchiveCollection();
+        }
+
+        CustomizableThreadFactory factory = new CustomizableThreadFactory("notification-retention-");
+        factory.setDaemon(true);
+        scheduler = Executors.newSingleThreadScheduledExecutor(factory);
+        scheduler.scheduleWithFixedDelay(this::runCycle,
+            Math.min(intervalMs, TimeUnit.MINUTES.toMillis(1)), intervalMs, TimeUnit.MILLISECONDS);
+        log.info("Notification retention: TTL {} days, archive {} after {} days",
+                 ttl.toDays(), mode, archiveAfter.toDays());
+        if (mode == ArchiveMode.FILE) {
+            log.info("Archived notifications are exported to {} on this instance and are not returned by queries",
+                     directory.toAbsolutePath());
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    @Override
+    public int archiveSent() {
+        if (mode == ArchiveMode.NONE || !acquireLock()) {
+            return 0;
+        }
+
+        int total = 0;
+        long deadline = System.currentTimeMillis() + lease.toMillis() / 2;
+        try {
+            Query oldest = Query.query(Criteria.where("sentAt").lt(LocalDateTime.now().minus(archiveAfter)))
+                    .with(Sort.by(Sort.Direction.ASC, "sentAt"))
+                    .limit(batchSize);
+            while (System.currentTimeMillis() < deadline && !Thread.currentThread().isInterrupted()) {
+                List<Document> batch = mongoTemplate.find(oldest, Document.class, NOTIFICATIONS_COLLECTION);
+                if (batch.isEmpty()) {
+                    break;
+                }
+
+                if (mode == ArchiveMode.COLLECTION) {
+                    copyToCollection(batch);
+                } else {
+                    appendToFile(batch);
+                }
+
+                // Solo se borra lo que ya quedó archivado
+                List<Object> ids = batch.stream().map(document -> document.get("_id")).toList();
+                mongoTemplate.remove(Query.query(Criteria.where("_id").in(ids)), NOTIFICATIONS_COLLECTION);
+                archived.increment(batch.size());
+                total += batch.size();
+            }
+        } finally {
+            releaseLock();
+        }
+
+        if (total > 0) {
+            log.info("Archived {} sent notifications ({})", total, mode);
+        }
+        return total;
+    }
+
+    @Override
+    public List<Notification> findArchivedByPackageId(String packageId) {
+        return findArchived("packageId", packageId);
+    }
+
+    @Override
+    public List<Notification> findArchivedByTrackingNumber(String trackingNumber) {
+        return findArchived("trackingNumber", trackingNumber);
+    }
+
+    @Override
+    public boolean isArchiveQueryable() {
+        return mode == ArchiveMode.COLLECTION;
+    }
+
+    private void runCycle() {
+        try {
+            if (!ttlSynced) {
+                ttlSynced = syncTtl();
+            }
+            archiveSent();
+        } catch (RuntimeException e) {
+            log.warn("Notification retention cycle failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Ajusta expireAfterSeconds del índice TTL sobre sentAt
+     *
+     * @return false si el índice todavía no existe
+     */
+    private boolean syncTtl() {
+        for (Document index : mongoTemplate.getCollection(NOTIFICATIONS_COLLECTION).listIndexes()) {
+            Document keys = index.get("key", Document.class);
+            if (keys.size() != 1 || !keys.containsKey("sentAt")) {
+                continue;
+            }
+            Number current = index.get("expireAfterSeconds", Number.class);
+            if (current == null) {
+                log.warn("Index {} on notifications.sentAt has no TTL", index.getString("name"));
+            } else if (current.longValue() != ttl.toSeconds()) {
+                mongoTemplate.executeCommand(new Document("collMod", NOTIFICATIONS_COLLECTION)
+                        .append("index", new Document("keyPattern", keys)
+                                .append("expireAfterSeconds", ttl.toSeconds())));
+                log.info("Notification TTL changed from {} to {} seconds", current, ttl.toSeconds());
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private void ensureArchiveCollection() {
+        try {
+            if (mongoTemplate.collectionExists(ARCHIVE_COLLECTION)) {
+                return;
+            }
+            mongoTemplate.getDb().createCollection(ARCHIVE_COLLECTION, new CreateCollectionOptions()
+                    .storageEngineOptions(new Document("wiredTiger",
+                            new Document("configString", "block_compressor=" + compressor))));
+            log.info("Created {} with {} block compression", ARCHIVE_COLLECTION, compressor);
+        } catch (MongoCommandException e) {
+            // Otra réplica la creó al mismo tiempo
+            if (e.getErrorCode() != NAMESPACE_EXISTS) {
+                log.warn("Could not create {}: {}", ARCHIVE_COLLECTION, e.getMessage());
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not create {}: {}", ARCHIVE_COLLECTION, e.getMessage());
+        }
+    }
+
+    private void copyToCollection(List<Document> batch) {
+        try {
+            mongoTemplate.bulkOps(BulkMode.UNORDERED, ARCHIVE_COLLECTION)
+                    .insert(batch)
+                    .execute();
+        } catch (BulkOperationException e) {
+            // Lote copiado antes de una caída: los ya archivados se ignoran
+            boolean onlyDuplicates = e.getErrors().stream().allMatch(error -> error.getCode() == DUPLICATE_KEY);
+            if (!onlyDuplicates) {
+                throw e;
+            }
+        }
+    }
+
+    private void appendToFile(List<Document> batch) {
+        Path file = directory.resolve(FILE_PREFIX + LocalDate.now() + FILE_SUFFIX);
+        try {
+            Files.createDirectories(directory);
+            // Cada lote es un miembro gzip nuevo al final del archivo del día
+            try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                    new GZIPOutputStream(Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND)),
+                    StandardCharsets.UTF_8))) {
+                for (Document document : batch) {
+                    writer.write(document.toJson());
+                    writer.write('\n');
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo escribir el archivo " + file, e);
+        }
+    }
+
+    private List<Notification> findArchived(String field, String value) {
+        // En modo file los archivos son solo una exportación: cada réplica escribe en su disco
+        if (mode != ArchiveMode.COLLECTION) {
+            return List.of();
+        }
+        return mongoTemplate.find(Query.query(Criteria.where(field).is(value)), Notification.class, ARCHIVE_COLLECTION);
+    }
+
+    private boolean acquireLock() {
+        Date now = new Date();
+        Query query = Query.query(Criteria.where("_id").is(LOCK_ID)
+                .orOperator(
+                    Criteria.where("expiresAt").lt(now),
+                    Criteria.where("owner").is(owner)
+                ));
+        Update update = new Update()
+                .set("owner", owner)
+                .set("expiresAt", Date.from(Instant.now().plus(lease)));
+
+        try {
+            mongoTemplate.upsert(query, update, LOCKS_COLLECTION);
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    private void releaseLock() {
+        mongoTemplate.remove(
+            Query.query(Criteria.where("_id").is(LOCK_ID).and("owner").is(owner)),
+            LOCKS_COLLECTION
+        );
+    }
+}
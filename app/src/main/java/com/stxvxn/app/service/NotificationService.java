@@ -1,6 +1,11 @@
 package com.stxvxn.app.service;
 
+import com.stxvxn.app.dto.request.CursorPageRequest;
+import com.stxvxn.app.dto.response.CursorPageResponse;
+import com.stxvxn.app.dto.response.NotificationBacklogSummary;
+import com.stxvxn.app.event.PackageEvent;
 import com.stxvxn.app.model.Notification;
+import com.stxvxn.app.model.Package;
 import com.stxvxn.app.model.PackageStatus;
 
 import java.util.List;
@@ -17,23 +22,52 @@ public interface NotificationService {
                                                 String recipientPhone, PackageStatus status);
     
     /**
-     * Envía una notificación (simulado - solo guarda como enviada)
+     * Crea las notificaciones de estado de un lote de paquetes
+     * (pendientes de envío) con una inserción masiva
+     */
+    List<Notification> createStatusUpdateNotifications(List<Package> packages);
+    
+    /**
+     * Crea las notificaciones de un lote de eventos del pipeline (una por
+     * evento, pendientes de envío) con una inserción masiva
+     */
+    List<Notification> createNotificationsForEvents(List<PackageEvent> events);
+    
+    /**
+     * Reprograma para envío inmediato una notificación en FAILED
+     * (las pendientes ya las envía el NotificationDispatchService)
      */
     void sendNotification(String notificationId);
     
     /**
      * Obtiene todas las notificaciones de un paquete
+     * 
+     * @param packageId ID del paquete
+     * @param includeArchived Incluir también las movidas al archivo frío (solo en modo collection)
      */
-    List<Notification> getNotificationsByPackageId(String packageId);
+    List<Notification> getNotificationsByPackageId(String packageId, boolean includeArchived);
     
     /**
      * Obtiene todas las notificaciones de un número de rastreo
+     * 
+     * @param trackingNumber Número de rastreo
+     * @param includeArchived Incluir también las movidas al archivo frío (solo en modo collection)
+     */
+    List<Notification> getNotificationsByTrackingNumber(String trackingNumber, boolean includeArchived);
+    
+    /**
+     * Obtiene una página de la cola de notificaciones pendientes, paginada
+     * por cursor sobre (createdAt, _id)
+     * 
+     * @param request Cursor, tamaño, dirección y modo de conteo (el campo de orden es siempre createdAt)
+     * @return Página de notificaciones pendientes
      */
-    List<Notification> getNotificationsByTrackingNumber(String trackingNumber);
+    CursorPageResponse<Notification> getPendingNotifications(CursorPageRequest request);
     
     /**
-     * Obtiene todas las notificaciones pendientes
+     * Resumen de la cola de pendientes por tipo y rango de antigüedad.
+     * Se recalcula como mucho una vez cada summary-cache-ms.
      */
-    List<Notification> getPendingNotifications();
+    NotificationBacklogSummary getBacklogSummary();
 }
 
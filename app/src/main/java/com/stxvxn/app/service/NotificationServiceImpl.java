@@ -1,36 +1,158 @@
 package com.stxvxn.app.service;
 
+import com.stxvxn.app.dto.request.CursorPageRequest;
+import com.stxvxn.app.dto.response.CursorPageResponse;
+import com.stxvxn.app.dto.response.NotificationBacklogSummary;
+import com.stxvxn.app.event.PackageEvent;
+import com.stxvxn.app.exception.ValidationException;
 import com.stxvxn.app.model.Notification;
 import com.stxvxn.app.model.Notification.NotificationStatus;
 import com.stxvxn.app.model.Notification.NotificationType;
+import com.stxvxn.app.model.Package;
 import com.stxvxn.app.model.PackageStatus;
 import com.stxvxn.app.repository.NotificationRepository;
+import com.stxvxn.app.repository.NotificationRepositoryCustom.BacklogCount;
+import com.stxvxn.app.repository.NotificationRepositoryCustom.SaveResult;
+import com.stxvxn.app.util.Constants;
+import com.stxvxn.app.util.PageCursor;
+import com.stxvxn.app.util.WriteCombiningBuffer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
 
 /**
- * Implementación del servicio para gestión de notificaciones
+ * Implementación del servicio para gestión de notificaciones.
+ * Cada notificación se guarda pendiente con una única escritura y el
+ * NotificationDispatchService la envía por su canal. Con write-combining
+ * activo, las notificaciones de eventos concurrentes se agrupan en un
+ * mismo insertMany no ordenado por tamaño o por tiempo; quien las crea
+ * espera a que sus notificaciones queden escritas y solo falla si falló
+ * alguna de ellas. Las creadas desde eventos guardan el outboxId del
+ * evento (índice único), así una reentrega del outbox no las duplica.
+ * Con coalescing activo, una notificación se programa al final de la
+ * ventana y las que llegan antes para el mismo destinatario y número de
+ * rastreo se fusionan con ella (queda el último estado). Los estados
+ * finales no esperan la ventana y adelantan el envío de la pendiente.
  */
 @Service
+@Slf4j
 public class NotificationServiceImpl implements NotificationService {
     
+    private static final String QUEUE_SORT_FIELD = "createdAt";
+    
+    // Límites de los rangos de antigüedad del backlog y sus etiquetas (una más que límites)
+    private static final List<Duration> AGE_BOUNDARIES = List.of(
+        Duration.ofMinutes(1), Duration.ofMinutes(5), Duration.ofHours(1), Duration.ofHours(24));
+    private static final List<String> AGE_LABELS = List.of("<1m", "1m-5m", "5m-1h", "1h-24h", ">=24h");
+    
     @Autowired
     private NotificationRepository notificationRepository;
     
+    @Autowired
+    private NotificationDispatchService notificationDispatchService;
+    
+    @Autowired
+    private NotificationTemplateService notificationTemplateService;
+    
+    @Autowired
+    private NotificationRetentionService notificationRetentionService;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${petcare.notifications.write-combining.enabled:true}")
+    private boolean writeCombining;
+    
+    @Value("${petcare.notifications.write-combining.max-batch-size:1000}")
+    private int maxBatchSize;
+    
+    @Value("${petcare.notifications.write-combining.max-delay-ms:20}")
+    private long maxDelayMs;
+    
+    @Value("${petcare.notifications.coalescing.window-ms:5000}")
+    private long coalescingWindowMs;
+    
+    @Value("${petcare.notifications.backlog.summary-cache-ms:5000}")
+    private long summaryCacheMs;
+    
+    private WriteCombiningBuffer<Notification> buffer;
+    private Timer writeTimer;
+    private DistributionSummary batchSizes;
+    private Counter coalescedInBatch;
+    private Counter coalescedInStore;
+    
+    // ReentrantLock y no synchronized: la agregación bloquea y fijaría el hilo virtual a su portador
+    private final ReentrantLock backlogLock = new ReentrantLock();
+    private NotificationBacklogSummary backlogSummary;
+    private long backlogSummaryAt;
+    
+    @PostConstruct
+    public void init() {
+        writeTimer = Timer.builder("petcare.notifications.write")
+                .description("Duración de cada inserción de notificaciones en MongoDB")
+                .register(meterRegistry);
+        batchSizes = DistributionSummary.builder("petcare.notifications.batch.size")
+                .description("Notificaciones por inserción")
+                .register(meterRegistry);
+        coalescedInBatch = Counter.builder("petcare.notifications.coalesced")
+                .description("Envíos ahorrados al fusionar notificaciones del mismo destinatario")
+                .tag("stage", "batch")
+                .register(meterRegistry);
+        coalescedInStore = Counter.builder("petcare.notifications.coalesced")
+                .description("Envíos ahorrados al fusionar notificaciones del mismo destinatario")
+                .tag("stage", "stored")
+                .register(meterRegistry);
+        if (writeCombining) {
+            buffer = WriteCombiningBuffer.withItemFailures("notification-writer", maxBatchSize, maxDelayMs, this::insert);
+        }
+        log.info("Notification writes: {}", writeCombining
+                ? "write-combining (batch " + maxBatchSize + ", delay " + maxDelayMs + " ms)"
+                : "direct");
+        log.info("Notification coalescing: {}", coalescingWindowMs > 0
+                ? "window " + coalescingWindowMs + " ms"
+                : "disabled");
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        if (buffer != null) {
+            buffer.close();
+        }
+    }
+    
     @Override
-    @Transactional
     public Notification createStatusUpdateNotification(String packageId, String trackingNumber, 
                                                        String recipientPhone, PackageStatus status) {
-        // Crear mensaje según el estado
-        String message = buildMessageForStatus(trackingNumber, status);
-        
         // Determinar tipo de notificación
         NotificationType type = determineNotificationType(status);
         
+        // Crear mensaje según el estado
+        String message = notificationTemplateService.render(status, type, trackingNumber);
+        
         // Crear notificación
         Notification notification = new Notification(
             packageId,
@@ -39,70 +161,306 @@ public class NotificationServiceImpl implements NotificationService {
             message,
             type
         );
+        notification.setPackageStatus(status);
         
-        // Guardar notificación
-        Notification saved = notificationRepository.save(notification);
-        
-        // Simular envío inmediato (en producción sería asíncrono)
-        sendNotification(saved.getId());
+        // Guardar notificación pendiente en una sola escritura
+        return savePending(List.of(notification)).get(0);
+    }
+    
+    @Override
+    public List<Notification> createStatusUpdateNotifications(List<Package> packages) {
+        List<Notification> notifications = packages.stream()
+                .map(pkg -> buildNotification(pkg.getId(), pkg.getTrackingNumber(), pkg.getRecipientPhone(), pkg.getStatus()))
+                .collect(Collectors.toList());
         
-        return saved;
+        return savePending(notifications);
     }
     
     @Override
-    @Transactional
-    public void sendNotification(String notificationId) {
-        notificationRepository.findById(notificationId).ifPresent(notification -> {
-            notification.setStatus(NotificationStatus.SENT);
-            notification.setSentAt(LocalDateTime.now());
-            notificationRepository.save(notification);
+    public List<Notification> createNotificationsForEvents(List<PackageEvent> events) {
+        List<Notification> notifications = new ArrayList<>(events.size());
+        for (PackageEvent event : events) {
+            Notification notification = buildNotification(
+                event.getPackageId(), event.getTrackingNumber(), event.getRecipientPhone(), event.getNewStatus());
+            // Con el outboxId una reentrega del mismo evento no duplica la notificación
+            if (event.getOutboxId() != null) {
+                notification.setOutboxIds(new ArrayList<>(List.of(event.getOutboxId())));
+            }
+            // Ordena la fusión por el momento del cambio, no por el de la entrega
+            if (event.getPublishedAt() != null) {
+                notification.setStatusChangedAt(LocalDateTime.ofInstant(event.getPublishedAt(), ZoneId.systemDefault()));
+            }
+            notifications.add(notification);
+        }
+        
+        return savePending(notifications);
+    }
+    
+    private Notification buildNotification(String packageId, String trackingNumber,
+                                           String recipientPhone, PackageStatus status) {
+        NotificationType type = determineNotificationType(status);
+        Notification notification = new Notification(
+            packageId,
+            trackingNumber,
+            recipientPhone,
+            notificationTemplateService.render(status, type, trackingNumber),
+            type
+        );
+        notification.setPackageStatus(status);
+        return notification;
+    }
+    
+    /**
+     * Guarda las notificaciones pendientes de envío con un insertMany
+     * (propio o combinado con otros hilos)
+     */
+    private List<Notification> savePending(List<Notification> notifications) {
+        if (notifications.isEmpty()) {
+            return notifications;
+        }
+        
+        if (coalescingWindowMs > 0) {
+            // Los estados finales se envían sin esperar la ventana
+            for (Notification notification : notifications) {
+                if (!Constants.FINAL_STATUSES.contains(notification.getPackageStatus())) {
+                    notification.setNextAttemptAt(
+                        notification.getCreatedAt().plus(coalescingWindowMs, ChronoUnit.MILLIS));
+                }
+            }
+        }
+        
+        if (buffer == null) {
+            Map<Integer, RuntimeException> failures = insert(notifications);
+            if (!failures.isEmpty()) {
+                throw failures.values().iterator().next();
+            }
+            return notifications;
+        }
+        try {
+            buffer.add(notifications).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+        return notifications;
+    }
+    
+    /**
+     * Escribe un lote con un bulkWrite no ordenado y devuelve el error de cada
+     * notificación no guardada: el fallo de una no afecta a las demás del lote
+     */
+    private Map<Integer, RuntimeException> insert(List<Notification> notifications) {
+        long start = System.nanoTime();
+        Map<Integer, RuntimeException> failures = new HashMap<>();
+        if (coalescingWindowMs > 0) {
+            Map<String, Notification> merged = coalesce(notifications);
+            List<Notification> unique = new ArrayList<>(merged.values());
+            SaveResult result = notificationRepository.saveCoalescing(unique);
+            coalescedInBatch.increment(notifications.size() - merged.size());
+            coalescedInStore.increment(result.getMerged());
+            batchSizes.record(merged.size());
             
-            // En producción aquí se enviaría SMS, Email, Push, etc.
-            System.out.println("📧 Notificación enviada: " + notification.getMessage());
-        });
+            Map<String, String> errorByKey = new HashMap<>();
+            result.getFailures().forEach((index, error) -> errorByKey.put(coalescingKey(unique.get(index)), error));
+            // Las fusionadas en el lote comparten el resultado de la que las reemplazó
+            for (int i = 0; i < notifications.size(); i++) {
+                Notification notification = notifications.get(i);
+                String key = coalescingKey(notification);
+                String error = errorByKey.get(key);
+                if (error != null) {
+                    failures.put(i, writeFailure(error));
+                } else {
+                    notification.setId(merged.get(key).getId());
+                }
+            }
+        } else {
+            notificationRepository.insertIdempotent(notifications).getFailures()
+                    .forEach((index, error) -> failures.put(index, writeFailure(error)));
+            batchSizes.record(notifications.size());
+        }
+        writeTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (!failures.isEmpty()) {
+            log.warn("Could not store {} of {} notifications", failures.size(), notifications.size());
+        }
+        return failures;
+    }
+    
+    private RuntimeException writeFailure(String error) {
+        return new IllegalStateException("No se pudo guardar la notificación: " + error);
+    }
+    
+    /**
+     * Fusiona las notificaciones del lote por destinatario y número de rastreo:
+     * queda la del cambio de estado más reciente (statusChangedAt; a igualdad,
+     * la última del lote) con el menor nextAttemptAt y todos los outboxIds de
+     * las fusionadas
+     */
+    private Map<String, Notification> coalesce(List<Notification> notifications) {
+        Map<String, Notification> latest = new LinkedHashMap<>();
+        for (Notification notification : notifications) {
+            String key = coalescingKey(notification);
+            Notification previous = latest.get(key);
+            if (previous == null) {
+                latest.put(key, notification);
+                continue;
+            }
+            Notification kept = previous.getStatusChangedAt().isAfter(notification.getStatusChangedAt())
+                    ? previous : notification;
+            Notification dropped = kept == previous ? notification : previous;
+            if (dropped.getNextAttemptAt().isBefore(kept.getNextAttemptAt())) {
+                kept.setNextAttemptAt(dropped.getNextAttemptAt());
+            }
+            if (dropped.getOutboxIds() != null) {
+                Set<String> outboxIds = new LinkedHashSet<>(dropped.getOutboxIds());
+                if (kept.getOutboxIds() != null) {
+                    outboxIds.addAll(kept.getOutboxIds());
+                }
+                kept.setOutboxIds(new ArrayList<>(outboxIds));
+            }
+            latest.put(key, kept);
+        }
+        return latest;
+    }
+    
+    private String coalescingKey(Notification notification) {
+        return notification.getTrackingNumber() + "|" + notification.getRecipientPhone();
     }
     
     @Override
-    public List<Notification> getNotificationsByPackageId(String packageId) {
-        return notificationRepository.findByPackageId(packageId);
+    public void sendNotification(String notificationId) {
+        // El envío lo hace el despacho; aquí solo se reprograma si había fallado
+        notificationDispatchService.replayFailed(List.of(notificationId));
     }
     
     @Override
-    public List<Notification> getNotificationsByTrackingNumber(String trackingNumber) {
-        return notificationRepository.findByTrackingNumber(trackingNumber);
+    public List<Notification> getNotificationsByPackageId(String packageId, boolean includeArchived) {
+        List<Notification> notifications = notificationRepository.findByPackageId(packageId);
+        if (!includeArchived || !notificationRetentionService.isArchiveQueryable()) {
+            return notifications;
+        }
+        return withArchived(notifications, notificationRetentionService.findArchivedByPackageId(packageId));
     }
     
     @Override
-    public List<Notification> getPendingNotifications() {
-        return notificationRepository.findByStatusOrderByCreatedAtDesc(NotificationStatus.PENDING);
+    public List<Notification> getNotificationsByTrackingNumber(String trackingNumber, boolean includeArchived) {
+        List<Notification> notifications = notificationRepository.findByTrackingNumber(trackingNumber);
+        if (!includeArchived || !notificationRetentionService.isArchiveQueryable()) {
+            return notifications;
+        }
+        return withArchived(notifications, notificationRetentionService.findArchivedByTrackingNumber(trackingNumber));
     }
     
     /**
-     * Construye el mensaje según el estado del paquete
+     * Agrega las archivadas a las vigentes; una notificación copiada al archivo
+     * pero aún no borrada (archivado interrumpido) aparece una sola vez
      */
-    private String buildMessageForStatus(String trackingNumber, PackageStatus status) {
-        String baseMessage = "Su paquete con número de rastreo " + trackingNumber;
+    private List<Notification> withArchived(List<Notification> notifications, List<Notification> archived) {
+        Map<String, Notification> byId = new LinkedHashMap<>();
+        notifications.forEach(notification -> byId.put(notification.getId(), notification));
+        archived.forEach(notification -> byId.putIfAbsent(notification.getId(), notification));
+        return new ArrayList<>(byId.values());
+    }
+    
+    @Override
+    public CursorPageResponse<Notification> getPendingNotifications(CursorPageRequest request) {
+        PageCursor after = request.getCursor() != null && !request.getCursor().isBlank()
+                ? PageCursor.decode(request.getCursor())
+                : null;
+        if (after != null && !QUEUE_SORT_FIELD.equals(after.getSortField())) {
+            throw new ValidationException("Cursor de paginación inválido");
+        }
+        Sort.Direction direction = after != null ? after.getDirection() : request.getDirection();
+        int size = Math.max(1, Math.min(request.getSize(), Constants.MAX_PAGE_SIZE));
         
-        switch (status) {
-            case REGISTRADO:
-                return baseMessage + " ha sido registrado en nuestro sistema.";
-            case EN_ALMACEN:
-                return baseMessage + " está en nuestro almacén de origen.";
-            case EN_TRANSITO:
-                return baseMessage + " está en tránsito hacia su destino.";
-            case EN_DISTRIBUCION:
-                return baseMessage + " está en el centro de distribución local.";
-            case EN_REPARTO:
-                return baseMessage + " está siendo entregado. Por favor esté atento.";
-            case ENTREGADO:
-                return baseMessage + " ha sido entregado exitosamente. ¡Gracias por su preferencia!";
-            case DEVUELTO:
-                return baseMessage + " ha sido devuelto. Por favor contacte con atención al cliente.";
-            case PERDIDO:
-                return baseMessage + " ha sido reportado como perdido. Estamos investigando. Contacte con atención al cliente.";
-            default:
-                return baseMessage + " ha cambiado de estado.";
+        // Se pide un elemento extra para saber si hay página siguiente sin contar
+        List<Notification> items = notificationRepository.findPageByStatus(
+            NotificationStatus.PENDING, direction, after, size + 1);
+        boolean hasNext = items.size() > size;
+        List<Notification> content = hasNext ? items.subList(0, size) : items;
+        
+        String nextCursor = null;
+        if (hasNext) {
+            Notification last = content.get(content.size() - 1);
+            nextCursor = new PageCursor(QUEUE_SORT_FIELD, direction, last.getCreatedAt(), last.getId()).encode();
         }
+        
+        // Con filtro por estado el conteo se resuelve sobre el índice; estimated se detiene en el tope
+        Long total = switch (request.getCountMode()) {
+            case NONE -> null;
+            case ESTIMATED -> notificationRepository.countByStatusUpTo(NotificationStatus.PENDING, Constants.ESTIMATED_COUNT_LIMIT);
+            case EXACT -> notificationRepository.countByStatus(NotificationStatus.PENDING);
+        };
+        return CursorPageResponse.<Notification>builder()
+                .content(content)
+                .size(size)
+                .sort(QUEUE_SORT_FIELD)
+                .direction(direction.name())
+                .hasNext(hasNext)
+                .nextCursor(nextCursor)
+                .totalElements(total)
+                .totalElementsAtLeast(request.getCountMode() == CursorPageRequest.CountMode.ESTIMATED
+                        && total >= Constants.ESTIMATED_COUNT_LIMIT)
+                .countMode(request.getCountMode().name())
+                .build();
+    }
+    
+    @Override
+    public NotificationBacklogSummary getBacklogSummary() {
+        backlogLock.lock();
+        try {
+            // Varios monitores consultando a la vez comparten una sola agregación
+            if (backlogSummary != null 
+                    && System.nanoTime() - backlogSummaryAt < TimeUnit.MILLISECONDS.toNanos(summaryCacheMs)) {
+                return backlogSummary;
+            }
+            backlogSummary = computeBacklogSummary();
+            backlogSummaryAt = System.nanoTime();
+            return backlogSummary;
+        } finally {
+            backlogLock.unlock();
+        }
+    }
+    
+    private NotificationBacklogSummary computeBacklogSummary() {
+        LocalDateTime now = LocalDateTime.now();
+        List<LocalDateTime> boundaries = AGE_BOUNDARIES.stream().map(now::minus).toList();
+        
+        Map<String, Long> byType = new LinkedHashMap<>();
+        Map<String, Long> byAge = new LinkedHashMap<>();
+        Map<String, Map<String, Long>> byTypeAndAge = new LinkedHashMap<>();
+        AGE_LABELS.forEach(label -> byAge.put(label, 0L));
+        for (NotificationType type : NotificationType.values()) {
+            byType.put(type.name(), 0L);
+            Map<String, Long> ages = new LinkedHashMap<>();
+            AGE_LABELS.forEach(label -> ages.put(label, 0L));
+            byTypeAndAge.put(type.name(), ages);
+        }
+        
+        long total = 0;
+        LocalDateTime oldest = null;
+        for (BacklogCount count : notificationRepository.countByTypeAndAge(NotificationStatus.PENDING, boundaries)) {
+            String type = String.valueOf(count.getType());
+            String age = AGE_LABELS.get(count.getAgeBucket());
+            byType.merge(type, count.getCount(), Long::sum);
+            byAge.merge(age, count.getCount(), Long::sum);
+            byTypeAndAge.computeIfAbsent(type, key -> new LinkedHashMap<>()).merge(age, count.getCount(), Long::sum);
+            total += count.getCount();
+            if (count.getOldestCreatedAt() != null && (oldest == null || count.getOldestCreatedAt().isBefore(oldest))) {
+                oldest = count.getOldestCreatedAt();
+            }
+        }
+        
+        return NotificationBacklogSummary.builder()
+                .total(total)
+                .oldestCreatedAt(oldest)
+                .oldestAgeSeconds(oldest != null ? Duration.between(oldest, now).getSeconds() : null)
+                .byType(byType)
+                .byAge(byAge)
+                .byTypeAndAge(byTypeAndAge)
+                .generatedAt(now)
+                .build();
     }
     
     /**
@@ -0,0 +1,52 @@
+package com.stxvxn.app.service;
+
+import com.stxvxn.app.model.Notification.NotificationType;
+import com.stxvxn.app.model.PackageStatus;
+
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Plantillas de los mensajes de notificación.
+ * Hay una plantilla por estado del paquete y, como respaldo, por tipo de
+ * notificación, para cada idioma configurado. Se cargan y compilan al
+ * arrancar y se pueden recargar en caliente sin reiniciar; si una recarga
+ * falla se siguen usando las anteriores.
+ */
+public interface NotificationTemplateService {
+
+    /**
+     * Construye el mensaje en el idioma por defecto
+     *
+     * @param status Estado del paquete
+     * @param type Tipo de notificación (respaldo si el estado no tiene plantilla)
+     * @param trackingNumber Número de rastreo
+     * @return Mensaje renderizado
+     */
+    String render(PackageStatus status, NotificationType type, String trackingNumber);
+
+    /**
+     * Construye el mensaje en el idioma indicado; si el idioma no está
+     * configurado o le falta la plantilla, se usa el idioma por defecto
+     *
+     * @param status Estado del paquete
+     * @param type Tipo de notificación (respaldo si el estado no tiene plantilla)
+     * @param trackingNumber Número de rastreo
+     * @param locale Idioma del destinatario
+     * @return Mensaje renderizado
+     */
+    String render(PackageStatus status, NotificationType type, String trackingNumber, Locale locale);
+
+    /**
+     * Vuelve a cargar y compilar las plantillas
+     *
+     * @return Cantidad de plantillas compiladas
+     * @throws com.stxvxn.app.exception.ValidationException si alguna plantilla es inválida
+     */
+    int reload();
+
+    /**
+     * Idiomas con plantillas cargadas
+     */
+    Set<Locale> getLocales();
+}
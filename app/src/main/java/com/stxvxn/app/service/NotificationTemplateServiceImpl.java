@@ -0,0 +1,275 @@
+package com.stxvxn.app.service;
+
+import com.stxvxn.app.exception.ValidationException;
+import com.stxvxn.app.model.Notification.NotificationType;
+import com.stxvxn.app.model.PackageStatus;
+import com.stxvxn.app.util.MessageTemplate;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Implementación de las plantillas de notificación.
+ * Cada idioma se lee de {location}messages_{idioma}.properties (UTF-8) y sus
+ * plantillas se compilan a arreglos indexados por el ordinal del estado y
+ * del tipo, así que elegir una plantilla no usa mapas. El conjunto
+ * compilado se publica en una referencia volatile: una recarga arma uno
+ * nuevo completo y lo reemplaza de una vez, sin bloquear a quien renderiza.
+ * Con reload-interval-ms mayor que 0 se revisa la fecha de modificación de
+ * los archivos y se recarga al cambiar (útil con location=file:...).
+ */
+@Service
+@Slf4j
+public class NotificationTemplateServiceImpl implements NotificationTemplateService {
+
+    private static final List<String> VARIABLES = List.of("trackingNumber", "status");
+    private static final int MAX_RETAINED_BUILDER = 4096;
+
+    // Builder reutilizado por hilo: renderizar solo crea la cadena final
+    private static final ThreadLocal<StringBuilder> BUILDER = ThreadLocal.withInitial(() -> new StringBuilder(256));
+
+    private final ResourceLoader resourceLoader;
+    private final String location;
+    private final Locale defaultLocale;
+    private final List<Locale> locales;
+    private final long reloadIntervalMs;
+    private final Counter reloads;
+    private final Counter reloadErrors;
+
+    private volatile CompiledTemplates templates;
+    private ScheduledExecutorService watcher;
+    private Map<Locale, Long> rejectedModified; // solo lo usa el hilo del watcher
+
+    public NotificationTemplateServiceImpl(
+            ResourceLoader resourceLoader,
+            MeterRegistry meterRegistry,
+            @Value("${petcare.notifications.templates.location:classpath:templates/notifications/}") String location,
+            @Value("${petcare.notifications.templates.default-locale:es}") String defaultLocale,
+            @Value("${petcare.notifications.templates.locales:es,en}") List<String> locales,
+            @Value("${petcare.notifications.templates.reload-interval-ms:0}") long reloadIntervalMs) {
+        this.resourceLoader = resourceLoader;
+        this.location = location.endsWith("/") ? location : location + "/";
+        this.defaultLocale = Locale.forLanguageTag(defaultLocale);
+        this.locales = new ArrayList<>();
+        this.locales.add(this.defaultLocale);
+        for (String tag : locales) {
+            Locale locale = Locale.forLanguageTag(tag.trim());
+            if (!this.locales.contains(locale)) {
+                this.locales.add(locale);
+            }
+        }
+        this.reloadIntervalMs = reloadIntervalMs;
+        this.reloads = meterRegistry.counter("petcare.notifications.templates.reloads", "result", "success");
+        this.reloadErrors = meterRegistry.counter("petcare.notifications.templates.reloads", "result", "error");
+    }
+
+    @PostConstruct
+    public void init() {
+        // Sin plantillas válidas la aplicación no arranca
+        templates = load();
+        log.info("Notification templates loaded: {} templates, locales {}", templates.count(), templates.byLanguage().keySet());
+
+        if (reloadIntervalMs > 0) {
+            CustomizableThreadFactory factory = new CustomizableThreadFactory("template-watcher-");
+            factory.setDaemon(true);
+            watcher = Executors.newSingleThreadScheduledExecutor(factory);
+            watcher.scheduleWithFixedDelay(this::reloadIfModified, reloadIntervalMs, reloadIntervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (watcher != null) {
+            watcher.shutdownNow();
+        }
+    }
+
+    @Override
+    public String render(PackageStatus status, NotificationType type, String trackingNumber) {
+        return render(templates.defaults(), status, type, trackingNumber);
+    }
+
+    @Override
+    public String render(PackageStatus status, NotificationType type, String trackingNumber, Locale locale) {
+        CompiledTemplates current = templates;
+        LocaleTemplates selected = locale != null ? current.byLanguage().get(locale.getLanguage()) : null;
+        if (selected == null || selected.find(status, type) == null) {
+            selected = current.defaults();
+        }
+        return render(selected, status, type, trackingNumber);
+    }
+
+    @Override
+    public int reload() {
+        try {
+            templates = load();
+        } catch (IllegalStateException e) {
+            reloadErrors.increment();
+            throw new ValidationException(e.getMessage());
+        }
+        reloads.increment();
+        log.info("Notification templates reloaded: {} templates", templates.count());
+        return templates.count();
+    }
+
+    @Override
+    public Set<Locale> getLocales() {
+        Set<Locale> loaded = new LinkedHashSet<>();
+        templates.byLanguage().values().forEach(localeTemplates -> loaded.add(localeTemplates.locale()));
+        return loaded;
+    }
+
+    private String render(LocaleTemplates localeTemplates, PackageStatus status, NotificationType type, String trackingNumber) {
+        MessageTemplate template = localeTemplates.find(status, type);
+        StringBuilder builder = BUILDER.get();
+        builder.setLength(0);
+        template.renderTo(builder, trackingNumber, status != null ? status.getDisplayName() : null);
+        String message = builder.toString();
+        if (builder.capacity() > MAX_RETAINED_BUILDER) {
+            BUILDER.remove();
+        }
+        return message;
+    }
+
+    private void reloadIfModified() {
+        Map<Locale, Long> modified = lastModified();
+        // Un archivo inválido se reintenta recién cuando vuelve a cambiar
+        if (modified.equals(templates.lastModified()) || modified.equals(rejectedModified)) {
+            return;
+        }
+        try {
+            reload();
+        } catch (RuntimeException e) {
+            rejectedModified = modified;
+            log.warn("Could not reload notification templates, keeping the previous ones: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Lee y compila todas las plantillas. El idioma por defecto debe existir y
+     * tener la plantilla type.STATUS_UPDATE, que es el último respaldo.
+     */
+    private CompiledTemplates load() {
+        Map<String, LocaleTemplates> byLanguage = new LinkedHashMap<>();
+        int count = 0;
+        for (Locale locale : locales) {
+            Resource resource = resourceFor(locale);
+            if (!resource.exists()) {
+                if (locale.equals(defaultLocale)) {
+                    throw new IllegalStateException("No existen plantillas para el idioma por defecto: " + resource.getDescription());
+                }
+                log.warn("No notification templates for locale {} ({})", locale, resource.getDescription());
+                continue;
+            }
+            LocaleTemplates compiled = compile(locale, resource);
+            byLanguage.put(locale.getLanguage(), compiled);
+            count += compiled.count();
+        }
+
+        LocaleTemplates defaults = byLanguage.get(defaultLocale.getLanguage());
+        if (defaults.byType()[NotificationType.STATUS_UPDATE.ordinal()] == null) {
+            throw new IllegalStateException("Falta la plantilla type.STATUS_UPDATE del idioma por defecto");
+        }
+        return new CompiledTemplates(byLanguage, defaults, lastModified(), count);
+    }
+
+    private LocaleTemplates compile(Locale locale, Resource resource) {
+        Properties properties = new Properties();
+        try (Reader reader = new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        } catch (IOException e) {
+            throw new IllegalStateException("No se pudieron leer las plantillas " + resource.getDescription() + ": " + e.getMessage());
+        }
+
+        MessageTemplate[] byStatus = new MessageTemplate[PackageStatus.values().length];
+        MessageTemplate[] byType = new MessageTemplate[NotificationType.values().length];
+        for (String key : properties.stringPropertyNames()) {
+            try {
+                MessageTemplate template = MessageTemplate.compile(properties.getProperty(key), VARIABLES);
+                if (key.startsWith("status.")) {
+                    byStatus[PackageStatus.valueOf(key.substring("status.".length())).ordinal()] = template;
+                } else if (key.startsWith("type.")) {
+                    byType[NotificationType.valueOf(key.substring("type.".length())).ordinal()] = template;
+                } else {
+                    throw new IllegalArgumentException("Clave desconocida");
+                }
+            } catch (IllegalArgumentException e) {
+                throw new IllegalStateException("Plantilla inválida " + key + " (" + locale + "): " + e.getMessage());
+            }
+        }
+        return new LocaleTemplates(locale, byStatus, byType);
+    }
+
+    private Map<Locale, Long> lastModified() {
+        Map<Locale, Long> modified = new HashMap<>();
+        for (Locale locale : locales) {
+            Resource resource = resourceFor(locale);
+            try {
+                modified.put(locale, resource.exists() ? resource.lastModified() : -1L);
+            } catch (IOException e) {
+                modified.put(locale, -1L);
+            }
+        }
+        return modified;
+    }
+
+    private Resource resourceFor(Locale locale) {
+        return resourceLoader.getResource(location + "messages_" + locale.getLanguage() + ".properties");
+    }
+
+    /**
+     * Plantillas compiladas de un idioma, indexadas por ordinal
+     */
+    private record LocaleTemplates(Locale locale, MessageTemplate[] byStatus, MessageTemplate[] byType) {
+
+        MessageTemplate find(PackageStatus status, NotificationType type) {
+            MessageTemplate template = status != null ? byStatus[status.ordinal()] : null;
+            if (template == null && type != null) {
+                template = byType[type.ordinal()];
+            }
+            if (template == null) {
+                template = byType[NotificationType.STATUS_UPDATE.ordinal()];
+            }
+            return template;
+        }
+
+        int count() {
+            int count = 0;
+            for (MessageTemplate template : byStatus) {
+                count += template != null ? 1 : 0;
+            }
+            for (MessageTemplate template : byType) {
+                count += template != null ? 1 : 0;
+            }
+            return count;
+        }
+    }
+
+    private record CompiledTemplates(Map<String, LocaleTemplates> byLanguage, LocaleTemplates defaults,
+                                     Map<Locale, Long> lastModified, int count) {
+    }
+}
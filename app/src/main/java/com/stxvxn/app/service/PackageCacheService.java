@@ -0,0 +1,64 @@
+package com.stxvxn.app.service;
+
+import com.stxvxn.app.dto.PackageResponse;
+import com.stxvxn.app.dto.response.PackageJson;
+
+import java.util.Collection;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Caché en memoria de las consultas por número de rastreo.
+ * Dos niveles: el paquete ya mapeado a PackageResponse y, opcionalmente,
+ * su JSON pre-serializado listo para escribirse en la respuesta.
+ * Cada instancia mantiene su propia caché, acotada por tamaño y TTL.
+ */
+public interface PackageCacheService {
+
+    /**
+     * Obtiene el paquete de la caché o lo carga con el loader indicado.
+     * Los paquetes inexistentes no se almacenan.
+     *
+     * @param trackingNumber Número de rastreo
+     * @param loader Consulta a MongoDB en caso de fallo de caché
+     * @return Paquete encontrado
+     */
+    Optional<PackageResponse> get(String trackingNumber, Function<String, Optional<PackageResponse>> loader);
+
+    /**
+     * Obtiene el JSON del paquete con la versión de la que se serializó; si no
+     * está serializado se resuelve con el nivel de objetos (y este, a su vez,
+     * con el loader).
+     *
+     * @param trackingNumber Número de rastreo
+     * @param loader Consulta a MongoDB en caso de fallo de caché
+     * @return JSON del paquete (escrito tal cual por Jackson) y su versión
+     */
+    Optional<PackageJson> getJson(String trackingNumber, Function<String, Optional<PackageResponse>> loader);
+
+
+    /**
+     * Obtiene el paquete solo si ya está en caché (sin consultar MongoDB)
+     */
+    Optional<PackageResponse> getIfPresent(String trackingNumber);
+
+    /**
+     * Invalida ambos niveles para un paquete
+     */
+    void evict(String trackingNumber);
+
+    /**
+     * Invalida ambos niveles para varios paquetes
+     */
+    void evictAll(Collection<String> trackingNumbers);
+
+    /**
+     * Invalida un paquete del que solo se conoce el ID (borrados)
+     */
+    void evictById(String packageId);
+
+    /**
+     * Vacía la caché (por ejemplo si se pudieron perder invalidaciones)
+     */
+    void clear();
+}
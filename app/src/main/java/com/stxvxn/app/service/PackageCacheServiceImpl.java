@@ -0,0 +1,189 @@
+package com.stxvxn.app.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.RawValue;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.stxvxn.app.dto.PackageResponse;
+import com.stxvxn.app.dto.response.PackageJson;
+import com.stxvxn.app.dto.response.PackageVersion;
+import com.stxvxn.app.util.Constants;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Implementación de la caché de paquetes sobre Caffeine.
+ * Ambos niveles son AsyncCache: la caché solo guarda el future de la carga y
+ * la consulta a MongoDB la hace el hilo que pidió la clave, fuera del compute
+ * del mapa. Así no se bloquea dentro de un monitor (lo que fijaría un hilo
+ * virtual a su portador) y las demás lecturas de la clave esperan ese future.
+ * Las métricas (cache_gets_total por hit/miss, cache_evictions_total,
+ * cache_size) se publican en Prometheus con el tag cache=package|packageJson.
+ */
+@Service
+@Slf4j
+public class PackageCacheServiceImpl implements PackageCacheService {
+
+    private final ObjectMapper objectMapper;
+    private final AsyncCache<String, PackageResponse> packages;
+    private final AsyncCache<String, PackageJson> serialized;
+
+    public PackageCacheServiceImpl(
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${petcare.cache.package.max-size:10000}") long maxSize,
+            @Value("${petcare.cache.package.ttl-seconds:" + Constants.CACHE_TTL_SECONDS + "}") long ttlSeconds,
+            @Value("${petcare.cache.package.serialized:true}") boolean serializedEnabled) {
+        this.objectMapper = objectMapper;
+        this.packages = buildCache(maxSize, ttlSeconds);
+        CaffeineCacheMetrics.monitor(meterRegistry, packages, Constants.CACHE_PACKAGE);
+
+        // Sin nivel serializado el JSON se genera en cada lectura a partir del objeto
+        this.serialized = serializedEnabled ? buildCache(maxSize, ttlSeconds) : null;
+        if (serialized != null) {
+            CaffeineCacheMetrics.monitor(meterRegistry, serialized, Constants.CACHE_PACKAGE_JSON);
+        }
+        log.info("Package cache enabled: max-size={}, ttl={}s, serialized={}",
+                 maxSize, ttlSeconds, serializedEnabled);
+    }
+
+    @Override
+    public Optional<PackageResponse> get(
+            String trackingNumber,
+            Function<String, Optional<PackageResponse>> loader) {
+        // La carga se hace una sola vez por clave aunque lleguen varias lecturas simultáneas
+        return load(packages, trackingNumber, () -> loader.apply(trackingNumber).orElse(null));
+    }
+
+    @Override
+    public Optional<PackageJson> getJson(
+            String trackingNumber,
+            Function<String, Optional<PackageResponse>> loader) {
+        if (serialized == null) {
+            return get(trackingNumber, loader).map(this::serialize);
+        }
+        return load(serialized, trackingNumber, () -> get(trackingNumber, loader).map(this::serialize).orElse(null));
+    }
+
+    @Override
+    public Optional<PackageResponse> getIfPresent(String trackingNumber) {
+        return completed(packages.getIfPresent(trackingNumber));
+    }
+
+    @Override
+    public void evict(String trackingNumber) {
+        // Primero el nivel de objetos: el serializado se reconstruye desde él, así
+        // que invalidarlo antes dejaría a una lectura concurrente rearmarlo con el
+        // objeto viejo. Una carga en curso se descarta: su resultado no se guarda
+        packages.synchronous().invalidate(trackingNumber);
+        if (serialized != null) {
+            serialized.synchronous().invalidate(trackingNumber);
+        }
+    }
+
+    @Override
+    public void evictAll(Collection<String> trackingNumbers) {
+        if (trackingNumbers.isEmpty()) {
+            return;
+        }
+        // Mismo orden que evict
+        packages.synchronous().invalidateAll(trackingNumbers);
+        if (serialized != null) {
+            serialized.synchronous().invalidateAll(trackingNumbers);
+        }
+    }
+
+    @Override
+    public void evictById(String packageId) {
+        // Recorre la caché; solo se usa para borrados, que son poco frecuentes
+        List<String> trackingNumbers = packages.asMap().values().stream()
+                .flatMap(future -> completed(future).stream())
+                .filter(response -> packageId.equals(response.getId()))
+                .map(PackageResponse::getTrackingNumber)
+                .toList();
+        evictAll(trackingNumbers);
+    }
+
+    @Override
+    public void clear() {
+        packages.synchronous().invalidateAll();
+        if (serialized != null) {
+            serialized.synchronous().invalidateAll();
+        }
+    }
+
+    private static <V> AsyncCache<String, V> buildCache(long maxSize, long ttlSeconds) {
+        return Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .buildAsync();
+    }
+
+    /**
+     * Valor de un future ya completado; una carga en curso cuenta como ausente
+     * (no se espera a MongoDB)
+     */
+    private static <V> Optional<V> completed(CompletableFuture<V> future) {
+        if (future == null || !future.isDone() || future.isCompletedExceptionally()) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(future.getNow(null));
+    }
+
+    /**
+     * Devuelve el valor de la clave o lo carga en el hilo actual. El mapping
+     * function solo registra un future vacío; quien lo registró ejecuta el
+     * loader y lo completa, y las lecturas concurrentes esperan ese future.
+     * Un future que termina en null o con error sale solo de la caché.
+     */
+    private static <V> Optional<V> load(AsyncCache<String, V> cache, String key, Supplier<V> loader) {
+        CompletableFuture<V> loading = new CompletableFuture<>();
+        CompletableFuture<V> current = cache.get(key, (k, executor) -> loading);
+        if (current == loading) {
+            try {
+                loading.complete(loader.get());
+            } catch (RuntimeException e) {
+                loading.completeExceptionally(e);
+                throw e;
+            }
+        }
+        try {
+            return Optional.ofNullable(current.join());
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Serializa con el mismo ObjectMapper de Spring MVC. SerializedString
+     * conserva los bytes UTF-8, por lo que cada lectura los copia sin volver
+     * a codificar el paquete. La versión sale del mismo objeto serializado.
+     */
+    private PackageJson serialize(PackageResponse response) {
+        try {
+            return new PackageJson(
+                new RawValue(new SerializedString(objectMapper.writeValueAsString(response))),
+                new PackageVersion(response.getId(), response.getUpdatedAt()));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo serializar el paquete " + response.getTrackingNumber(), e);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.stxvxn.app.service;
+
+/**
+ * Observa la colección packages con un change stream de MongoDB y publica
+ * un PackageChangedEvent por cada escritura, venga de la réplica que venga.
+ * El resume token se persiste por instancia para retomar tras un reinicio
+ * o una caída de la conexión sin perder cambios.
+ */
+public interface PackageChangeStreamService {
+    
+    /**
+     * Inicia el hilo que consume el change stream (no bloquea)
+     */
+    void start();
+    
+    /**
+     * Detiene el consumo y guarda el último resume token
+     */
+    void stop();
+    
+    /**
+     * Indica si el change stream está activo
+     */
+    boolean isRunning();
+}
@@ -0,0 +1,326 @@
+package com.stxvxn.app.service;
+
+import com.mongodb.MongoException;
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import com.stxvxn.app.event.PackageChangedEvent;
+import com.stxvxn.app.model.Package;
+import com.stxvxn.app.model.PackageStatus;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Implementación del change stream de packages sobre el driver de MongoDB.
+ * Un único hilo por instancia consume el stream; el resume token se guarda
+ * en la colección "change_stream_tokens" con _id "packages:{instancia}"
+ * como mucho una vez por intervalo.
+ */
+@Service
+@Slf4j
+public class PackageChangeStreamServiceImpl implements PackageChangeStreamService {
+
+    static final String TOKENS_COLLECTION = "change_stream_tokens";
+
+    // Códigos de MongoDB para un resume token inválido o que ya salió del oplog
+    private static final Set<Integer> RESUME_TOKEN_LOST_CODES = Set.of(260, 280, 286);
+
+    // Solo los campos que necesitan los consumidores; el lookup del documento
+    // completo en las actualizaciones se recorta en el servidor
+    private static final List<Bson> PIPELINE = List.of(
+        Aggregates.match(Filters.in("operationType", "insert", "update", "replace", "delete")),
+        Aggregates.project(Projections.include(
+            "operationType", "documentKey", "clusterTime", "wallTime",
+            "fullDocument.trackingNumber", "fullDocument.status",
+            "fullDocument.currentLocation", "fullDocument.updatedAt"))
+    );
+
+    private final MongoTemplate mongoTemplate;
+    private final EventPublisherService eventPublisherService;
+    private final PackageCacheService packageCacheService;
+    private final MeterRegistry meterRegistry;
+    private final Timer lagTimer;
+    private final String tokenId;
+    private final long maxAwaitMs;
+    private final long tokenSaveIntervalMs;
+    private final long retryDelayMs;
+
+    private volatile boolean running;
+    private volatile Thread worker;
+
+    // Estado del hilo consumidor
+    private boolean tokenLoaded;
+    private BsonDocument resumeToken;
+    private BsonDocument savedToken;
+    private long lastTokenSave;
+
+    public PackageChangeStreamServiceImpl(
+            MongoTemplate mongoTemplate,
+            EventPublisherService eventPublisherService,
+            PackageCacheService packageCacheService,
+            MeterRegistry meterRegistry,
+            @Value("${instance.name:app}") String instanceName,
+            @Value("${petcare.changestream.max-await-ms:1000}") long maxAwaitMs,
+            @Value("${petcare.changestream.token-save-interval-ms:1000}") long tokenSaveIntervalMs,
+            @Value("${petcare.changestream.retry-delay-ms:5000}") long retryDelayMs) {
+        this.mongoTemplate = mongoTemplate;
+        this.eventPublisherService = eventPublisherService;
+        this.packageCacheService = packageCacheService;
+        this.meterRegistry = meterRegistry;
+        this.tokenId = "packages:" + instanceName;
+        this.maxAwaitMs = maxAwaitMs;
+        this.tokenSaveIntervalMs = tokenSaveIntervalMs;
+        this.retryDelayMs = retryDelayMs;
+        this.lagTimer = Timer.builder("petcare.changestream.lag")
+                .description("Tiempo entre la escritura en MongoDB y su recepción por el change stream")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        worker = new Thread(this::run, "change-stream-packages");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @Override
+    @PreDestroy
+    public void stop() {
+        Thread current;
+        synchronized (this) {
+            if (!running) {
+                return;
+            }
+            running = false;
+            current = worker;
+        }
+
+        // tryNext espera como mucho maxAwaitMs; el hilo guarda el token al salir
+        try {
+            current.join(maxAwaitMs + 2000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        log.info("Package change stream stopped");
+    }
+
+    @Override
+    public boolean isRunning() {
+        Thread current = worker;
+        return running && current != null && current.isAlive();
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                consume();
+            } catch (MongoException e) {
+                if (!running) {
+                    break;
+                }
+                meterRegistry.counter("petcare.changestream.errors").increment();
+                if (RESUME_TOKEN_LOST_CODES.contains(e.getCode())) {
+                    // Se perdieron cambios: se descarta el token y todo lo cacheado
+                    log.warn("Change stream resume token is no longer valid (code {}), restarting from now",
+                             e.getCode());
+                    resumeToken = null;
+                    deleteToken();
+                } else {
+                    log.warn("Change stream interrupted: {}. Retrying in {} ms", e.getMessage(), retryDelayMs);
+                }
+                sleep(retryDelayMs);
+            } catch (RuntimeException e) {
+                meterRegistry.counter("petcare.changestream.errors").increment();
+                log.error("Change stream failed: {}. Retrying in {} ms", e.getMessage(), retryDelayMs);
+                sleep(retryDelayMs);
+            }
+        }
+
+        try {
+            saveToken();
+        } catch (RuntimeException e) {
+            log.warn("Could not save change stream resume token on shutdown: {}", e.getMessage());
+        }
+    }
+
+    private void consume() {
+        if (!tokenLoaded) {
+            resumeToken = loadToken();
+            savedToken = resumeToken;
+            tokenLoaded = true;
+        }
+
+        ChangeStreamIterable<Document> changes = mongoTemplate
+                .getCollection(mongoTemplate.getCollectionName(Package.class))
+                .watch(PIPELINE)
+                .fullDocument(FullDocument.UPDATE_LOOKUP)
+                .maxAwaitTime(maxAwaitMs, TimeUnit.MILLISECONDS);
+        boolean resumed = resumeToken != null;
+        if (resumed) {
+            changes = changes.startAfter(resumeToken);
+        }
+
+        try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = changes.cursor()) {
+            if (!resumed) {
+                // Sin token no se sabe qué cambió antes de abrir el stream
+                packageCacheService.clear();
+            }
+            log.info("Package change stream {} (token id: {})", resumed ? "resumed" : "started", tokenId);
+
+            while (running) {
+                ChangeStreamDocument<Document> change = cursor.tryNext();
+                if (change != null) {
+                    try {
+                        publish(change);
+                    } catch (RuntimeException e) {
+                        // Un documento que no se puede procesar se descarta: si el
+                        // error llegara a run() se reabriría desde el mismo token
+                        // y el stream quedaría atascado en este evento
+                        skip(change, e);
+                    }
+                }
+
+                // El cursor avanza el token aunque no lleguen eventos (o se descarten)
+                BsonDocument token = cursor.getResumeToken();
+                if (token != null) {
+                    resumeToken = token;
+                }
+                if (System.currentTimeMillis() - lastTokenSave >= tokenSaveIntervalMs) {
+                    saveToken();
+                }
+            }
+        }
+    }
+
+    private void publish(ChangeStreamDocument<Document> change) {
+        String operation = change.getOperationTypeString();
+        Document fullDocument = change.getFullDocument();
+
+        Instant wallTime = null;
+        if (change.getWallTime() != null) {
+            wallTime = Instant.ofEpochMilli(change.getWallTime().getValue());
+        } else if (change.getClusterTime() != null) {
+            wallTime = Instant.ofEpochSecond(change.getClusterTime().getTime());
+        }
+        if (wallTime != null) {
+            Duration lag = Duration.between(wallTime, Instant.now());
+            lagTimer.record(lag.isNegative() ? Duration.ZERO : lag);
+        }
+        meterRegistry.counter("petcare.changestream.events", "operation", operation).increment();
+
+        String trackingNumber = null;
+        PackageStatus status = null;
+        String currentLocation = null;
+        LocalDateTime updatedAt = null;
+        if (fullDocument != null) {
+            trackingNumber = fullDocument.getString("trackingNumber");
+            String statusName = fullDocument.getString("status");
+            status = statusName != null ? PackageStatus.valueOf(statusName) : null;
+            currentLocation = fullDocument.getString("currentLocation");
+            Date date = fullDocument.getDate("updatedAt");
+            updatedAt = date != null ? LocalDateTime.ofInstant(date.toInstant(), ZoneId.systemDefault()) : null;
+        }
+
+        eventPublisherService.publishPackageChangedEvent(new PackageChangedEvent(
+            this,
+            operation,
+            idOf(change.getDocumentKey()),
+            trackingNumber,
+            status,
+            currentLocation,
+            updatedAt,
+            wallTime
+        ));
+    }
+
+    private void skip(ChangeStreamDocument<Document> change, RuntimeException e) {
+        meterRegistry.counter("petcare.changestream.skipped", "operation", change.getOperationTypeString()).increment();
+        String id = idOf(change.getDocumentKey());
+        log.error("Skipping change stream event {} for package {}: {}", change.getOperationTypeString(), id, e.getMessage());
+
+        // Sin el evento nadie invalida la copia cacheada del paquete; se busca por
+        // id porque los campos del documento pueden ser justamente lo inválido
+        if (id != null) {
+            packageCacheService.evictById(id);
+        }
+    }
+
+    private String idOf(BsonDocument documentKey) {
+        BsonValue id = documentKey != null ? documentKey.get("_id") : null;
+        if (id == null) {
+            return null;
+        }
+        if (id.isObjectId()) {
+            return id.asObjectId().getValue().toHexString();
+        }
+        return id.isString() ? id.asString().getValue() : id.toString();
+    }
+
+    private BsonDocument loadToken() {
+        BsonDocument stored = mongoTemplate.getCollection(TOKENS_COLLECTION)
+                .withDocumentClass(BsonDocument.class)
+                .find(Filters.eq("_id", tokenId))
+                .first();
+        return stored != null && stored.isDocument("token") ? stored.getDocument("token") : null;
+    }
+
+    private void saveToken() {
+        lastTokenSave = System.currentTimeMillis();
+        if (resumeToken == null || resumeToken.equals(savedToken)) {
+            return;
+        }
+        mongoTemplate.getCollection(TOKENS_COLLECTION).replaceOne(
+            Filters.eq("_id", tokenId),
+            new Document("_id", tokenId)
+                .append("token", resumeToken)
+                .append("updatedAt", new Date()),
+            new ReplaceOptions().upsert(true)
+        );
+        savedToken = resumeToken;
+    }
+
+    private void deleteToken() {
+        try {
+            mongoTemplate.getCollection(TOKENS_COLLECTION).deleteOne(Filters.eq("_id", tokenId));
+            savedToken = null;
+        } catch (MongoException e) {
+            log.warn("Could not delete change stream resume token: {}", e.getMessage());
+        }
+    }
+
+    private void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+}
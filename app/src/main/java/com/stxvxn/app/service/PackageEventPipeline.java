@@ -0,0 +1,47 @@
+package com.stxvxn.app.service;
+
+import com.stxvxn.app.event.PackageEvent;
+
+import java.util.List;
+
+/**
+ * Pipeline en memoria para los eventos de paquetes.
+ * Buffers circulares acotados (uno por consumidor, repartidos por número
+ * de rastreo para conservar el orden de cada paquete) que los consumidores
+ * vacían en lotes hacia los PackageEventHandler. Cuando un buffer está
+ * lleno se aplica la política de desborde configurada. Los eventos que
+ * vienen del outbox se confirman solo si todos los handlers los procesaron;
+ * uno descartado o con error se vuelve a entregar al vencer su lease.
+ */
+public interface PackageEventPipeline {
+    
+    /**
+     * Qué hacer cuando el buffer del evento está lleno
+     */
+    enum OverflowPolicy {
+        BLOCK, // Esperar hasta block-timeout-ms y descartar si sigue lleno
+        SPILL, // Guardar en MongoDB y reinyectar cuando haya espacio
+        DROP   // Descartar
+    }
+    
+    /**
+     * Encola un evento
+     */
+    void publish(PackageEvent event);
+    
+    /**
+     * Encola varios eventos
+     */
+    void publishAll(List<PackageEvent> events);
+    
+    /**
+     * Eventos en los buffers pendientes de procesar
+     */
+    int getQueueDepth();
+    
+    /**
+     * Eventos que se pueden encolar sin desbordar, sea cual sea su número de
+     * rastreo: el espacio libre del buffer más lleno
+     */
+    int getRemainingCapacity();
+}
@@ -0,0 +1,331 @@
+package com.stxvxn.app.service;
+
+import com.stxvxn.app.event.PackageEvent;
+import com.stxvxn.app.event.PackageEventHandler;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Implementación del pipeline de eventos.
+ * Cada consumidor tiene su propio ArrayBlockingQueue (buffer circular
+ * acotado) y un hilo que lo vacía en lotes de hasta batch-size eventos.
+ * Con la política SPILL los eventos que no caben se guardan en la
+ * colección package_event_spill y un hilo los reinyecta cuando los
+ * buffers bajan de la mitad; un evento reinyectado puede procesarse
+ * después de otros más nuevos del mismo paquete. Un lote se confirma en el
+ * outbox solo si ningún handler falló.
+ */
+@Service
+@Slf4j
+public class PackageEventPipelineImpl implements PackageEventPipeline {
+
+    static final String SPILL_COLLECTION = "package_event_spill";
+
+    private final List<PackageEventHandler> handlers;
+    private final PackageOutboxService packageOutboxService;
+    private final MongoTemplate mongoTemplate;
+    private final MeterRegistry meterRegistry;
+    private final OverflowPolicy overflowPolicy;
+    private final ArrayBlockingQueue<PackageEvent>[] shards;
+    private final int capacity;
+    private final int batchSize;
+    private final long blockTimeoutMs;
+    private final long spillDrainIntervalMs;
+    private final long shutdownTimeoutMs;
+
+    private final Counter published;
+    private final Counter processed;
+    private final Counter spilled;
+    private final Timer lag;
+    private final Timer batchTimer;
+    private final AtomicLong spillPending = new AtomicLong();
+
+    private final List<Thread> consumers = new ArrayList<>();
+    private ScheduledExecutorService spillDrainer;
+    private volatile boolean running;
+
+    @SuppressWarnings("unchecked")
+    public PackageEventPipelineImpl(
+            List<PackageEventHandler> handlers,
+            PackageOutboxService packageOutboxService,
+            MongoTemplate mongoTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${petcare.events.capacity:8192}") int capacity,
+            @Value("${petcare.events.consumers:2}") int consumers,
+            @Value("${petcare.events.batch-size:200}") int batchSize,
+            @Value("${petcare.events.overflow-policy:spill}") String overflowPolicy,
+            @Value("${petcare.events.block-timeout-ms:1000}") long blockTimeoutMs,
+            @Value("${petcare.events.spill-drain-interval-ms:1000}") long spillDrainIntervalMs,
+            @Value("${petcare.events.shutdown-timeout-ms:10000}") long shutdownTimeoutMs) {
+        this.handlers = handlers;
+        this.packageOutboxService = packageOutboxService;
+        this.mongoTemplate = mongoTemplate;
+        this.meterRegistry = meterRegistry;
+        this.overflowPolicy = OverflowPolicy.valueOf(overflowPolicy.toUpperCase(Locale.ROOT));
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.blockTimeoutMs = blockTimeoutMs;
+        this.spillDrainIntervalMs = spillDrainIntervalMs;
+        this.shutdownTimeoutMs = shutdownTimeoutMs;
+
+        int shardCount = Math.max(1, consumers);
+        this.shards = new ArrayBlockingQueue[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new ArrayBlockingQueue<>(Math.max(1, capacity / shardCount));
+        }
+
+        this.published = meterRegistry.counter("petcare.events.published");
+        this.processed = meterRegistry.counter("petcare.events.processed");
+        this.spilled = meterRegistry.counter("petcare.events.spilled");
+        this.lag = Timer.builder("petcare.events.lag")
+                .description("Tiempo entre la publicación de un evento y su procesamiento")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.batchTimer = Timer.builder("petcare.events.batch")
+                .description("Duración del procesamiento de un lote de eventos")
+                .register(meterRegistry);
+        Gauge.builder("petcare.events.queue.depth", this, PackageEventPipelineImpl::getQueueDepth)
+                .description("Eventos en los buffers pendientes de procesar")
+                .register(meterRegistry);
+        Gauge.builder("petcare.events.spill.pending", spillPending, AtomicLong::get)
+                .description("Eventos guardados en el spill de MongoDB por esta instancia")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        for (int i = 0; i < shards.length; i++) {
+            ArrayBlockingQueue<PackageEvent> shard = shards[i];
+            Thread consumer = new Thread(() -> consume(shard), "event-consumer-" + i);
+            consumer.setDaemon(true);
+            consumer.start();
+            consumers.add(consumer);
+        }
+
+        if (overflowPolicy == OverflowPolicy.SPILL) {
+            CustomizableThreadFactory factory = new CustomizableThreadFactory("event-spill-");
+            factory.setDaemon(true);
+            spillDrainer = Executors.newSingleThreadScheduledExecutor(factory);
+            spillDrainer.scheduleWithFixedDelay(this::drainSpill,
+                spillDrainIntervalMs, spillDrainIntervalMs, TimeUnit.MILLISECONDS);
+        }
+        log.info("Package event pipeline started: {} consumers, capacity {}, batch {}, overflow {}",
+                 shards.length, capacity, batchSize, overflowPolicy);
+    }
+
+    @Override
+    public void publish(PackageEvent event) {
+        if (event.getPublishedAt() == null) {
+            event.setPublishedAt(Instant.now());
+        }
+        published.increment();
+
+        ArrayBlockingQueue<PackageEvent> shard = shardFor(event);
+        if (shard.offer(event)) {
+            return;
+        }
+
+        switch (overflowPolicy) {
+            case BLOCK -> {
+                try {
+                    if (!shard.offer(event, blockTimeoutMs, TimeUnit.MILLISECONDS)) {
+                        drop(event, "timeout");
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    drop(event, "interrupted");
+                }
+            }
+            case SPILL -> spill(List.of(event));
+            case DROP -> drop(event, "full");
+        }
+    }
+
+    @Override
+    public void publishAll(List<PackageEvent> events) {
+        events.forEach(this::publish);
+    }
+
+    @Override
+    public int getQueueDepth() {
+        int depth = 0;
+        for (ArrayBlockingQueue<PackageEvent> shard : shards) {
+            depth += shard.size();
+        }
+        return depth;
+    }
+
+    @Override
+    public int getRemainingCapacity() {
+        // El buffer más lleno manda: cada evento va a un buffer fijo por su
+        // número de rastreo, así que la suma no garantiza lugar para ninguno
+        int remaining = Integer.MAX_VALUE;
+        for (ArrayBlockingQueue<PackageEvent> shard : shards) {
+            remaining = Math.min(remaining, shard.remainingCapacity());
+        }
+        return remaining;
+    }
+
+    /**
+     * Detiene los consumidores dejando que vacíen sus buffers; lo que no
+     * alcance a procesarse va al spill (o se descarta con métrica)
+     */
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (spillDrainer != null) {
+            spillDrainer.shutdownNow();
+        }
+
+        long deadline = System.currentTimeMillis() + shutdownTimeoutMs;
+        for (Thread consumer : consumers) {
+            try {
+                consumer.join(Math.max(1, deadline - System.currentTimeMillis()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+
+        List<PackageEvent> remaining = new ArrayList<>();
+        for (ArrayBlockingQueue<PackageEvent> shard : shards) {
+            shard.drainTo(remaining);
+        }
+        if (remaining.isEmpty()) {
+            return;
+        }
+        if (overflowPolicy == OverflowPolicy.SPILL) {
+            spill(remaining);
+        } else {
+            remaining.forEach(event -> drop(event, "shutdown"));
+        }
+        log.warn("Package event pipeline stopped with {} unprocessed events", remaining.size());
+    }
+
+    private void consume(ArrayBlockingQueue<PackageEvent> shard) {
+        List<PackageEvent> batch = new ArrayList<>(batchSize);
+        // Al detenerse, termina de vaciar su buffer antes de salir
+        while (running || !shard.isEmpty()) {
+            try {
+                PackageEvent first = shard.poll(200, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                shard.drainTo(batch, batchSize - 1);
+                dispatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Package event consumer failed", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void dispatch(List<PackageEvent> batch) {
+        Instant now = Instant.now();
+        for (PackageEvent event : batch) {
+            lag.record(Duration.between(event.getPublishedAt(), now));
+        }
+
+        boolean failed = false;
+        long startNanos = System.nanoTime();
+        for (PackageEventHandler handler : handlers) {
+            try {
+                handler.handle(batch);
+            } catch (Exception e) {
+                // Un handler con error no afecta a los demás ni al flujo principal
+                failed = true;
+                meterRegistry.counter("petcare.events.handler.errors",
+                    "handler", handler.getClass().getSimpleName()).increment();
+                log.error("Error handling {} package events in {}",
+                          batch.size(), handler.getClass().getSimpleName(), e);
+            }
+        }
+        batchTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        processed.increment(batch.size());
+
+        // Sin confirmar, el outbox vuelve a entregar el lote al vencer el lease
+        if (!failed) {
+            packageOutboxService.acknowledge(batch);
+        }
+    }
+
+    private void spill(List<PackageEvent> events) {
+        try {
+            mongoTemplate.insert(events, SPILL_COLLECTION);
+            spilled.increment(events.size());
+            spillPending.addAndGet(events.size());
+        } catch (RuntimeException e) {
+            log.error("Could not spill {} package events: {}", events.size(), e.getMessage());
+            events.forEach(event -> drop(event, "spill_failed"));
+        }
+    }
+
+    /**
+     * Reinyecta eventos del spill mientras los buffers estén por debajo de la mitad.
+     * Cada evento se reclama con findAndRemove, así que dos instancias no
+     * procesan el mismo.
+     */
+    private void drainSpill() {
+        try {
+            int reinjected = 0;
+            Query oldest = new Query().with(Sort.by(Sort.Direction.ASC, "_id"));
+            while (running && getQueueDepth() < capacity / 2) {
+                PackageEvent event = mongoTemplate.findAndRemove(oldest, PackageEvent.class, SPILL_COLLECTION);
+                if (event == null) {
+                    spillPending.set(0);
+                    break;
+                }
+                spillPending.updateAndGet(pending -> Math.max(0, pending - 1));
+                event.setId(null);
+                if (!shardFor(event).offer(event)) {
+                    spill(List.of(event));
+                    break;
+                }
+                reinjected++;
+            }
+            if (reinjected > 0) {
+                log.info("Reinjected {} spilled package events", reinjected);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not drain package event spill: {}", e.getMessage());
+        }
+    }
+
+    private void drop(PackageEvent event, String reason) {
+        meterRegistry.counter("petcare.events.dropped", "reason", reason).increment();
+        log.warn("Dropped {} event for {} ({})", event.getType(), event.getTrackingNumber(), reason);
+    }
+
+    private ArrayBlockingQueue<PackageEvent> shardFor(PackageEvent event) {
+        String key = event.getTrackingNumber() != null ? event.getTrackingNumber() : "";
+        return shards[Math.floorMod(key.hashCode(), shards.length)];
+    }
+}
@@ -0,0 +1,43 @@
+package com.stxvxn.app.service;
+
+import com.stxvxn.app.dto.PackageResponse.StatusHistoryResponse;
+import com.stxvxn.app.dto.response.PageResponse;
+import com.stxvxn.app.model.PackageHistoryEntry;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+/**
+ * Servicio para el historial completo de estados de los paquetes.
+ * El paquete solo conserva embebidas las últimas entradas; el historial
+ * completo se guarda en la colección de solo inserción package_history.
+ */
+public interface PackageHistoryService {
+    
+    /**
+     * Registra entradas de historial en un solo insertMany. Se llama dentro de
+     * la transacción del cambio de estado: un error se propaga y la aborta.
+     * 
+     * @param entries Entradas a registrar
+     */
+    void record(List<PackageHistoryEntry> entries);
+    
+    /**
+     * Obtiene el historial completo de un paquete con paginación.
+     * 
+     * @param trackingNumber Número de rastreo del paquete
+     * @param pageable Parámetros de paginación (orden por timestamp)
+     * @return Respuesta paginada con las entradas del historial
+     */
+    PageResponse<StatusHistoryResponse> findHistory(String trackingNumber, Pageable pageable);
+    
+    /**
+     * Copia a package_history el historial embebido de los paquetes anteriores
+     * al historial acotado y recorta sus arreglos. Es idempotente y puede
+     * ejecutarse en varias réplicas a la vez. Al terminar deja una marca en la
+     * colección migrations y no vuelve a ejecutarse.
+     * 
+     * @return Cantidad de paquetes migrados
+     */
+    int migrateEmbeddedHistory();
+}
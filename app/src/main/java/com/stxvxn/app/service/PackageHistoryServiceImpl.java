@@ -0,0 +1,132 @@
+package com.stxvxn.app.service;
+
+import com.stxvxn.app.dto.PackageResponse.StatusHistoryResponse;
+import com.stxvxn.app.dto.response.PageResponse;
+import com.stxvxn.app.exception.PackageNotFoundException;
+import com.stxvxn.app.model.Package;
+import com.stxvxn.app.model.PackageHistoryEntry;
+import com.stxvxn.app.repository.PackageHistoryRepository;
+import com.stxvxn.app.repository.PackageRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Implementación del servicio de historial de paquetes.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PackageHistoryServiceImpl implements PackageHistoryService {
+    
+    private static final String MIGRATIONS_COLLECTION = "migrations";
+    private static final String MIGRATION_ID = "embedded-history";
+    
+    private final PackageHistoryRepository packageHistoryRepository;
+    private final PackageRepository packageRepository;
+    private final PackageCacheService packageCacheService;
+    private final MongoTemplate mongoTemplate;
+    
+    @Value("${petcare.history.migration.batch-size:500}")
+    private int migrationBatchSize;
+    
+    @Override
+    public void record(List<PackageHistoryEntry> entries) {
+        // Sin captura: un error aborta la transacción del cambio de estado
+        packageHistoryRepository.appendAll(entries);
+    }
+    
+    @Override
+    public PageResponse<StatusHistoryResponse> findHistory(String trackingNumber, Pageable pageable) {
+        log.debug("Finding status history for package: {}", trackingNumber);
+        
+        Package pkg = packageRepository.findByTrackingNumber(trackingNumber)
+                .orElseThrow(() -> new PackageNotFoundException(trackingNumber));
+        
+        // Paquetes aún no migrados: el historial completo sigue embebido
+        if (!Boolean.TRUE.equals(pkg.getHistoryArchived())) {
+            return new PageResponse<>(pageEmbedded(pkg.getStatusHistory(), pageable));
+        }
+        
+        Page<StatusHistoryResponse> page = packageHistoryRepository.findByPackageId(pkg.getId(), pageable)
+                .map(entry -> new StatusHistoryResponse(entry.toStatusHistory()));
+        return new PageResponse<>(page);
+    }
+    
+    @Override
+    public int migrateEmbeddedHistory() {
+        // Los paquetes nuevos se crean ya migrados: terminada una vez, la
+        // migración no vuelve a recorrer la colección en cada arranque
+        if (mongoTemplate.exists(Query.query(Criteria.where("_id").is(MIGRATION_ID)), MIGRATIONS_COLLECTION)) {
+            log.debug("Embedded history migration already completed");
+            return 0;
+        }
+        
+        int migrated = 0;
+        List<Package> batch;
+        
+        do {
+            batch = packageRepository.findWithUnarchivedHistory(migrationBatchSize);
+            
+            List<PackageHistoryEntry> entries = new ArrayList<>();
+            for (Package pkg : batch) {
+                if (pkg.getStatusHistory() != null) {
+                    pkg.getStatusHistory().forEach(history -> 
+                        entries.add(new PackageHistoryEntry(pkg.getId(), pkg.getTrackingNumber(), history)));
+                }
+            }
+            
+            // Primero se copian las entradas y solo después se recortan los arreglos
+            packageHistoryRepository.appendAll(entries);
+            for (Package pkg : batch) {
+                if (packageRepository.markHistoryArchived(pkg.getId())) {
+                    packageCacheService.evict(pkg.getTrackingNumber());
+                    migrated++;
+                }
+            }
+            
+            if (!batch.isEmpty()) {
+                log.info("Migrated embedded history of {} packages ({} entries)", batch.size(), entries.size());
+            }
+        } while (batch.size() == migrationBatchSize);
+        
+        mongoTemplate.upsert(
+            Query.query(Criteria.where("_id").is(MIGRATION_ID)),
+            new Update().set("completedAt", new Date()),
+            MIGRATIONS_COLLECTION
+        );
+        return migrated;
+    }
+    
+    private Page<StatusHistoryResponse> pageEmbedded(List<Package.StatusHistory> history, Pageable pageable) {
+        Comparator<Package.StatusHistory> byTimestamp = Comparator.comparing(Package.StatusHistory::getTimestamp);
+        Sort.Order order = pageable.getSort().getOrderFor("timestamp");
+        if (order != null && order.isDescending()) {
+            byTimestamp = byTimestamp.reversed();
+        }
+        
+        List<StatusHistoryResponse> sorted = history == null ? List.of() : history.stream()
+                .sorted(byTimestamp)
+                .map(StatusHistoryResponse::new)
+                .collect(Collectors.toList());
+        
+        int from = (int) Math.min(pageable.getOffset(), sorted.size());
+        int to = Math.min(from + pageable.getPageSize(), sorted.size());
+        return new PageImpl<>(sorted.subList(from, to), pageable, sorted.size());
+    }
+}
@@ -0,0 +1,100 @@
+package com.stxvxn.app.service;
+
+import com.stxvxn.app.event.PackageEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Relay del outbox hacia el pipeline de eventos.
+ * En cada ciclo borra las entradas ya procesadas y reclama lotes mientras
+ * el pipeline tenga espacio, así el outbox hace de cola persistente y los
+ * buffers en memoria no se desbordan. Puede correr en todas las réplicas:
+ * el lease evita que dos reclamen la misma entrada a la vez.
+ */
+@Component
+@Slf4j
+public class PackageOutboxRelay {
+    
+    private final PackageOutboxService packageOutboxService;
+    private final PackageEventPipeline packageEventPipeline;
+    private final boolean enabled;
+    private final long pollIntervalMs;
+    private final int batchSize;
+    private final long cleanupIntervalMs;
+    
+    private ScheduledExecutorService scheduler;
+    
+    public PackageOutboxRelay(
+            PackageOutboxService packageOutboxService,
+            PackageEventPipeline packageEventPipeline,
+            @Value("${petcare.outbox.relay.enabled:true}") boolean enabled,
+            @Value("${petcare.outbox.relay.poll-interval-ms:200}") long pollIntervalMs,
+            @Value("${petcare.outbox.relay.batch-size:500}") int batchSize,
+            @Value("${petcare.outbox.cleanup-interval-ms:60000}") long cleanupIntervalMs) {
+        this.packageOutboxService = packageOutboxService;
+        this.packageEventPipeline = packageEventPipeline;
+        this.enabled = enabled;
+        this.pollIntervalMs = pollIntervalMs;
+        this.batchSize = Math.max(1, batchSize);
+        this.cleanupIntervalMs = cleanupIntervalMs;
+    }
+    
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            log.info("Package outbox relay disabled on this instance");
+            return;
+        }
+        CustomizableThreadFactory factory = new CustomizableThreadFactory("outbox-relay-");
+        factory.setDaemon(true);
+        scheduler = Executors.newSingleThreadScheduledExecutor(factory);
+        scheduler.scheduleWithFixedDelay(this::relay, pollIntervalMs, pollIntervalMs, TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(this::cleanup, cleanupIntervalMs, cleanupIntervalMs, TimeUnit.MILLISECONDS);
+        log.info("Package outbox relay started: poll {} ms, batch {}", pollIntervalMs, batchSize);
+    }
+    
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+    
+    private void relay() {
+        try {
+            packageOutboxService.flushAcknowledged();
+            
+            int free;
+            while ((free = packageEventPipeline.getRemainingCapacity()) > 0) {
+                int max = Math.min(batchSize, free);
+                List<PackageEvent> events = packageOutboxService.claim(max);
+                if (events.isEmpty()) {
+                    break;
+                }
+                packageEventPipeline.publishAll(events);
+                if (events.size() < max) {
+                    break;
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Package outbox relay cycle failed: {}", e.getMessage());
+        }
+    }
+    
+    private void cleanup() {
+        try {
+            packageOutboxService.purgeExhausted();
+        } catch (RuntimeException e) {
+            log.warn("Package outbox cleanup failed: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.stxvxn.app.service;
+
+import com.stxvxn.app.event.PackageEvent;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Outbox transaccional de eventos de paquetes.
+ * Los cambios de paquetes escriben sus eventos en la colección
+ * package_outbox dentro de la misma transacción, así un reinicio entre la
+ * escritura y el procesamiento no pierde notificaciones. El
+ * PackageOutboxRelay reclama las entradas por lotes con un lease y las
+ * entrega al PackageEventPipeline; una entrada se borra solo cuando todos
+ * los handlers procesaron su evento (entrega al menos una vez).
+ */
+public interface PackageOutboxService {
+    
+    /**
+     * Ejecuta un cambio en una transacción de MongoDB, reintentando la
+     * transacción completa ante errores transitorios (conflictos de escritura).
+     * 
+     * @param change Escrituras del cambio, incluidas las llamadas a {@link #append}
+     * @return Resultado del cambio
+     */
+    <T> T inTransaction(Supplier<T> change);
+    
+    /**
+     * Agrega eventos al outbox. Debe llamarse dentro de {@link #inTransaction}.
+     * 
+     * @param events Eventos del cambio
+     */
+    void append(List<PackageEvent> events);
+    
+    /**
+     * Reclama hasta max entradas disponibles con un lease, en tres
+     * operaciones sin importar el tamaño del lote.
+     * 
+     * @param max Cantidad máxima de eventos
+     * @return Eventos reclamados (con outboxId), en orden de escritura
+     */
+    List<PackageEvent> claim(int max);
+    
+    /**
+     * Marca eventos como procesados; se borran del outbox en el próximo
+     * {@link #flushAcknowledged()}.
+     * 
+     * @param events Eventos procesados por todos los handlers
+     */
+    void acknowledge(List<PackageEvent> events);
+    
+    /**
+     * Borra del outbox las entradas confirmadas con deleteMany.
+     * 
+     * @return Entradas borradas
+     */
+    int flushAcknowledged();
+    
+    /**
+     * Borra las entradas que agotaron sus intentos y cuyo último lease venció.
+     * 
+     * @return Entradas descartadas
+     */
+    long purgeExhausted();
+}
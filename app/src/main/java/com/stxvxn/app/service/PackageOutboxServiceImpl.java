@@ -0,0 +1,225 @@
+package com.stxvxn.app.service;
+
+import com.mongodb.MongoException;
+import com.stxvxn.app.event.PackageEvent;
+import com.stxvxn.app.model.OutboxEntry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Supplier;
+
+/**
+ * Implementación del outbox sobre la colección package_outbox.
+ * Reclamar un lote son tres operaciones (buscar candidatos, tomar el lease
+ * con updateMany y leer lo tomado por su token) y las confirmaciones se
+ * acumulan para borrarse con un deleteMany por ciclo del relay, de modo
+ * que el costo en MongoDB no crece con cada evento. Los leases usan el
+ * reloj local: lease-ms debe ser mucho mayor que el desfase entre réplicas.
+ */
+@Service
+@Slf4j
+public class PackageOutboxServiceImpl implements PackageOutboxService {
+    
+    private static final int DELETE_CHUNK_SIZE = 1000;
+    
+    private final MongoTemplate mongoTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final long leaseMs;
+    private final int maxAttempts;
+    private final int transactionRetries;
+    
+    private final ConcurrentLinkedQueue<String> acknowledged = new ConcurrentLinkedQueue<>();
+    private final Counter appended;
+    private final Counter claimed;
+    private final Counter deleted;
+    private final Counter exhausted;
+    
+    public PackageOutboxServiceImpl(
+            MongoTemplate mongoTemplate,
+            TransactionTemplate transactionTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${petcare.outbox.lease-ms:30000}") long leaseMs,
+            @Value("${petcare.outbox.max-attempts:10}") int maxAttempts,
+            @Value("${petcare.outbox.transaction-retries:3}") int transactionRetries) {
+        this.mongoTemplate = mongoTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.meterRegistry = meterRegistry;
+        this.leaseMs = leaseMs;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.transactionRetries = Math.max(0, transactionRetries);
+        
+        this.appended = meterRegistry.counter("petcare.outbox.appended");
+        this.claimed = meterRegistry.counter("petcare.outbox.claimed");
+        this.deleted = meterRegistry.counter("petcare.outbox.acknowledged");
+        this.exhausted = meterRegistry.counter("petcare.outbox.exhausted");
+        Gauge.builder("petcare.outbox.acknowledged.pending", acknowledged, ConcurrentLinkedQueue::size)
+                .description("Eventos procesados pendientes de borrar del outbox")
+                .register(meterRegistry);
+    }
+    
+    @Override
+    public <T> T inTransaction(Supplier<T> change) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> change.get());
+            } catch (RuntimeException e) {
+                if (attempt > transactionRetries || !isTransient(e)) {
+                    throw e;
+                }
+                meterRegistry.counter("petcare.outbox.transaction.retries").increment();
+                log.debug("Retrying transaction after transient error (attempt {}): {}", attempt, e.getMessage());
+            }
+        }
+    }
+    
+    @Override
+    public void append(List<PackageEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Los eventos del outbox deben escribirse dentro de una transacción");
+        }
+        Instant now = Instant.now();
+        List<OutboxEntry> entries = events.stream()
+                .map(event -> new OutboxEntry(event, now))
+                .toList();
+        mongoTemplate.insert(entries, OutboxEntry.class);
+        appended.increment(entries.size());
+    }
+    
+    @Override
+    public List<PackageEvent> claim(int max) {
+        if (max <= 0) {
+            return List.of();
+        }
+        Instant now = Instant.now();
+        Criteria available = Criteria.where("leaseUntil").lte(now).and("attempts").lt(maxAttempts);
+        
+        Query candidates = Query.query(available).with(Sort.by("leaseUntil")).limit(max);
+        candidates.fields().include("_id");
+        List<String> ids = mongoTemplate.find(candidates, OutboxEntry.class).stream()
+                .map(OutboxEntry::getId)
+                .toList();
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        
+        // Solo se toman las que siguen disponibles: otra réplica pudo reclamar alguna
+        String token = UUID.randomUUID().toString();
+        Query claimable = Query.query(Criteria.where("_id").in(ids)
+                .and("leaseUntil").lte(now).and("attempts").lt(maxAttempts));
+        Update lease = new Update()
+                .set("leaseToken", token)
+                .set("leaseUntil", now.plusMillis(leaseMs))
+                .inc("attempts", 1);
+        if (mongoTemplate.updateMulti(claimable, lease, OutboxEntry.class).getModifiedCount() == 0) {
+            return List.of();
+        }
+        
+        Query leased = Query.query(Criteria.where("_id").in(ids).and("leaseToken").is(token))
+                .with(Sort.by("_id"));
+        List<PackageEvent> events = new ArrayList<>();
+        for (OutboxEntry entry : mongoTemplate.find(leased, OutboxEntry.class)) {
+            if (entry.getEvent() != null) {
+                entry.getEvent().setOutboxId(entry.getId());
+                events.add(entry.getEvent());
+            }
+        }
+        claimed.increment(events.size());
+        return events;
+    }
+    
+    @Override
+    public void acknowledge(List<PackageEvent> events) {
+        events.stream()
+                .map(PackageEvent::getOutboxId)
+                .filter(Objects::nonNull)
+                .forEach(acknowledged::add);
+    }
+    
+    @Override
+    public int flushAcknowledged() {
+        int total = 0;
+        List<String> ids = new ArrayList<>(DELETE_CHUNK_SIZE);
+        String id;
+        while ((id = acknowledged.poll()) != null) {
+            ids.add(id);
+            if (ids.size() == DELETE_CHUNK_SIZE) {
+                total += delete(ids);
+                ids.clear();
+            }
+        }
+        if (!ids.isEmpty()) {
+            total += delete(ids);
+        }
+        return total;
+    }
+    
+    @Override
+    public long purgeExhausted() {
+        Query query = Query.query(Criteria.where("attempts").gte(maxAttempts)
+                .and("leaseUntil").lte(Instant.now()));
+        long purged = mongoTemplate.remove(query, OutboxEntry.class).getDeletedCount();
+        if (purged > 0) {
+            exhausted.increment(purged);
+            log.error("Discarded {} outbox events after {} delivery attempts", purged, maxAttempts);
+        }
+        return purged;
+    }
+    
+    /**
+     * Borra las confirmaciones pendientes antes de cerrar; lo que no se
+     * borre se vuelve a entregar cuando venza su lease
+     */
+    @PreDestroy
+    public void shutdown() {
+        try {
+            flushAcknowledged();
+        } catch (RuntimeException e) {
+            log.warn("Could not flush acknowledged outbox events: {}", e.getMessage());
+        }
+    }
+    
+    private int delete(List<String> ids) {
+        try {
+            int removed = (int) mongoTemplate.remove(
+                Query.query(Criteria.where("_id").in(ids)), OutboxEntry.class).getDeletedCount();
+            deleted.increment(removed);
+            return removed;
+        } catch (RuntimeException e) {
+            // Las entradas se reclamarán de nuevo al vencer el lease (entrega duplicada)
+            log.warn("Could not delete {} acknowledged outbox events: {}", ids.size(), e.getMessage());
+            return 0;
+        }
+    }
+    
+    private static boolean isTransient(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof MongoException mongo
+                    && mongo.hasErrorLabel(MongoException.TRANSIENT_TRANSACTION_ERROR_LABEL)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
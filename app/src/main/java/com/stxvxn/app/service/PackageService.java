@@ -3,6 +3,12 @@ package com.stxvxn.app.service;
 import com.stxvxn.app.dto.CreatePackageRequest;
 import com.stxvxn.app.dto.PackageResponse;
 import com.stxvxn.app.dto.UpdateStatusRequest;
+import com.stxvxn.app.dto.request.CursorPageRequest;
+import com.stxvxn.app.dto.request.StatusScanBatchRequest.StatusScan;
+import com.stxvxn.app.dto.response.BatchResponse;
+import com.stxvxn.app.dto.response.CursorPageResponse;
+import com.stxvxn.app.dto.response.PackageSummary;
+import com.stxvxn.app.dto.response.PackageJson;
 import com.stxvxn.app.dto.response.PageResponse;
 import com.stxvxn.app.model.Package;
 import com.stxvxn.app.model.PackageStatus;
@@ -10,6 +16,7 @@ import org.springframework.data.domain.Pageable;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Interfaz del servicio para gestión de paquetes
@@ -21,6 +28,16 @@ public interface PackageService {
      */
     PackageResponse createPackage(CreatePackageRequest request);
     
+    /**
+     * Registra un lote de paquetes.
+     * Valida cada elemento, asigna los números de rastreo en bloque e inserta
+     * con insertMany no ordenado; los fallos se reportan por elemento.
+     * 
+     * @param requests Paquetes a registrar
+     * @return Resultado por elemento y resumen del lote
+     */
+    BatchResponse createPackages(List<CreatePackageRequest> requests);
+    
     /**
      * Busca un paquete por ID
      */
@@ -31,6 +48,14 @@ public interface PackageService {
      */
     Optional<PackageResponse> findByTrackingNumber(String trackingNumber);
     
+    /**
+     * Busca un paquete por número de rastreo y lo devuelve ya serializado, con
+     * la versión (ID y updatedAt) de la que salió ese JSON: las peticiones
+     * condicionales arman el ETag con ella para que coincida con el cuerpo.
+     * Ambas búsquedas por número de rastreo pasan por la caché de paquetes.
+     */
+    Optional<PackageJson> findJsonByTrackingNumber(String trackingNumber);
+    
     /**
      * Obtiene todos los paquetes
      */
@@ -44,6 +69,14 @@ public interface PackageService {
      */
     PageResponse<PackageResponse> findAll(Pageable pageable);
     
+    /**
+     * Obtiene todos los paquetes con paginación por cursor (keyset).
+     * 
+     * @param request Cursor, tamaño, orden y modo de conteo
+     * @return Página con el cursor de la siguiente
+     */
+    CursorPageResponse<PackageResponse> findAll(CursorPageRequest request);
+    
     /**
      * Busca paquetes por estado
      */
@@ -58,16 +91,109 @@ public interface PackageService {
      */
     PageResponse<PackageResponse> findByStatus(PackageStatus status, Pageable pageable);
     
+    /**
+     * Busca paquetes por estado con paginación por cursor (keyset).
+     * 
+     * @param status Estado del paquete
+     * @param request Cursor, tamaño, orden y modo de conteo
+     * @return Página con el cursor de la siguiente
+     */
+    CursorPageResponse<PackageResponse> findByStatus(PackageStatus status, CursorPageRequest request);
+    
     /**
      * Busca paquetes por teléfono del destinatario
      */
     List<PackageResponse> findByRecipientPhone(String phone);
     
+    /**
+     * Recorre todos los paquetes sobre un cursor de MongoDB.
+     * El Stream debe cerrarse para liberar el cursor.
+     */
+    Stream<PackageResponse> streamAll();
+    
+    /**
+     * Recorre los paquetes de un estado sobre un cursor de MongoDB.
+     * El Stream debe cerrarse para liberar el cursor.
+     */
+    Stream<PackageResponse> streamByStatus(PackageStatus status);
+    
+    /**
+     * Recorre los paquetes de un destinatario sobre un cursor de MongoDB.
+     * El Stream debe cerrarse para liberar el cursor.
+     */
+    Stream<PackageResponse> streamByRecipientPhone(String phone);
+    
+    /*
+     * Vista resumida (view=summary): se lee con proyección de MongoDB,
+     * sin historial de estados.
+     */
+    
+    /**
+     * Obtiene el resumen de todos los paquetes
+     */
+    List<PackageSummary> findSummaries();
+    
+    /**
+     * Obtiene el resumen de todos los paquetes con paginación
+     */
+    PageResponse<PackageSummary> findSummaries(Pageable pageable);
+    
+    /**
+     * Obtiene el resumen de todos los paquetes con paginación por cursor
+     */
+    CursorPageResponse<PackageSummary> findSummaries(CursorPageRequest request);
+    
+    /**
+     * Obtiene el resumen de los paquetes de un estado
+     */
+    List<PackageSummary> findSummariesByStatus(PackageStatus status);
+    
+    /**
+     * Obtiene el resumen de los paquetes de un estado con paginación
+     */
+    PageResponse<PackageSummary> findSummariesByStatus(PackageStatus status, Pageable pageable);
+    
+    /**
+     * Obtiene el resumen de los paquetes de un estado con paginación por cursor
+     */
+    CursorPageResponse<PackageSummary> findSummariesByStatus(PackageStatus status, CursorPageRequest request);
+    
+    /**
+     * Obtiene el resumen de los paquetes de un destinatario
+     */
+    List<PackageSummary> findSummariesByRecipientPhone(String phone);
+    
+    /**
+     * Recorre el resumen de todos los paquetes sobre un cursor de MongoDB
+     */
+    Stream<PackageSummary> streamSummaries();
+    
+    /**
+     * Recorre el resumen de los paquetes de un estado sobre un cursor de MongoDB
+     */
+    Stream<PackageSummary> streamSummariesByStatus(PackageStatus status);
+    
+    /**
+     * Recorre el resumen de los paquetes de un destinatario sobre un cursor de MongoDB
+     */
+    Stream<PackageSummary> streamSummariesByRecipientPhone(String phone);
+    
     /**
      * Actualiza el estado de un paquete
      */
     Optional<PackageResponse> updateStatus(String trackingNumber, UpdateStatusRequest request);
     
+    /**
+     * Aplica en bloque los escaneos de un empleado.
+     * Valida cada transición, aplica los cambios con un único bulkWrite no ordenado
+     * y publica eventos de cambio de estado solo para los escaneos aplicados.
+     * 
+     * @param employeeId Empleado que realizó los escaneos (ya validado)
+     * @param scans Escaneos a aplicar
+     * @return Resultado por escaneo y resumen del lote
+     */
+    BatchResponse applyStatusScans(String employeeId, List<StatusScan> scans);
+    
     /**
      * Genera un número de rastreo único
      */
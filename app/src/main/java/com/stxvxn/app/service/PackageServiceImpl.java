@@ -1,25 +1,63 @@
 package com.stxvxn.app.service;
 
+import com.mongodb.ErrorCategory;
+import com.mongodb.bulk.BulkWriteError;
 import com.stxvxn.app.dto.CreatePackageRequest;
 import com.stxvxn.app.dto.PackageResponse;
 import com.stxvxn.app.dto.UpdateStatusRequest;
+import com.stxvxn.app.dto.request.CursorPageRequest;
+import com.stxvxn.app.dto.request.StatusScanBatchRequest.StatusScan;
+import com.stxvxn.app.dto.response.BatchItemResult;
+import com.stxvxn.app.dto.response.BatchResponse;
+import com.stxvxn.app.dto.response.CursorPageResponse;
+import com.stxvxn.app.dto.response.PackageSummary;
+import com.stxvxn.app.dto.response.PackageJson;
 import com.stxvxn.app.dto.response.PageResponse;
+import com.stxvxn.app.event.PackageEvent;
+import com.stxvxn.app.exception.BusinessException;
+import com.stxvxn.app.exception.InvalidStatusTransitionException;
 import com.stxvxn.app.exception.PackageNotFoundException;
+import com.stxvxn.app.exception.ValidationException;
 import com.stxvxn.app.model.Package;
+import com.stxvxn.app.model.PackageHistoryEntry;
 import com.stxvxn.app.model.PackageStatus;
 import com.stxvxn.app.repository.PackageRepository;
+import com.stxvxn.app.repository.PackageRepositoryCustom.StatusChange;
+import com.stxvxn.app.util.Constants;
+import com.stxvxn.app.util.PageCursor;
+import com.stxvxn.app.util.TrackingNumberCodec;
 import com.stxvxn.app.util.TrackingNumberGenerator;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Implementación del servicio para gestión de paquetes.
@@ -29,26 +67,41 @@ import java.util.stream.Collectors;
 @Slf4j
 public class PackageServiceImpl implements PackageService {
     
+    private static final int MAX_TRACKING_ATTEMPTS = 5;
+    
+    // Campos con índice compuesto (campo, _id) para paginación por cursor
+    private static final Set<String> KEYSET_SORT_FIELDS = Set.of("createdAt", "updatedAt");
+    
     private final PackageRepository packageRepository;
     private final ValidationService validationService;
     private final TrackingNumberGenerator trackingNumberGenerator;
     private final EventPublisherService eventPublisherService;
+    private final Validator validator;
+    private final MeterRegistry meterRegistry;
+    private final PackageHistoryService packageHistoryService;
+    private final PackageCacheService packageCacheService;
+    private final PackageOutboxService packageOutboxService;
+    
+    @Value("${petcare.packages.batch.max-size:5000}")
+    private int batchMaxSize;
+    
+    @Value("${petcare.packages.batch.chunk-size:500}")
+    private int batchChunkSize;
+    
+    @Value("${petcare.scans.batch.max-size:1000}")
+    private int scanBatchMaxSize;
     
     @Override
-    @Transactional
     public PackageResponse createPackage(CreatePackageRequest request) {
         log.info("Creating package for recipient: {}", request.getRecipientName());
+        long start = System.nanoTime();
         
         // Validar datos usando ValidationService
         validationService.validatePackageData(request);
         
-        // Generar número de rastreo único usando TrackingNumberGenerator
-        String trackingNumber = trackingNumberGenerator.generateUnique(packageRepository);
-        log.debug("Generated tracking number: {}", trackingNumber);
-        
-        // Crear nuevo paquete
+        // Crear nuevo paquete (el número de rastreo se asigna al insertar)
         Package pkg = new Package(
-            trackingNumber,
+            null,
             request.getRecipientName(),
             request.getRecipientAddress(),
             request.getRecipientPhone(),
@@ -58,18 +111,89 @@ public class PackageServiceImpl implements PackageService {
         
         // Establecer fecha estimada de entrega (3 días desde ahora)
         pkg.setEstimatedDelivery(LocalDateTime.now().plusDays(3));
+        pkg.setHistoryArchived(true);
         
-        // Guardar en base de datos
-        Package savedPackage = packageRepository.save(pkg);
+        // Guardar en base de datos junto con su evento en el outbox (notificación)
+        Package savedPackage = insertWithTrackingNumber(pkg);
         log.info("Package created successfully with ID: {} and tracking: {}", 
                  savedPackage.getId(), savedPackage.getTrackingNumber());
         
-        // Publicar evento (el listener se encargará de crear la notificación)
-        eventPublisherService.publishPackageCreatedEvent(savedPackage);
+        packageCacheService.evict(savedPackage.getTrackingNumber());
         
+        recordCreated("single", 1, System.nanoTime() - start);
         return new PackageResponse(savedPackage);
     }
     
+    @Override
+    public BatchResponse createPackages(List<CreatePackageRequest> requests) {
+        if (requests.size() > batchMaxSize) {
+            throw new ValidationException(
+                "El lote no puede exceder " + batchMaxSize + " paquetes"
+            );
+        }
+        log.info("Creating batch of {} packages", requests.size());
+        long start = System.nanoTime();
+        
+        BatchItemResult[] results = new BatchItemResult[requests.size()];
+        List<Package> pending = new ArrayList<>();
+        List<Integer> pendingIndexes = new ArrayList<>();
+        
+        // Validar cada elemento; los inválidos se reportan sin abortar el lote
+        for (int i = 0; i < requests.size(); i++) {
+            String error = validateBatchItem(requests.get(i));
+            if (error != null) {
+                results[i] = failedItem(i, error, "VALIDATION_ERROR");
+                continue;
+            }
+            
+            CreatePackageRequest request = requests.get(i);
+            Package pkg = new Package(
+                null,
+                request.getRecipientName(),
+                request.getRecipientAddress(),
+                request.getRecipientPhone(),
+                request.getSenderName(),
+                request.getSenderAddress()
+            );
+            pkg.setId(new ObjectId().toHexString());
+            pkg.setEstimatedDelivery(LocalDateTime.now().plusDays(3));
+            pkg.setHistoryArchived(true);
+            pending.add(pkg);
+            pendingIndexes.add(i);
+        }
+        
+        // Asignar números de rastreo en bloque (un único round-trip como máximo)
+        assignTrackingNumbers(pending);
+        
+        // Insertar por bloques, cada uno con sus eventos en una transacción
+        List<Package> created = new ArrayList<>();
+        for (int from = 0; from < pending.size(); from += batchChunkSize) {
+            int to = Math.min(from + batchChunkSize, pending.size());
+            insertChunk(
+                pending.subList(from, to), 
+                pendingIndexes.subList(from, to), 
+                results, 
+                created
+            );
+        }
+        
+        long elapsed = System.nanoTime() - start;
+        recordCreated("batch", created.size(), elapsed);
+        
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(elapsed);
+        log.info("Batch finished: {} created, {} failed in {} ms", 
+                 created.size(), requests.size() - created.size(), elapsedMs);
+        
+        return BatchResponse.builder()
+                .requested(requests.size())
+                .succeeded(created.size())
+                .failed(requests.size() - created.size())
+                .elapsedMs(elapsedMs)
+                .itemsPerSecond(elapsed > 0 ? created.size() * 1_000_000_000.0 / elapsed : 0)
+                .results(List.of(results))
+                .build();
+    }
+    
     @Override
     public Optional<PackageResponse> findById(String id) {
         log.debug("Finding package by ID: {}", id);
@@ -79,6 +203,18 @@ public class PackageServiceImpl implements PackageService {
     
     @Override
     public Optional<PackageResponse> findByTrackingNumber(String trackingNumber) {
+        return packageCacheService.get(trackingNumber, this::loadByTrackingNumber);
+    }
+    
+    @Override
+    public Optional<PackageJson> findJsonByTrackingNumber(String trackingNumber) {
+        return packageCacheService.getJson(trackingNumber, this::loadByTrackingNumber);
+    }
+    
+    /**
+     * Consulta a MongoDB en caso de fallo de caché
+     */
+    private Optional<PackageResponse> loadByTrackingNumber(String trackingNumber) {
         log.debug("Finding package by tracking number: {}", trackingNumber);
         return packageRepository.findByTrackingNumber(trackingNumber)
                 .map(PackageResponse::new);
@@ -91,6 +227,11 @@ public class PackageServiceImpl implements PackageService {
                 .collect(Collectors.toList());
     }
     
+    @Override
+    public List<PackageSummary> findSummaries() {
+        return packageRepository.findAllBy(PackageSummary.class);
+    }
+    
     @Override
     public PageResponse<PackageResponse> findAll(Pageable pageable) {
         log.debug("Finding all packages with pagination: page={}, size={}", 
@@ -102,6 +243,25 @@ public class PackageServiceImpl implements PackageService {
         return new PageResponse<>(responsePage);
     }
     
+    @Override
+    public PageResponse<PackageSummary> findSummaries(Pageable pageable) {
+        log.debug("Finding package summaries with pagination: page={}, size={}", 
+                 pageable.getPageNumber(), pageable.getPageSize());
+        return new PageResponse<>(packageRepository.findAllBy(pageable, PackageSummary.class));
+    }
+    
+    @Override
+    public CursorPageResponse<PackageResponse> findAll(CursorPageRequest request) {
+        return findPage(null, request, Package.class, PackageResponse::new, 
+                        Package::getId, PackageServiceImpl::packageSortValue);
+    }
+    
+    @Override
+    public CursorPageResponse<PackageSummary> findSummaries(CursorPageRequest request) {
+        return findPage(null, request, PackageSummary.class, Function.identity(), 
+                        PackageSummary::getId, PackageServiceImpl::summarySortValue);
+    }
+    
     @Override
     public List<PackageResponse> findByStatus(PackageStatus status) {
         return packageRepository.findByStatus(status).stream()
@@ -109,6 +269,11 @@ public class PackageServiceImpl implements PackageService {
                 .collect(Collectors.toList());
     }
     
+    @Override
+    public List<PackageSummary> findSummariesByStatus(PackageStatus status) {
+        return packageRepository.findByStatus(status, PackageSummary.class);
+    }
+    
     @Override
     public PageResponse<PackageResponse> findByStatus(PackageStatus status, Pageable pageable) {
         log.debug("Finding packages by status {} with pagination: page={}, size={}", 
@@ -120,6 +285,107 @@ public class PackageServiceImpl implements PackageService {
         return new PageResponse<>(responsePage);
     }
     
+    @Override
+    public PageResponse<PackageSummary> findSummariesByStatus(PackageStatus status, Pageable pageable) {
+        log.debug("Finding package summaries by status {} with pagination: page={}, size={}", 
+                 status, pageable.getPageNumber(), pageable.getPageSize());
+        return new PageResponse<>(packageRepository.findByStatus(status, pageable, PackageSummary.class));
+    }
+    
+    @Override
+    public CursorPageResponse<PackageResponse> findByStatus(PackageStatus status, CursorPageRequest request) {
+        return findPage(status, request, Package.class, PackageResponse::new, 
+                        Package::getId, PackageServiceImpl::packageSortValue);
+    }
+    
+    @Override
+    public CursorPageResponse<PackageSummary> findSummariesByStatus(PackageStatus status, CursorPageRequest request) {
+        return findPage(status, request, PackageSummary.class, Function.identity(), 
+                        PackageSummary::getId, PackageServiceImpl::summarySortValue);
+    }
+    
+    /**
+     * Paginación por keyset compartida por las vistas completa y resumida.
+     * Si llega un cursor, su orden prevalece sobre el de la petición.
+     * 
+     * @param type Vista leída de MongoDB
+     * @param mapper Conversión de la vista leída a la respuesta
+     * @param idOf Obtiene el _id de un elemento
+     * @param sortValueOf Obtiene el valor del campo de orden de un elemento
+     */
+    private <S, T> CursorPageResponse<T> findPage(
+            PackageStatus status, 
+            CursorPageRequest request,
+            Class<S> type,
+            Function<S, T> mapper,
+            Function<S, String> idOf,
+            BiFunction<S, String, LocalDateTime> sortValueOf) {
+        PageCursor after = request.getCursor() != null && !request.getCursor().isBlank()
+                ? PageCursor.decode(request.getCursor())
+                : null;
+        String sortField = after != null ? after.getSortField() : request.getSort();
+        Sort.Direction direction = after != null ? after.getDirection() : request.getDirection();
+        
+        if (!KEYSET_SORT_FIELDS.contains(sortField)) {
+            throw new ValidationException(
+                "La paginación por cursor solo admite ordenar por: " + String.join(", ", KEYSET_SORT_FIELDS)
+            );
+        }
+        
+        int size = Math.max(1, Math.min(request.getSize(), Constants.MAX_PAGE_SIZE));
+        log.debug("Finding packages by keyset: status={}, sort={} {}, size={}, after={}, view={}", 
+                 status, sortField, direction, size, after != null ? after.getId() : null, 
+                 type.getSimpleName());
+        
+        // Se pide un elemento extra para saber si hay página siguiente sin contar
+        List<S> items = packageRepository.findPage(status, sortField, direction, after, size + 1, type);
+        boolean hasNext = items.size() > size;
+        List<S> content = hasNext ? items.subList(0, size) : items;
+        
+        String nextCursor = null;
+        if (hasNext) {
+            S last = content.get(content.size() - 1);
+            nextCursor = new PageCursor(sortField, direction, sortValueOf.apply(last, sortField), idOf.apply(last))
+                    .encode();
+        }
+        
+        Long total = countPackages(status, request.getCountMode());
+        return CursorPageResponse.<T>builder()
+                .content(content.stream().map(mapper).collect(Collectors.toList()))
+                .size(size)
+                .sort(sortField)
+                .direction(direction.name())
+                .hasNext(hasNext)
+                .nextCursor(nextCursor)
+                .totalElements(total)
+                .totalElementsAtLeast(request.getCountMode() == CursorPageRequest.CountMode.ESTIMATED
+                        && status != null && total != null && total >= Constants.ESTIMATED_COUNT_LIMIT)
+                .countMode(request.getCountMode().name())
+                .build();
+    }
+    
+    private static LocalDateTime packageSortValue(Package pkg, String sortField) {
+        return "updatedAt".equals(sortField) ? pkg.getUpdatedAt() : pkg.getCreatedAt();
+    }
+    
+    private static LocalDateTime summarySortValue(PackageSummary summary, String sortField) {
+        return "updatedAt".equals(sortField) ? summary.getUpdatedAt() : summary.getCreatedAt();
+    }
+    
+    private Long countPackages(PackageStatus status, CursorPageRequest.CountMode countMode) {
+        switch (countMode) {
+            case ESTIMATED:
+                // Sin filtro se leen los metadatos; con filtro se cuenta sobre el índice de estado hasta el tope
+                return status == null 
+                    ? packageRepository.estimatedCount() 
+                    : packageRepository.countByStatusUpTo(status, Constants.ESTIMATED_COUNT_LIMIT);
+            case EXACT:
+                return status == null ? packageRepository.count() : packageRepository.countByStatus(status);
+            default:
+                return null;
+        }
+    }
+    
     @Override
     public List<PackageResponse> findByRecipientPhone(String phone) {
         return packageRepository.findByRecipientPhone(phone).stream()
@@ -128,40 +394,93 @@ public class PackageServiceImpl implements PackageService {
     }
     
     @Override
-    @Transactional
+    public List<PackageSummary> findSummariesByRecipientPhone(String phone) {
+        return packageRepository.findByRecipientPhone(phone, PackageSummary.class);
+    }
+    
+    @Override
+    public Stream<PackageResponse> streamAll() {
+        return packageRepository.streamAllBy(Package.class).map(PackageResponse::new);
+    }
+    
+    @Override
+    public Stream<PackageSummary> streamSummaries() {
+        return packageRepository.streamAllBy(PackageSummary.class);
+    }
+    
+    @Override
+    public Stream<PackageResponse> streamByStatus(PackageStatus status) {
+        return packageRepository.streamByStatusIn(List.of(status), Package.class).map(PackageResponse::new);
+    }
+    
+    @Override
+    public Stream<PackageSummary> streamSummariesByStatus(PackageStatus status) {
+        return packageRepository.streamByStatusIn(List.of(status), PackageSummary.class);
+    }
+    
+    @Override
+    public Stream<PackageResponse> streamByRecipientPhone(String phone) {
+        return packageRepository.streamByRecipientPhone(phone, Package.class).map(PackageResponse::new);
+    }
+    
+    @Override
+    public Stream<PackageSummary> streamSummariesByRecipientPhone(String phone) {
+        return packageRepository.streamByRecipientPhone(phone, PackageSummary.class);
+    }
+    
+    @Override
     public Optional<PackageResponse> updateStatus(String trackingNumber, UpdateStatusRequest request) {
         log.info("Updating status for tracking: {} to status: {} by employee: {}", 
                  trackingNumber, request.getStatus(), request.getUpdatedBy());
         
-        // Buscar paquete
-        Package pkg = packageRepository.findByTrackingNumber(trackingNumber)
-                .orElseThrow(() -> new PackageNotFoundException(trackingNumber));
-        
-        PackageStatus oldStatus = pkg.getStatus();
         PackageStatus newStatus = request.getStatus();
+        PackageStatus expectedStatus = request.getExpectedStatus();
         
-        // Validar transición de estado usando ValidationService
-        validationService.validateStatusTransition(oldStatus, newStatus);
-        
-        // Actualizar ubicación si se proporciona
-        if (request.getLocation() != null && !request.getLocation().trim().isEmpty()) {
-            pkg.setCurrentLocation(request.getLocation());
+        // Estados desde los que se acepta el cambio: el indicado por el cliente
+        // (concurrencia optimista) o cualquiera que permita la transición
+        Set<PackageStatus> acceptedStatuses;
+        if (expectedStatus != null) {
+            validationService.validateStatusTransition(expectedStatus, newStatus);
+            acceptedStatuses = EnumSet.of(expectedStatus);
         } else {
-            // Actualizar ubicación según el estado (simulado)
-            pkg.setCurrentLocation(getLocationForStatus(newStatus));
+            acceptedStatuses = newStatus.getAllowedPredecessors();
         }
         
-        // Agregar al historial
+        // Ubicación indicada o simulada según el estado
+        String location = request.getLocation() != null && !request.getLocation().trim().isEmpty()
+                ? request.getLocation()
+                : getLocationForStatus(newStatus);
+        
         String updatedBy = request.getUpdatedBy() != null ? request.getUpdatedBy() : "Sistema";
         String notes = request.getNotes() != null ? request.getNotes() : "";
-        pkg.addStatusHistory(newStatus, updatedBy, notes);
+        Package.StatusHistory history = new Package.StatusHistory(newStatus, updatedBy, notes);
         
-        // Guardar cambios
-        Package updatedPackage = packageRepository.save(pkg);
+        // Actualización condicional y evento del outbox en la misma transacción
+        Package updatedPackage = packageOutboxService.inTransaction(() -> {
+            Package previous = packageRepository
+                    .updateStatusIfCurrent(trackingNumber, acceptedStatuses, history, location)
+                    .orElseThrow(() -> rejectStatusUpdate(trackingNumber, expectedStatus, newStatus));
+            packageOutboxService.append(List.of(PackageEvent.statusChanged(
+                previous.getId(), trackingNumber, previous.getRecipientPhone(), 
+                previous.getStatus(), newStatus, updatedBy)));
+            packageHistoryService.record(List.of(
+                new PackageHistoryEntry(previous.getId(), trackingNumber, history)
+            ));
+            return previous;
+        });
+        
+        packageCacheService.evict(trackingNumber);
+        
+        // Sin migrar, el arreglo embebido no se recortó (ver updateStatusIfCurrent)
+        PackageStatus oldStatus = updatedPackage.getStatus();
+        int embeddedLimit = Boolean.TRUE.equals(updatedPackage.getHistoryArchived())
+                ? packageRepository.getEmbeddedHistorySize()
+                : Integer.MAX_VALUE;
+        updatedPackage.applyStatusHistory(history, location, embeddedLimit);
         log.info("Package status updated successfully: {} ({} -> {})", 
                  trackingNumber, oldStatus, newStatus);
         
-        // Publicar evento (el listener se encargará de crear la notificación)
+        // Publicar evento para los hubs de rastreo
         eventPublisherService.publishStatusChangedEvent(
             updatedPackage, 
             oldStatus, 
@@ -171,12 +490,428 @@ public class PackageServiceImpl implements PackageService {
         return Optional.of(new PackageResponse(updatedPackage));
     }
     
+    @Override
+    public BatchResponse applyStatusScans(String employeeId, List<StatusScan> scans) {
+        if (scans.size() > scanBatchMaxSize) {
+            throw new ValidationException(
+                "El lote no puede exceder " + scanBatchMaxSize + " escaneos"
+            );
+        }
+        log.info("Applying {} status scans by employee: {}", scans.size(), employeeId);
+        long start = System.nanoTime();
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        
+        BatchItemResult[] results = new BatchItemResult[scans.size()];
+        
+        // Agrupar por paquete respetando el orden temporal de los escaneos
+        Map<String, List<Integer>> indexesByTracking = new LinkedHashMap<>();
+        for (int i = 0; i < scans.size(); i++) {
+            StatusScan scan = scans.get(i);
+            if (scan == null || scan.getTrackingNumber() == null || scan.getTrackingNumber().isBlank()
+                    || scan.getStatus() == null) {
+                results[i] = failedItem(i, "El número de rastreo y el estado son requeridos", 
+                                        "VALIDATION_ERROR");
+                continue;
+            }
+            indexesByTracking.computeIfAbsent(scan.getTrackingNumber(), key -> new ArrayList<>()).add(i);
+        }
+        
+        // Estado actual de todos los paquetes del lote en una sola consulta
+        Map<String, Package> currentByTracking = packageRepository
+                .findStatusesByTrackingNumbers(indexesByTracking.keySet()).stream()
+                .collect(Collectors.toMap(Package::getTrackingNumber, Function.identity()));
+        
+        // Validar transiciones encadenando los escaneos de cada paquete
+        List<StatusChange> changes = new ArrayList<>();
+        Map<String, List<Integer>> appliedIndexesByTracking = new LinkedHashMap<>();
+        Map<String, PackageStatus> initialStatusByTracking = new LinkedHashMap<>();
+        
+        indexesByTracking.forEach((trackingNumber, indexes) -> {
+            Package current = currentByTracking.get(trackingNumber);
+            if (current == null) {
+                indexes.forEach(i -> results[i] = failedItem(i, 
+                    new PackageNotFoundException(trackingNumber).getMessage(), "PACKAGE_NOT_FOUND"));
+                return;
+            }
+            
+            indexes.sort(Comparator.comparing(i -> scanTimestamp(scans.get(i), now)));
+            
+            PackageStatus status = current.getStatus();
+            String location = null;
+            List<Package.StatusHistory> entries = new ArrayList<>();
+            List<Integer> accepted = new ArrayList<>();
+            
+            for (int i : indexes) {
+                StatusScan scan = scans.get(i);
+                try {
+                    validationService.validateStatusTransition(status, scan.getStatus());
+                } catch (BusinessException e) {
+                    results[i] = failedItem(i, e.getMessage(), e.getErrorCode());
+                    continue;
+                }
+                
+                Package.StatusHistory history = new Package.StatusHistory(
+                    scan.getStatus(), 
+                    employeeId, 
+                    scan.getNotes() != null ? scan.getNotes() : ""
+                );
+                history.setTimestamp(scanTimestamp(scan, now));
+                entries.add(history);
+                accepted.add(i);
+                
+                status = scan.getStatus();
+                location = scan.getLocation() != null && !scan.getLocation().trim().isEmpty()
+                        ? scan.getLocation()
+                        : getLocationForStatus(status);
+            }
+            
+            if (!entries.isEmpty()) {
+                changes.add(new StatusChange(trackingNumber, current.getStatus(), status, location, entries));
+                appliedIndexesByTracking.put(trackingNumber, accepted);
+                initialStatusByTracking.put(trackingNumber, current.getStatus());
+            }
+        });
+        
+        // Un único bulkWrite no ordenado (una operación por paquete), un único
+        // insertMany en el outbox con un evento por salto de estado aplicado y
+        // otro con el historial completo, todo en la misma transacción
+        Set<String> applied = packageOutboxService.inTransaction(() -> {
+            Set<String> updated = packageRepository.bulkUpdateStatus(changes, now);
+            List<PackageEvent> events = new ArrayList<>();
+            List<PackageHistoryEntry> historyEntries = new ArrayList<>();
+            for (StatusChange change : changes) {
+                if (!updated.contains(change.getTrackingNumber())) {
+                    continue;
+                }
+                Package current = currentByTracking.get(change.getTrackingNumber());
+                PackageStatus oldStatus = change.getExpectedStatus();
+                for (Package.StatusHistory history : change.getEntries()) {
+                    events.add(PackageEvent.statusChanged(
+                        current.getId(), change.getTrackingNumber(), current.getRecipientPhone(), 
+                        oldStatus, history.getStatus(), employeeId));
+                    historyEntries.add(new PackageHistoryEntry(current.getId(), change.getTrackingNumber(), history));
+                    oldStatus = history.getStatus();
+                }
+            }
+            packageOutboxService.append(events);
+            packageHistoryService.record(historyEntries);
+            return updated;
+        });
+        packageCacheService.evictAll(applied);
+        
+        int succeeded = 0;
+        for (Map.Entry<String, List<Integer>> entry : appliedIndexesByTracking.entrySet()) {
+            String trackingNumber = entry.getKey();
+            Package current = currentByTracking.get(trackingNumber);
+            PackageStatus oldStatus = initialStatusByTracking.get(trackingNumber);
+            
+            for (int i : entry.getValue()) {
+                StatusScan scan = scans.get(i);
+                if (!applied.contains(trackingNumber)) {
+                    results[i] = failedItem(i, 
+                        "El paquete fue modificado concurrentemente. Por favor, intente nuevamente.",
+                        "CONCURRENT_MODIFICATION");
+                    continue;
+                }
+                
+                results[i] = BatchItemResult.builder()
+                        .index(i)
+                        .success(true)
+                        .id(current.getId())
+                        .trackingNumber(trackingNumber)
+                        .status(scan.getStatus().name())
+                        .build();
+                succeeded++;
+                
+                // Eventos para los hubs, uno por salto de estado aplicado
+                eventPublisherService.publishStatusChangedEvent(
+                    current.getId(), trackingNumber, oldStatus, scan.getStatus(), employeeId);
+                oldStatus = scan.getStatus();
+            }
+        }
+        
+        meterRegistry.counter("petcare.scans.processed", "outcome", "applied").increment(succeeded);
+        meterRegistry.counter("petcare.scans.processed", "outcome", "rejected")
+                .increment(scans.size() - succeeded);
+        
+        long elapsed = System.nanoTime() - start;
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(elapsed);
+        log.info("Status scans finished: {} applied, {} rejected in {} ms", 
+                 succeeded, scans.size() - succeeded, elapsedMs);
+        
+        return BatchResponse.builder()
+                .requested(scans.size())
+                .succeeded(succeeded)
+                .failed(scans.size() - succeeded)
+                .elapsedMs(elapsedMs)
+                .itemsPerSecond(elapsed > 0 ? succeeded * 1_000_000_000.0 / elapsed : 0)
+                .results(List.of(results))
+                .build();
+    }
+    
     @Override
     public String generateTrackingNumber() {
         // Este método ahora delega a TrackingNumberGenerator
         // Se mantiene por compatibilidad con la interfaz
         log.debug("Generating tracking number using TrackingNumberGenerator");
-        return trackingNumberGenerator.generateUnique(packageRepository);
+        return trackingNumberGenerator.generate();
+    }
+    
+    /**
+     * Inserta el paquete asignándole un número de rastreo.
+     * El generador no consulta la base de datos; si el índice único detecta
+     * una colisión (por ejemplo con números generados por versiones
+     * anteriores) se reintenta con el siguiente número.
+     */
+    private Package insertWithTrackingNumber(Package pkg) {
+        for (int attempt = 1; ; attempt++) {
+            long trackingKey = trackingNumberGenerator.nextKey();
+            pkg.setTrackingKey(trackingKey);
+            pkg.setTrackingNumber(TrackingNumberCodec.encode(trackingKey));
+            
+            try {
+                return packageOutboxService.inTransaction(() -> {
+                    Package saved = packageRepository.insert(pkg);
+                    packageOutboxService.append(List.of(PackageEvent.created(saved)));
+                    return saved;
+                });
+            } catch (DuplicateKeyException e) {
+                if (attempt >= MAX_TRACKING_ATTEMPTS) {
+                    log.error("Tracking number collision persisted after {} attempts", attempt);
+                    throw new IllegalStateException(
+                        "No se pudo generar un número de rastreo único. Por favor, intente nuevamente."
+                    );
+                }
+                log.warn("Tracking number collision on {}, retrying", pkg.getTrackingNumber());
+            }
+        }
+    }
+    
+    /**
+     * Valida un elemento de un lote con las mismas reglas que el registro individual.
+     * 
+     * @return Mensaje de error, o null si el elemento es válido
+     */
+    private String validateBatchItem(CreatePackageRequest request) {
+        if (request == null) {
+            return "El paquete no puede ser nulo";
+        }
+        
+        Set<ConstraintViolation<CreatePackageRequest>> violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+            return violations.stream()
+                    .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining("; "));
+        }
+        
+        try {
+            validationService.validatePackageData(request);
+            return null;
+        } catch (ValidationException e) {
+            return e.getMessage();
+        }
+    }
+    
+    private LocalDateTime scanTimestamp(StatusScan scan, LocalDateTime now) {
+        return scan.getTimestamp() != null ? scan.getTimestamp() : now;
+    }
+    
+    private void assignTrackingNumbers(List<Package> packages) {
+        long[] keys = trackingNumberGenerator.nextKeys(packages.size());
+        for (int i = 0; i < packages.size(); i++) {
+            packages.get(i).setTrackingKey(keys[i]);
+            packages.get(i).setTrackingNumber(TrackingNumberCodec.encode(keys[i]));
+        }
+    }
+    
+    /**
+     * Inserta un bloque del lote y sus eventos en una sola transacción, con un
+     * insertMany no ordenado. En una transacción el primer error aborta todo el
+     * bloque, así que no hay inserciones parciales que confirmar: ante una
+     * colisión en el índice único de trackingNumber se buscan en una consulta
+     * los números del bloque que ya existen, solo esos paquetes reciben uno
+     * nuevo y el bloque se reintenta en otra transacción. Un error de otro tipo
+     * en una posición conocida se reporta en ese elemento y el resto se
+     * reintenta; si no se puede atribuir, se inserta elemento por elemento.
+     */
+    private void insertChunk(
+            List<Package> chunk, 
+            List<Integer> indexes, 
+            BatchItemResult[] results, 
+            List<Package> created) {
+        List<Package> toInsert = new ArrayList<>(chunk);
+        List<Integer> toInsertIndexes = new ArrayList<>(indexes);
+        
+        for (int attempt = 1; !toInsert.isEmpty(); attempt++) {
+            try {
+                packageOutboxService.inTransaction(() -> {
+                    packageRepository.insertUnordered(toInsert);
+                    packageOutboxService.append(toInsert.stream().map(PackageEvent::created).toList());
+                    return null;
+                });
+                for (int i = 0; i < toInsert.size(); i++) {
+                    created.add(toInsert.get(i));
+                    results[toInsertIndexes.get(i)] = createdItem(toInsertIndexes.get(i), toInsert.get(i));
+                }
+                return;
+            } catch (BulkOperationException | DuplicateKeyException e) {
+                boolean progress = false;
+                
+                // Errores que no son colisiones: se reportan y el elemento sale del bloque
+                if (e instanceof BulkOperationException bulk) {
+                    Set<Integer> failed = new HashSet<>();
+                    for (BulkWriteError error : bulk.getErrors()) {
+                        if (ErrorCategory.fromErrorCode(error.getCode()) != ErrorCategory.DUPLICATE_KEY) {
+                            int index = toInsertIndexes.get(error.getIndex());
+                            results[index] = failedItem(index, error.getMessage(), "INSERT_FAILED");
+                            failed.add(error.getIndex());
+                        }
+                    }
+                    progress = removeAt(toInsert, toInsertIndexes, failed);
+                }
+                
+                List<Package> colliding = collidingPackages(toInsert);
+                if (!colliding.isEmpty()) {
+                    progress = true;
+                    if (attempt >= MAX_TRACKING_ATTEMPTS) {
+                        log.error("Tracking number collision persisted after {} attempts for {} packages", 
+                                  attempt, colliding.size());
+                        Set<Integer> failed = new HashSet<>();
+                        for (Package pkg : colliding) {
+                            int position = toInsert.indexOf(pkg);
+                            int index = toInsertIndexes.get(position);
+                            results[index] = failedItem(index, 
+                                "No se pudo generar un número de rastreo único. Por favor, intente nuevamente.", 
+                                "INSERT_FAILED");
+                            failed.add(position);
+                        }
+                        removeAt(toInsert, toInsertIndexes, failed);
+                    } else {
+                        log.warn("Tracking number collision on {} packages of a batch chunk, retrying them with new numbers", 
+                                 colliding.size());
+                        assignTrackingNumbers(colliding);
+                    }
+                }
+                
+                if (!progress) {
+                    log.warn("Batch chunk of {} packages rolled back, inserting one by one: {}", 
+                             toInsert.size(), e.getMessage());
+                    insertOneByOne(toInsert, toInsertIndexes, results, created);
+                    return;
+                }
+            } catch (RuntimeException e) {
+                log.warn("Batch chunk of {} packages rolled back, inserting one by one: {}", 
+                         toInsert.size(), e.getMessage());
+                insertOneByOne(toInsert, toInsertIndexes, results, created);
+                return;
+            }
+        }
+    }
+    
+    /**
+     * Paquetes del bloque cuyo número de rastreo ya existe (una sola consulta)
+     */
+    private List<Package> collidingPackages(List<Package> packages) {
+        Set<String> existing = packageRepository.findStatusesByTrackingNumbers(
+                packages.stream().map(Package::getTrackingNumber).toList()).stream()
+                .map(Package::getTrackingNumber)
+                .collect(Collectors.toSet());
+        return packages.stream()
+                .filter(pkg -> existing.contains(pkg.getTrackingNumber()))
+                .collect(Collectors.toList());
+    }
+    
+    private static boolean removeAt(List<Package> packages, List<Integer> indexes, Set<Integer> positions) {
+        if (positions.isEmpty()) {
+            return false;
+        }
+        for (int position = packages.size() - 1; position >= 0; position--) {
+            if (positions.contains(position)) {
+                packages.remove(position);
+                indexes.remove(position);
+            }
+        }
+        return true;
+    }
+    
+    private void insertOneByOne(
+            List<Package> packages, 
+            List<Integer> indexes, 
+            BatchItemResult[] results, 
+            List<Package> created) {
+        for (int i = 0; i < packages.size(); i++) {
+            int index = indexes.get(i);
+            try {
+                Package saved = insertWithTrackingNumber(packages.get(i));
+                created.add(saved);
+                results[index] = createdItem(index, saved);
+            } catch (RuntimeException e) {
+                results[index] = failedItem(index, e.getMessage(), "INSERT_FAILED");
+            }
+        }
+    }
+    
+    private BatchItemResult createdItem(int index, Package pkg) {
+        return BatchItemResult.builder()
+                .index(index)
+                .success(true)
+                .id(pkg.getId())
+                .trackingNumber(pkg.getTrackingNumber())
+                .build();
+    }
+    
+    private BatchItemResult failedItem(int index, String error, String code) {
+        return BatchItemResult.builder()
+                .index(index)
+                .success(false)
+                .error(error)
+                .code(code)
+                .build();
+    }
+    
+    /**
+     * Registra métricas de creación por ruta (single/batch) para comparar
+     * el throughput de ambos caminos en Prometheus.
+     */
+    private void recordCreated(String path, int count, long elapsedNanos) {
+        meterRegistry.counter("petcare.packages.created", "path", path).increment(count);
+        Timer.builder("petcare.packages.create.duration")
+                .description("Tiempo de registro de paquetes por petición")
+                .tag("path", path)
+                .register(meterRegistry)
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+    
+    /**
+     * Determina por qué no se aplicó una actualización condicional.
+     * Solo se consulta la base de datos en este camino de error.
+     */
+    private RuntimeException rejectStatusUpdate(
+            String trackingNumber, 
+            PackageStatus expectedStatus, 
+            PackageStatus newStatus) {
+        Package current = packageRepository.findByTrackingNumber(trackingNumber)
+                .orElseThrow(() -> new PackageNotFoundException(trackingNumber));
+        
+        // Lanza InvalidStatusTransitionException si la transición no es válida
+        validationService.validateStatusTransition(current.getStatus(), newStatus);
+        
+        if (expectedStatus != null && current.getStatus() != expectedStatus) {
+            return new InvalidStatusTransitionException(
+                current.getStatus(),
+                newStatus,
+                String.format("El estado del paquete es %s, se esperaba %s", 
+                              current.getStatus(), expectedStatus)
+            );
+        }
+        
+        log.warn("Concurrent status update detected for tracking: {}", trackingNumber);
+        return new InvalidStatusTransitionException(
+            current.getStatus(),
+            newStatus,
+            "El paquete fue modificado concurrentemente. Por favor, intente nuevamente."
+        );
     }
     
     /**
@@ -0,0 +1,49 @@
+package com.stxvxn.app.service;
+
+import com.stxvxn.app.dto.response.SimulatorStatus;
+
+/**
+ * Simulador de progreso de paquetes para demos y pruebas de carga.
+ * Avanza cada paquete por getNextStatus con un retardo aleatorio hasta
+ * llegar a un estado final. Los paquetes esperan en una rueda de
+ * temporizadores (sin hilos dormidos), por lo que escala a cientos de
+ * miles de paquetes.
+ */
+public interface ProgressSimulatorService {
+    
+    /**
+     * Agrega un paquete a la simulación
+     * 
+     * @return true si se agregó; false si ya se estaba simulando, no existe
+     *         o está en un estado final
+     */
+    boolean simulate(String trackingNumber);
+    
+    /**
+     * Agrega a la simulación los paquetes que aún no llegaron a un estado final
+     * 
+     * @param limit Máximo de paquetes a agregar
+     * @return Cantidad de paquetes agregados
+     */
+    int simulateActive(int limit);
+    
+    /**
+     * Reanuda el avance de los paquetes programados
+     */
+    void start();
+    
+    /**
+     * Detiene el simulador y descarta los paquetes programados
+     */
+    void stop();
+    
+    /**
+     * Cambia el máximo de cambios de estado por segundo (0 = sin límite)
+     */
+    void setRate(int transitionsPerSecond);
+    
+    /**
+     * Estado actual del simulador
+     */
+    SimulatorStatus getStatus();
+}
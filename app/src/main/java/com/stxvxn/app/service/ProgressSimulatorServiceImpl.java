@@ -0,0 +1,301 @@
+package com.stxvxn.app.service;
+
+import com.stxvxn.app.dto.UpdateStatusRequest;
+import com.stxvxn.app.dto.response.PackageSummary;
+import com.stxvxn.app.dto.response.SimulatorStatus;
+import com.stxvxn.app.exception.BusinessException;
+import com.stxvxn.app.exception.ValidationException;
+import com.stxvxn.app.model.PackageStatus;
+import com.stxvxn.app.repository.PackageRepository;
+import com.stxvxn.app.util.Constants;
+import com.stxvxn.app.util.TimerWheel;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Implementación del simulador de progreso.
+ * Un único hilo avanza la rueda de temporizadores cada tick y entrega los
+ * paquetes vencidos a un pool pequeño que aplica el cambio de estado. Si se
+ * alcanza el límite de cambios por segundo o el pool está lleno, el paquete
+ * se vuelve a programar para el siguiente tick.
+ */
+@Service
+@Slf4j
+public class ProgressSimulatorServiceImpl implements ProgressSimulatorService {
+
+    private static final String SIMULATOR_USER = "Sistema Automático";
+
+    // Estados desde los que el simulador puede avanzar
+    private static final Set<PackageStatus> SIMULATED_STATUSES =
+            EnumSet.complementOf(EnumSet.copyOf(Constants.FINAL_STATUSES));
+
+    private final PackageRepository packageRepository;
+    private final PackageService packageService;
+
+    // Paquetes en simulación y último estado aplicado
+    private final Map<String, PackageStatus> active = new ConcurrentHashMap<>();
+    private final TimerWheel<String> wheel;
+    private final ScheduledExecutorService ticker;
+    private final ThreadPoolExecutor workers;
+    private final Counter transitions;
+    private final Counter conflicts;
+    private final Counter errors;
+    private final long minDelayMs;
+    private final long maxDelayMs;
+
+    private volatile boolean running = true;
+    private volatile int transitionsPerSecond;
+    private double permits; // solo lo usa el hilo del tick
+
+    public ProgressSimulatorServiceImpl(
+            PackageRepository packageRepository,
+            PackageService packageService,
+            MeterRegistry meterRegistry,
+            @Value("${petcare.simulator.tick-ms:100}") long tickMs,
+            @Value("${petcare.simulator.wheel-slots:512}") int wheelSlots,
+            @Value("${petcare.simulator.min-delay-ms:5000}") long minDelayMs,
+            @Value("${petcare.simulator.max-delay-ms:15000}") long maxDelayMs,
+            @Value("${petcare.simulator.transitions-per-second:0}") int transitionsPerSecond,
+            @Value("${petcare.simulator.worker-threads:4}") int workerThreads,
+            @Value("${petcare.simulator.queue-capacity:10000}") int queueCapacity) {
+        this.packageRepository = packageRepository;
+        this.packageService = packageService;
+        this.minDelayMs = minDelayMs;
+        this.maxDelayMs = Math.max(minDelayMs, maxDelayMs);
+        this.transitionsPerSecond = Math.max(0, transitionsPerSecond);
+        this.wheel = new TimerWheel<>(tickMs, wheelSlots);
+
+        this.workers = new ThreadPoolExecutor(workerThreads, workerThreads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(queueCapacity), daemonThreads("simulator-worker-"));
+        this.ticker = Executors.newSingleThreadScheduledExecutor(daemonThreads("simulator-tick-"));
+        ticker.scheduleAtFixedRate(this::tick, tickMs, tickMs, TimeUnit.MILLISECONDS);
+
+        this.transitions = Counter.builder("petcare.simulator.transitions")
+                .description("Cambios de estado aplicados por el simulador")
+                .register(meterRegistry);
+        this.conflicts = meterRegistry.counter("petcare.simulator.failures", "reason", "conflict");
+        this.errors = meterRegistry.counter("petcare.simulator.failures", "reason", "error");
+        Gauge.builder("petcare.simulator.active", active, Map::size)
+                .description("Paquetes en simulación en esta instancia")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public boolean simulate(String trackingNumber) {
+        if (active.containsKey(trackingNumber)) {
+            return false;
+        }
+        Optional<PackageSummary> summary = packageRepository.findByTrackingNumber(trackingNumber, PackageSummary.class);
+        return summary.isPresent() && enroll(trackingNumber, summary.get().getStatus());
+    }
+
+    @Override
+    public int simulateActive(int limit) {
+        if (limit <= 0) {
+            throw new ValidationException("El límite debe ser mayor que 0");
+        }
+        int added = 0;
+        try (Stream<PackageSummary> packages = packageRepository.streamByStatusIn(SIMULATED_STATUSES, PackageSummary.class)) {
+            Iterator<PackageSummary> it = packages.iterator();
+            while (added < limit && it.hasNext()) {
+                PackageSummary summary = it.next();
+                if (enroll(summary.getTrackingNumber(), summary.getStatus())) {
+                    added++;
+                }
+            }
+        }
+        log.info("Simulator enrolled {} packages ({} active)", added, active.size());
+        return added;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        log.info("Simulator started ({} active packages)", active.size());
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        active.clear();
+        wheel.clear();
+        log.info("Simulator stopped");
+    }
+
+    @Override
+    public void setRate(int transitionsPerSecond) {
+        if (transitionsPerSecond < 0) {
+            throw new ValidationException("El límite de cambios por segundo no puede ser negativo");
+        }
+        this.transitionsPerSecond = transitionsPerSecond;
+        log.info("Simulator rate set to {} transitions/s", transitionsPerSecond == 0 ? "unlimited" : transitionsPerSecond);
+    }
+
+    @Override
+    public SimulatorStatus getStatus() {
+        return SimulatorStatus.builder()
+                .running(running)
+                .activePackages(active.size())
+                .transitionsPerSecond(transitionsPerSecond)
+                .minDelayMs(minDelayMs)
+                .maxDelayMs(maxDelayMs)
+                .transitions((long) transitions.count())
+                .failures((long) (conflicts.count() + errors.count()))
+                .build();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ticker.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    private boolean enroll(String trackingNumber, PackageStatus status) {
+        if (status == null || !SIMULATED_STATUSES.contains(status)) {
+            return false;
+        }
+        // Evita simulaciones simultáneas del mismo paquete
+        if (active.putIfAbsent(trackingNumber, status) != null) {
+            return false;
+        }
+        wheel.schedule(trackingNumber, randomDelay());
+        return true;
+    }
+
+    private void tick() {
+        try {
+            if (!running) {
+                return;
+            }
+            refillPermits();
+            List<String> due = wheel.advance();
+            for (String trackingNumber : due) {
+                if (!acquirePermit()) {
+                    wheel.schedule(trackingNumber, wheel.getTickMillis());
+                    continue;
+                }
+                try {
+                    workers.execute(() -> advance(trackingNumber));
+                } catch (RejectedExecutionException e) {
+                    wheel.schedule(trackingNumber, wheel.getTickMillis());
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Simulator tick failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Aplica el siguiente estado y vuelve a programar el paquete si no es final
+     */
+    private void advance(String trackingNumber) {
+        PackageStatus current = active.get(trackingNumber);
+        if (current == null) {
+            return; // simulador detenido
+        }
+        PackageStatus next = getNextStatus(current);
+        if (next == null) {
+            active.remove(trackingNumber);
+            return;
+        }
+
+        UpdateStatusRequest request = new UpdateStatusRequest();
+        request.setStatus(next);
+        request.setUpdatedBy(SIMULATOR_USER);
+        request.setNotes("Actualización automática de estado");
+        // No pisa un cambio hecho por otro (por ejemplo el escaneo de un empleado)
+        request.setExpectedStatus(current);
+
+        try {
+            packageService.updateStatus(trackingNumber, request);
+            transitions.increment();
+        } catch (BusinessException e) {
+            conflicts.increment();
+            log.debug("Simulation of {} stopped: {}", trackingNumber, e.getMessage());
+            active.remove(trackingNumber);
+            return;
+        } catch (RuntimeException e) {
+            errors.increment();
+            log.warn("Simulation of {} failed: {}", trackingNumber, e.getMessage());
+            active.remove(trackingNumber);
+            return;
+        }
+
+        if (!SIMULATED_STATUSES.contains(next)) {
+            active.remove(trackingNumber);
+        } else if (active.replace(trackingNumber, current, next)) {
+            wheel.schedule(trackingNumber, randomDelay());
+        }
+    }
+
+    private void refillPermits() {
+        int rate = transitionsPerSecond;
+        if (rate > 0) {
+            permits = Math.min(rate, permits + rate * wheel.getTickMillis() / 1000.0);
+        }
+    }
+
+    private boolean acquirePermit() {
+        if (transitionsPerSecond == 0) {
+            return true;
+        }
+        if (permits < 1) {
+            return false;
+        }
+        permits--;
+        return true;
+    }
+
+    private long randomDelay() {
+        return ThreadLocalRandom.current().nextLong(minDelayMs, maxDelayMs + 1);
+    }
+
+    /**
+     * Obtiene el siguiente estado lógico según el estado actual
+     */
+    private PackageStatus getNextStatus(PackageStatus currentStatus) {
+        switch (currentStatus) {
+            case REGISTRADO:
+                return PackageStatus.EN_ALMACEN;
+            case EN_ALMACEN:
+                return PackageStatus.EN_TRANSITO;
+            case EN_TRANSITO:
+                return PackageStatus.EN_DISTRIBUCION;
+            case EN_DISTRIBUCION:
+                return PackageStatus.EN_REPARTO;
+            case EN_REPARTO:
+                // 90% de probabilidad de entrega exitosa, 10% de devolución
+                return ThreadLocalRandom.current().nextDouble() < 0.9 ? PackageStatus.ENTREGADO : PackageStatus.DEVUELTO;
+            default:
+                return null; // Estado final
+        }
+    }
+
+    private static CustomizableThreadFactory daemonThreads(String prefix) {
+        CustomizableThreadFactory factory = new CustomizableThreadFactory(prefix);
+        factory.setDaemon(true);
+        return factory;
+    }
+}
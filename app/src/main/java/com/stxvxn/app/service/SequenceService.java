@@ -0,0 +1,48 @@
+package com.stxvxn.app.service;
+
+/**
+ * Servicio de secuencias numéricas atómicas compartidas entre réplicas.
+ * Cada secuencia es un documento de la colección "counters" que se
+ * incrementa con $inc; opcionalmente cada instancia reserva un rango
+ * de valores y los reparte en memoria.
+ */
+public interface SequenceService {
+    
+    /**
+     * Obtiene el siguiente valor de una secuencia (el primer valor es 1).
+     * 
+     * @param name Nombre de la secuencia
+     * @param blockSize Valores a reservar por round-trip (1 = sin huecos entre réplicas)
+     * @return Siguiente valor
+     */
+    long next(String name, int blockSize);
+    
+    /**
+     * Obtiene varios valores consecutivos de una secuencia para operaciones masivas.
+     * Si el rango reservado no alcanza, reserva lo necesario en un único round-trip.
+     * 
+     * @param name Nombre de la secuencia
+     * @param count Cantidad de valores
+     * @param blockSize Tamaño mínimo del rango a reservar
+     * @return Valores obtenidos, en orden creciente
+     */
+    long[] next(String name, int count, int blockSize);
+    
+    /**
+     * Verifica si la secuencia ya fue inicializada.
+     * 
+     * @param name Nombre de la secuencia
+     * @return true si existe el contador
+     */
+    boolean exists(String name);
+    
+    /**
+     * Garantiza que la secuencia no entregue valores menores o iguales a uno dado.
+     * Es idempotente y seguro entre réplicas ($max con upsert); se usa para
+     * sembrar secuencias sobre datos existentes.
+     * 
+     * @param name Nombre de la secuencia
+     * @param value Último valor ya utilizado
+     */
+    void ensureAtLeast(String name, long value);
+}
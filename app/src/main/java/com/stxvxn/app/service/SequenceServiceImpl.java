@@ -0,0 +1,103 @@
+package com.stxvxn.app.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Implementación de secuencias sobre la colección "counters".
+ * El campo "seq" guarda el último valor reservado; cada reserva de un
+ * rango de tamaño n hace un único findAndModify con $inc n.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SequenceServiceImpl implements SequenceService {
+    
+    static final String COUNTERS_COLLECTION = "counters";
+    
+    private final MongoTemplate mongoTemplate;
+    
+    // Rangos reservados por esta instancia, uno por secuencia
+    private final Map<String, Range> ranges = new ConcurrentHashMap<>();
+    
+    @Override
+    public long next(String name, int blockSize) {
+        Range range = ranges.computeIfAbsent(name, key -> new Range());
+        synchronized (range) {
+            if (range.isExhausted()) {
+                reserve(name, range, blockSize);
+            }
+            return range.next++;
+        }
+    }
+    
+    @Override
+    public long[] next(String name, int count, int blockSize) {
+        long[] values = new long[count];
+        Range range = ranges.computeIfAbsent(name, key -> new Range());
+        synchronized (range) {
+            for (int i = 0; i < count; i++) {
+                if (range.isExhausted()) {
+                    reserve(name, range, Math.max(blockSize, count - i));
+                }
+                values[i] = range.next++;
+            }
+        }
+        return values;
+    }
+    
+    @Override
+    public boolean exists(String name) {
+        return mongoTemplate.exists(byName(name), COUNTERS_COLLECTION);
+    }
+    
+    @Override
+    public void ensureAtLeast(String name, long value) {
+        mongoTemplate.upsert(byName(name), new Update().max("seq", value), COUNTERS_COLLECTION);
+        log.info("Sequence {} seeded to at least {}", name, value);
+    }
+    
+    /**
+     * Reserva de forma atómica el rango (seq - size, seq].
+     */
+    private void reserve(String name, Range range, int size) {
+        Document counter = mongoTemplate.findAndModify(
+            byName(name),
+            new Update().inc("seq", (long) size),
+            FindAndModifyOptions.options().returnNew(true).upsert(true),
+            Document.class,
+            COUNTERS_COLLECTION
+        );
+        
+        long end = counter.get("seq", Number.class).longValue();
+        range.next = end - size + 1;
+        range.last = end;
+        log.debug("Reserved sequence {} block [{}, {}]", name, range.next, range.last);
+    }
+    
+    private Query byName(String name) {
+        return Query.query(Criteria.where("_id").is(name));
+    }
+    
+    /**
+     * Rango de valores reservado y aún no entregado.
+     */
+    private static class Range {
+        private long next = 1;
+        private long last = 0;
+        
+        boolean isExhausted() {
+            return next > last;
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package com.stxvxn.app.service;
 
 import com.stxvxn.app.dto.PackageResponse;
+import com.stxvxn.app.dto.response.PackageSummary;
+import com.stxvxn.app.dto.response.PackageJson;
 import com.stxvxn.app.model.Package;
 import com.stxvxn.app.model.PackageStatus;
 import com.stxvxn.app.repository.PackageRepository;
@@ -12,7 +14,7 @@ import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.Random;
-import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 
 /**
  * Interfaz del servicio para rastreo simulado en tiempo real
@@ -25,14 +27,38 @@ public interface TrackingService {
     Optional<PackageResponse> getTrackingInfo(String trackingNumber);
     
     /**
-     * Simula la actualización automática del estado de un paquete
-     * (para demostración - actualiza el estado automáticamente)
+     * Obtiene la información de rastreo ya serializada (desde la caché de paquetes)
+     * con la versión de la que salió, para ETag / Last-Modified
      */
-    CompletableFuture<Void> simulatePackageProgress(String trackingNumber);
+    Optional<PackageJson> getTrackingJson(String trackingNumber);
+    
+    /**
+     * Agrega el paquete al simulador de progreso, que avanza su estado
+     * automáticamente hasta un estado final (para demostración)
+     * 
+     * @return true si se agregó; false si ya se estaba simulando, no existe o está en un estado final
+     */
+    boolean simulatePackageProgress(String trackingNumber);
     
     /**
      * Obtiene todos los paquetes en tránsito para simulación
      */
     List<PackageResponse> getPackagesInTransit();
+    
+    /**
+     * Recorre los paquetes en tránsito sobre un único cursor de MongoDB.
+     * El Stream debe cerrarse para liberar el cursor.
+     */
+    Stream<PackageResponse> streamPackagesInTransit();
+    
+    /**
+     * Obtiene el resumen (sin historial) de los paquetes en tránsito
+     */
+    List<PackageSummary> getPackageSummariesInTransit();
+    
+    /**
+     * Recorre el resumen de los paquetes en tránsito sobre un cursor de MongoDB
+     */
+    Stream<PackageSummary> streamPackageSummariesInTransit();
 }
 
@@ -0,0 +1,44 @@
+package com.stxvxn.app.service;
+
+import com.stxvxn.app.dto.response.TrackingUpdate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Hub de suscripciones SSE para rastreo en tiempo real.
+ * Los clientes se suscriben por número de rastreo y reciben una
+ * actualización por cada cambio del paquete, sin consultar MongoDB
+ * periódicamente.
+ */
+public interface TrackingStreamService {
+    
+    /**
+     * Registra un cliente para un paquete. El estado actual se lee después de
+     * registrarlo, para no perder un cambio publicado entre la lectura y el
+     * registro, y se envía de inmediato.
+     * 
+     * @param trackingNumber Número de rastreo
+     * @param snapshot Lectura del estado actual (vacío si el paquete no existe)
+     * @return Emitter SSE del cliente, vacío si el paquete no existe
+     * @throws com.stxvxn.app.exception.TooManyConnectionsException si la instancia está al máximo
+     */
+    Optional<SseEmitter> subscribe(String trackingNumber, Supplier<Optional<TrackingUpdate>> snapshot);
+    
+    /**
+     * Envía una actualización a todos los suscriptores del paquete.
+     * No bloquea: cada cliente tiene su propia cola de envío.
+     */
+    void publish(TrackingUpdate update);
+    
+    /**
+     * Indica si algún cliente sigue el paquete
+     */
+    boolean hasSubscribers(String trackingNumber);
+    
+    /**
+     * Cantidad de streams abiertos en esta instancia
+     */
+    int getOpenStreams();
+}
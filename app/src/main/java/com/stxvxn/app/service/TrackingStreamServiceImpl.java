@@ -0,0 +1,292 @@
+package com.stxvxn.app.service;
+
+import com.stxvxn.app.dto.response.TrackingUpdate;
+import com.stxvxn.app.exception.TooManyConnectionsException;
+import com.stxvxn.app.util.Constants;
+import com.stxvxn.app.util.VirtualThreads;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter.SseEventBuilder;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Implementación del hub SSE.
+ * Cada suscriptor tiene una cola acotada que vacía un pool pequeño de hilos
+ * (hilos virtuales en el perfil virtual-threads),
+ * de modo que un cliente lento no bloquea al que publica ni a los demás:
+ * si su cola se llena, se desconecta. Un latido periódico mantiene abiertas
+ * las conexiones inactivas (proxies) y detecta los clientes caídos.
+ */
+@Service
+@Slf4j
+public class TrackingStreamServiceImpl implements TrackingStreamService {
+
+    private final Map<String, Topic> topics = new ConcurrentHashMap<>();
+    private final AtomicInteger openStreams = new AtomicInteger();
+
+    private final MeterRegistry meterRegistry;
+    private final Executor senders;
+    private final ScheduledExecutorService heartbeats;
+    private final int maxConnections;
+    private final int maxPending;
+    private final long timeoutMs;
+
+    public TrackingStreamServiceImpl(
+            MeterRegistry meterRegistry,
+            @Value("${petcare.sse.max-connections:2000}") int maxConnections,
+            @Value("${petcare.sse.max-pending:32}") int maxPending,
+            @Value("${petcare.sse.timeout-ms:300000}") long timeoutMs,
+            @Value("${petcare.sse.heartbeat-seconds:15}") long heartbeatSeconds,
+            @Value("${petcare.sse.sender-threads:4}") int senderThreads,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.meterRegistry = meterRegistry;
+        this.maxConnections = maxConnections;
+        this.maxPending = maxPending;
+        this.timeoutMs = timeoutMs;
+
+        this.senders = VirtualThreads.newExecutor(virtualThreads, senderThreads, "sse-sender-");
+        this.heartbeats = Executors.newSingleThreadScheduledExecutor(daemonThreads("sse-heartbeat-"));
+        heartbeats.scheduleAtFixedRate(this::sendHeartbeats, heartbeatSeconds, heartbeatSeconds, TimeUnit.SECONDS);
+
+        Gauge.builder("petcare.sse.connections", openStreams, AtomicInteger::get)
+                .description("Streams SSE de rastreo abiertos en esta instancia")
+                .register(meterRegistry);
+        Gauge.builder("petcare.sse.topics", topics, Map::size)
+                .description("Paquetes con al menos un suscriptor SSE")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Optional<SseEmitter> subscribe(String trackingNumber, Supplier<Optional<TrackingUpdate>> snapshot) {
+        if (openStreams.incrementAndGet() > maxConnections) {
+            openStreams.decrementAndGet();
+            meterRegistry.counter("petcare.sse.rejected").increment();
+            throw new TooManyConnectionsException(maxConnections);
+        }
+
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Subscriber subscriber = new Subscriber(trackingNumber, emitter, maxPending);
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(e -> remove(subscriber));
+
+        topics.compute(trackingNumber, (key, topic) -> {
+            Topic target = topic != null ? topic : new Topic();
+            target.subscribers.add(subscriber);
+            return target;
+        });
+        log.debug("SSE subscriber added for {} ({} open streams)", trackingNumber, openStreams.get());
+
+        // Ya registrado: un cambio posterior a la lectura llega por publish
+        Optional<TrackingUpdate> current;
+        try {
+            current = snapshot.get();
+        } catch (RuntimeException e) {
+            remove(subscriber);
+            throw e;
+        }
+        if (current.isEmpty()) {
+            remove(subscriber);
+            return Optional.empty();
+        }
+
+        // Si un publish concurrente ya encoló un cambio igual o más nuevo, la
+        // lectura se descarta; si no, las publicaciones repetidas de este cambio
+        // se descartan después
+        enqueueUpdate(subscriber, current.get());
+        return Optional.of(emitter);
+    }
+
+    @Override
+    public void publish(TrackingUpdate update) {
+        Topic topic = topics.get(update.getTrackingNumber());
+        if (topic == null) {
+            return;
+        }
+
+        // Un mismo cambio puede llegar más de una vez (evento local y change stream)
+        synchronized (topic) {
+            LocalDateTime last = topic.lastUpdatedAt;
+            if (last != null && update.getUpdatedAt() != null && !update.getUpdatedAt().isAfter(last)) {
+                return;
+            }
+            topic.lastUpdatedAt = update.getUpdatedAt();
+        }
+
+        for (Subscriber subscriber : topic.subscribers) {
+            enqueueUpdate(subscriber, update);
+        }
+    }
+
+    @Override
+    public boolean hasSubscribers(String trackingNumber) {
+        return topics.containsKey(trackingNumber);
+    }
+
+    @Override
+    public int getOpenStreams() {
+        return openStreams.get();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        heartbeats.shutdownNow();
+        VirtualThreads.shutdown(senders);
+        topics.values().forEach(topic -> topic.subscribers.forEach(subscriber -> subscriber.emitter.complete()));
+    }
+
+    /**
+     * Encola un cambio si es más nuevo que el último encolado para el cliente
+     */
+    private void enqueueUpdate(Subscriber subscriber, TrackingUpdate update) {
+        synchronized (subscriber) {
+            LocalDateTime last = subscriber.lastUpdatedAt;
+            if (last != null && update.getUpdatedAt() != null && !update.getUpdatedAt().isAfter(last)) {
+                return;
+            }
+            if (update.getUpdatedAt() != null) {
+                subscriber.lastUpdatedAt = update.getUpdatedAt();
+            }
+            enqueue(subscriber, updateEvent(update), isFinal(update));
+        }
+    }
+
+    private void enqueue(Subscriber subscriber, SseEventBuilder event, boolean last) {
+        if (subscriber.closed.get()) {
+            return;
+        }
+        if (!subscriber.queue.offer(new Outgoing(event, last))) {
+            // Cliente lento: se desconecta para no acumular eventos en memoria
+            meterRegistry.counter("petcare.sse.evicted", "reason", "slow").increment();
+            log.debug("Evicting slow SSE subscriber for {}", subscriber.trackingNumber);
+            subscriber.emitter.complete();
+            remove(subscriber);
+            return;
+        }
+        scheduleDrain(subscriber);
+    }
+
+    private void scheduleDrain(Subscriber subscriber) {
+        if (subscriber.draining.compareAndSet(false, true)) {
+            try {
+                senders.execute(() -> drain(subscriber));
+            } catch (RejectedExecutionException e) {
+                subscriber.draining.set(false);
+            }
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        try {
+            Outgoing item;
+            while (!subscriber.closed.get() && (item = subscriber.queue.poll()) != null) {
+                subscriber.emitter.send(item.event());
+                if (item.last()) {
+                    // Estado final: no habrá más cambios
+                    subscriber.emitter.complete();
+                    remove(subscriber);
+                    return;
+                }
+            }
+        } catch (IOException | IllegalStateException e) {
+            // Cliente desconectado; el contenedor notifica el error al emitter
+            meterRegistry.counter("petcare.sse.evicted", "reason", "error").increment();
+            remove(subscriber);
+        } finally {
+            subscriber.draining.set(false);
+            if (!subscriber.closed.get() && !subscriber.queue.isEmpty()) {
+                scheduleDrain(subscriber);
+            }
+        }
+    }
+
+    private void sendHeartbeats() {
+        try {
+            for (Topic topic : topics.values()) {
+                for (Subscriber subscriber : topic.subscribers) {
+                    enqueue(subscriber, SseEmitter.event().comment("heartbeat"), false);
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("SSE heartbeat failed: {}", e.getMessage());
+        }
+    }
+
+    private void remove(Subscriber subscriber) {
+        if (!subscriber.closed.compareAndSet(false, true)) {
+            return;
+        }
+        openStreams.decrementAndGet();
+        subscriber.queue.clear();
+        topics.computeIfPresent(subscriber.trackingNumber, (key, topic) -> {
+            topic.subscribers.remove(subscriber);
+            return topic.subscribers.isEmpty() ? null : topic;
+        });
+        log.debug("SSE subscriber removed for {} ({} open streams)", subscriber.trackingNumber, openStreams.get());
+    }
+
+    private SseEventBuilder updateEvent(TrackingUpdate update) {
+        return SseEmitter.event().name("update").data(update);
+    }
+
+    private boolean isFinal(TrackingUpdate update) {
+        return Constants.FINAL_STATUSES.contains(update.getStatus());
+    }
+
+    private static CustomizableThreadFactory daemonThreads(String prefix) {
+        CustomizableThreadFactory factory = new CustomizableThreadFactory(prefix);
+        factory.setDaemon(true);
+        return factory;
+    }
+
+    /**
+     * Suscriptores de un paquete y fecha del último cambio publicado
+     */
+    private static class Topic {
+        private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+        private LocalDateTime lastUpdatedAt;
+    }
+
+    /**
+     * Cliente SSE con su cola de envío
+     */
+    private static class Subscriber {
+        private final String trackingNumber;
+        private final SseEmitter emitter;
+        private final BlockingQueue<Outgoing> queue;
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private LocalDateTime lastUpdatedAt; // último cambio encolado (con el lock del suscriptor)
+
+        private Subscriber(String trackingNumber, SseEmitter emitter, int maxPending) {
+            this.trackingNumber = trackingNumber;
+            this.emitter = emitter;
+            this.queue = new LinkedBlockingQueue<>(maxPending);
+        }
+    }
+
+    private record Outgoing(SseEventBuilder event, boolean last) {
+    }
+}
@@ -0,0 +1,26 @@
+package com.stxvxn.app.service.channel;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Fallo de envío de una notificación.
+ * Los fallos no reintentables (por ejemplo un destinatario inválido) pasan
+ * directo a FAILED sin agotar los reintentos.
+ */
+@Data
+@AllArgsConstructor
+public class DeliveryFailure {
+    
+    private String notificationId;
+    private String error;
+    private boolean retryable;
+    
+    public static DeliveryFailure retryable(String notificationId, String error) {
+        return new DeliveryFailure(notificationId, error, true);
+    }
+    
+    public static DeliveryFailure permanent(String notificationId, String error) {
+        return new DeliveryFailure(notificationId, error, false);
+    }
+}
@@ -0,0 +1,30 @@
+package com.stxvxn.app.service.channel;
+
+import com.stxvxn.app.model.Notification;
+import com.stxvxn.app.model.Notification.NotificationChannel;
+
+import java.util.List;
+
+/**
+ * Proveedor de envío de un canal de notificaciones (SMS, email, push).
+ * El NotificationDispatchService le entrega lotes ya reclamados; cada
+ * implementación decide cómo enviarlos (una llamada por lote si la API
+ * del proveedor lo permite). Registrar un bean para un canal reemplaza
+ * al proveedor stub de ese canal.
+ */
+public interface NotificationSender {
+    
+    /**
+     * Canal que atiende este proveedor
+     */
+    NotificationChannel getChannel();
+    
+    /**
+     * Envía un lote de notificaciones.
+     * Una excepción se trata como fallo reintentable de todo el lote.
+     * 
+     * @param notifications Notificaciones a enviar
+     * @return Fallos por notificación; las que no aparecen se enviaron
+     */
+    List<DeliveryFailure> send(List<Notification> notifications);
+}
@@ -0,0 +1,65 @@
+package com.stxvxn.app.service.channel;
+
+import com.stxvxn.app.model.Notification;
+import com.stxvxn.app.model.Notification.NotificationChannel;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Proveedor local que simula un canal: espera una latencia fija por lote
+ * y falla al azar con la tasa configurada. Rechaza sin reintento las
+ * notificaciones sin destinatario para el canal.
+ */
+@Slf4j
+public class StubNotificationSender implements NotificationSender {
+    
+    private final NotificationChannel channel;
+    private final long latencyMs;
+    private final double failureRate;
+    
+    public StubNotificationSender(NotificationChannel channel, long latencyMs, double failureRate) {
+        this.channel = channel;
+        this.latencyMs = latencyMs;
+        this.failureRate = failureRate;
+    }
+    
+    @Override
+    public NotificationChannel getChannel() {
+        return channel;
+    }
+    
+    @Override
+    public List<DeliveryFailure> send(List<Notification> notifications) {
+        if (latencyMs > 0) {
+            try {
+                Thread.sleep(latencyMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Envío interrumpido", e);
+            }
+        }
+        
+        List<DeliveryFailure> failures = new ArrayList<>();
+        for (Notification notification : notifications) {
+            if (!hasRecipient(notification)) {
+                failures.add(DeliveryFailure.permanent(notification.getId(), "Sin destinatario para " + channel));
+            } else if (failureRate > 0 && ThreadLocalRandom.current().nextDouble() < failureRate) {
+                failures.add(DeliveryFailure.retryable(notification.getId(), "Fallo simulado del proveedor " + channel));
+            }
+        }
+        log.debug("Stub {} sent {} notifications ({} failed)", 
+                  channel, notifications.size() - failures.size(), failures.size());
+        return failures;
+    }
+    
+    private boolean hasRecipient(Notification notification) {
+        return switch (channel) {
+            case SMS -> notification.getRecipientPhone() != null && !notification.getRecipientPhone().isBlank();
+            case EMAIL -> notification.getRecipientEmail() != null && !notification.getRecipientEmail().isBlank();
+            case PUSH -> notification.getTrackingNumber() != null;
+        };
+    }
+}
@@ -20,9 +20,14 @@ public class Constants {
     // Paginación
     public static final int DEFAULT_PAGE_SIZE = 20;
     public static final int MAX_PAGE_SIZE = 100;
+    public static final int ESTIMATED_COUNT_LIMIT = 10_000; // Tope del conteo estimado con filtro
+    
+    // Streaming NDJSON
+    public static final int STREAM_CURSOR_BATCH_SIZE = 500;
     
     // Cache
     public static final String CACHE_PACKAGE = "package";
+    public static final String CACHE_PACKAGE_JSON = "packageJson";
     public static final String CACHE_EMPLOYEE = "employee";
     public static final int CACHE_TTL_SECONDS = 300; // 5 minutos
     
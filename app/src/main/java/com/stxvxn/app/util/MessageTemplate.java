@@ -0,0 +1,114 @@
+package com.stxvxn.app.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Plantilla de mensaje compilada a un arreglo de segmentos.
+ * El texto fuente usa variables con la forma {nombre}; al compilarlo se
+ * separa en literales y posiciones de variable, de modo que renderizar es
+ * solo copiar segmentos en un StringBuilder, sin volver a analizar el texto
+ * ni crear cadenas intermedias. Las llaves literales se escriben {{ y }}.
+ */
+public final class MessageTemplate {
+
+    private final String source;
+    private final String[] literals;
+    private final int[] variables;
+    private final int literalLength;
+
+    private MessageTemplate(String source, String[] literals, int[] variables) {
+        this.source = source;
+        this.literals = literals;
+        this.variables = variables;
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.literalLength = length;
+    }
+
+    /**
+     * Compila una plantilla
+     *
+     * @param source Texto de la plantilla
+     * @param variableNames Variables permitidas; su posición es la del valor al renderizar
+     * @return Plantilla compilada
+     * @throws IllegalArgumentException si hay una variable desconocida o una llave sin cerrar
+     */
+    public static MessageTemplate compile(String source, List<String> variableNames) {
+        List<String> literals = new ArrayList<>();
+        List<Integer> variables = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+
+        int i = 0;
+        while (i < source.length()) {
+            char c = source.charAt(i);
+            if ((c == '{' || c == '}') && i + 1 < source.length() && source.charAt(i + 1) == c) {
+                literal.append(c);
+                i += 2;
+            } else if (c == '{') {
+                int end = source.indexOf('}', i + 1);
+                if (end < 0) {
+                    throw new IllegalArgumentException("Llave sin cerrar en la plantilla: " + source);
+                }
+                String name = source.substring(i + 1, end).trim();
+                int index = variableNames.indexOf(name);
+                if (index < 0) {
+                    throw new IllegalArgumentException("Variable desconocida {" + name + "} en la plantilla: " + source);
+                }
+                literals.add(literal.toString());
+                variables.add(index);
+                literal.setLength(0);
+                i = end + 1;
+            } else if (c == '}') {
+                throw new IllegalArgumentException("Llave sin abrir en la plantilla: " + source);
+            } else {
+                literal.append(c);
+                i++;
+            }
+        }
+        literals.add(literal.toString());
+
+        return new MessageTemplate(source,
+                literals.toArray(String[]::new),
+                variables.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    /**
+     * Escribe la plantilla en out reemplazando cada variable por su valor
+     * (null se escribe vacío)
+     *
+     * @param out Destino, normalmente un builder reutilizado
+     * @param values Valores en el orden de las variables con que se compiló
+     */
+    public void renderTo(StringBuilder out, String... values) {
+        out.ensureCapacity(out.length() + literalLength + 16 * variables.length);
+        for (int i = 0; i < variables.length; i++) {
+            out.append(literals[i]);
+            String value = values[variables[i]];
+            if (value != null) {
+                out.append(value);
+            }
+        }
+        out.append(literals[variables.length]);
+    }
+
+    /**
+     * Renderiza la plantilla en una cadena nueva
+     */
+    public String render(String... values) {
+        StringBuilder out = new StringBuilder(literalLength + 16 * variables.length);
+        renderTo(out, values);
+        return out.toString();
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    @Override
+    public String toString() {
+        return source;
+    }
+}
@@ -0,0 +1,75 @@
+package com.stxvxn.app.util;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.Iterator;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Escribe respuestas NDJSON (un documento JSON por línea) directamente
+ * desde un cursor de MongoDB. Cada elemento se serializa al leerse, por lo
+ * que la memoria usada no depende del tamaño del resultado.
+ */
+@Component
+@Slf4j
+public class NdjsonResponseWriter {
+
+    private final ObjectWriter writer;
+    private final int flushSize;
+
+    public NdjsonResponseWriter(
+            ObjectMapper objectMapper,
+            @Value("${petcare.streaming.flush-size:200}") int flushSize) {
+        // Sin flush por documento: se vacía el buffer cada flushSize elementos
+        this.writer = objectMapper.writer()
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .withRootValueSeparator("\n");
+        this.flushSize = flushSize;
+    }
+
+    /**
+     * Construye una respuesta NDJSON. El Stream se abre y se cierra dentro
+     * del hilo que escribe la respuesta, de modo que el cursor vive solo
+     * mientras se transmite.
+     *
+     * @param <T> Tipo de los elementos
+     * @param source Proveedor del Stream (respaldado por un cursor)
+     * @return Respuesta 200 con cuerpo application/x-ndjson
+     */
+    public <T> ResponseEntity<StreamingResponseBody> stream(Supplier<Stream<T>> source) {
+        StreamingResponseBody body = outputStream -> {
+            long count = 0;
+            try (Stream<T> items = source.get();
+                 JsonGenerator generator = writer.createGenerator(outputStream)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+                Iterator<T> iterator = items.iterator();
+                while (iterator.hasNext()) {
+                    writer.writeValue(generator, iterator.next());
+                    if (++count % flushSize == 0) {
+                        generator.flush();
+                    }
+                }
+                if (count > 0) {
+                    generator.writeRaw('\n');
+                }
+                generator.flush();
+            }
+            log.debug("NDJSON stream finished: {} documents", count);
+        };
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+}
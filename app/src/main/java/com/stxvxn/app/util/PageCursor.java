@@ -0,0 +1,59 @@
+package com.stxvxn.app.util;
+
+import com.stxvxn.app.exception.ValidationException;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Posición de una página en paginación por cursor (keyset).
+ * Guarda el valor del campo de orden y el _id del último elemento entregado,
+ * junto con el orden usado, y se serializa como un token opaco en Base64 URL.
+ */
+@Getter
+@RequiredArgsConstructor
+public final class PageCursor {
+
+    private static final String SEPARATOR = "|";
+
+    private final String sortField;
+    private final Sort.Direction direction;
+    private final LocalDateTime value;
+    private final String id;
+
+    /**
+     * Convierte el cursor en un token opaco.
+     *
+     * @return Token para el parámetro cursor
+     */
+    public String encode() {
+        String raw = String.join(SEPARATOR, sortField, direction.name(), value.toString(), id);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Reconstruye un cursor a partir de su token.
+     *
+     * @param token Token recibido del cliente
+     * @return Cursor decodificado
+     * @throws ValidationException Si el token no es válido
+     */
+    public static PageCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", -1);
+            if (parts.length != 4 || !ObjectId.isValid(parts[3])) {
+                throw new ValidationException("Cursor de paginación inválido");
+            }
+            return new PageCursor(parts[0], Sort.Direction.valueOf(parts[1]), LocalDateTime.parse(parts[2]), parts[3]);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new ValidationException("Cursor de paginación inválido");
+        }
+    }
+}
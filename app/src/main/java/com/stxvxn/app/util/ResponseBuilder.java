@@ -1,5 +1,7 @@
 package com.stxvxn.app.util;
 
+import com.stxvxn.app.dto.response.CursorPageResponse;
+
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.Map;
@@ -68,6 +70,31 @@ public class ResponseBuilder {
         return response;
     }
     
+    /**
+     * Construye una respuesta exitosa con una página por cursor.
+     * 
+     * @param page Página obtenida
+     * @param instanceName Nombre de la instancia
+     * @return Mapa con los datos y la paginación (nextCursor y totalElements pueden ser null)
+     */
+    public static Map<String, Object> successWithCursor(CursorPageResponse<?> page, String instanceName) {
+        Map<String, Object> response = success(page.getContent(), instanceName);
+        
+        // HashMap porque nextCursor y totalElements pueden ser null
+        Map<String, Object> pagination = new HashMap<>();
+        pagination.put("size", page.getSize());
+        pagination.put("sort", page.getSort());
+        pagination.put("direction", page.getDirection());
+        pagination.put("hasNext", page.isHasNext());
+        pagination.put("nextCursor", page.getNextCursor());
+        pagination.put("totalElements", page.getTotalElements());
+        pagination.put("totalElementsAtLeast", page.isTotalElementsAtLeast());
+        pagination.put("count", page.getCountMode());
+        response.put("pagination", pagination);
+        
+        return response;
+    }
+    
     /**
      * Construye una respuesta de error.
      * 
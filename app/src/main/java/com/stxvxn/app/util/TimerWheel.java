@@ -0,0 +1,100 @@
+package com.stxvxn.app.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Rueda de temporizadores (hashed timer wheel) avanzada por ticks.
+ * Programar y vencer un elemento cuesta O(1) sin importar cuántos haya
+ * pendientes, y no ocupa ningún hilo mientras espera: quien la usa llama a
+ * {@link #advance()} una vez por tick (típicamente desde un único hilo
+ * programado). Los retardos mayores que una vuelta completa esperan en su
+ * ranura hasta que llega su tick.
+ *
+ * @param <T> Tipo de elemento programado
+ */
+public class TimerWheel<T> {
+
+    private final long tickMillis;
+    private final int mask;
+    private final ArrayDeque<Timeout<T>>[] slots;
+    private long currentTick;
+    private int size;
+
+    /**
+     * @param tickMillis Duración de un tick en milisegundos
+     * @param slotCount Cantidad de ranuras (se redondea a potencia de 2)
+     */
+    @SuppressWarnings("unchecked")
+    public TimerWheel(long tickMillis, int slotCount) {
+        if (tickMillis <= 0 || slotCount <= 0) {
+            throw new IllegalArgumentException("tickMillis y slotCount deben ser positivos");
+        }
+        int slotsPowerOfTwo = Integer.highestOneBit(Math.max(1, slotCount - 1)) << 1;
+        this.tickMillis = tickMillis;
+        this.mask = slotsPowerOfTwo - 1;
+        this.slots = new ArrayDeque[slotsPowerOfTwo];
+        for (int i = 0; i < slotsPowerOfTwo; i++) {
+            slots[i] = new ArrayDeque<>();
+        }
+    }
+
+    /**
+     * Programa un elemento para dentro de delayMillis (al menos un tick)
+     */
+    public synchronized void schedule(T item, long delayMillis) {
+        long ticks = Math.max(1, (delayMillis + tickMillis - 1) / tickMillis);
+        long deadline = currentTick + ticks;
+        slots[(int) (deadline & mask)].add(new Timeout<>(item, deadline));
+        size++;
+    }
+
+    /**
+     * Avanza un tick y devuelve los elementos vencidos en ese tick
+     */
+    public synchronized List<T> advance() {
+        currentTick++;
+        ArrayDeque<Timeout<T>> slot = slots[(int) (currentTick & mask)];
+        if (slot.isEmpty()) {
+            return List.of();
+        }
+
+        List<T> expired = new ArrayList<>();
+        Iterator<Timeout<T>> it = slot.iterator();
+        while (it.hasNext()) {
+            Timeout<T> timeout = it.next();
+            if (timeout.deadline() <= currentTick) {
+                it.remove();
+                expired.add(timeout.item());
+            }
+        }
+        size -= expired.size();
+        return expired;
+    }
+
+    /**
+     * Cantidad de elementos programados
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Descarta todos los elementos programados
+     */
+    public synchronized void clear() {
+        for (ArrayDeque<Timeout<T>> slot : slots) {
+            slot.clear();
+        }
+        size = 0;
+    }
+
+    public long getTickMillis() {
+        return tickMillis;
+    }
+
+    private record Timeout<T>(T item, long deadline) {
+    }
+}
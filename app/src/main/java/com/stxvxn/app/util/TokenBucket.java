@@ -0,0 +1,65 @@
+package com.stxvxn.app.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Limitador de tasa por token bucket.
+ * Se recarga a ratePerSecond tokens por segundo hasta capacity, de modo
+ * que admite ráfagas de hasta capacity y una tasa sostenida de
+ * ratePerSecond. Pensado para pedir lotes: {@link #acquireUpTo(int)}
+ * entrega los tokens disponibles sin esperar y {@link #release(int)}
+ * devuelve los que no se usaron.
+ */
+public class TokenBucket {
+
+    private final double ratePerNano;
+    private final double capacity;
+    private final LongSupplier nanoClock;
+    private double tokens;
+    private long lastRefill;
+
+    /**
+     * @param ratePerSecond Tokens por segundo
+     * @param capacity Tokens acumulables como máximo (ráfaga)
+     */
+    public TokenBucket(double ratePerSecond, double capacity) {
+        this(ratePerSecond, capacity, System::nanoTime);
+    }
+
+    TokenBucket(double ratePerSecond, double capacity, LongSupplier nanoClock) {
+        if (ratePerSecond <= 0 || capacity <= 0) {
+            throw new IllegalArgumentException("ratePerSecond y capacity deben ser positivos");
+        }
+        this.ratePerNano = ratePerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.capacity = capacity;
+        this.nanoClock = nanoClock;
+        this.tokens = capacity;
+        this.lastRefill = nanoClock.getAsLong();
+    }
+
+    /**
+     * Toma hasta max tokens sin esperar
+     *
+     * @return Tokens obtenidos (0 si no hay ninguno disponible)
+     */
+    public synchronized int acquireUpTo(int max) {
+        refill();
+        int granted = (int) Math.min(max, Math.floor(tokens));
+        tokens -= Math.max(0, granted);
+        return Math.max(0, granted);
+    }
+
+    /**
+     * Devuelve tokens obtenidos que no se usaron
+     */
+    public synchronized void release(int unused) {
+        tokens = Math.min(capacity, tokens + Math.max(0, unused));
+    }
+
+    private void refill() {
+        long now = nanoClock.getAsLong();
+        tokens = Math.min(capacity, tokens + (now - lastRefill) * ratePerNano);
+        lastRefill = now;
+    }
+}
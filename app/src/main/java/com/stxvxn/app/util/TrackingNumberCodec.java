@@ -0,0 +1,90 @@
+package com.stxvxn.app.util;
+
+/**
+ * Codificación compacta de números de rastreo.
+ * Un número TRK-XXXXXXXX es un valor en base 36 de 8 dígitos, por lo que
+ * cabe en un long. Trabajar con la clave numérica evita comparar y hashear
+ * cadenas en índices en memoria.
+ */
+public final class TrackingNumberCodec {
+
+    private static final String CHARACTERS = "ABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
+    private static final int RADIX = CHARACTERS.length();
+
+    /**
+     * Cantidad de claves distintas representables (36^8).
+     */
+    public static final long KEY_SPACE = pow(RADIX, Constants.TRACKING_NUMBER_LENGTH);
+
+    /**
+     * Convierte una clave numérica en un número de rastreo TRK-XXXXXXXX.
+     *
+     * @param key Clave numérica en el rango [0, KEY_SPACE)
+     * @return Número de rastreo
+     * @throws IllegalArgumentException Si la clave está fuera de rango
+     */
+    public static String encode(long key) {
+        if (key < 0 || key >= KEY_SPACE) {
+            throw new IllegalArgumentException("Clave de rastreo fuera de rango: " + key);
+        }
+
+        char[] digits = new char[Constants.TRACKING_NUMBER_LENGTH];
+        for (int i = digits.length - 1; i >= 0; i--) {
+            digits[i] = CHARACTERS.charAt((int) (key % RADIX));
+            key /= RADIX;
+        }
+        return Constants.TRACKING_PREFIX + new String(digits);
+    }
+
+    /**
+     * Convierte un número de rastreo en su clave numérica.
+     *
+     * @param trackingNumber Número de rastreo TRK-XXXXXXXX
+     * @return Clave numérica
+     * @throws IllegalArgumentException Si el formato no es válido
+     */
+    public static long decode(String trackingNumber) {
+        if (!isValid(trackingNumber)) {
+            throw new IllegalArgumentException("Número de rastreo inválido: " + trackingNumber);
+        }
+
+        long key = 0;
+        for (int i = Constants.TRACKING_PREFIX.length(); i < trackingNumber.length(); i++) {
+            key = key * RADIX + CHARACTERS.indexOf(trackingNumber.charAt(i));
+        }
+        return key;
+    }
+
+    /**
+     * Verifica si una cadena tiene el formato TRK-XXXXXXXX.
+     *
+     * @param trackingNumber Cadena a verificar
+     * @return true si es decodificable
+     */
+    public static boolean isValid(String trackingNumber) {
+        if (trackingNumber == null
+                || trackingNumber.length() != Constants.TRACKING_PREFIX.length() + Constants.TRACKING_NUMBER_LENGTH
+                || !trackingNumber.startsWith(Constants.TRACKING_PREFIX)) {
+            return false;
+        }
+
+        for (int i = Constants.TRACKING_PREFIX.length(); i < trackingNumber.length(); i++) {
+            if (CHARACTERS.indexOf(trackingNumber.charAt(i)) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long pow(int base, int exponent) {
+        long result = 1;
+        for (int i = 0; i < exponent; i++) {
+            result *= base;
+        }
+        return result;
+    }
+
+    private TrackingNumberCodec() {
+        // Prevenir instanciación
+    }
+}
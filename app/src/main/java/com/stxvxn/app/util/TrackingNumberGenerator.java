@@ -1,64 +1,82 @@
 package com.stxvxn.app.util;
 
-import com.stxvxn.app.repository.PackageRepository;
-import lombok.extern.slf4j.Slf4j;
+import com.stxvxn.app.service.SequenceService;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.util.Random;
-
 /**
  * Generador de números de rastreo únicos.
  * Genera números en formato TRK-XXXXXXXX (8 caracteres alfanuméricos).
+ *
+ * Cada instancia reserva bloques de la secuencia "trackingNumber" del
+ * SequenceService y los reparte en memoria, de modo que no es necesario
+ * consultar la colección de paquetes antes de insertar. La secuencia se
+ * dispersa con una permutación afín sobre 36^8 para que los números
+ * consecutivos no sean predecibles. El índice único sobre trackingNumber
+ * sigue actuando como red de seguridad.
  */
 @Component
-@Slf4j
 public class TrackingNumberGenerator {
-    
-    private static final String CHARACTERS = "ABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
-    private static final Random RANDOM = new Random();
-    
+
+    static final String SEQUENCE_NAME = "trackingNumber";
+
+    // Multiplicador coprimo con 36^8 (no divisible por 2 ni por 3) y
+    // suficientemente pequeño para que el producto no desborde un long
+    private static final long MULTIPLIER = 1_299_709L;
+    private static final long OFFSET = 1_048_576_000_003L;
+
+    private final SequenceService sequenceService;
+    private final int blockSize;
+
+    public TrackingNumberGenerator(
+            SequenceService sequenceService,
+            @Value("${petcare.tracking.block-size:1000}") int blockSize) {
+        this.sequenceService = sequenceService;
+        this.blockSize = blockSize;
+    }
+
     /**
-     * Genera un número de rastreo aleatorio.
-     * 
+     * Genera el siguiente número de rastreo sin consultar la base de datos,
+     * salvo cuando se agota el bloque reservado.
+     *
      * @return Número de rastreo generado
      */
     public String generate() {
-        StringBuilder sb = new StringBuilder(Constants.TRACKING_PREFIX);
-        
-        for (int i = 0; i < Constants.TRACKING_NUMBER_LENGTH; i++) {
-            int index = RANDOM.nextInt(CHARACTERS.length());
-            sb.append(CHARACTERS.charAt(index));
+        return TrackingNumberCodec.encode(nextKey());
+    }
+
+    /**
+     * Obtiene la siguiente clave numérica de rastreo.
+     *
+     * @return Clave en el rango [0, 36^8)
+     */
+    public long nextKey() {
+        return scramble(sequenceService.next(SEQUENCE_NAME, blockSize));
+    }
+
+    /**
+     * Obtiene varias claves de rastreo para registros masivos.
+     * Si el bloque actual no alcanza, reserva un bloque del tamaño necesario
+     * en un único round-trip.
+     *
+     * @param count Cantidad de claves
+     * @return Claves en el rango [0, 36^8)
+     */
+    public long[] nextKeys(int count) {
+        long[] keys = sequenceService.next(SEQUENCE_NAME, count, blockSize);
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = scramble(keys[i]);
         }
-        
-        return sb.toString();
+        return keys;
     }
-    
+
     /**
-     * Genera un número de rastreo único verificando en la base de datos.
-     * 
-     * @param repository Repositorio para verificar existencia
-     * @return Número de rastreo único
-     * @throws IllegalStateException Si no se puede generar un número único después de 100 intentos
+     * Permutación biyectiva de la secuencia sobre el espacio de claves.
      */
-    public String generateUnique(PackageRepository repository) {
-        String trackingNumber;
-        int attempts = 0;
-        int maxAttempts = 100;
-        
-        do {
-            trackingNumber = generate();
-            attempts++;
-            
-            if (attempts >= maxAttempts) {
-                log.error("No se pudo generar un número de rastreo único después de {} intentos", maxAttempts);
-                throw new IllegalStateException(
-                    "No se pudo generar un número de rastreo único. Por favor, intente nuevamente."
-                );
-            }
-        } while (repository.findByTrackingNumber(trackingNumber).isPresent());
-        
-        log.debug("Tracking number generated after {} attempts: {}", attempts, trackingNumber);
-        return trackingNumber;
+    static long scramble(long sequence) {
+        if (sequence >= TrackingNumberCodec.KEY_SPACE) {
+            throw new IllegalStateException("Espacio de números de rastreo agotado");
+        }
+        return (MULTIPLIER * sequence + OFFSET) % TrackingNumberCodec.KEY_SPACE;
     }
 }
-
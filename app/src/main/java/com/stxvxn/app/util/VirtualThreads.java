@@ -0,0 +1,53 @@
+package com.stxvxn.app.util;
+
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Utilidades para el modo de hilos virtuales (perfil virtual-threads).
+ * Con spring.threads.virtual.enabled=true sobre Java 21 los ejecutores de
+ * tareas bloqueantes crean un hilo virtual por tarea; en otro caso se usa
+ * el pool fijo de hilos de plataforma de siempre.
+ */
+public final class VirtualThreads {
+    
+    private VirtualThreads() {
+        // Prevenir instanciación
+    }
+    
+    /**
+     * Indica si la JVM soporta hilos virtuales (Java 21+)
+     */
+    public static boolean isSupported() {
+        return Runtime.version().feature() >= 21;
+    }
+    
+    /**
+     * Crea un ejecutor para tareas que bloquean (envíos a clientes lentos, I/O)
+     * 
+     * @param virtual Si se pidió el modo de hilos virtuales
+     * @param platformThreads Tamaño del pool si se usan hilos de plataforma
+     * @param prefix Prefijo del nombre de los hilos
+     */
+    public static Executor newExecutor(boolean virtual, int platformThreads, String prefix) {
+        if (virtual && isSupported()) {
+            return new VirtualThreadTaskExecutor(prefix);
+        }
+        CustomizableThreadFactory factory = new CustomizableThreadFactory(prefix);
+        factory.setDaemon(true);
+        return Executors.newFixedThreadPool(platformThreads, factory);
+    }
+    
+    /**
+     * Detiene el ejecutor si es un pool (los hilos virtuales no necesitan cerrarse)
+     */
+    public static void shutdown(Executor executor) {
+        if (executor instanceof ExecutorService executorService) {
+            executorService.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package com.stxvxn.app.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Buffer que combina escrituras de varios hilos en lotes.
+ * Los elementos agregados se acumulan hasta llegar a maxBatchSize o hasta
+ * que pasan maxDelayMillis desde el primero, y un único hilo los entrega
+ * juntos al writer (por ejemplo un insertMany). Cada llamada a
+ * {@link #add(List)} recibe un future que se completa cuando sus elementos
+ * quedaron escritos, o con la excepción del writer si alguno de ellos falló.
+ * Con un {@link BatchWriter} que informa los fallos por elemento (un
+ * insertMany no ordenado), el fallo de un elemento no afecta a las llamadas
+ * cuyos elementos sí se escribieron.
+ *
+ * @param <T> Tipo de elemento a escribir
+ */
+public class WriteCombiningBuffer<T> implements AutoCloseable {
+
+    private final BatchWriter<T> writer;
+    private final int maxBatchSize;
+    private final long maxDelayNanos;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final Thread flusher;
+
+    private List<T> pending = new ArrayList<>();
+    private List<Waiter> waiters = new ArrayList<>();
+    private long firstAddedAt;
+    private boolean closed;
+
+    /**
+     * Buffer cuyo writer escribe cada lote completo o falla con una excepción
+     *
+     * @param name Nombre del hilo que escribe los lotes
+     * @param maxBatchSize Elementos por escritura
+     * @param maxDelayMillis Espera máxima de un elemento antes de escribirse
+     * @param writer Escritura de un lote (como máximo maxBatchSize elementos)
+     */
+    public WriteCombiningBuffer(String name, int maxBatchSize, long maxDelayMillis, Consumer<List<T>> writer) {
+        this(name, maxBatchSize, maxDelayMillis, (BatchWriter<T>) batch -> {
+            writer.accept(batch);
+            return Map.of();
+        });
+    }
+
+    /**
+     * Buffer cuyo writer informa qué elementos del lote no se escribieron
+     *
+     * @param name Nombre del hilo que escribe los lotes
+     * @param maxBatchSize Elementos por escritura
+     * @param maxDelayMillis Espera máxima de un elemento antes de escribirse
+     * @param writer Escritura de un lote (como máximo maxBatchSize elementos)
+     */
+    public static <T> WriteCombiningBuffer<T> withItemFailures(
+            String name, int maxBatchSize, long maxDelayMillis, BatchWriter<T> writer) {
+        return new WriteCombiningBuffer<>(name, maxBatchSize, maxDelayMillis, writer);
+    }
+
+    private WriteCombiningBuffer(String name, int maxBatchSize, long maxDelayMillis, BatchWriter<T> writer) {
+        if (maxBatchSize <= 0 || maxDelayMillis < 0) {
+            throw new IllegalArgumentException("maxBatchSize debe ser positivo y maxDelayMillis no negativo");
+        }
+        this.writer = writer;
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMillis);
+        this.flusher = new Thread(this::run, name);
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /**
+     * Agrega elementos al próximo lote
+     *
+     * @return Future que se completa cuando los elementos se escribieron
+     */
+    public CompletableFuture<Void> add(List<T> items) {
+        if (items.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        CompletableFuture<Void> written = new CompletableFuture<>();
+        lock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("El buffer está cerrado");
+            }
+            boolean wasEmpty = pending.isEmpty();
+            if (wasEmpty) {
+                firstAddedAt = System.nanoTime();
+            }
+            waiters.add(new Waiter(written, pending.size(), pending.size() + items.size()));
+            pending.addAll(items);
+            if (wasEmpty || pending.size() >= maxBatchSize) {
+                changed.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+        return written;
+    }
+
+    /**
+     * Elementos esperando a escribirse
+     */
+    public int size() {
+        lock.lock();
+        try {
+            return pending.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Escribe lo pendiente y detiene el hilo; no acepta más elementos
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            changed.signal();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        while (true) {
+            List<T> batch;
+            List<Waiter> batchWaiters;
+            lock.lock();
+            try {
+                while (pending.isEmpty() && !closed) {
+                    changed.awaitUninterruptibly();
+                }
+                if (pending.isEmpty()) {
+                    return; // cerrado y sin pendientes
+                }
+                long remaining;
+                while (pending.size() < maxBatchSize && !closed
+                        && (remaining = firstAddedAt + maxDelayNanos - System.nanoTime()) > 0) {
+                    changed.awaitNanos(remaining);
+                }
+                batch = pending;
+                batchWaiters = waiters;
+                pending = new ArrayList<>();
+                waiters = new ArrayList<>();
+            } catch (InterruptedException e) {
+                // Se ignora: el hilo solo termina con close()
+                continue;
+            } finally {
+                lock.unlock();
+            }
+            try {
+                write(batch, batchWaiters);
+            } catch (Throwable t) {
+                // Un Error del writer no debe dejar llamadas esperando para siempre:
+                // falla el lote y lo que quedó pendiente, y el buffer deja de aceptar elementos
+                List<Waiter> remaining;
+                lock.lock();
+                try {
+                    closed = true;
+                    remaining = waiters;
+                    pending = new ArrayList<>();
+                    waiters = new ArrayList<>();
+                } finally {
+                    lock.unlock();
+                }
+                fail(batchWaiters, t);
+                fail(remaining, t);
+                throw t;
+            }
+        }
+    }
+
+    private void fail(List<Waiter> failedWaiters, Throwable error) {
+        for (Waiter waiter : failedWaiters) {
+            waiter.future().completeExceptionally(error);
+        }
+    }
+
+    private void write(List<T> batch, List<Waiter> batchWaiters) {
+        // Error de cada elemento del lote (null si se escribió)
+        RuntimeException[] errors = new RuntimeException[batch.size()];
+        for (int from = 0; from < batch.size(); from += maxBatchSize) {
+            int to = Math.min(from + maxBatchSize, batch.size());
+            try {
+                Map<Integer, ? extends RuntimeException> failures = writer.write(batch.subList(from, to));
+                for (Map.Entry<Integer, ? extends RuntimeException> failure : failures.entrySet()) {
+                    errors[from + failure.getKey()] = failure.getValue();
+                }
+            } catch (RuntimeException e) {
+                for (int i = from; i < to; i++) {
+                    errors[i] = e;
+                }
+            }
+        }
+
+        // Cada llamada falla solo si falló alguno de sus elementos
+        for (Waiter waiter : batchWaiters) {
+            RuntimeException error = null;
+            for (int i = waiter.from(); i < waiter.to() && error == null; i++) {
+                error = errors[i];
+            }
+            if (error != null) {
+                waiter.future().completeExceptionally(error);
+            } else {
+                waiter.future().complete(null);
+            }
+        }
+    }
+
+    /**
+     * Escritura de un lote que informa los elementos que no se escribieron
+     */
+    @FunctionalInterface
+    public interface BatchWriter<T> {
+
+        /**
+         * @param batch Elementos a escribir
+         * @return Error de cada elemento no escrito, por su posición en el lote
+         * (vacío si se escribieron todos); una excepción hace fallar el lote completo
+         */
+        Map<Integer, ? extends RuntimeException> write(List<T> batch);
+    }
+
+    /**
+     * Llamada a add esperando sus elementos, en las posiciones [from, to) del lote
+     */
+    private record Waiter(CompletableFuture<Void> future, int from, int to) {
+    }
+}
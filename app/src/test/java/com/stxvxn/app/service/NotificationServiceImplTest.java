@@ -0,0 +1,100 @@
+package com.stxvxn.app.service;
+
+import com.stxvxn.app.event.PackageEvent;
+import com.stxvxn.app.model.Notification;
+import com.stxvxn.app.model.PackageStatus;
+import com.stxvxn.app.repository.NotificationRepository;
+import com.stxvxn.app.repository.NotificationRepositoryCustom.SaveResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class NotificationServiceImplTest {
+
+	@Mock
+	private NotificationRepository notificationRepository;
+
+	@Mock
+	private NotificationTemplateService notificationTemplateService;
+
+	@Spy
+	private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	@InjectMocks
+	private NotificationServiceImpl notificationService;
+
+	@BeforeEach
+	void setUp() {
+		ReflectionTestUtils.setField(notificationService, "writeCombining", false);
+		ReflectionTestUtils.setField(notificationService, "coalescingWindowMs", 5000L);
+		notificationService.init();
+		when(notificationTemplateService.render(any(), any(), any()))
+				.thenAnswer(invocation -> "Estado " + invocation.getArgument(0));
+	}
+
+	@Test
+	void coalescingKeepsTheNewestStatusEvenIfItArrivesFirst() {
+		when(notificationRepository.saveCoalescing(anyList())).thenReturn(new SaveResult(0, Map.of()));
+		Instant now = Instant.now();
+		PackageEvent newer = event("o-2", PackageStatus.EN_REPARTO, now);
+		PackageEvent older = event("o-1", PackageStatus.EN_TRANSITO, now.minusSeconds(30));
+
+		notificationService.createNotificationsForEvents(List.of(newer, older));
+
+		@SuppressWarnings("unchecked")
+		ArgumentCaptor<List<Notification>> saved = ArgumentCaptor.forClass(List.class);
+		verify(notificationRepository).saveCoalescing(saved.capture());
+		assertThat(saved.getValue()).singleElement().satisfies(notification -> {
+			assertThat(notification.getPackageStatus()).isEqualTo(PackageStatus.EN_REPARTO);
+			assertThat(notification.getMessage()).isEqualTo("Estado EN_REPARTO");
+			assertThat(notification.getOutboxIds()).containsExactlyInAnyOrder("o-1", "o-2");
+		});
+	}
+
+	@Test
+	void notificationsMergedIntoAStoredOneReturnItsId() {
+		when(notificationRepository.saveCoalescing(anyList())).thenAnswer(invocation -> {
+			List<Notification> notifications = invocation.getArgument(0);
+			notifications.forEach(notification -> notification.setId("stored-id"));
+			return new SaveResult(notifications.size(), Map.of());
+		});
+		Instant now = Instant.now();
+
+		List<Notification> created = notificationService.createNotificationsForEvents(List.of(
+				event("o-1", PackageStatus.EN_TRANSITO, now.minusSeconds(10)),
+				event("o-2", PackageStatus.EN_DISTRIBUCION, now)));
+
+		assertThat(created).hasSize(2).allSatisfy(notification ->
+				assertThat(notification.getId()).isEqualTo("stored-id"));
+	}
+
+	private static PackageEvent event(String outboxId, PackageStatus status, Instant publishedAt) {
+		return PackageEvent.builder()
+				.type(PackageEvent.Type.STATUS_CHANGED)
+				.outboxId(outboxId)
+				.packageId("pkg-1")
+				.trackingNumber("PC-1")
+				.recipientPhone("3001234567")
+				.newStatus(status)
+				.publishedAt(publishedAt)
+				.build();
+	}
+}
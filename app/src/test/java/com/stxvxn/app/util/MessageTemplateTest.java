@@ -0,0 +1,49 @@
+package com.stxvxn.app.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MessageTemplateTest {
+
+	private static final List<String> VARIABLES = List.of("trackingNumber", "status");
+
+	@Test
+	void replacesVariablesInPlace() {
+		MessageTemplate template = MessageTemplate.compile("Paquete {trackingNumber}: {status}.", VARIABLES);
+
+		assertThat(template.render("PC-1", "Entregado")).isEqualTo("Paquete PC-1: Entregado.");
+		assertThat(template.render("PC-2", null)).isEqualTo("Paquete PC-2: .");
+	}
+
+	@Test
+	void appendsToAReusedBuilder() {
+		MessageTemplate template = MessageTemplate.compile("{status}{trackingNumber}", VARIABLES);
+		StringBuilder out = new StringBuilder("> ");
+
+		template.renderTo(out, "PC-1", "Entregado");
+
+		assertThat(out).hasToString("> EntregadoPC-1");
+	}
+
+	@Test
+	void keepsEscapedBracesAsLiterals() {
+		MessageTemplate template = MessageTemplate.compile("{{literal}} sin variables", VARIABLES);
+
+		assertThat(template.render("PC-1", "Entregado")).isEqualTo("{literal} sin variables");
+	}
+
+	@Test
+	void rejectsUnknownOrUnclosedVariables() {
+		assertThatThrownBy(() -> MessageTemplate.compile("Hola {recipient}", VARIABLES))
+			.isInstanceOf(IllegalArgumentException.class)
+			.hasMessageContaining("recipient");
+		assertThatThrownBy(() -> MessageTemplate.compile("Hola {trackingNumber", VARIABLES))
+			.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> MessageTemplate.compile("Hola }", VARIABLES))
+			.isInstanceOf(IllegalArgumentException.class);
+	}
+}
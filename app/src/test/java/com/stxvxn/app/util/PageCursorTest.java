@@ -0,0 +1,37 @@
+package com.stxvxn.app.util;
+
+import com.stxvxn.app.exception.ValidationException;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PageCursorTest {
+
+	@Test
+	void encodeAndDecodeRoundTrip() {
+		String id = new ObjectId().toHexString();
+		LocalDateTime value = LocalDateTime.of(2026, 10, 17, 8, 30, 15, 123_000_000);
+
+		String token = new PageCursor("updatedAt", Sort.Direction.DESC, value, id).encode();
+		PageCursor cursor = PageCursor.decode(token);
+
+		assertThat(token).doesNotContain("|", "=");
+		assertThat(cursor.getSortField()).isEqualTo("updatedAt");
+		assertThat(cursor.getDirection()).isEqualTo(Sort.Direction.DESC);
+		assertThat(cursor.getValue()).isEqualTo(value);
+		assertThat(cursor.getId()).isEqualTo(id);
+	}
+
+	@Test
+	void rejectsTamperedTokens() {
+		assertThatThrownBy(() -> PageCursor.decode("not-a-cursor"))
+				.isInstanceOf(ValidationException.class);
+		assertThatThrownBy(() -> PageCursor.decode("%%%"))
+				.isInstanceOf(ValidationException.class);
+	}
+}
@@ -0,0 +1,56 @@
+package com.stxvxn.app.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimerWheelTest {
+
+	@Test
+	void expiresItemsOnTheirTick() {
+		TimerWheel<String> wheel = new TimerWheel<>(100, 8);
+		wheel.schedule("a", 100);
+		wheel.schedule("b", 250);
+		wheel.schedule("c", 0);
+
+		assertThat(wheel.advance()).containsExactlyInAnyOrder("a", "c");
+		assertThat(wheel.advance()).isEmpty();
+		assertThat(wheel.advance()).containsExactly("b");
+		assertThat(wheel.size()).isZero();
+	}
+
+	@Test
+	void keepsDelaysLongerThanOneRevolution() {
+		TimerWheel<String> wheel = new TimerWheel<>(10, 4);
+		wheel.schedule("late", 100);
+		wheel.schedule("early", 20);
+
+		List<Integer> expiredAt = new ArrayList<>();
+		for (int tick = 1; tick <= 12; tick++) {
+			for (String item : wheel.advance()) {
+				expiredAt.add(tick);
+				assertThat(item).isEqualTo(tick == 2 ? "early" : "late");
+			}
+		}
+		assertThat(expiredAt).containsExactly(2, 10);
+	}
+
+	@Test
+	void handlesManyItems() {
+		TimerWheel<Integer> wheel = new TimerWheel<>(1, 64);
+		for (int i = 0; i < 100_000; i++) {
+			wheel.schedule(i, i % 500);
+		}
+		assertThat(wheel.size()).isEqualTo(100_000);
+
+		int expired = 0;
+		for (int tick = 0; tick < 500; tick++) {
+			expired += wheel.advance().size();
+		}
+		assertThat(expired).isEqualTo(100_000);
+		assertThat(wheel.size()).isZero();
+	}
+}
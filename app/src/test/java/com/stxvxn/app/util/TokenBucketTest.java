@@ -0,0 +1,45 @@
+package com.stxvxn.app.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenBucketTest {
+
+	@Test
+	void grantsBurstUpToCapacity() {
+		AtomicLong clock = new AtomicLong();
+		TokenBucket bucket = new TokenBucket(10, 5, clock::get);
+
+		assertThat(bucket.acquireUpTo(3)).isEqualTo(3);
+		assertThat(bucket.acquireUpTo(10)).isEqualTo(2);
+		assertThat(bucket.acquireUpTo(1)).isZero();
+	}
+
+	@Test
+	void refillsAtTheConfiguredRate() {
+		AtomicLong clock = new AtomicLong();
+		TokenBucket bucket = new TokenBucket(10, 100, clock::get);
+		bucket.acquireUpTo(100);
+
+		clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(500));
+		assertThat(bucket.acquireUpTo(100)).isEqualTo(5);
+
+		clock.addAndGet(TimeUnit.SECONDS.toNanos(60));
+		assertThat(bucket.acquireUpTo(1000)).isEqualTo(100);
+	}
+
+	@Test
+	void releaseReturnsUnusedTokens() {
+		AtomicLong clock = new AtomicLong();
+		TokenBucket bucket = new TokenBucket(1, 10, clock::get);
+
+		int granted = bucket.acquireUpTo(10);
+		bucket.release(granted - 4);
+
+		assertThat(bucket.acquireUpTo(10)).isEqualTo(6);
+	}
+}
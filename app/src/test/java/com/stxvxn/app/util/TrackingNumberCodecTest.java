@@ -0,0 +1,48 @@
+package com.stxvxn.app.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TrackingNumberCodecTest {
+
+	@Test
+	void encodeAndDecodeRoundTrip() {
+		long[] keys = {0L, 1L, 35L, 36L, 123_456_789L, TrackingNumberCodec.KEY_SPACE - 1};
+		for (long key : keys) {
+			String trackingNumber = TrackingNumberCodec.encode(key);
+			assertThat(trackingNumber).startsWith("TRK-").hasSize(12);
+			assertThat(TrackingNumberCodec.decode(trackingNumber)).isEqualTo(key);
+		}
+	}
+
+	@Test
+	void decodesNumbersFromPreviousRandomGenerator() {
+		assertThat(TrackingNumberCodec.encode(TrackingNumberCodec.decode("TRK-AB12CD34")))
+				.isEqualTo("TRK-AB12CD34");
+	}
+
+	@Test
+	void rejectsMalformedNumbers() {
+		assertThat(TrackingNumberCodec.isValid("TRK123456789")).isFalse();
+		assertThat(TrackingNumberCodec.isValid("TRK-ab12cd34")).isFalse();
+		assertThatThrownBy(() -> TrackingNumberCodec.decode("XYZ-AAAAAAAA"))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> TrackingNumberCodec.encode(TrackingNumberCodec.KEY_SPACE))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void scrambledSequenceDoesNotCollide() {
+		Set<Long> keys = new HashSet<>();
+		for (long sequence = 0; sequence < 100_000; sequence++) {
+			long key = TrackingNumberGenerator.scramble(sequence);
+			assertThat(key).isBetween(0L, TrackingNumberCodec.KEY_SPACE - 1);
+			assertThat(keys.add(key)).isTrue();
+		}
+	}
+}
@@ -0,0 +1,79 @@
+package com.stxvxn.app.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class WriteCombiningBufferTest {
+
+	@Test
+	void combinesConcurrentAddsIntoOneWrite() throws Exception {
+		List<List<Integer>> writes = new CopyOnWriteArrayList<>();
+		try (WriteCombiningBuffer<Integer> buffer = new WriteCombiningBuffer<>("test-writer", 100, 200,
+				batch -> writes.add(List.copyOf(batch)))) {
+			CompletableFuture<Void> first = buffer.add(List.of(1, 2));
+			CompletableFuture<Void> second = buffer.add(List.of(3));
+
+			CompletableFuture.allOf(first, second).get(2, TimeUnit.SECONDS);
+		}
+		assertThat(writes).containsExactly(List.of(1, 2, 3));
+	}
+
+	@Test
+	void flushesBySizeInChunksOfMaxBatchSize() throws Exception {
+		List<List<Integer>> writes = new CopyOnWriteArrayList<>();
+		try (WriteCombiningBuffer<Integer> buffer = new WriteCombiningBuffer<>("test-writer", 2, 60_000,
+				batch -> writes.add(List.copyOf(batch)))) {
+			buffer.add(List.of(1, 2, 3, 4, 5)).get(2, TimeUnit.SECONDS);
+		}
+		assertThat(writes).containsExactly(List.of(1, 2), List.of(3, 4), List.of(5));
+	}
+
+	@Test
+	void failsWaitersWhenTheWriteFails() {
+		try (WriteCombiningBuffer<Integer> buffer = new WriteCombiningBuffer<>("test-writer", 10, 0, batch -> {
+			throw new IllegalStateException("write failed");
+		})) {
+			assertThatThrownBy(() -> buffer.add(List.of(1)).get(2, TimeUnit.SECONDS))
+				.isInstanceOf(ExecutionException.class)
+				.hasCauseInstanceOf(IllegalStateException.class);
+		}
+	}
+
+	@Test
+	void failsOnlyTheWaitersOfItemsThatFailed() throws Exception {
+		try (WriteCombiningBuffer<Integer> buffer = WriteCombiningBuffer.withItemFailures("test-writer", 100, 200,
+				batch -> batch.indexOf(3) >= 0 ? Map.of(batch.indexOf(3), new IllegalStateException("item failed")) : Map.of())) {
+			CompletableFuture<Void> first = buffer.add(List.of(1, 2));
+			CompletableFuture<Void> second = buffer.add(List.of(3, 4));
+			CompletableFuture<Void> third = buffer.add(List.of(5));
+
+			first.get(2, TimeUnit.SECONDS);
+			third.get(2, TimeUnit.SECONDS);
+			assertThatThrownBy(() -> second.get(2, TimeUnit.SECONDS))
+				.isInstanceOf(ExecutionException.class)
+				.hasCauseInstanceOf(IllegalStateException.class);
+		}
+	}
+
+	@Test
+	void failsWaitersAndStopsAcceptingItemsWhenTheWriterThrowsAnError() {
+		try (WriteCombiningBuffer<Integer> buffer = new WriteCombiningBuffer<>("test-writer", 10, 0, batch -> {
+			throw new AssertionError("writer crashed");
+		})) {
+			assertThatThrownBy(() -> buffer.add(List.of(1)).get(2, TimeUnit.SECONDS))
+				.isInstanceOf(ExecutionException.class)
+				.hasCauseInstanceOf(AssertionError.class);
+			assertThatThrownBy(() -> buffer.add(List.of(2)))
+				.isInstanceOf(IllegalStateException.class);
+		}
+	}
+}
@@ -0,0 +1,68 @@
+#!/bin/bash
+# Compara la escritura directa de notificaciones con el write-combining.
+#
+# Levantar dos instancias contra el mismo MongoDB, una con cada modo:
+#   NOTIFICATIONS_WRITE_COMBINING=false  (un insertMany por lote de eventos)
+#   NOTIFICATIONS_WRITE_COMBINING=true   (lotes combinados entre eventos concurrentes)
+# y ejecutar:
+#   DIRECT_URL=http://localhost:3001 COMBINING_URL=http://localhost:3002 ./benchmark/notifications-benchmark.sh
+#
+# Cada paquete registrado genera una notificación. Se mide el
+# throughput del registro y, con las métricas de la instancia, cuántos
+# insertMany hicieron falta y cuánto tardaron. Las instancias se miden una
+# detrás de otra para no competir por MongoDB.
+# Requiere hey (https://github.com/rakyll/hey) y curl.
+
+DIRECT_URL=${DIRECT_URL:-http://localhost:3001}
+COMBINING_URL=${COMBINING_URL:-http://localhost:3002}
+DURATION=${DURATION:-30s}
+CONCURRENCY_LEVELS=${CONCURRENCY_LEVELS:-"20 100"}
+DRAIN_SECONDS=${DRAIN_SECONDS:-10}
+BODY='{"recipientName":"Benchmark","recipientAddress":"Calle 1","recipientPhone":"3000000000","senderName":"Benchmark","senderAddress":"Calle 2"}'
+
+if ! command -v hey &> /dev/null; then
+    echo "❌ ERROR: hey no está instalado (go install github.com/rakyll/hey@latest)"
+    exit 1
+fi
+
+# Devuelve "inserciones notificaciones segundos" acumulados de la instancia
+notification_metrics() {
+    curl -s "$1/actuator/prometheus" | awk '
+        /^petcare_notifications_write_seconds_count/ {writes += $2}
+        /^petcare_notifications_write_seconds_sum/ {seconds += $2}
+        /^petcare_notifications_batch_size_sum/ {notifications += $2}
+        END {printf "%d %d %f", writes, notifications, seconds}'
+}
+
+# Ejecuta hey y devuelve "req/s p99(ms) errores"
+run_load() {
+    local output
+    output=$(hey -z "$DURATION" -c "$2" -m POST -T application/json -d "$BODY" "$1")
+    local rps p99 errors
+    rps=$(echo "$output" | awk '/Requests\/sec:/ {printf "%.0f", $2}')
+    p99=$(echo "$output" | awk '/ 99% in / {printf "%.1f", $3 * 1000}')
+    errors=$(echo "$output" | awk '/\[[0-9]+\]/ && !/\[201\]/ {sum += $2} END {print sum + 0}')
+    echo "$rps ${p99:-n/a} $errors"
+}
+
+echo "| Modo | Concurrencia | req/s | p99 (ms) | Errores | Notificaciones | insertMany | Notif./insert | ms/insert |"
+echo "|------|--------------|-------|----------|---------|----------------|------------|---------------|-----------|"
+
+for mode in direct combining; do
+    if [ "$mode" = "direct" ]; then url=$DIRECT_URL; else url=$COMBINING_URL; fi
+
+    for concurrency in $CONCURRENCY_LEVELS; do
+        read -r writes_before notifications_before seconds_before <<< "$(notification_metrics "$url")"
+        read -r rps p99 errors <<< "$(run_load "$url/api/packages" "$concurrency")"
+        # Las notificaciones salen del outbox de forma asíncrona
+        sleep "$DRAIN_SECONDS"
+        read -r writes_after notifications_after seconds_after <<< "$(notification_metrics "$url")"
+
+        writes=$((writes_after - writes_before))
+        notifications=$((notifications_after - notifications_before))
+        per_insert=$(awk -v n="$notifications" -v w="$writes" 'BEGIN {printf "%.1f", w > 0 ? n / w : 0}')
+        ms_per_insert=$(awk -v s="$seconds_after" -v b="$seconds_before" -v w="$writes" \
+            'BEGIN {printf "%.2f", w > 0 ? (s - b) * 1000 / w : 0}')
+        echo "| $mode | $concurrency | $rps | $p99 | $errors | $notifications | $writes | $per_insert | $ms_per_insert |"
+    done
+done
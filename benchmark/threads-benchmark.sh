@@ -0,0 +1,77 @@
+#!/bin/bash
+# Compara throughput y p99 entre el modo de hilos de plataforma y el de hilos virtuales.
+#
+# Levantar dos instancias contra el mismo MongoDB, por ejemplo:
+#   docker build -t petcare-app:platform app
+#   docker build -t petcare-app:virtual --build-arg JAVA_VERSION=21 --build-arg MAVEN_PROFILES=virtual-threads app
+#   (la instancia virtual con SPRING_PROFILES_ACTIVE=virtual-threads)
+# y ejecutar:
+#   PLATFORM_URL=http://localhost:3001 VIRTUAL_URL=http://localhost:3002 ./benchmark/threads-benchmark.sh
+#
+# Se apunta directo a las instancias (sin nginx) para no medir la micro-caché.
+# Las instancias se miden una detrás de otra para no competir por MongoDB.
+# Requiere hey (https://github.com/rakyll/hey) y curl.
+
+PLATFORM_URL=${PLATFORM_URL:-http://localhost:3001}
+VIRTUAL_URL=${VIRTUAL_URL:-http://localhost:3002}
+DURATION=${DURATION:-30s}
+CONCURRENCY_LEVELS=${CONCURRENCY_LEVELS:-"50 200 800"}
+STATUS=${STATUS:-EN_TRANSITO}
+
+if ! command -v hey &> /dev/null; then
+    echo "❌ ERROR: hey no está instalado (go install github.com/rakyll/hey@latest)"
+    exit 1
+fi
+
+# Crea un paquete para la consulta por número de rastreo
+create_package() {
+    curl -s -X POST "$1/api/packages" \
+        -H "Content-Type: application/json" \
+        -d '{"recipientName":"Benchmark","recipientAddress":"Calle 1","recipientPhone":"3000000000","senderName":"Benchmark","senderAddress":"Calle 2"}' \
+        | grep -o '"trackingNumber":"[^"]*"' | head -1 | cut -d'"' -f4
+}
+
+# Ejecuta hey y devuelve "req/s p99(ms) errores"
+run_load() {
+    local output
+    output=$(hey -z "$DURATION" -c "$2" "$1")
+    local rps p99 errors
+    rps=$(echo "$output" | awk '/Requests\/sec:/ {printf "%.0f", $2}')
+    p99=$(echo "$output" | awk '/ 99% in / {printf "%.1f", $3 * 1000}')
+    errors=$(echo "$output" | awk '/\[[0-9]+\]/ && !/\[200\]/ {sum += $2} END {print sum + 0}')
+    echo "$rps ${p99:-n/a} $errors"
+}
+
+pinned_count() {
+    curl -s "$1/actuator/prometheus" | awk '/^petcare_vthreads_pinned_seconds_count/ {sum += $2} END {print sum + 0}'
+}
+
+echo "| Modo | Endpoint | Concurrencia | req/s | p99 (ms) | Errores |"
+echo "|------|----------|--------------|-------|----------|---------|"
+
+for mode in platform virtual; do
+    if [ "$mode" = "platform" ]; then url=$PLATFORM_URL; else url=$VIRTUAL_URL; fi
+
+    tracking_number=$(create_package "$url")
+    if [ -z "$tracking_number" ]; then
+        echo "❌ ERROR: no se pudo crear un paquete en $url"
+        exit 1
+    fi
+
+    # Consulta en caché (CPU) y consulta paginada que siempre va a MongoDB (bloqueante)
+    endpoints="tracking=$url/api/tracking/$tracking_number status=$url/api/packages/status/$STATUS?page=0&size=20&view=summary"
+
+    for endpoint in $endpoints; do
+        name=${endpoint%%=*}
+        target=${endpoint#*=}
+        for concurrency in $CONCURRENCY_LEVELS; do
+            read -r rps p99 errors <<< "$(run_load "$target" "$concurrency")"
+            echo "| $mode | $name | $concurrency | $rps | $p99 | $errors |"
+        done
+    done
+
+    if [ "$mode" = "virtual" ]; then
+        echo ""
+        echo "Eventos de pinning registrados en la instancia virtual: $(pinned_count "$url")"
+    fi
+done